@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+/**
+ * Program debugged by the benchmarks that need a target VM.
+ */
+public class BenchmarkTarget {
+
+	/**
+	 * Suspends the main thread in {@link #suspendHere()} with {@link #DEPTH}
+	 * frames on the stack.
+	 */
+	public static final String SUSPEND = "suspend"; //$NON-NLS-1$
+
+	/**
+	 * Calls {@link #tick()} in an endless loop.
+	 */
+	public static final String EVENTS = "events"; //$NON-NLS-1$
+
+	public static final int DEPTH = 64;
+
+	static Fields fields = new Fields();
+	static int counter;
+
+	public static void main(String[] args) {
+		if (EVENTS.equals(args[0])) {
+			while (true) {
+				tick();
+			}
+		}
+		recurse(DEPTH);
+	}
+
+	static void recurse(int depth) {
+		if (depth == 0) {
+			suspendHere();
+		} else {
+			recurse(depth - 1);
+		}
+	}
+
+	static void suspendHere() {
+		counter++;
+	}
+
+	static void tick() {
+		counter++;
+	}
+
+	/**
+	 * Object with fields of all kinds of values
+	 */
+	static class Fields {
+		int i0 = 0, i1 = 1, i2 = 2, i3 = 3, i4 = 4, i5 = 5, i6 = 6, i7 = 7;
+		long l0 = 0, l1 = 1, l2 = 2, l3 = 3, l4 = 4, l5 = 5, l6 = 6, l7 = 7;
+		String s0 = "0", s1 = "1", s2 = "2", s3 = "3", s4 = "4", s5 = "5", s6 = "6", s7 = "7"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+		Object o0 = new Object(), o1 = new Object(), o2 = new Object(), o3 = new Object();
+		Object o4 = new Object(), o5 = new Object(), o6 = new Object(), o7 = new Object();
+	}
+}
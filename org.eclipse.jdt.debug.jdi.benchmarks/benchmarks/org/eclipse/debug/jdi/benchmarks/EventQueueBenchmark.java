@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.jdi.event.EventQueue;
+import com.sun.jdi.event.EventSet;
+
+/**
+ * Breakpoint hits dispatched through the event queue: resuming the suspended
+ * thread, receiving the composite event and creating its event set. See
+ * {@link TargetVM}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+
+	private TargetVM fTarget;
+	private EventQueue fQueue;
+	private EventSet fEventSet;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fTarget = new TargetVM(BenchmarkTarget.EVENTS);
+		fEventSet = fTarget.runTo("tick"); //$NON-NLS-1$
+		fQueue = fTarget.getVM().eventQueue();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		fTarget.close();
+	}
+
+	@Benchmark
+	public EventSet breakpointHit() throws InterruptedException {
+		fEventSet.resume();
+		fEventSet = fQueue.remove();
+		return fEventSet;
+	}
+}
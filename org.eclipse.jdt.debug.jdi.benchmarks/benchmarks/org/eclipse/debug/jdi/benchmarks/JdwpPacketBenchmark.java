@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdi.internal.jdwp.JdwpPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding of command packets and decoding of reply packets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdwpPacketBenchmark {
+
+	/**
+	 * Size of the packet data in bytes
+	 */
+	@Param({ "0", "64", "4096" })
+	public int dataSize;
+
+	private JdwpCommandPacket fCommand;
+	private byte[] fReply;
+
+	@Setup
+	public void setUp() throws IOException {
+		fCommand = new JdwpCommandPacket(JdwpCommandPacket.TR_FRAMES);
+		fCommand.setData(new byte[dataSize]);
+		fReply = replyBytes(1, new byte[dataSize]);
+	}
+
+	/**
+	 * Returns the bytes of a reply packet without error as received from the VM.
+	 */
+	static byte[] replyBytes(int id, byte[] data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(11 + data.length);
+		out.writeInt(id);
+		out.writeByte(JdwpPacket.FLAG_REPLY_PACKET);
+		out.writeShort(0);
+		out.write(data);
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] encodeCommand() throws IOException {
+		return fCommand.getPacketAsBytes();
+	}
+
+	@Benchmark
+	public JdwpPacket decodeReply() throws IOException {
+		return JdwpPacket.build(fReply);
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+import com.sun.jdi.event.BreakpointEvent;
+
+/**
+ * Round trips of requests to a suspended thread, see {@link TargetVM}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MirrorBenchmark {
+
+	private TargetVM fTarget;
+	private ThreadReference fThread;
+	private ObjectReference fObject;
+	private List<Field> fFields;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fTarget = new TargetVM(BenchmarkTarget.SUSPEND);
+		BreakpointEvent event = (BreakpointEvent) fTarget.runTo("suspendHere").iterator().next(); //$NON-NLS-1$
+		fThread = event.thread();
+		ClassType type = (ClassType) event.location().declaringType();
+		fObject = (ObjectReference) type.getValue(type.fieldByName("fields")); //$NON-NLS-1$
+		fFields = fObject.referenceType().allFields();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		fTarget.close();
+	}
+
+	/**
+	 * All frames of a thread suspended {@link BenchmarkTarget#DEPTH} calls deep
+	 */
+	@Benchmark
+	public List<StackFrame> threadFrames() throws IncompatibleThreadStateException {
+		return fThread.frames();
+	}
+
+	/**
+	 * The values of all fields of an object
+	 */
+	@Benchmark
+	public Map<Field, Value> objectGetValues() {
+		return fObject.getValues(fFields);
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.connect.PacketReceiveManager;
+import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sun.jdi.connect.spi.Connection;
+
+/**
+ * Matching of received replies to the waiting requests. Every operation
+ * receives the given number of replies, which are collected in the reverse
+ * order of their arrival.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketReceiveManagerBenchmark {
+
+	/**
+	 * Number of replies received before they are collected
+	 */
+	@Param({ "1", "16", "256" })
+	public int outstanding;
+
+	private QueueConnection fConnection;
+	private PacketReceiveManager fManager;
+	private byte[][] fReplies;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		fConnection = new QueueConnection();
+		fManager = new PacketReceiveManager(fConnection, null);
+		Thread receiver = new Thread(fManager, "Packet Receive Manager"); //$NON-NLS-1$
+		receiver.setDaemon(true);
+		receiver.start();
+		fReplies = new byte[outstanding][];
+		for (int i = 0; i < outstanding; i++) {
+			fReplies[i] = JdwpPacketBenchmark.replyBytes(outstanding - i, new byte[16]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		fConnection.close();
+		fManager.disconnectVM();
+	}
+
+	@Benchmark
+	public void matchReplies(Blackhole blackhole) {
+		for (byte[] reply : fReplies) {
+			fConnection.fPackets.add(reply);
+		}
+		for (int id = 1; id <= outstanding; id++) {
+			JdwpReplyPacket packet = fManager.getReply(id, 10000);
+			blackhole.consume(packet);
+		}
+	}
+
+	/**
+	 * Connection that receives the packets added to its queue.
+	 */
+	static class QueueConnection extends Connection {
+		private static final byte[] CLOSED = new byte[0];
+		final BlockingQueue<byte[]> fPackets = new LinkedBlockingQueue<>();
+		private volatile boolean fOpen = true;
+
+		@Override
+		public byte[] readPacket() throws IOException {
+			try {
+				byte[] packet = fPackets.take();
+				if (packet == CLOSED) {
+					throw new IOException("closed"); //$NON-NLS-1$
+				}
+				return packet;
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void writePacket(byte[] packet) {
+		}
+
+		@Override
+		public void close() {
+			fOpen = false;
+			fPackets.add(CLOSED);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return fOpen;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.Bootstrap;
+import org.eclipse.jdi.internal.spy.JdwpRecording;
+import org.eclipse.jdi.internal.spy.JdwpReplayServer;
+import org.eclipse.jdi.internal.spy.TcpipSpy;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Location;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.AttachingConnector;
+import com.sun.jdi.connect.Connector.Argument;
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+
+/**
+ * The Eclipse JDI client connected to {@link BenchmarkTarget}.
+ * <p>
+ * By default the target runs in a forked local VM. The following system
+ * properties of the benchmark VM (pass them with <code>-jvmArgs</code>) change
+ * the connection:
+ * </p>
+ * <ul>
+ * <li><code>jdi.benchmarks.record=&lt;file&gt;</code> records the session with
+ * {@link TcpipSpy}, the readable trace is written next to the capture.</li>
+ * <li><code>jdi.benchmarks.capture=&lt;file&gt;</code> answers the client with
+ * a {@link JdwpReplayServer} instead of a VM. Capture a short run of the same
+ * benchmark first, identical commands are answered with the last recorded
+ * reply.</li>
+ * </ul>
+ */
+class TargetVM {
+
+	static final String RECORD = "jdi.benchmarks.record"; //$NON-NLS-1$
+	static final String CAPTURE = "jdi.benchmarks.capture"; //$NON-NLS-1$
+
+	private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+	private Process fProcess;
+	private JdwpReplayServer fReplayServer;
+	private final VirtualMachine fVM;
+
+	/**
+	 * Connects to a target running in the given mode.
+	 *
+	 * @param mode
+	 *            {@link BenchmarkTarget#SUSPEND} or
+	 *            {@link BenchmarkTarget#EVENTS}
+	 */
+	TargetVM(String mode) throws Exception {
+		String capture = System.getProperty(CAPTURE);
+		int port;
+		if (capture != null) {
+			fReplayServer = new JdwpReplayServer(JdwpRecording.read(new File(capture)), 0);
+			fReplayServer.start();
+			port = fReplayServer.getPort();
+		} else {
+			port = launch(mode);
+			String record = System.getProperty(RECORD);
+			if (record != null) {
+				port = record(record, port);
+			}
+		}
+		fVM = attach(port);
+	}
+
+	/**
+	 * Forks a VM running the target, which waits for the debugger.
+	 *
+	 * @return the port of the VM
+	 */
+	private int launch(String mode) throws IOException {
+		int port = freePort();
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		fProcess = new ProcessBuilder(java, "-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=127.0.0.1:" + port, //$NON-NLS-1$
+				"-cp", System.getProperty("java.class.path"), BenchmarkTarget.class.getName(), mode).redirectErrorStream(true).start(); //$NON-NLS-1$ //$NON-NLS-2$
+		// the agent announces when it listens for the debugger
+		BufferedReader reader = new BufferedReader(new InputStreamReader(fProcess.getInputStream()));
+		String line = reader.readLine();
+		if (line == null || !line.startsWith("Listening")) { //$NON-NLS-1$
+			throw new IOException("Target VM failed to start: " + line); //$NON-NLS-1$
+		}
+		return port;
+	}
+
+	/**
+	 * Starts a {@link TcpipSpy} recording the session between the client and
+	 * the VM.
+	 *
+	 * @return the port of the spy
+	 */
+	private int record(String capture, int vmPort) throws IOException {
+		int port = freePort();
+		String[] args = { "-record", capture, Integer.toString(port), "127.0.0.1", Integer.toString(vmPort), capture + ".txt" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		Thread spy = new Thread(() -> TcpipSpy.main(args), "TcpipSpy"); //$NON-NLS-1$
+		spy.setDaemon(true);
+		spy.start();
+		return port;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static VirtualMachine attach(int port) throws Exception {
+		AttachingConnector connector = null;
+		for (AttachingConnector candidate : Bootstrap.virtualMachineManager().attachingConnectors()) {
+			if (candidate.transport().name().equals("dt_socket")) { //$NON-NLS-1$
+				connector = candidate;
+			}
+		}
+		Map<String, Argument> args = connector.defaultArguments();
+		args.get("hostname").setValue("127.0.0.1"); //$NON-NLS-1$ //$NON-NLS-2$
+		args.get("port").setValue(Integer.toString(port)); //$NON-NLS-1$
+		long end = System.currentTimeMillis() + CONNECT_TIMEOUT;
+		while (true) {
+			try {
+				return connector.attach(args);
+			} catch (IOException e) {
+				// the spy may not listen yet
+				if (System.currentTimeMillis() > end) {
+					throw e;
+				}
+				Thread.sleep(50);
+			}
+		}
+	}
+
+	VirtualMachine getVM() {
+		return fVM;
+	}
+
+	/**
+	 * Resumes the target until the given method of {@link BenchmarkTarget} is
+	 * entered.
+	 *
+	 * @param method
+	 *            the name of the method
+	 * @return the event set of the breakpoint event, which suspended the thread
+	 *         hitting the breakpoint
+	 */
+	EventSet runTo(String method) throws InterruptedException {
+		ClassPrepareRequest prepare = fVM.eventRequestManager().createClassPrepareRequest();
+		prepare.addClassFilter(BenchmarkTarget.class.getName());
+		prepare.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+		prepare.enable();
+		fVM.resume();
+		ClassType type = null;
+		while (type == null) {
+			EventSet set = fVM.eventQueue().remove();
+			for (Event event : set) {
+				if (event instanceof ClassPrepareEvent) {
+					type = (ClassType) ((ClassPrepareEvent) event).referenceType();
+				}
+			}
+			if (type == null) {
+				set.resume();
+			}
+		}
+		prepare.disable();
+		Location location = type.methodsByName(method).get(0).location();
+		BreakpointRequest breakpoint = fVM.eventRequestManager().createBreakpointRequest(location);
+		breakpoint.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+		breakpoint.enable();
+		fVM.resume();
+		while (true) {
+			EventSet set = fVM.eventQueue().remove();
+			for (Event event : set) {
+				if (event instanceof BreakpointEvent) {
+					return set;
+				}
+			}
+			set.resume();
+		}
+	}
+
+	/**
+	 * Disconnects from the target and terminates it.
+	 */
+	void close() throws IOException {
+		try {
+			fVM.dispose();
+		} finally {
+			if (fProcess != null) {
+				fProcess.destroy();
+			}
+			if (fReplayServer != null) {
+				fReplayServer.close();
+			}
+		}
+	}
+}
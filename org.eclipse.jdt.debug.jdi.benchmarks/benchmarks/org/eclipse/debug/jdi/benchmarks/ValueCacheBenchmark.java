@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdi.internal.ValueCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups and insertions of the cache used for mirrors of the VM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueCacheBenchmark {
+
+	/**
+	 * Number of entries in the cache
+	 */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private ValueCache fCache;
+	private Long[] fKeys;
+	private Object[] fValues;
+	private int fNext;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		fCache = new ValueCache();
+		fKeys = new Long[size];
+		fValues = new Object[size];
+		for (int i = 0; i < size; i++) {
+			fKeys[i] = Long.valueOf(i * 31L);
+			fValues[i] = new Object();
+			fCache.put(fKeys[i], fValues[i]);
+		}
+	}
+
+	@Benchmark
+	public Object get() {
+		fNext = (fNext + 1) % size;
+		return fCache.get(fKeys[fNext]);
+	}
+
+	@Benchmark
+	public void put() {
+		fNext = (fNext + 1) % size;
+		fCache.put(fKeys[fNext], fValues[fNext]);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -97,6 +97,12 @@ public class AutomatedSuite extends TestSuite {
 		addTest(new TestSuite(MonitorFrameInfoTests.class));
 		addTest(new TestSuite(ProvideArgumentsTests.class));
 		addTest(new TestSuite(ContendedMonitorTests.class));
+		addTest(new TestSuite(ClassFileProviderTests.class));
+		addTest(new TestSuite(MetadataCacheTests.class));
+		addTest(new TestSuite(NameIndexTests.class));
+		addTest(new TestSuite(JdwpRecordingTests.class));
+		addTest(new TestSuite(RequestCoalescingTests.class));
+		addTest(new TestSuite(LineTableTests.class));
 	}
 
 }
@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdi.JdwpMetrics;
+import org.eclipse.jdi.internal.ClassFileProvider;
+import org.eclipse.jdi.internal.ReferenceTypeImpl;
+import org.eclipse.jdi.internal.VirtualMachineImpl;
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.Location;
+import com.sun.jdi.Method;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VirtualMachine;
+
+/**
+ * Tests answering the queries for the line tables and local variables of a
+ * type from a local class file, which is only used if it matches the loaded
+ * type.
+ */
+public class ClassFileProviderTests extends AbstractJDITest {
+
+	static final String MAIN_CLASS = "org.eclipse.debug.jdi.tests.program.MainClass";
+
+	/**
+	 * Provides the given class file for the main class.
+	 */
+	static class Provider implements ClassFileProvider {
+		byte[] fClassFile;
+		int fRequests = 0;
+
+		Provider(byte[] classFile) {
+			fClassFile = classFile;
+		}
+
+		@Override
+		public byte[] getClassFile(String typeName) {
+			if (!MAIN_CLASS.equals(typeName)) {
+				return null;
+			}
+			fRequests++;
+			return fClassFile;
+		}
+	}
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		waitUntilReady();
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new ClassFileProviderTests().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Class file provider tests";
+	}
+
+	/**
+	 * Test that the line tables and local variables of the main class are
+	 * read from its class file, which is checked with a sample of line
+	 * tables.
+	 */
+	public void testMatchingClassFile() throws Exception {
+		List<String> expected = lineLocations(getMainClass());
+		Provider provider = new Provider(readMainClassFile());
+		((VirtualMachineImpl) fVM).setClassFileProvider(provider);
+		flush(getMainClass());
+		JdwpMetrics before = ((VirtualMachineImpl) fVM).getJdwpMetrics();
+		assertEquals("1", expected, lineLocations(getMainClass()));
+		assertTrue("2", requests(fVM, before, JdwpCommandPacket.M_LINE_TABLE) <= 2);
+		assertEquals("3", 1, provider.fRequests);
+		assertEquals("4", 0, variableTableRequests(fVM, getMainClass()));
+	}
+
+	/**
+	 * Test that the source name is read without checking the class file.
+	 */
+	public void testSourceName() throws Exception {
+		String expected = getMainClass().sourceName();
+		Provider provider = new Provider(readMainClassFile());
+		((VirtualMachineImpl) fVM).setClassFileProvider(provider);
+		flush(getMainClass());
+		assertEquals("1", expected, getMainClass().sourceName());
+		assertEquals("2", 0, provider.fRequests);
+	}
+
+	/**
+	 * Test that a class file in which a line has been inserted, shifting the
+	 * line numbers of the following methods, is not used.
+	 */
+	public void testInsertedLine() throws Exception {
+		List<String> expected = lineLocations(getMainClass());
+		byte[] classFile = readMainClassFile();
+		byte[] edited = editLineNumberTables(classFile, new LineNumberTableEditor() {
+			boolean fShifted = false;
+
+			@Override
+			public void edit(String name, String descriptor, int codeLength, int[] codeIndexes, int[] lines) {
+				fShifted |= name.equals("invoke3");
+				if (fShifted) {
+					for (int i = 0; i < lines.length; i++) {
+						lines[i]++;
+					}
+				}
+			}
+		});
+		assertFalse("1", Arrays.equals(classFile, edited));
+		Provider provider = new Provider(edited);
+		((VirtualMachineImpl) fVM).setClassFileProvider(provider);
+		flush(getMainClass());
+		assertEquals("2", expected, lineLocations(getMainClass()));
+		assertEquals("3", 1, provider.fRequests);
+		assertTrue("4", variableTableRequests(fVM, getMainClass()) > 0);
+	}
+
+	/**
+	 * Test that a class file in which only the line numbers of the queried
+	 * method differ is not used.
+	 */
+	public void testEditedMethod() throws Exception {
+		Method method = getMainClass().methodsByName("invoke3").get(0);
+		List<Location> expected = method.allLineLocations();
+		byte[] classFile = readMainClassFile();
+		byte[] edited = shiftLines(classFile, "invoke3");
+		assertFalse("1", Arrays.equals(classFile, edited));
+		Provider provider = new Provider(edited);
+		((VirtualMachineImpl) fVM).setClassFileProvider(provider);
+		flush(getMainClass());
+		method = getMainClass().methodsByName("invoke3").get(0);
+		List<Location> locations = method.allLineLocations();
+		assertEquals("2", expected.size(), locations.size());
+		for (int i = 0; i < locations.size(); i++) {
+			assertEquals("3", expected.get(i).lineNumber(), locations.get(i).lineNumber());
+		}
+		assertEquals("4", 1, provider.fRequests);
+		assertTrue("5", variableTableRequests(fVM, getMainClass()) > 0);
+	}
+
+	/**
+	 * Test that a malformed class file is not used.
+	 */
+	public void testMalformedClassFile() throws Exception {
+		List<String> expected = lineLocations(getMainClass());
+		byte[] classFile = readMainClassFile();
+		Provider provider = new Provider(Arrays.copyOf(classFile, classFile.length / 2));
+		((VirtualMachineImpl) fVM).setClassFileProvider(provider);
+		flush(getMainClass());
+		assertEquals("1", expected, lineLocations(getMainClass()));
+		assertEquals("2", 1, provider.fRequests);
+		assertTrue("3", variableTableRequests(fVM, getMainClass()) > 0);
+	}
+
+	/**
+	 * Discards the metadata of the given type, so that it is read again.
+	 */
+	static void flush(ReferenceType type) {
+		((ReferenceTypeImpl) type).flushStoredJdwpResults();
+	}
+
+	/**
+	 * Returns the method, code index and line number of all line locations of
+	 * the given type.
+	 */
+	static List<String> lineLocations(ReferenceType type) throws AbsentInformationException {
+		List<String> locations = new ArrayList<>();
+		for (Location location : type.allLineLocations()) {
+			locations.add(location.method().name() + location.method().signature() + '@' + location.codeIndex() + ':' + location.lineNumber());
+		}
+		return locations;
+	}
+
+	/**
+	 * Returns the number of local variable table requests sent by the given
+	 * VM to retrieve the variables of all methods of the given type.
+	 */
+	static long variableTableRequests(VirtualMachine vm, ReferenceType type) {
+		JdwpMetrics before = ((VirtualMachineImpl) vm).getJdwpMetrics();
+		for (Method method : type.methods()) {
+			try {
+				method.variables();
+			} catch (AbsentInformationException e) {
+				// abstract and native methods have no variables
+			}
+		}
+		return requests(vm, before, JdwpCommandPacket.M_VARIABLE_TABLE, JdwpCommandPacket.M_VARIABLE_TABLE_WITH_GENERIC);
+	}
+
+	/**
+	 * Returns the number of requests with the given commands sent by the
+	 * given VM since the given metrics were taken.
+	 */
+	static long requests(VirtualMachine vm, JdwpMetrics before, int... commands) {
+		long requests = 0;
+		for (JdwpMetrics.CommandMetrics command : ((VirtualMachineImpl) vm).getJdwpMetrics().since(before).getCommandMetrics()) {
+			for (int each : commands) {
+				if (command.getCommand() == each) {
+					requests += command.getCount();
+				}
+			}
+		}
+		return requests;
+	}
+
+	/**
+	 * Returns the contents of the class file of the main class.
+	 */
+	static byte[] readMainClassFile() throws IOException {
+		String path = MAIN_CLASS.replace('.', '/') + ".class";
+		for (String entry : fClassPath.split(File.pathSeparator)) {
+			File file = new File(entry, path);
+			if (file.isFile()) {
+				return Files.readAllBytes(file.toPath());
+			}
+		}
+		throw new IOException("Class file not found: " + path);
+	}
+
+	/**
+	 * Edits the line number tables of the methods of a class file.
+	 */
+	interface LineNumberTableEditor {
+		/**
+		 * Edits the line number table of the given method in place, entries
+		 * can be changed but not added or removed.
+		 */
+		void edit(String name, String descriptor, int codeLength, int[] codeIndexes, int[] lines);
+	}
+
+	/**
+	 * Returns a copy of the given class file in which the line numbers of the
+	 * methods with the given name are incremented. The constant pool is not
+	 * changed.
+	 */
+	static byte[] shiftLines(byte[] classFile, String methodName) {
+		return editLineNumberTables(classFile, new LineNumberTableEditor() {
+			@Override
+			public void edit(String name, String descriptor, int codeLength, int[] codeIndexes, int[] lines) {
+				if (name.equals(methodName)) {
+					for (int i = 0; i < lines.length; i++) {
+						lines[i]++;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns a copy of the given class file in which the line number tables
+	 * of all methods have been passed to the given editor. The constant pool
+	 * is not changed.
+	 */
+	static byte[] editLineNumberTables(byte[] classFile, LineNumberTableEditor editor) {
+		byte[] bytes = classFile.clone();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.position(8);
+		int count = buffer.getShort() & 0xFFFF;
+		String[] utf8 = new String[count];
+		for (int i = 1; i < count; i++) {
+			int tag = buffer.get();
+			switch (tag) {
+				case 1: // UTF8
+					int length = buffer.getShort() & 0xFFFF;
+					utf8[i] = new String(bytes, buffer.position(), length, StandardCharsets.UTF_8);
+					skip(buffer, length);
+					break;
+				case 5: // long
+				case 6: // double
+					skip(buffer, 8);
+					i++;
+					break;
+				case 7: // class
+				case 8: // string
+				case 16: // method type
+				case 19: // module
+				case 20: // package
+					skip(buffer, 2);
+					break;
+				case 15: // method handle
+					skip(buffer, 3);
+					break;
+				default:
+					skip(buffer, 4);
+					break;
+			}
+		}
+		// access flags, this class and super class
+		skip(buffer, 6);
+		skip(buffer, (buffer.getShort() & 0xFFFF) * 2);
+		int fieldsCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < fieldsCount; i++) {
+			skip(buffer, 6);
+			skipAttributes(buffer);
+		}
+		int methodsCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < methodsCount; i++) {
+			skip(buffer, 2);
+			String name = utf8[buffer.getShort() & 0xFFFF];
+			String descriptor = utf8[buffer.getShort() & 0xFFFF];
+			int attributesCount = buffer.getShort() & 0xFFFF;
+			for (int j = 0; j < attributesCount; j++) {
+				String attribute = utf8[buffer.getShort() & 0xFFFF];
+				int length = buffer.getInt();
+				int end = buffer.position() + length;
+				if (attribute.equals("Code")) {
+					// max stack and max locals
+					skip(buffer, 4);
+					int codeLength = buffer.getInt();
+					skip(buffer, codeLength);
+					skip(buffer, (buffer.getShort() & 0xFFFF) * 8);
+					int codeAttributesCount = buffer.getShort() & 0xFFFF;
+					for (int k = 0; k < codeAttributesCount; k++) {
+						String codeAttribute = utf8[buffer.getShort() & 0xFFFF];
+						int codeAttributeLength = buffer.getInt();
+						int codeAttributeEnd = buffer.position() + codeAttributeLength;
+						if (codeAttribute.equals("LineNumberTable")) {
+							int entries = buffer.getShort() & 0xFFFF;
+							int table = buffer.position();
+							int[] codeIndexes = new int[entries];
+							int[] lines = new int[entries];
+							for (int l = 0; l < entries; l++) {
+								codeIndexes[l] = buffer.getShort() & 0xFFFF;
+								lines[l] = buffer.getShort() & 0xFFFF;
+							}
+							editor.edit(name, descriptor, codeLength, codeIndexes, lines);
+							buffer.position(table);
+							for (int l = 0; l < entries; l++) {
+								buffer.putShort((short) codeIndexes[l]);
+								buffer.putShort((short) lines[l]);
+							}
+						}
+						buffer.position(codeAttributeEnd);
+					}
+				}
+				buffer.position(end);
+			}
+		}
+		return bytes;
+	}
+
+	private static void skipAttributes(ByteBuffer buffer) {
+		int count = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < count; i++) {
+			skip(buffer, 2);
+			skip(buffer, buffer.getInt());
+		}
+	}
+
+	private static void skip(ByteBuffer buffer, int length) {
+		buffer.position(buffer.position() + length);
+	}
+}
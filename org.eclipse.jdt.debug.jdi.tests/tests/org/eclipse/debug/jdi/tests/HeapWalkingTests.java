@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -170,6 +170,11 @@ public class HeapWalkingTests extends AbstractJDITest {
 		List<?> list = fClass1.instances(10);
 		assertNotNull("list should not be null", list);
 		assertTrue("list should have two enrtries", list.size() == 2);
+		for (Object instance : list) {
+			assertEquals("instance should be of RefClass1", fClass1, ((ObjectReference) instance).referenceType());
+		}
+		assertEquals("accessing an instance again should return an equal mirror", list.get(0), list.get(0));
+		assertEquals("list should be limited to the given max", 1, fClass1.instances(1).size());
 	}
 
 	/**
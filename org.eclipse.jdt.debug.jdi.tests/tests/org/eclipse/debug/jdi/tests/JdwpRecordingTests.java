@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdi.Bootstrap;
+import org.eclipse.jdi.internal.spy.JdwpRecording;
+import org.eclipse.jdi.internal.spy.JdwpReplayServer;
+import org.eclipse.jdi.internal.spy.TcpipSpy;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.Location;
+import com.sun.jdi.Method;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.AttachingConnector;
+import com.sun.jdi.connect.Connector.Argument;
+import com.sun.jdi.connect.IllegalConnectorArgumentsException;
+
+/**
+ * Tests recording a debug session with {@link TcpipSpy} and answering the
+ * same session from the capture with {@link JdwpReplayServer}.
+ */
+public class JdwpRecordingTests extends AbstractJDITest {
+
+	private File fCapture;
+	private File fTrace;
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		waitUntilReady();
+		try {
+			fCapture = File.createTempFile("session", ".jdwp");
+			fTrace = File.createTempFile("session", ".txt");
+		} catch (IOException e) {
+			assertTrue("localSetUp", false);
+		}
+	}
+
+	/**
+	 * Deletes the files written by the test.
+	 */
+	@Override
+	public void localTearDown() {
+		super.localTearDown();
+		fCapture.delete();
+		fTrace.delete();
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new JdwpRecordingTests().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "JDWP recording tests";
+	}
+
+	/**
+	 * Test that a session recorded through the spy is answered the same way by
+	 * the replay server, and that the spy ends with the session.
+	 */
+	public void testRecordAndReplay() throws Exception {
+		// the target accepts a new connection once this one is closed
+		fVM.dispose();
+		try {
+			final int spyPort = freePort();
+			Thread spy = new Thread("JDWP spy") {
+				@Override
+				public void run() {
+					TcpipSpy.main(new String[] { "-record", fCapture.getAbsolutePath(), String.valueOf(spyPort), "localhost",
+							String.valueOf(fBackEndPort), fTrace.getAbsolutePath() });
+				}
+			};
+			spy.setDaemon(true);
+			spy.start();
+			VirtualMachine vm = attach(spyPort);
+			List<String> recorded = session(vm);
+			vm.dispose();
+			spy.join(10000);
+			assertFalse("1", spy.isAlive());
+
+			JdwpRecording recording = JdwpRecording.read(fCapture);
+			assertTrue("2", recording.hasSizes());
+			assertFalse("3", recording.getRecords().isEmpty());
+
+			JdwpReplayServer server = new JdwpReplayServer(recording, 0);
+			server.start();
+			vm = attach(server.getPort());
+			assertEquals("4", recorded, session(vm));
+			vm.dispose();
+			server.join(10000);
+			assertFalse("5", server.isAlive());
+			assertEquals("6", 0, server.getUnmatchedCount());
+		} finally {
+			connectToVM();
+		}
+	}
+
+	/**
+	 * Queries the given VM and returns the results.
+	 */
+	private List<String> session(VirtualMachine vm) throws AbsentInformationException {
+		List<String> result = new ArrayList<>();
+		result.add(vm.name());
+		result.add(vm.version());
+		for (ThreadReference thread : vm.allThreads()) {
+			result.add(thread.name());
+		}
+		ReferenceType type = vm.classesByName(getMainClassName()).get(0);
+		for (Method method : type.methods()) {
+			result.add(method.name() + method.signature());
+		}
+		for (Location location : type.allLineLocations()) {
+			result.add(location.method().name() + ":" + location.lineNumber());
+		}
+		return result;
+	}
+
+	/**
+	 * Attaches to the VM or server listening on the given port, which may not
+	 * be listening yet.
+	 */
+	private VirtualMachine attach(int port) throws IllegalConnectorArgumentsException, InterruptedException {
+		AttachingConnector connector = Bootstrap.virtualMachineManager().attachingConnectors().get(0);
+		Map<String, Argument> args = connector.defaultArguments();
+		args.get("port").setValue(String.valueOf(port));
+		args.get("hostname").setValue("localhost");
+		for (int i = 0; i < 10; i++) {
+			try {
+				return connector.attach(args);
+			} catch (IOException e) {
+				Thread.sleep(200);
+			}
+		}
+		fail("Could not attach to port " + port);
+		return null;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
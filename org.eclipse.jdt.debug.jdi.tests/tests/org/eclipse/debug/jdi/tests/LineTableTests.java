@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.sun.jdi.Location;
+import com.sun.jdi.Method;
+import com.sun.jdi.ReferenceType;
+
+/**
+ * Tests the line locations and line numbers answered from the line tables of
+ * the methods, compared with the line number tables of the class file. The
+ * tables may have entries in any order and several entries at a code index.
+ */
+public class LineTableTests extends AbstractJDITest {
+
+	/**
+	 * Method whose line number table is edited, not running while the tests
+	 * run
+	 */
+	private static final String METHOD = "triggerEvent";
+	private static final String SIGNATURE = "()V";
+
+	/**
+	 * Line number table of a method in a class file, answering the queries as
+	 * the line tables of the methods were answered before they were sorted
+	 */
+	private static final class Table {
+		private final int fCodeLength;
+		private final int[] fCodeIndexes;
+		private final int[] fLines;
+
+		Table(int codeLength, int[] codeIndexes, int[] lines) {
+			fCodeLength = codeLength;
+			fCodeIndexes = codeIndexes.clone();
+			fLines = lines.clone();
+		}
+
+		Set<Integer> lines() {
+			Set<Integer> lines = new TreeSet<>();
+			for (int line : fLines) {
+				lines.add(Integer.valueOf(line));
+			}
+			return lines;
+		}
+
+		List<Long> allLineLocations() {
+			long[] codeIndexes = sortedCodeIndexes();
+			List<Long> locations = new ArrayList<>();
+			for (long codeIndex : codeIndexes) {
+				locations.add(Long.valueOf(codeIndex));
+			}
+			return locations;
+		}
+
+		List<Long> locationsOfLine(int line) {
+			Set<Long> lineIndexes = new TreeSet<>();
+			for (int i = 0; i < fLines.length; i++) {
+				if (fLines[i] == line) {
+					lineIndexes.add(Long.valueOf(fCodeIndexes[i]));
+				}
+			}
+			long[] codeIndexes = sortedCodeIndexes();
+			List<Long> locations = new ArrayList<>();
+			for (Long index : lineIndexes) {
+				int position = 0;
+				while (codeIndexes[position] != index.longValue()) {
+					position++;
+				}
+				if (position == 0 || !lineIndexes.contains(Long.valueOf(codeIndexes[position - 1]))) {
+					locations.add(index);
+				}
+			}
+			return locations;
+		}
+
+		int lineNumber(long codeIndex) {
+			if (codeIndex > fCodeLength - 1) {
+				return -1;
+			}
+			Map<Long, Integer> codeIndexToLine = new HashMap<>();
+			for (int i = 0; i < fCodeIndexes.length; i++) {
+				codeIndexToLine.put(Long.valueOf(fCodeIndexes[i]), Integer.valueOf(fLines[i]));
+			}
+			for (long index = codeIndex; index >= 0; index--) {
+				Integer line = codeIndexToLine.get(Long.valueOf(index));
+				if (line != null) {
+					return line.intValue();
+				}
+			}
+			for (long index = codeIndex; index < fCodeLength; index++) {
+				Integer line = codeIndexToLine.get(Long.valueOf(index));
+				if (line != null) {
+					return line.intValue();
+				}
+			}
+			return -1;
+		}
+
+		private long[] sortedCodeIndexes() {
+			long[] codeIndexes = new long[fCodeIndexes.length];
+			for (int i = 0; i < codeIndexes.length; i++) {
+				codeIndexes[i] = fCodeIndexes[i];
+			}
+			Arrays.sort(codeIndexes);
+			return codeIndexes;
+		}
+	}
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		waitUntilReady();
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new LineTableTests().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Line table tests";
+	}
+
+	/**
+	 * Test the line locations and line numbers of all methods of the main
+	 * class.
+	 */
+	public void testLineTables() throws Exception {
+		assertLineTables(ClassFileProviderTests.readMainClassFile());
+	}
+
+	/**
+	 * Test that a line table whose entries are not in code index order
+	 * answers the same as the sorted table.
+	 */
+	public void testUnsortedCodeIndexes() throws Exception {
+		if (!fVM.canRedefineClasses()) {
+			return;
+		}
+		byte[] classFile = ClassFileProviderTests.readMainClassFile();
+		List<String> expected = describe(getMethod(METHOD, SIGNATURE));
+		byte[] reversed = ClassFileProviderTests.editLineNumberTables(classFile, new ClassFileProviderTests.LineNumberTableEditor() {
+			@Override
+			public void edit(String name, String descriptor, int codeLength, int[] codeIndexes, int[] lines) {
+				if (name.equals(METHOD) && descriptor.equals(SIGNATURE)) {
+					for (int i = 0, j = codeIndexes.length - 1; i < j; i++, j--) {
+						int codeIndex = codeIndexes[i];
+						int line = lines[i];
+						codeIndexes[i] = codeIndexes[j];
+						lines[i] = lines[j];
+						codeIndexes[j] = codeIndex;
+						lines[j] = line;
+					}
+				}
+			}
+		});
+		redefineMainClass(reversed);
+		try {
+			assertLineTables(reversed);
+			assertEquals("1", expected, describe(getMethod(METHOD, SIGNATURE)));
+		} finally {
+			redefineMainClass(classFile);
+		}
+	}
+
+	/**
+	 * Test that of several entries at a code index the last one gives the
+	 * line number of the code index, and that the code index is a location of
+	 * its line.
+	 */
+	public void testDuplicatedCodeIndexes() throws Exception {
+		if (!fVM.canRedefineClasses()) {
+			return;
+		}
+		byte[] classFile = ClassFileProviderTests.readMainClassFile();
+		int[] duplicate = new int[2];
+		byte[] duplicated = ClassFileProviderTests.editLineNumberTables(classFile, new ClassFileProviderTests.LineNumberTableEditor() {
+			@Override
+			public void edit(String name, String descriptor, int codeLength, int[] codeIndexes, int[] lines) {
+				if (name.equals(METHOD) && descriptor.equals(SIGNATURE)) {
+					int i = 1;
+					while (lines[i] == lines[i - 1]) {
+						i++;
+					}
+					codeIndexes[i] = codeIndexes[i - 1];
+					duplicate[0] = codeIndexes[i];
+					duplicate[1] = lines[i];
+				}
+			}
+		});
+		redefineMainClass(duplicated);
+		try {
+			assertLineTables(duplicated);
+			Method method = getMethod(METHOD, SIGNATURE);
+			assertEquals("1", duplicate[1], method.locationOfCodeIndex(duplicate[0]).lineNumber());
+			assertTrue("2", codeIndexes(method.locationsOfLine(duplicate[1])).contains(Long.valueOf(duplicate[0])));
+		} finally {
+			redefineMainClass(classFile);
+		}
+	}
+
+	/**
+	 * Asserts that the line locations and line numbers of the methods of the
+	 * main class match the line number tables of the given class file.
+	 */
+	private void assertLineTables(byte[] classFile) throws Exception {
+		Map<String, Table> tables = readLineNumberTables(classFile);
+		ReferenceType type = getMainClass();
+		Map<Integer, List<String>> typeLocations = new HashMap<>();
+		for (Map.Entry<String, Table> entry : tables.entrySet()) {
+			String id = entry.getKey();
+			Table table = entry.getValue();
+			int separator = id.indexOf('(');
+			Method method = type.methodsByName(id.substring(0, separator), id.substring(separator)).get(0);
+			assertEquals(id, table.allLineLocations(), codeIndexes(method.allLineLocations()));
+			for (Integer line : table.lines()) {
+				List<Long> expected = table.locationsOfLine(line.intValue());
+				assertEquals(id + ':' + line, expected, codeIndexes(method.locationsOfLine(line.intValue())));
+				List<String> locations = typeLocations.get(line);
+				if (locations == null) {
+					locations = new ArrayList<>();
+					typeLocations.put(line, locations);
+				}
+				for (Long codeIndex : expected) {
+					locations.add(id + '@' + codeIndex);
+				}
+			}
+			for (long codeIndex = 0; codeIndex <= table.fCodeLength; codeIndex++) {
+				assertEquals(id + '@' + codeIndex, table.lineNumber(codeIndex), method.locationOfCodeIndex(codeIndex).lineNumber());
+			}
+		}
+		for (Map.Entry<Integer, List<String>> entry : typeLocations.entrySet()) {
+			List<String> expected = entry.getValue();
+			Collections.sort(expected);
+			List<String> actual = new ArrayList<>();
+			for (Location location : type.locationsOfLine(entry.getKey().intValue())) {
+				actual.add(location.method().name() + location.method().signature() + '@' + location.codeIndex());
+			}
+			Collections.sort(actual);
+			assertEquals(String.valueOf(entry.getKey()), expected, actual);
+		}
+	}
+
+	/**
+	 * Returns the line number tables of the methods of the given class file,
+	 * by method name and descriptor.
+	 */
+	private static Map<String, Table> readLineNumberTables(byte[] classFile) {
+		Map<String, Table> tables = new LinkedHashMap<>();
+		ClassFileProviderTests.editLineNumberTables(classFile, new ClassFileProviderTests.LineNumberTableEditor() {
+			@Override
+			public void edit(String name, String descriptor, int codeLength, int[] codeIndexes, int[] lines) {
+				tables.put(name + descriptor, new Table(codeLength, codeIndexes, lines));
+			}
+		});
+		return tables;
+	}
+
+	/**
+	 * Returns the line locations and the line number of each code index of
+	 * the edited method.
+	 */
+	private static List<String> describe(Method method) throws Exception {
+		List<String> description = new ArrayList<>();
+		for (Location location : method.allLineLocations()) {
+			description.add(location.codeIndex() + ":" + location.lineNumber() + ' ' + codeIndexes(method.locationsOfLine(location.lineNumber())));
+		}
+		long highest = 0;
+		for (Location location : method.allLineLocations()) {
+			highest = Math.max(highest, location.codeIndex());
+		}
+		for (long codeIndex = 0; codeIndex <= highest + 1; codeIndex++) {
+			description.add(codeIndex + ":" + method.locationOfCodeIndex(codeIndex).lineNumber());
+		}
+		return description;
+	}
+
+	private static List<Long> codeIndexes(List<Location> locations) {
+		List<Long> codeIndexes = new ArrayList<>();
+		for (Location location : locations) {
+			codeIndexes.add(Long.valueOf(location.codeIndex()));
+		}
+		return codeIndexes;
+	}
+
+	private void redefineMainClass(byte[] classFile) {
+		ReferenceType type = getMainClass();
+		fVM.redefineClasses(Collections.singletonMap(type, classFile));
+	}
+}
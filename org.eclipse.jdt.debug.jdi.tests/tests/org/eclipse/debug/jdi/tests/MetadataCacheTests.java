@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdi.JdwpMetrics;
+import org.eclipse.jdi.internal.VirtualMachineImpl;
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+
+import com.sun.jdi.ReferenceType;
+
+/**
+ * Tests answering the queries for the line tables and local variables of a
+ * JDK type from the metadata kept across debug sessions, which is only used
+ * for the same JDK build and constant pool.
+ */
+public class MetadataCacheTests extends AbstractJDITest {
+
+	private File fDirectory;
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		waitUntilReady();
+		try {
+			fDirectory = Files.createTempDirectory("metadata").toFile();
+		} catch (IOException e) {
+			assertTrue("localSetUp", false);
+		}
+	}
+
+	/**
+	 * Deletes the metadata kept by the test.
+	 */
+	@Override
+	public void localTearDown() {
+		super.localTearDown();
+		File[] files = fDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fDirectory.delete();
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new MetadataCacheTests().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Metadata cache tests";
+	}
+
+	/**
+	 * Test that the metadata of a JDK type not kept yet is collected from the
+	 * VM and kept.
+	 */
+	public void testMiss() throws Exception {
+		ReferenceType type = jdkType("java.lang.String");
+		List<String> expected = ClassFileProviderTests.lineLocations(type);
+		openCache(type);
+		assertEquals("1", expected, ClassFileProviderTests.lineLocations(type));
+		assertEquals("2", 1, entries());
+	}
+
+	/**
+	 * Test that the metadata of a JDK type kept in an earlier session is used
+	 * without requests for line or local variable tables.
+	 */
+	public void testHit() throws Exception {
+		ReferenceType type = jdkType("java.lang.String");
+		List<String> expected = ClassFileProviderTests.lineLocations(type);
+		openCache(type);
+		ClassFileProviderTests.lineLocations(type);
+		openCache(type);
+		JdwpMetrics before = ((VirtualMachineImpl) fVM).getJdwpMetrics();
+		assertEquals("1", expected, ClassFileProviderTests.lineLocations(type));
+		assertEquals("2", 0, ClassFileProviderTests.requests(fVM, before, JdwpCommandPacket.M_LINE_TABLE));
+		assertEquals("3", 1, ClassFileProviderTests.requests(fVM, before, JdwpCommandPacket.RT_CONSTANT_POOL));
+		assertEquals("4", 0, ClassFileProviderTests.variableTableRequests(fVM, type));
+		assertEquals("5", 1, entries());
+	}
+
+	/**
+	 * Test that the metadata of a type of an application class loader, whose
+	 * class file can change between sessions, is not kept.
+	 */
+	public void testApplicationType() throws Exception {
+		List<String> expected = ClassFileProviderTests.lineLocations(getMainClass());
+		openCache(getMainClass());
+		assertEquals("1", expected, ClassFileProviderTests.lineLocations(getMainClass()));
+		assertEquals("2", 0, entries());
+	}
+
+	/**
+	 * Test that the kept metadata of a JDK type is not used once the type has
+	 * been redefined.
+	 */
+	public void testRedefinedType() throws Exception {
+		if (!fVM.canRedefineClasses()) {
+			return;
+		}
+		ReferenceType type = jdkType("java.lang.Integer");
+		ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+		try (InputStream in = Object.class.getResourceAsStream("/java/lang/Integer.class")) {
+			if (in == null) {
+				return;
+			}
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				classFile.write(buffer, 0, read);
+			}
+		}
+		List<String> expected = ClassFileProviderTests.lineLocations(type);
+		openCache(type);
+		ClassFileProviderTests.lineLocations(type);
+		assertEquals("1", 1, entries());
+
+		fVM.redefineClasses(Collections.singletonMap(type, classFile.toByteArray()));
+		openCache(type);
+		JdwpMetrics before = ((VirtualMachineImpl) fVM).getJdwpMetrics();
+		assertEquals("2", expected, ClassFileProviderTests.lineLocations(type));
+		assertTrue("3", ClassFileProviderTests.requests(fVM, before, JdwpCommandPacket.M_LINE_TABLE) > 0);
+		assertEquals("4", 1, entries());
+	}
+
+	/**
+	 * Starts a session of the metadata cache, the metadata of the given type
+	 * is read again.
+	 */
+	private void openCache(ReferenceType type) {
+		((VirtualMachineImpl) fVM).setMetadataCacheLocation(fDirectory);
+		ClassFileProviderTests.flush(type);
+	}
+
+	/**
+	 * Returns the loaded JDK type with the given name.
+	 */
+	private ReferenceType jdkType(String name) {
+		List<ReferenceType> types = fVM.classesByName(name);
+		assertEquals(name, 1, types.size());
+		return types.get(0);
+	}
+
+	/**
+	 * Returns the number of entries of the metadata cache.
+	 */
+	private int entries() {
+		String[] names = fDirectory.list();
+		int entries = 0;
+		if (names != null) {
+			for (String name : names) {
+				if (name.endsWith(".metadata")) {
+					entries++;
+				}
+			}
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdi.internal.ReferenceTypeImpl;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.Method;
+import com.sun.jdi.ReferenceType;
+
+/**
+ * Tests looking up the methods and fields of a type by name, which are
+ * answered from indexes of the members of the type.
+ */
+public class NameIndexTests extends AbstractJDITest {
+
+	private static final String OTHER_CLASS = "org.eclipse.debug.jdi.tests.program.OtherClass";
+
+	private ClassType fType;
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		waitUntilReady();
+		fType = getClass(OTHER_CLASS);
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new NameIndexTests().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Name index tests";
+	}
+
+	/**
+	 * Test that methodsByName(String) returns the overloads declared in the
+	 * type and in its superclasses, but not the overridden methods.
+	 */
+	public void testMethodsByName() {
+		assertEquals("1", "[OtherClass.overloaded()V, OtherClass.overloaded(I)V]", describe(fType.methodsByName("overloaded")).toString());
+		List<String> printNumber = describe(fType.methodsByName("printNumber"));
+		assertEquals("2", 2, printNumber.size());
+		assertTrue("3", printNumber.contains("OtherClass.printNumber(Ljava/io/OutputStream;J)I"));
+		assertTrue("4", printNumber.contains("MainClass.printNumber(Ljava/io/OutputStream;I)I"));
+		// Date.toString() overrides Object.toString()
+		assertEquals("5", "[Date.toString()Ljava/lang/String;]", describe(fType.methodsByName("toString")).toString());
+		assertEquals("6", 0, fType.methodsByName("fraz").size());
+	}
+
+	/**
+	 * Test that methodsByName(String, String) returns the method with the
+	 * given signature only.
+	 */
+	public void testMethodsByNameAndSignature() {
+		assertEquals("1", "[OtherClass.overloaded(I)V]", describe(fType.methodsByName("overloaded", "(I)V")).toString());
+		assertEquals("2", "[MainClass.printNumber(Ljava/io/OutputStream;I)I]", describe(fType.methodsByName("printNumber", "(Ljava/io/OutputStream;I)I")).toString());
+		assertEquals("3", 0, fType.methodsByName("overloaded", "(J)V").size());
+		assertEquals("4", 0, fType.methodsByName("fraz", "()V").size());
+	}
+
+	/**
+	 * Test that the lists returned by methodsByName can be changed without
+	 * changing the results of later calls.
+	 */
+	public void testModifiedResult() {
+		List<Method> methods = fType.methodsByName("overloaded");
+		methods.clear();
+		assertEquals("1", 2, fType.methodsByName("overloaded").size());
+
+		methods = fType.methodsByName("overloaded", "()V");
+		methods.add(methods.get(0));
+		assertEquals("2", 1, fType.methodsByName("overloaded", "()V").size());
+
+		methods = fType.methodsByName("fraz");
+		methods.add(fType.methodsByName("overloaded").get(0));
+		assertEquals("3", 0, fType.methodsByName("fraz").size());
+	}
+
+	/**
+	 * Test that fieldByName returns the fields declared in the type and
+	 * inherited from its superclasses, and the hiding field for a hidden one.
+	 */
+	public void testFieldByName() {
+		Field field = fType.fieldByName("fInt");
+		assertEquals("1", OTHER_CLASS, field.declaringType().name());
+		assertEquals("2", "J", field.signature());
+		assertEquals("3", getMainClass(), getMainClass().fieldByName("fInt").declaringType());
+
+		assertEquals("4", OTHER_CLASS, fType.fieldByName("fInner").declaringType().name());
+		assertEquals("5", getMainClass(), fType.fieldByName("fString").declaringType());
+		assertNull("6", fType.fieldByName("fraz"));
+	}
+
+	/**
+	 * Test that concreteMethodByName finds the method declared in the type or
+	 * inherited from a superclass, and that methodByNameAndSignature only
+	 * finds the methods declared in the type.
+	 */
+	public void testConcreteMethodByName() {
+		Method method = fType.concreteMethodByName("printNumber", "(Ljava/io/OutputStream;J)I");
+		assertEquals("1", fType, method.declaringType());
+		method = fType.concreteMethodByName("printNumber", "(Ljava/io/OutputStream;I)I");
+		assertEquals("2", getMainClass(), method.declaringType());
+		method = fType.concreteMethodByName("toString", "()Ljava/lang/String;");
+		assertEquals("3", "java.util.Date", method.declaringType().name());
+		assertNull("4", fType.concreteMethodByName("overloaded", "(J)V"));
+
+		ReferenceTypeImpl type = (ReferenceTypeImpl) fType;
+		assertEquals("5", "overloaded", type.methodByNameAndSignature("overloaded", "(I)V").name());
+		assertNull("6", type.methodByNameAndSignature("printNumber", "(Ljava/io/OutputStream;I)I"));
+	}
+
+	/**
+	 * Test that the lookups give the same results as scanning the visible
+	 * methods and fields.
+	 */
+	public void testVisibleMembers() {
+		assertVisibleMembers(fType);
+		assertVisibleMembers(getMainClass());
+		assertVisibleMembers(fVM.classesByName("java.lang.String").get(0));
+	}
+
+	/**
+	 * Test that the lookups give the same results once the stored results of
+	 * the type have been flushed.
+	 */
+	public void testFlush() {
+		List<String> overloaded = describe(fType.methodsByName("overloaded"));
+		List<String> printNumber = describe(fType.methodsByName("printNumber", "(Ljava/io/OutputStream;I)I"));
+		Field field = fType.fieldByName("fInt");
+		ClassFileProviderTests.flush(fType);
+		assertEquals("1", overloaded, describe(fType.methodsByName("overloaded")));
+		assertEquals("2", printNumber, describe(fType.methodsByName("printNumber", "(Ljava/io/OutputStream;I)I")));
+		assertEquals("3", field, fType.fieldByName("fInt"));
+		assertEquals("4", fType, fType.concreteMethodByName("overloaded", "()V").declaringType());
+		assertVisibleMembers(fType);
+	}
+
+	/**
+	 * Asserts that methodsByName and fieldByName return the members found by
+	 * scanning the visible methods and fields of the given type.
+	 */
+	private void assertVisibleMembers(ReferenceType type) {
+		List<Method> visibleMethods = type.visibleMethods();
+		for (Method method : visibleMethods) {
+			List<Method> byName = new ArrayList<>();
+			List<Method> byNameAndSignature = new ArrayList<>();
+			for (Method other : visibleMethods) {
+				if (other.name().equals(method.name())) {
+					byName.add(other);
+					if (other.signature().equals(method.signature())) {
+						byNameAndSignature.add(other);
+					}
+				}
+			}
+			assertEquals(type.name() + "." + method.name(), byName, type.methodsByName(method.name()));
+			assertEquals(type.name() + "." + method.name() + method.signature(), byNameAndSignature, type.methodsByName(method.name(), method.signature()));
+		}
+		List<Field> visibleFields = type.visibleFields();
+		for (Field field : visibleFields) {
+			Field first = null;
+			for (Field other : visibleFields) {
+				if (other.name().equals(field.name())) {
+					first = other;
+					break;
+				}
+			}
+			assertEquals(type.name() + "." + field.name(), first, type.fieldByName(field.name()));
+		}
+	}
+
+	/**
+	 * Returns the simple name of the declaring type, name and signature of the
+	 * given methods.
+	 */
+	private static List<String> describe(List<Method> methods) {
+		List<String> result = new ArrayList<>();
+		for (Method method : methods) {
+			String typeName = method.declaringType().name();
+			result.add(typeName.substring(typeName.lastIndexOf('.') + 1) + "." + method.name() + method.signature());
+		}
+		return result;
+	}
+}
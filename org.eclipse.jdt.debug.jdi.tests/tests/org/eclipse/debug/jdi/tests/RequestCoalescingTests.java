@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.debug.jdi.tests;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.StepEvent;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.StepRequest;
+
+/**
+ * Tests sharing the replies of identical read-only requests in flight, which
+ * must never answer a read issued after a modification or an event with a
+ * value which predates the modification or the event.
+ */
+public class RequestCoalescingTests extends AbstractJDITest {
+
+	private static final int READERS = 8;
+	private static final int WRITES = 500;
+	private static final int STEPS = 200;
+
+	private ClassType fType;
+	private Field fField;
+
+	/**
+	 * Init the fields that are used by this test only.
+	 */
+	@Override
+	public void localSetUp() {
+		waitUntilReady();
+		fType = getMainClass();
+		fField = fType.fieldByName("fInt");
+	}
+
+	/**
+	 * Run all tests and output to standard output.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new RequestCoalescingTests().runSuite(args);
+	}
+
+	/**
+	 * Gets the name of the test case.
+	 * @see junit.framework.TestCase#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Request coalescing tests";
+	}
+
+	/**
+	 * Test that identical reads of a static field issued concurrently with
+	 * modifications of the field see every modification completed before
+	 * they were issued.
+	 */
+	public void testReadsAfterModification() throws Exception {
+		IntegerValue oldValue = (IntegerValue) fType.getValue(fField);
+		// the program does not modify the field meanwhile
+		fVM.suspend();
+		try {
+			fType.setValue(fField, fVM.mirrorOf(0));
+			AtomicInteger written = new AtomicInteger(0);
+			AtomicReference<String> failure = new AtomicReference<>();
+			Thread[] readers = new Thread[READERS];
+			for (int i = 0; i < readers.length; i++) {
+				readers[i] = new Thread("Reader " + i) {
+					@Override
+					public void run() {
+						while (written.get() < WRITES && failure.get() == null) {
+							int floor = written.get();
+							int value = ((IntegerValue) fType.getValue(fField)).value();
+							if (value < floor) {
+								failure.compareAndSet(null, "Read " + value + " after " + floor + " was written");
+							}
+						}
+					}
+				};
+				readers[i].start();
+			}
+			for (int i = 1; i <= WRITES && failure.get() == null; i++) {
+				fType.setValue(fField, fVM.mirrorOf(i));
+				written.set(i);
+			}
+			written.set(WRITES);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+			if (failure.get() != null) {
+				fail(failure.get());
+			}
+			assertEquals("1", WRITES, ((IntegerValue) fType.getValue(fField)).value());
+		} finally {
+			fType.setValue(fField, oldValue);
+			fVM.resume();
+		}
+	}
+
+	/**
+	 * Test that identical reads of the status of a thread issued concurrently
+	 * with steps of the thread see it suspended once the step event was
+	 * received, until it is resumed again.
+	 */
+	public void testReadsAfterSuspendEvent() throws Exception {
+		ThreadReference thread = getThread();
+		// odd while the thread is suspended by a step event and not resumed
+		AtomicInteger phase = new AtomicInteger(0);
+		AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] readers = new Thread[READERS];
+		for (int i = 0; i < readers.length; i++) {
+			readers[i] = new Thread("Reader " + i) {
+				@Override
+				public void run() {
+					while (phase.get() < 2 * STEPS && failure.get() == null) {
+						int before = phase.get();
+						boolean suspended = thread.isSuspended();
+						if (before % 2 == 1 && phase.get() == before && !suspended) {
+							failure.compareAndSet(null, "Read a running thread after step event " + (before + 1) / 2);
+						}
+					}
+				}
+			};
+			readers[i].start();
+		}
+		try {
+			for (int i = 0; i < STEPS && failure.get() == null; i++) {
+				StepRequest request = fVM.eventRequestManager().createStepRequest(thread, StepRequest.STEP_MIN, StepRequest.STEP_INTO);
+				request.addCountFilter(1);
+				request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+				request.enable();
+				int suspended = 2 * i + 1;
+				EventWaiter waiter = new EventWaiter(request, false) {
+					@Override
+					protected boolean handleEvent(Event event) {
+						if (request.equals(event.request())) {
+							// as soon as the event is dispatched
+							phase.set(suspended);
+						}
+						return super.handleEvent(event);
+					}
+				};
+				phase.set(2 * i);
+				fEventReader.addEventListener(waiter);
+				int suspendCount = thread.suspendCount();
+				for (int j = 0; j < suspendCount; j++) {
+					thread.resume();
+				}
+				StepEvent event = (StepEvent) waitForEvent(waiter, TIMEOUT);
+				fEventReader.removeEventListener(waiter);
+				fVM.eventRequestManager().deleteEventRequest(request);
+				assertNotNull("Step event " + (i + 1) + " didn't come in", event);
+			}
+		} finally {
+			phase.set(2 * STEPS);
+			for (Thread reader : readers) {
+				reader.join();
+			}
+			waitUntilReady();
+		}
+		if (failure.get() != null) {
+			fail(failure.get());
+		}
+	}
+}
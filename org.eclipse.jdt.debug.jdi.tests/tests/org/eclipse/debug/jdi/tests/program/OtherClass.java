@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,17 +13,34 @@
  *******************************************************************************/
 package org.eclipse.debug.jdi.tests.program;
 
+import java.io.OutputStream;
+
 /**
- * A test class with an inner class
+ * A test class with an inner class, a field hiding a field of its superclass
+ * and overloaded methods
  */
 public class OtherClass extends MainClass {
 	class InnerClass {
 	}
 	InnerClass fInner = new InnerClass();
+	/**
+	 * Hides MainClass.fInt
+	 */
+	public static long fInt = 1;
 	/**
 	 * OtherClass constructor comment.
 	 */
 	public OtherClass() {
 		super();
 	}
+	/**
+	 * Overloads MainClass.printNumber(OutputStream, int)
+	 */
+	public int printNumber(OutputStream out, long num) {
+		return 0;
+	}
+	public void overloaded() {
+	}
+	public void overloaded(int i) {
+	}
 }
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class MonitorDeadlock implements Runnable {
+
+	static final Object first = new Object();
+	static final Object second = new Object();
+	static int locked = 0;
+
+	private final Object a;
+	private final Object b;
+
+	MonitorDeadlock(Object a, Object b) {
+		this.a = a;
+		this.b = b;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Thread one = new Thread(new MonitorDeadlock(first, second), "one");
+		Thread two = new Thread(new MonitorDeadlock(second, first), "two");
+		one.setDaemon(true);
+		two.setDaemon(true);
+		one.start();
+		two.start();
+		while (getLocked() < 2) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(500);
+		System.out.println("deadlocked");
+	}
+
+	static synchronized int getLocked() {
+		return locked;
+	}
+
+	static synchronized void lockedFirst() {
+		locked++;
+	}
+
+	public void run() {
+		synchronized (a) {
+			lockedFirst();
+			while (getLocked() < 2) {
+				Thread.yield();
+			}
+			synchronized (b) {
+				System.out.println("locked");
+			}
+		}
+	}
+}
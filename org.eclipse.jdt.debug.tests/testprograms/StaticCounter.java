@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+public class StaticCounter implements Runnable {
+
+	static int count = 0;
+
+	public static void main(String[] args) {
+		Thread counter = new Thread(new StaticCounter(), "Counter");
+		counter.start();
+		System.out.println("Count: " + count);
+	}
+
+	public void run() {
+		try {
+			// until the main thread is suspended
+			Thread.sleep(1000);
+		} catch (InterruptedException e) {
+		}
+		for (int i = 0; i < 10; i++) {
+			count++;
+		}
+		report();
+	}
+
+	static void report() {
+		System.out.println("Counted: " + count);
+	}
+}
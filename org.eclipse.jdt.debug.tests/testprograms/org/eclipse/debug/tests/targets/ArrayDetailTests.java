@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -43,6 +43,14 @@ public class ArrayDetailTests {
 		return "OutermostObject";
 	}
 	
+	public static class NoDetail {
+		
+		public String toString() {
+			return null;
+		}
+		
+	}
+	
 	public void test() {
 		Runnable[] runs = new Runnable[5];
 		String[] strings = new String[5];
@@ -64,6 +72,7 @@ public class ArrayDetailTests {
 			middle[i] = new InnerType();
 			inners[i] = middle[i].newObject();
 		}
+		NoDetail[] unknowns = new NoDetail[] { new NoDetail(), null };
 		System.out.println(outers);
 	}
 
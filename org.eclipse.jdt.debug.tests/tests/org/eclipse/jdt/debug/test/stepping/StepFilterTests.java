@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2014 IBM Corporation and others.
+ *  Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -258,6 +258,42 @@ public class StepFilterTests extends AbstractDebugTest {
 		}
 	}
 
+	/**
+	 * Tests that a getter method filtered before is stepped into once the
+	 * getter filter is turned off during the debug session
+	 * @throws Exception
+	 */
+	public void testGetterFilterChangedDuringSession() throws Exception {
+		getPrefStore().setValue(IJDIPreferencesConstants.PREF_FILTER_GETTERS, true);
+		getPrefStore().setValue(IJDIPreferencesConstants.PREF_FILTER_SETTERS, false);
+		String typeName = "StepFilterFour";
+		ILineBreakpoint bp = createLineBreakpoint(94, typeName);
+		bp.setEnabled(true);
+
+		IJavaThread thread = null;
+		try {
+			thread= launchToLineBreakpoint(typeName, bp, false);
+			IJavaStackFrame stackFrame = (IJavaStackFrame) thread.getTopStackFrame();
+			// getI() is filtered
+			stackFrame = (IJavaStackFrame)stepIntoWithFilters(stackFrame).getTopStackFrame();
+			assertEquals("Wrong line number", 95, stackFrame.getLineNumber());
+			stackFrame = (IJavaStackFrame)stepIntoWithFilters(stackFrame).getTopStackFrame();
+			stackFrame = (IJavaStackFrame)stepIntoWithFilters(stackFrame).getTopStackFrame();
+			stackFrame = (IJavaStackFrame)stepIntoWithFilters(stackFrame).getTopStackFrame();
+			stackFrame = (IJavaStackFrame)stepIntoWithFilters(stackFrame).getTopStackFrame();
+			assertEquals("Wrong line number", 99, stackFrame.getLineNumber());
+			getPrefStore().setValue(IJDIPreferencesConstants.PREF_FILTER_GETTERS, false);
+			// the line calls getI() again, which is no longer filtered
+			stackFrame = (IJavaStackFrame)stepIntoWithFilters(stackFrame).getTopStackFrame();
+			assertEquals("Wrong line number", 37, stackFrame.getLineNumber());
+			assertEquals("Should be in getI()", "getI", stackFrame.getMethodName());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+			resetStepFilters();
+		}
+	}
+
 	/**
 	 * Tests filtering of setter methods
 	 * @throws Exception
@@ -46,6 +46,7 @@ import org.eclipse.jdt.debug.tests.breakpoints.TestToggleBreakpointsTarget;
 import org.eclipse.jdt.debug.tests.breakpoints.TestToggleBreakpointsTarget8;
 import org.eclipse.jdt.debug.tests.breakpoints.ThreadFilterBreakpointsTests;
 import org.eclipse.jdt.debug.tests.breakpoints.ThreadNameChangeTests;
+import org.eclipse.jdt.debug.tests.breakpoints.TracepointTests;
 import org.eclipse.jdt.debug.tests.breakpoints.TriggerPointBreakpointsTests;
 import org.eclipse.jdt.debug.tests.breakpoints.TypeNameBreakpointTests;
 import org.eclipse.jdt.debug.tests.breakpoints.WatchpointTests;
@@ -91,6 +92,7 @@ import org.eclipse.jdt.debug.tests.core.WorkingDirectoryTests;
 import org.eclipse.jdt.debug.tests.core.WorkspaceSourceContainerTests;
 import org.eclipse.jdt.debug.tests.eval.GeneralEvalTests;
 import org.eclipse.jdt.debug.tests.eval.GenericsEvalTests;
+import org.eclipse.jdt.debug.tests.launching.ClassDataSharingTests;
 import org.eclipse.jdt.debug.tests.launching.ClasspathShortenerTests;
 import org.eclipse.jdt.debug.tests.launching.ConfigurationEncodingTests;
 import org.eclipse.jdt.debug.tests.launching.ConfigurationResourceMappingTests;
@@ -101,6 +103,7 @@ import org.eclipse.jdt.debug.tests.launching.LaunchDelegateTests;
 import org.eclipse.jdt.debug.tests.launching.LaunchModeTests;
 import org.eclipse.jdt.debug.tests.launching.LaunchShortcutTests;
 import org.eclipse.jdt.debug.tests.launching.LaunchTests;
+import org.eclipse.jdt.debug.tests.launching.LaunchableTesterCacheTests;
 import org.eclipse.jdt.debug.tests.launching.LaunchesTests;
 import org.eclipse.jdt.debug.tests.launching.LongClassPathTests;
 import org.eclipse.jdt.debug.tests.launching.LongModulePathTests;
@@ -121,6 +124,7 @@ import org.eclipse.jdt.debug.tests.sourcelookup.DefaultSourceContainerTests;
 import org.eclipse.jdt.debug.tests.sourcelookup.DirectorySourceContainerTests;
 import org.eclipse.jdt.debug.tests.sourcelookup.DirectorySourceLookupTests;
 import org.eclipse.jdt.debug.tests.sourcelookup.ExternalArchiveSourceContainerTests;
+import org.eclipse.jdt.debug.tests.sourcelookup.FileHashingTests;
 import org.eclipse.jdt.debug.tests.sourcelookup.FolderSourceContainerTests;
 import org.eclipse.jdt.debug.tests.sourcelookup.JarSourceLookupTests;
 import org.eclipse.jdt.debug.tests.sourcelookup.JavaProjectSourceContainerTests;
@@ -201,6 +205,7 @@ public class AutomatedSuite extends DebugSuite {
 		addTest(new TestSuite(SourceLocationTests.class));
 		addTest(new TestSuite(TypeResolutionTests.class));
 		addTest(new TestSuite(JarSourceLookupTests.class));
+		addTest(new TestSuite(FileHashingTests.class));
 
 	// Variable tests
 		addTest(new TestSuite(InstanceVariableTests.class));
@@ -328,6 +333,8 @@ public class AutomatedSuite extends DebugSuite {
 
 		// long classpath tests
 		addTest(new TestSuite(ClasspathShortenerTests.class));
+		addTest(new TestSuite(ClassDataSharingTests.class));
+		addTest(new TestSuite(LaunchableTesterCacheTests.class));
 		addTest(LongClassPathTests.suite());
 		if (JavaProjectHelper.isJava9Compatible()) {
 			addTest(new TestSuite(LongModulePathTests.class));
@@ -357,6 +364,7 @@ public class AutomatedSuite extends DebugSuite {
 		addTest(new TestSuite(TestToggleBreakpointsTarget.class));
 		addTest(new TestSuite(TriggerPointBreakpointsTests.class));
 		addTest(new TestSuite(JavaThreadEventHandlerTests.class));
+		addTest(new TestSuite(TracepointTests.class));
 
 		if (JavaProjectHelper.isJava8Compatible()) {
 			addTest(new TestSuite(TestToggleBreakpointsTarget8.class));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,10 @@ import org.eclipse.debug.core.model.IBreakpoint;
 import org.eclipse.debug.core.model.IStackFrame;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.debug.internal.ui.views.console.ProcessConsole;
+import org.eclipse.jdi.JdwpMetrics;
+import org.eclipse.jdi.JdwpMetrics.CommandMetrics;
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
 import org.eclipse.jdt.debug.core.IJavaPrimitiveValue;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
@@ -572,4 +576,33 @@ public class ConditionalBreakpointsTests extends AbstractDebugTest {
 			removeAllBreakpoints();
 		}
 	}
+
+	/**
+	 * Tests that the string of a literal in a condition is created once and used again when the
+	 * condition is evaluated again
+	 *
+	 * @throws Exception
+	 */
+	public void testConditionStringLiteralCreatedOnce() throws Exception {
+		String typeName = "HitCountLooper";
+		IJavaLineBreakpoint bp = createConditionalLineBreakpoint(19, typeName, "\"loop\".length() == 4", true);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, bp);
+			IJavaDebugTarget target = (IJavaDebugTarget) thread.getDebugTarget();
+			JdwpMetrics before = target.getJdwpMetrics();
+			assertNotNull("Missing JDWP metrics", before);
+
+			thread = resumeToLineBreakpoint(thread, bp);
+			for (CommandMetrics command : target.getJdwpMetrics().since(before).getCommandMetrics()) {
+				if (command.getCommand() == JdwpCommandPacket.VM_CREATE_STRING) {
+					assertEquals("The string of the literal should not be created again", 0, command.getCount());
+				}
+			}
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
 }
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.breakpoints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.debug.core.IJavaClassType;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaFieldVariable;
+import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.core.IJavaTraceRecord;
+import org.eclipse.jdt.debug.core.IJavaTracepoint;
+import org.eclipse.jdt.debug.core.IJavaTracepointListener;
+import org.eclipse.jdt.debug.core.IJavaType;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+
+/**
+ * Tests tracepoints, which record the values of their expressions with the
+ * javaagent of the advanced source lookup without suspending the target
+ */
+public class TracepointTests extends AbstractDebugTest {
+
+	/**
+	 * Collects the records of all tracepoints
+	 */
+	class Listener implements IJavaTracepointListener {
+
+		private final List<IJavaTraceRecord> fRecords = new ArrayList<>();
+
+		@Override
+		public synchronized void traced(IJavaDebugTarget target, IJavaTraceRecord[] records) {
+			fRecords.addAll(Arrays.asList(records));
+			notifyAll();
+		}
+
+		@Override
+		public void tracesDropped(IJavaDebugTarget target, long count) {
+		}
+
+		/**
+		 * Waits until the given number of records have been received, or the
+		 * timeout expires.
+		 */
+		synchronized List<IJavaTraceRecord> waitForRecords(int count, long timeout) throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			while (fRecords.size() < count && System.currentTimeMillis() < end) {
+				wait(Math.max(1, end - System.currentTimeMillis()));
+			}
+			return new ArrayList<>(fRecords);
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param name
+	 */
+	public TracepointTests(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests that the records of a tracepoint in a method called in a loop
+	 * reach the tracepoint listeners, in the order they were recorded.
+	 *
+	 * @throws Exception
+	 */
+	public void testRecordsReachListener() throws Exception {
+		String typeName = "MethodLoop";
+		IJavaLineBreakpoint loop = createLineBreakpoint(27, typeName);
+		// keeps the target alive until the records are drained
+		IJavaLineBreakpoint end = createLineBreakpoint(23, typeName);
+		Listener listener = new Listener();
+		JDIDebugModel.addTracepointListener(listener);
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, loop);
+			String version = ((IJavaDebugTarget) thread.getDebugTarget()).getVersion();
+			if (!JavaCore.isSupportedJavaVersion(version)) {
+				// the javaagent is disabled in this VM
+				return;
+			}
+			IJavaTracepoint tracepoint = JDIDebugModel.createTracepoint(getBreakpointResource(typeName), typeName, 32, -1, -1, new String[] {
+					"i", "sum" }, true, null);
+			loop.delete();
+			waitForInstalled((IJavaDebugTarget) thread.getDebugTarget(), typeName);
+			thread = resumeToLineBreakpoint(thread, end);
+
+			List<IJavaTraceRecord> records = listener.waitForRecords(9, DEFAULT_TIMEOUT);
+			assertEquals("Wrong number of records", 9, records.size());
+			int sum = 0;
+			for (int i = 1; i < 10; i++) {
+				IJavaTraceRecord record = records.get(i - 1);
+				assertEquals("Wrong tracepoint", tracepoint, record.getTracepoint());
+				assertEquals("Wrong values", Arrays.asList(Integer.toString(i), Integer.toString(sum)), Arrays.asList(record.getValues()));
+				sum += i;
+			}
+		} finally {
+			JDIDebugModel.removeTracepointListener(listener);
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Waits until the javaagent of the given target has retransformed the
+	 * given type with the published tracepoints, or the timeout expires.
+	 */
+	private void waitForInstalled(IJavaDebugTarget target, String typeName) throws Exception {
+		IJavaType[] types = target.getJavaTypes("org.eclipse.jdt.launching.internal.javaagent.Tracepoints");
+		assertNotNull("The javaagent is not loaded", types);
+		IJavaFieldVariable installed = ((IJavaClassType) types[0]).getField("installed");
+		long end = System.currentTimeMillis() + DEFAULT_TIMEOUT;
+		while (!installed.getValue().getValueString().contains('\t' + typeName + '\t') && System.currentTimeMillis() < end) {
+			Thread.sleep(50);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.jdt.debug.tests.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.core.resources.IFolder;
@@ -22,12 +23,17 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.variables.IStringVariableManager;
+import org.eclipse.core.variables.IValueVariable;
+import org.eclipse.core.variables.VariablesPlugin;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.debug.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.launching.RuntimeClasspathCache;
 import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
 import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
 import org.eclipse.jdt.launching.IRuntimeClasspathProvider;
@@ -60,6 +66,97 @@ public class ClasspathProviderTests extends AbstractDebugTest {
 		assertEquals("Source path should be empty", 0, spProvider.computeUnresolvedClasspath(config).length);
 	}
 
+	/**
+	 * Tests that resolving the runtime classpath of an unchanged configuration is answered
+	 * from the cache and that a classpath change invalidates the cached classpath.
+	 */
+	public void testResolvedClasspathCache() throws Exception {
+		ILaunchConfiguration config = getLaunchConfiguration("Breakpoints");
+		RuntimeClasspathCache cache = RuntimeClasspathCache.getDefault();
+		cache.clear();
+		IRuntimeClasspathEntry[] unresolved = JavaRuntime.computeUnresolvedRuntimeClasspath(config);
+		long misses = cache.getMissCount();
+		long hits = cache.getHitCount();
+		IRuntimeClasspathEntry[] cold = JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+		assertEquals("first resolution should miss the cache", misses + 1, cache.getMissCount());
+		IRuntimeClasspathEntry[] cached = JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+		assertEquals("second resolution should hit the cache", hits + 1, cache.getHitCount());
+		assertTrue("cached classpath should be the same", Arrays.equals(cold, cached));
+
+		IJavaProject project = get14Project();
+		IClasspathEntry[] raw = project.getRawClasspath();
+		try {
+			IClasspathEntry[] changed = Arrays.copyOf(raw, raw.length + 1);
+			changed[raw.length] = JavaCore.newLibraryEntry(project.getPath().append("src").append("A.jar"), null, null);
+			project.setRawClasspath(changed, null);
+			JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+			assertEquals("resolution after a classpath change should miss the cache", misses + 2, cache.getMissCount());
+		}
+		finally {
+			project.setRawClasspath(raw, null);
+		}
+	}
+
+	/**
+	 * Tests that modifying the entries of a resolved runtime classpath does not modify the cached
+	 * classpath.
+	 */
+	public void testResolvedClasspathCacheAnswersCopies() throws Exception {
+		ILaunchConfiguration config = getLaunchConfiguration("Breakpoints");
+		RuntimeClasspathCache cache = RuntimeClasspathCache.getDefault();
+		cache.clear();
+		IRuntimeClasspathEntry[] unresolved = JavaRuntime.computeUnresolvedRuntimeClasspath(config);
+		IRuntimeClasspathEntry[] first = JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+		int property = first[0].getClasspathProperty();
+		int other = property == IRuntimeClasspathEntry.BOOTSTRAP_CLASSES ? IRuntimeClasspathEntry.USER_CLASSES : IRuntimeClasspathEntry.BOOTSTRAP_CLASSES;
+		first[0].setClasspathProperty(other);
+
+		long hits = cache.getHitCount();
+		IRuntimeClasspathEntry[] second = JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+		assertEquals("second resolution should hit the cache", hits + 1, cache.getHitCount());
+		assertEquals("cached entry should not be modified", property, second[0].getClasspathProperty());
+		second[0].setClasspathProperty(other);
+		assertEquals("cached entry should not be modified", property, JavaRuntime.resolveRuntimeClasspath(unresolved, config)[0].getClasspathProperty());
+	}
+
+	/**
+	 * Tests that changing a string substitution variable invalidates the cached classpaths, and
+	 * that classpaths referring to dynamic variables are not cached.
+	 */
+	public void testResolvedClasspathCacheVariables() throws Exception {
+		IResource archive = get14Project().getProject().getFolder("src").getFile("A.jar");
+		ILaunchConfigurationWorkingCopy config = getLaunchConfiguration("Breakpoints").getWorkingCopy();
+		RuntimeClasspathCache cache = RuntimeClasspathCache.getDefault();
+		IStringVariableManager manager = VariablesPlugin.getDefault().getStringVariableManager();
+		IValueVariable variable = manager.newValueVariable("cache_test_archive", null, false, archive.getLocation().toOSString());
+		manager.addVariables(new IValueVariable[] { variable });
+		try {
+			IRuntimeClasspathEntry[] unresolved = new IRuntimeClasspathEntry[] {
+					JavaRuntime.newStringVariableClasspathEntry("${cache_test_archive}") };
+			cache.clear();
+			JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+			long misses = cache.getMissCount();
+			JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+			assertEquals("second resolution should hit the cache", misses, cache.getMissCount());
+			variable.setValue(archive.getParent().getLocation().toOSString());
+			IRuntimeClasspathEntry[] resolved = JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+			assertEquals("resolution after a variable change should miss the cache", misses + 1, cache.getMissCount());
+			assertEquals("Resolved path not correct", new Path(variable.getValue()), new Path(resolved[0].getLocation()));
+
+			unresolved = new IRuntimeClasspathEntry[] {
+					JavaRuntime.newStringVariableClasspathEntry("${workspace_loc:" + archive.getFullPath() + "}") };
+			long hits = cache.getHitCount();
+			misses = cache.getMissCount();
+			JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+			JavaRuntime.resolveRuntimeClasspath(unresolved, config);
+			assertEquals("classpath with dynamic variables should not be cached", hits, cache.getHitCount());
+			assertEquals("classpath with dynamic variables should not be cached", misses, cache.getMissCount());
+		}
+		finally {
+			manager.removeVariables(new IValueVariable[] { variable });
+		}
+	}
+
 	/**
 	 * Test that a variable set to the location of an archive resolves properly.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,7 @@ package org.eclipse.jdt.debug.tests.core;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.debug.core.model.IIndexedValue;
 import org.eclipse.debug.core.model.ILineBreakpoint;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
@@ -226,4 +227,35 @@ public class InstanceVariableTests extends AbstractDebugTest {
 			removeAllBreakpoints();
 		}
 	}
+
+	public void testGetFieldVariablesByRange() throws Exception {
+		String typeName = "InstanceVariablesTests";
+
+		ILineBreakpoint bp = createLineBreakpoint(33, typeName);
+
+		IJavaThread thread= null;
+		try {
+			thread= launchToLineBreakpoint(typeName, bp);
+
+			IJavaStackFrame frame = (IJavaStackFrame)thread.getTopStackFrame();
+			IVariable ivt = findVariable(frame, "ivt");
+			assertNotNull("Could not find variable 'ivt'", ivt);
+			IJavaObject object = (IJavaObject)ivt.getValue();
+			assertTrue("Objects should be indexed values", object instanceof IIndexedValue);
+			IIndexedValue indexed = (IIndexedValue) object;
+
+			IVariable[] all = object.getVariables();
+			assertEquals("Wrong number of fields", all.length, indexed.getSize());
+			assertTrue("Should have several fields", all.length > 2);
+			IVariable[] range = indexed.getVariables(1, all.length - 1);
+			for (int i = 0; i < range.length; i++) {
+				assertEquals("Wrong field", all[i + 1], range[i]);
+				assertEquals("Wrong value", all[i + 1].getValue(), range[i].getValue());
+			}
+			assertEquals("Wrong field", all[0], indexed.getVariable(0));
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 IBM Corporation and others.
+ * Copyright (c) 2007, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,13 +19,23 @@ import java.lang.reflect.Method;
 import java.util.List;
 
 import org.eclipse.debug.core.model.IBreakpoint;
+import org.eclipse.debug.core.model.IThread;
+import org.eclipse.jdi.JdwpMetrics;
+import org.eclipse.jdi.JdwpMetrics.CommandMetrics;
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.debug.core.IJavaBreakpoint;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
+import org.eclipse.jdt.debug.core.IJavaMonitorSnapshot;
+import org.eclipse.jdt.debug.core.IJavaObject;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
 import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+import org.eclipse.jdt.internal.debug.core.model.JDIThread;
+
+import com.sun.jdi.ThreadReference;
 
 /**
  * Tests IJavaDebugTarget API
@@ -121,6 +131,116 @@ public class JavaDebugTargetTests extends AbstractDebugTest {
 		}
 	}
 
+	/**
+	 * Tests that the thread state retrieved for all threads of a suspended target matches the state of each thread
+	 */
+	public void testThreadStatesOfSuspendedTarget() throws Exception {
+		String typeName = "MonitorDeadlock";
+		IJavaLineBreakpoint bp = createLineBreakpoint(40, typeName);
+		bp.setSuspendPolicy(IJavaBreakpoint.SUSPEND_VM);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(typeName, false);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			JDIDebugTarget target = (JDIDebugTarget) thread.getDebugTarget();
+			int daemons = 0;
+			for (IThread t : target.getThreads()) {
+				JDIThread javaThread = (JDIThread) t;
+				ThreadReference reference = javaThread.getUnderlyingThread();
+				assertEquals("Wrong thread name", reference.name(), javaThread.getName());
+				assertEquals("Wrong thread group name", reference.threadGroup().name(), javaThread.getThreadGroupName());
+				if (javaThread.isDaemon()) {
+					daemons++;
+				}
+			}
+			// the two deadlocked threads of the test program are daemon threads
+			assertTrue("Daemon threads not reported", daemons >= 2);
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that the monitor snapshot reports the deadlock of two threads waiting for each other
+	 */
+	public void testMonitorSnapshotDeadlock() throws Exception {
+		String typeName = "MonitorDeadlock";
+		IJavaLineBreakpoint bp = createLineBreakpoint(40, typeName);
+		bp.setSuspendPolicy(IJavaBreakpoint.SUSPEND_VM);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(typeName, false);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			IJavaDebugTarget target = (IJavaDebugTarget) thread.getDebugTarget();
+			assertTrue(target.supportsMonitorInformation());
+			IJavaMonitorSnapshot snapshot = target.getMonitorSnapshot();
+			assertTrue(snapshot.contains(thread));
+			assertFalse(snapshot.isInDeadlock(thread));
+
+			IJavaThread[][] deadlocks = snapshot.getDeadlocks();
+			assertEquals("Wrong number of deadlocks", 1, deadlocks.length);
+			assertEquals("Wrong number of deadlocked threads", 2, deadlocks[0].length);
+			for (IJavaThread deadlocked : deadlocks[0]) {
+				assertTrue(snapshot.isInDeadlock(deadlocked));
+				IJavaObject contended = snapshot.getContendedMonitor(deadlocked);
+				assertNotNull("Missing contended monitor", contended);
+				assertTrue(snapshot.isInDeadlock(contended));
+				IJavaThread owner = snapshot.getOwningThread(contended);
+				assertNotSame(deadlocked, owner);
+				assertEquals(1, snapshot.getOwnedMonitors(owner).length);
+				assertEquals(contended, snapshot.getOwnedMonitors(owner)[0]);
+			}
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that the JDWP traffic of a session is counted per command and kept after termination
+	 */
+	public void testJdwpMetrics() throws Exception {
+		String typeName = "Breakpoints";
+		createLineBreakpoint(55, typeName);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToBreakpoint(typeName);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			IJavaDebugTarget target = (IJavaDebugTarget) thread.getDebugTarget();
+			JdwpMetrics before = target.getJdwpMetrics();
+			assertNotNull("Missing JDWP metrics", before);
+			assertTrue("No events counted", before.getEventCount() > 0);
+
+			target.getMonitorSnapshot();
+			JdwpMetrics delta = target.getJdwpMetrics().since(before);
+			CommandMetrics monitors = null;
+			for (CommandMetrics command : delta.getCommandMetrics()) {
+				if (command.getCommand() == JdwpCommandPacket.TR_OWNED_MONITORS) {
+					monitors = command;
+				}
+			}
+			assertNotNull("Owned monitors request not counted", monitors);
+			assertEquals(1, monitors.getCount());
+			assertTrue(monitors.getBytesSent() > 0);
+			assertTrue(monitors.getBytesReceived() > 0);
+			assertTrue(monitors.getLatency(50) > 0);
+			assertTrue(monitors.getLatency(50) <= monitors.getMaxLatency());
+
+			terminateAndRemove(thread);
+			thread = null;
+			JdwpMetrics session = target.getJdwpMetrics();
+			assertNotNull("Metrics not kept after termination", session);
+			assertEquals(0, session.getInFlight());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
 	/**
 	 * Tests that debug target ignores breakpoints from unrelated projects, see bugs 5188 and 508524
 	 */
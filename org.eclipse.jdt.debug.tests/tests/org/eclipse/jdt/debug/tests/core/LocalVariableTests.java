@@ -18,16 +18,21 @@ import org.eclipse.debug.core.model.IValue;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.debug.ui.DebugUITools;
 import org.eclipse.debug.ui.IDebugModelPresentation;
+import org.eclipse.debug.ui.IDebugUIConstants;
 import org.eclipse.debug.ui.IValueDetailListener;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaVariable;
+import org.eclipse.jdt.debug.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
 import org.eclipse.jdt.debug.tests.TestAgainException;
 import org.eclipse.jdt.internal.debug.core.model.JDIArrayValue;
 import org.eclipse.jdt.internal.debug.core.model.JDILocalVariable;
 import org.eclipse.jdt.internal.debug.core.model.JDINullValue;
+import org.eclipse.jdt.internal.debug.ui.IJDIPreferencesConstants;
+import org.eclipse.jdt.internal.debug.ui.JDIDebugUIPlugin;
+import org.eclipse.jface.preference.IPreferenceStore;
 
 public class LocalVariableTests extends AbstractDebugTest implements IValueDetailListener {
 
@@ -158,7 +163,7 @@ public class LocalVariableTests extends AbstractDebugTest implements IValueDetai
 	}
 
 	protected void doArrayDetailTestNonDefPkg(String varName, String expectedDetails) throws Exception {
-		doArrayDetailTest(varName, expectedDetails, "org.eclipse.debug.tests.targets.ArrayDetailTests", 67);
+		doArrayDetailTest(varName, expectedDetails, "org.eclipse.debug.tests.targets.ArrayDetailTests", 76);
 	}
 
 	protected void doArrayDetailTestDefPkg(String varName, String expectedDetails) throws Exception {
@@ -229,6 +234,77 @@ public class LocalVariableTests extends AbstractDebugTest implements IValueDetai
 		doArrayDetailTestNonDefPkg("runs", "[Runnable, Runnable, Runnable, Runnable, Runnable]");
 	}
 
+	/**
+	 * Tests that the detail of a long object array computed with a single call in the target is
+	 * truncated like the element wise detail
+	 */
+	public void testTruncatedTopLevelTypeArrayDetails() throws Exception {
+		if (!JavaProjectHelper.isJava9Compatible()) {
+			// older targets use a compiled Arrays.asList() snippet
+			return;
+		}
+		IPreferenceStore store = DebugUITools.getPreferenceStore();
+		int maxLength = store.getInt(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH);
+		try {
+			store.setValue(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH, 6);
+			setArrayDetailsSingleCall(true);
+			doArrayDetailTestNonDefPkg("outers", "[OutermostObject, ");
+		} finally {
+			store.setValue(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH, maxLength);
+			setArrayDetailsSingleCall(false);
+		}
+	}
+
+	/**
+	 * Tests that the truncated detail of an array computed with a single call in the target ends
+	 * after an element, even if the details of the elements contain separators
+	 */
+	public void testTruncatedNestedArrayDetails() throws Exception {
+		if (!JavaProjectHelper.isJava9Compatible()) {
+			// older targets use a compiled Arrays.asList() snippet
+			return;
+		}
+		IPreferenceStore store = DebugUITools.getPreferenceStore();
+		int maxLength = store.getInt(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH);
+		try {
+			store.setValue(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH, 3);
+			setArrayDetailsSingleCall(true);
+			doArrayDetailTest("intArray", "[[1, 2, 3], ", "EvalArrayTests", 40);
+		} finally {
+			store.setValue(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH, maxLength);
+			setArrayDetailsSingleCall(false);
+		}
+	}
+
+	/**
+	 * Tests that an element whose toString() returns <code>null</code> is rendered as unknown,
+	 * unlike a <code>null</code> element
+	 */
+	public void testUnknownElementDetails() throws Exception {
+		doArrayDetailTestNonDefPkg("unknowns", "[<unknown>, null]");
+	}
+
+	/**
+	 * Tests that the detail of an array computed with a single call in the target renders an
+	 * element whose toString() returns <code>null</code> like the element wise detail
+	 */
+	public void testUnknownElementDetailsSingleCall() throws Exception {
+		if (!JavaProjectHelper.isJava9Compatible()) {
+			// older targets use a compiled Arrays.asList() snippet
+			return;
+		}
+		try {
+			setArrayDetailsSingleCall(true);
+			doArrayDetailTestNonDefPkg("unknowns", "[<unknown>, null]");
+		} finally {
+			setArrayDetailsSingleCall(false);
+		}
+	}
+
+	private void setArrayDetailsSingleCall(boolean singleCall) {
+		JDIDebugUIPlugin.getDefault().getPreferenceStore().setValue(IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL, singleCall);
+	}
+
 	public void testStringArrayDetailsDefPkg() throws Exception {
 		doArrayDetailTestDefPkg("strings", "[0, 1, 10, 11, 100]");
 	}
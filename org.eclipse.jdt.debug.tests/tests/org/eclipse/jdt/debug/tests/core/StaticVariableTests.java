@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,11 +13,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.debug.tests.core;
 
+import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.model.ILineBreakpoint;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.testplugin.DebugElementKindEventDetailWaiter;
+import org.eclipse.jdt.debug.testplugin.DebugEventWaiter;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
 
 public class StaticVariableTests extends AbstractDebugTest {
@@ -48,4 +51,65 @@ public class StaticVariableTests extends AbstractDebugTest {
 			removeAllBreakpoints();
 		}
 	}
+
+	public void testGetValuesOfStatics() throws Exception {
+		String typeName = "StaticVariablesTests";
+
+		ILineBreakpoint bp = createLineBreakpoint(43, typeName);
+
+		IJavaThread thread= null;
+		try {
+			thread= launchToLineBreakpoint(typeName, bp);
+
+			IJavaStackFrame frame = (IJavaStackFrame)thread.getTopStackFrame();
+			String[] names = new String[] {"pubStr", "protStr", "defStr", "privStr"};
+			String[] values = new String[] {"public", "protected", "default", "private"};
+			for (int i = 0; i < names.length; i++) {
+				IVariable variable = findVariable(frame, names[i]);
+				assertNotNull("Could not find variable '" + names[i] + "'", variable);
+				assertEquals("Wrong value", values[i], variable.getValue().getValueString());
+			}
+
+			// values retrieved before a resume are not reused
+			IVariable pubStr = findVariable(frame, "pubStr");
+			pubStr.setValue(((IJavaDebugTarget)frame.getDebugTarget()).newValue("test"));
+			frame = (IJavaStackFrame) stepOver(frame).getTopStackFrame();
+			assertEquals("Value should be 'test'", "test", findVariable(frame, "pubStr").getValue().getValueString());
+			assertEquals("Value should be 'private'", "private", findVariable(frame, "privStr").getValue().getValueString());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that the value of a static field read in a suspended thread is not reused in a
+	 * thread suspended later, after it changed the field while the first thread stayed suspended
+	 */
+	public void testStaticValueChangedByRunningThread() throws Exception {
+		String typeName = "StaticCounter";
+		ILineBreakpoint mainBp = createLineBreakpoint(22, typeName);
+		ILineBreakpoint reportBp = createLineBreakpoint(38, typeName);
+
+		IJavaThread thread = null;
+		try {
+			thread = launchToLineBreakpoint(typeName, mainBp);
+			DebugEventWaiter waiter = new DebugElementKindEventDetailWaiter(DebugEvent.SUSPEND, IJavaThread.class, DebugEvent.BREAKPOINT);
+			waiter.setTimeout(DEFAULT_TIMEOUT);
+			waiter.setEnableUIEventLoopProcessing(enableUIEventLoopProcessingInWaiter());
+
+			IJavaStackFrame frame = (IJavaStackFrame) thread.getTopStackFrame();
+			assertEquals("Wrong value before counting", "0", findVariable(frame, "count").getValue().getValueString());
+
+			// the counter thread keeps running while the main thread is suspended
+			IJavaThread counter = (IJavaThread) waiter.waitForEvent();
+			assertNotNull("Counter did not suspend", counter);
+			assertEquals("Wrong breakpoint", reportBp, getBreakpoint(counter));
+			frame = (IJavaStackFrame) counter.getTopStackFrame();
+			assertEquals("Value read before counting should not be reused", "10", findVariable(frame, "count").getValue().getValueString());
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
 }
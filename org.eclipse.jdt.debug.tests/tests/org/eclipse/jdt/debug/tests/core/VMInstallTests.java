@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,10 @@
 package org.eclipse.jdt.debug.tests.core;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.eclipse.jdt.debug.testplugin.JavaTestPlugin;
@@ -25,6 +28,8 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.internal.launching.LaunchingPlugin;
+import org.eclipse.jdt.internal.launching.LibraryInfo;
+import org.eclipse.jdt.internal.launching.StandardVMType;
 import org.eclipse.jdt.launching.ILibraryLocationResolver;
 import org.eclipse.jdt.launching.IVMInstall;
 import org.eclipse.jdt.launching.IVMInstall2;
@@ -99,6 +104,43 @@ public class VMInstallTests extends AbstractDebugTest {
 		assertNotNull("'user.home' system property should be cached", value);
 	}
 
+	/**
+	 * Tests that library information computed through the concurrent detection is cached
+	 * and records the fingerprint of each install
+	 *
+	 * @throws Exception
+	 */
+	public void testInitializeLibraryInfos() throws Exception {
+		IVMInstall def = JavaRuntime.getDefaultVMInstall();
+		assertTrue("should be a standard VM install type", def.getVMInstallType() instanceof StandardVMType);
+		StandardVMType type = (StandardVMType) def.getVMInstallType();
+		File home = def.getInstallLocation();
+		// a second install at another location, linked to the default VM
+		File dir = Files.createTempDirectory("installs").toFile();
+		File link = new File(dir, "jre");
+		try {
+			try {
+				Files.createSymbolicLink(link.toPath(), home.toPath());
+			} catch (IOException | UnsupportedOperationException e) {
+				// symbolic links are not supported by the file system
+				return;
+			}
+			LaunchingPlugin.setLibraryInfo(home.getAbsolutePath(), null);
+			type.initializeLibraryInfos(Arrays.asList(home, link));
+			LibraryInfo info = LaunchingPlugin.getLibraryInfo(home.getAbsolutePath());
+			assertNotNull("library info should be cached for the default VM", info);
+			assertNotNull("library info should record the install fingerprint", info.getFingerprint());
+			LibraryInfo linkInfo = LaunchingPlugin.getLibraryInfo(link.getAbsolutePath());
+			assertNotNull("library info should be cached for the linked VM", linkInfo);
+			assertNotNull("library info should record the linked install fingerprint", linkInfo.getFingerprint());
+			assertEquals("the installs should have the same version", info.getVersion(), linkInfo.getVersion());
+		} finally {
+			LaunchingPlugin.setLibraryInfo(link.getAbsolutePath(), null);
+			link.delete();
+			dir.delete();
+		}
+	}
+
 	/**
 	 * Tests the new support for {@link ILibraryLocationResolver}s asking for {@link LibraryLocation}s
 	 * using the {@link JavaRuntime#getLibraryLocations(IVMInstall)}s API
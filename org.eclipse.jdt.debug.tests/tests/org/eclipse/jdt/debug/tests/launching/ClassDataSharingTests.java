@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.launching;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.debug.tests.connectors.MockLaunch;
+import org.eclipse.jdt.internal.launching.ClassDataSharing;
+import org.eclipse.jdt.launching.VMRunnerConfiguration;
+
+/**
+ * Tests the command line arguments for dynamic class data sharing archives
+ */
+public class ClassDataSharingTests extends AbstractDebugTest {
+	private static final String MAIN_CLASS = "my.package.MainClass";
+	private static final String ENCODING_ARG = "-Dfile.encoding=UTF-8";
+	private File tempDir;
+	private File archiveDir;
+	private File jar;
+
+	public ClassDataSharingTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		tempDir = Files.createTempDirectory("cds").toFile();
+		archiveDir = new File(tempDir, "archives");
+		jar = new File(tempDir, "lib.jar");
+		Files.write(jar.toPath(), new byte[] { 1, 2, 3 });
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(tempDir);
+		super.tearDown();
+	}
+
+	public void testArchiveCreatedOnFirstLaunch() {
+		String[] args = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath())).addArchiveArgument(new MockLaunch(), new String[] { ENCODING_ARG });
+
+		assertEquals(2, args.length);
+		assertEquals(ENCODING_ARG, args[0]);
+		assertTrue(args[1], args[1].startsWith("-XX:ArchiveClassesAtExit=" + archiveDir.getAbsolutePath()));
+		assertTrue(archiveDir.isDirectory());
+	}
+
+	public void testArchiveReusedOnNextLaunch() throws IOException {
+		File archive = launchAndTerminate(new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath())));
+
+		String[] args = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath())).addArchiveArgument(new MockLaunch(), new String[0]);
+
+		assertArrayEquals(new String[] { "-XX:SharedArchiveFile=" + archive.getAbsolutePath() }, args);
+	}
+
+	public void testArchiveRecreatedWhenClasspathChanges() throws IOException {
+		File archive = launchAndTerminate(new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath())));
+		Files.write(jar.toPath(), new byte[] { 1, 2, 3, 4 });
+
+		ClassDataSharingForTest cds = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath()));
+		String[] args = cds.addArchiveArgument(new MockLaunch(), new String[0]);
+		assertTrue(args[0], args[0].startsWith("-XX:ArchiveClassesAtExit="));
+		assertTrue("Archive in use should be kept until the new one is created", archive.exists());
+		dump(args[0]);
+		cds.terminate();
+
+		assertFalse("Stale archive should be deleted", archive.exists());
+	}
+
+	public void testConcurrentLaunchesDumpIntoOwnFiles() throws IOException {
+		ClassDataSharingForTest first = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath()));
+		ClassDataSharingForTest second = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath()));
+		String[] firstArgs = first.addArchiveArgument(new MockLaunch(), new String[0]);
+		String[] secondArgs = second.addArchiveArgument(new MockLaunch(), new String[0]);
+
+		assertTrue(firstArgs[0], firstArgs[0].startsWith("-XX:ArchiveClassesAtExit="));
+		assertTrue(secondArgs[0], secondArgs[0].startsWith("-XX:ArchiveClassesAtExit="));
+		assertFalse("Launches should not dump into the same file", firstArgs[0].equals(secondArgs[0]));
+
+		dump(secondArgs[0]);
+		second.terminate();
+		String[] args = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath())).addArchiveArgument(new MockLaunch(), new String[0]);
+		assertTrue(args[0], args[0].startsWith("-XX:SharedArchiveFile="));
+
+		dump(firstArgs[0]);
+		first.terminate();
+		assertEquals("Only the archive should be left", 1, archiveDir.list().length);
+	}
+
+	public void testNoArchiveCreatedForCommandLine() {
+		ClassDataSharingForTest cds = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath()));
+		cds.registered = false;
+		String[] vmArgs = new String[] { ENCODING_ARG };
+
+		String[] args = cds.addArchiveArgument(new MockLaunch(), vmArgs);
+
+		assertSame(vmArgs, args);
+	}
+
+	public void testNoArchiveBeforeJava13() {
+		String[] vmArgs = new String[] { ENCODING_ARG };
+
+		String[] args = new ClassDataSharingForTest("11.0.2", newConfig(jar.getAbsolutePath())).addArchiveArgument(new MockLaunch(), vmArgs);
+
+		assertSame(vmArgs, args);
+	}
+
+	public void testNoArchiveWithUserSharingArguments() {
+		String[] vmArgs = new String[] { "-Xshare:off" };
+
+		String[] args = new ClassDataSharingForTest("14", newConfig(jar.getAbsolutePath())).addArchiveArgument(new MockLaunch(), vmArgs);
+
+		assertSame(vmArgs, args);
+	}
+
+	public void testNoArchiveWithDirectoryOnClasspath() throws IOException {
+		File bin = new File(tempDir, "bin");
+		bin.mkdir();
+		Files.write(new File(bin, "A.class").toPath(), new byte[] { 1 });
+		String[] vmArgs = new String[] { ENCODING_ARG };
+
+		String[] args = new ClassDataSharingForTest("14", newConfig(bin.getAbsolutePath(), jar.getAbsolutePath())).addArchiveArgument(new MockLaunch(), vmArgs);
+
+		assertSame(vmArgs, args);
+	}
+
+	private VMRunnerConfiguration newConfig(String... classpath) {
+		return new VMRunnerConfiguration(MAIN_CLASS, classpath);
+	}
+
+	/**
+	 * Launches with the given class data sharing, the VM dumps the archive on exit.
+	 *
+	 * @return the archive
+	 */
+	private File launchAndTerminate(ClassDataSharingForTest cds) throws IOException {
+		String[] args = cds.addArchiveArgument(new MockLaunch(), new String[0]);
+		dump(args[0]);
+		cds.terminate();
+		File[] archives = archiveDir.listFiles((dir, name) -> name.endsWith(".jsa"));
+		assertEquals(1, archives.length);
+		return archives[0];
+	}
+
+	private void dump(String argument) throws IOException {
+		File dump = new File(argument.substring(argument.indexOf('=') + 1));
+		Files.write(dump.toPath(), new byte[] { 0 });
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private class ClassDataSharingForTest extends ClassDataSharing {
+		boolean registered = true;
+		private Runnable terminated;
+
+		public ClassDataSharingForTest(String javaVersion, VMRunnerConfiguration config) {
+			super(javaVersion, tempDir, config, archiveDir);
+		}
+
+		@Override
+		protected boolean isEnabled(ILaunch launch) {
+			return true;
+		}
+
+		@Override
+		protected String getLaunchConfigurationName(ILaunch launch) {
+			return "launch";
+		}
+
+		@Override
+		protected boolean isRegistered(ILaunch launch) {
+			return registered;
+		}
+
+		@Override
+		protected void publishWhenTerminated(ILaunch launch, File dump, File archive, String prefix) {
+			terminated = () -> publish(dump, archive, prefix);
+		}
+
+		void terminate() {
+			terminated.run();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.launching;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.debug.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.launching.JavaLaunchableTester;
+import org.eclipse.jdt.launching.JavaRuntime;
+
+/**
+ * Tests that the verdicts and build paths cached for the {@link JavaLaunchableTester} are
+ * discarded when the content of a compilation unit or a build path changes
+ */
+public class LaunchableTesterCacheTests extends AbstractDebugTest {
+
+	private static final String PROJECT_NAME = "LaunchableTesterCache";
+
+	private IJavaProject fProject;
+
+	private IPackageFragmentRoot fRoot;
+
+	public LaunchableTesterCacheTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject = JavaProjectHelper.createJavaProject(PROJECT_NAME, JavaProjectHelper.BIN_DIR);
+		fRoot = JavaProjectHelper.addSourceContainer(fProject, JavaProjectHelper.SRC_DIR);
+		JavaProjectHelper.addContainerEntry(fProject, new Path(JavaRuntime.JRE_CONTAINER));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fProject);
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the verdict of a compilation unit is computed again when the content of its
+	 * file changes
+	 *
+	 * @throws Exception
+	 */
+	public void testContentChangeInvalidatesVerdict() throws Exception {
+		ICompilationUnit unit = fRoot.createPackageFragment("p", true, null).createCompilationUnit("A.java", "package p;\npublic class A {\n}\n", true, null);
+		JavaLaunchableTester tester = new JavaLaunchableTester();
+		assertFalse("A should not have a main method", tester.test(unit, "hasMain", new Object[0], null));
+
+		setContents((IFile) unit.getResource(), "package p;\npublic class A {\n\tpublic static void main(String[] args) {\n\t}\n}\n");
+		assertTrue("the verdict should be discarded when the content changes", tester.test(unit, "hasMain", new Object[0], null));
+	}
+
+	/**
+	 * Tests that the verdicts depending on the build path and the cached build path are computed
+	 * again when the build path changes
+	 *
+	 * @throws Exception
+	 */
+	public void testClasspathChangeInvalidatesVerdicts() throws Exception {
+		ICompilationUnit unit = fRoot.createPackageFragment("p", true, null).createCompilationUnit("B.java", "package p;\npublic class B extends q.Base {\n}\n", true, null);
+		// the super class in a folder not on the build path yet
+		IFolder folder = fProject.getProject().getFolder("extra");
+		folder.create(true, true, null);
+		IFolder pkg = folder.getFolder("q");
+		pkg.create(true, true, null);
+		pkg.getFile("Base.java").create(new ByteArrayInputStream("package q;\npublic class Base {\n}\n".getBytes(StandardCharsets.UTF_8)), true, null);
+
+		JavaLaunchableTester tester = new JavaLaunchableTester();
+		Object[] superclass = new Object[] { "q.Base" };
+		Object[] reference = new Object[] { "extra" };
+		assertFalse("the super class should not be found", tester.test(unit, "extendsClass", superclass, null));
+		assertFalse("the folder should not be on the build path", tester.test(unit, "buildpathReference", reference, null));
+
+		JavaProjectHelper.addSourceContainer(fProject, "extra");
+		assertTrue("the verdict should be discarded when the build path changes", tester.test(unit, "extendsClass", superclass, null));
+		assertTrue("the build path should be discarded when it changes", tester.test(unit, "buildpathReference", reference, null));
+	}
+
+	private void setContents(IFile file, String contents) throws CoreException {
+		file.setContents(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), true, false, null);
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.tests.sourcelookup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.launching.sourcelookup.advanced.FileHashing;
+import org.eclipse.jdt.internal.launching.sourcelookup.advanced.FileHashing.Hasher;
+
+/**
+ * Tests saving the file digests of the advanced source lookup to an index file and loading them again
+ */
+public class FileHashingTests extends AbstractDebugTest {
+	/**
+	 * Last modification time of the test files, in whole seconds
+	 */
+	private static final long LAST_MODIFIED = 1500000000000L;
+
+	private File tempDir;
+	private File index;
+
+	public FileHashingTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		tempDir = Files.createTempDirectory("hashing").toFile();
+		index = new File(tempDir, "index");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] children = tempDir.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				child.delete();
+			}
+		}
+		tempDir.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * Tests that the digest of an unchanged file is loaded from the index instead of being computed again. The file is rewritten with the same
+	 * length and last modification time, so that a digest computed again would differ.
+	 */
+	public void testDigestLoaded() throws IOException {
+		File file = write("a.jar", "aaaa", LAST_MODIFIED);
+		Object digest = saveIndex(file);
+		write(file.getName(), "bbbb", LAST_MODIFIED);
+		assertFalse("the content should have another digest", digest.equals(hash(file)));
+
+		Hasher hasher = FileHashing.newHasher(10);
+		FileHashing.loadIndex(hasher, index);
+		assertEquals("the digest should be loaded from the index", digest, hasher.hash(file));
+	}
+
+	/**
+	 * Tests that the digest of a file is computed again if its last modification time changed since the index was saved
+	 */
+	public void testDigestNotLoadedWhenLastModifiedChanges() throws IOException {
+		File file = write("a.jar", "aaaa", LAST_MODIFIED);
+		Object digest = saveIndex(file);
+		write(file.getName(), "bbbb", LAST_MODIFIED + 10000);
+
+		Hasher hasher = FileHashing.newHasher(10);
+		FileHashing.loadIndex(hasher, index);
+		Object loaded = hasher.hash(file);
+		assertFalse("the digest should not be loaded from the index", digest.equals(loaded));
+		assertEquals("the digest should be computed again", hash(file), loaded);
+	}
+
+	/**
+	 * Tests that the digest of a file is computed again if its length changed since the index was saved
+	 */
+	public void testDigestNotLoadedWhenLengthChanges() throws IOException {
+		File file = write("a.jar", "aaaa", LAST_MODIFIED);
+		Object digest = saveIndex(file);
+		write(file.getName(), "bbbbbb", LAST_MODIFIED);
+
+		Hasher hasher = FileHashing.newHasher(10);
+		FileHashing.loadIndex(hasher, index);
+		Object loaded = hasher.hash(file);
+		assertFalse("the digest should not be loaded from the index", digest.equals(loaded));
+		assertEquals("the digest should be computed again", hash(file), loaded);
+	}
+
+	/**
+	 * Tests that loading an index larger than the cache keeps the most recently requested digests
+	 */
+	public void testLoadIndexKeepsMostRecentlyRequested() throws IOException {
+		File a = write("a.jar", "aaaa", LAST_MODIFIED);
+		File b = write("b.jar", "bbbb", LAST_MODIFIED);
+		File c = write("c.jar", "cccc", LAST_MODIFIED);
+		Hasher saved = FileHashing.newHasher(10);
+		Object digestA = saved.hash(a);
+		saved.hash(b);
+		Object digestC = saved.hash(c);
+		// requested again, b is now the least recently requested
+		saved.hash(a);
+		FileHashing.saveIndex(saved, index);
+		write(a.getName(), "xxxx", LAST_MODIFIED);
+		write(b.getName(), "yyyy", LAST_MODIFIED);
+		write(c.getName(), "zzzz", LAST_MODIFIED);
+
+		Hasher hasher = FileHashing.newHasher(2);
+		FileHashing.loadIndex(hasher, index);
+		assertEquals("the digest of c should be loaded", digestC, hasher.hash(c));
+		assertEquals("the digest of a should be loaded", digestA, hasher.hash(a));
+		assertEquals("the digest of b should not be loaded", hash(b), hasher.hash(b));
+	}
+
+	/**
+	 * Hashes the given file and saves the digest to the index file
+	 */
+	private Object saveIndex(File file) throws IOException {
+		Hasher hasher = FileHashing.newHasher(10);
+		Object digest = hasher.hash(file);
+		assertNotNull("the file should be hashed", digest);
+		FileHashing.saveIndex(hasher, index);
+		assertTrue("the index should be saved", index.isFile());
+		return digest;
+	}
+
+	/**
+	 * Returns the digest of the current content of the given file
+	 */
+	private Object hash(File file) {
+		return FileHashing.newHasher(10).hash(file);
+	}
+
+	private File write(String name, String content, long lastModified) throws IOException {
+		File file = new File(tempDir, name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		assertTrue("the last modification time should be set", file.setLastModified(lastModified));
+		return file;
+	}
+}
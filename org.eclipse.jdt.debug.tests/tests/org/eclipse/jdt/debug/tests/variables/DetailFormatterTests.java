@@ -13,14 +13,19 @@
  *******************************************************************************/
 package org.eclipse.jdt.debug.tests.variables;
 
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.debug.core.model.IValue;
 import org.eclipse.debug.ui.IValueDetailListener;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaValue;
 import org.eclipse.jdt.debug.core.IJavaVariable;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.ui.DetailFormatter;
 import org.eclipse.jdt.internal.debug.ui.JavaDetailFormattersManager;
 
@@ -375,4 +380,92 @@ public class DetailFormatterTests extends AbstractDebugTest {
 			removeAllBreakpoints();
 		}
 	}
+
+	/**
+	 * Tests that a detail is computed once per suspension and recomputed after the thread resumed
+	 *
+	 * @throws Exception
+	 */
+	public void testDetailCachedUntilResume() throws Exception {
+		IJavaThread thread = null;
+		DetailFormatter formatter = null;
+		JavaDetailFormattersManager jdfm = JavaDetailFormattersManager.getDefault();
+		try {
+			String typename = "a.b.c.bug403028";
+			createLineBreakpoint(7, typename);
+			thread = launchToBreakpoint(typename);
+			assertNotNull("The program did not suspend", thread);
+			String snippet = "return String.valueOf(System.nanoTime());";
+			formatter = new DetailFormatter("java.util.HashMap", snippet, true);
+			jdfm.setAssociatedDetailFormatter(formatter);
+			String first = computeDetail(jdfm, thread, "map");
+			assertNotNull("The computed value of the detail should not be null", first);
+			assertEquals("The detail should be computed once per suspension", first, computeDetail(jdfm, thread, "map"));
+
+			thread = stepOver((IJavaStackFrame) thread.getTopStackFrame());
+			assertNotNull("The program did not suspend", thread);
+			String second = computeDetail(jdfm, thread, "map");
+			assertNotNull("The computed value of the detail should not be null", second);
+			assertFalse("The detail should be recomputed after resume", first.equals(second));
+		}
+		finally {
+			jdfm.removeAssociatedDetailFormatter(formatter);
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	/**
+	 * Tests that a request for a detail whose computation takes longer than the request timeout
+	 * starts a new computation instead of waiting for the pending one
+	 *
+	 * @throws Exception
+	 */
+	public void testExpiredComputationNotJoined() throws Exception {
+		IJavaThread thread = null;
+		DetailFormatter formatter = null;
+		JavaDetailFormattersManager jdfm = JavaDetailFormattersManager.getDefault();
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(JDIDebugPlugin.getUniqueIdentifier());
+		try {
+			String typename = "a.b.c.bug403028";
+			createLineBreakpoint(7, typename);
+			thread = launchToBreakpoint(typename);
+			assertNotNull("The program did not suspend", thread);
+			prefs.putInt(JDIDebugModel.PREF_REQUEST_TIMEOUT, 500);
+			String snippet = "try { Thread.sleep(3000); } catch (InterruptedException e) { }\n" + "return String.valueOf(System.nanoTime());";
+			formatter = new DetailFormatter("java.util.HashMap", snippet, true);
+			jdfm.setAssociatedDetailFormatter(formatter);
+			IJavaVariable var = thread.findVariable("map");
+			assertNotNull("the variable 'map' must exist in the frame", var);
+			jdfm.computeValueDetail((IJavaValue) var.getValue(), thread, fListener);
+			Thread.sleep(1000);
+			TestListener listener = new TestListener();
+			jdfm.computeValueDetail((IJavaValue) var.getValue(), thread, listener);
+			long timeout = System.currentTimeMillis() + 20000;
+			while ((fListener.value == null || listener.value == null) && System.currentTimeMillis() < timeout) {
+				Thread.sleep(100);
+			}
+			assertNotNull("The computed value of the first detail should not be null", fListener.result);
+			assertNotNull("The computed value of the second detail should not be null", listener.result);
+			assertFalse("The detail should be computed again after the timeout", fListener.result.equals(listener.result));
+		}
+		finally {
+			prefs.remove(JDIDebugModel.PREF_REQUEST_TIMEOUT);
+			jdfm.removeAssociatedDetailFormatter(formatter);
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	private String computeDetail(JavaDetailFormattersManager jdfm, IJavaThread thread, String variable) throws Exception {
+		fListener.reset();
+		IJavaVariable var = thread.findVariable(variable);
+		assertNotNull("the variable '" + variable + "' must exist in the frame", var);
+		jdfm.computeValueDetail((IJavaValue) var.getValue(), thread, fListener);
+		long timeout = System.currentTimeMillis() + 5000;
+		while (fListener.value == null && System.currentTimeMillis() < timeout) {
+			Thread.sleep(100);
+		}
+		return fListener.result;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 IBM Corporation and others.
+ * Copyright (c) 2010, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,9 @@ import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaVariable;
 import org.eclipse.jdt.debug.tests.AbstractDebugTest;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+import org.eclipse.jdt.internal.debug.core.model.JDIHeapHistogram;
+import org.eclipse.jdt.internal.debug.core.model.JDIHeapHistogram.Entry;
 
 /**
  * Tests for instance retrieval
@@ -97,4 +100,55 @@ public class TestInstanceRetrieval extends AbstractDebugTest {
 		}
 	}
 
+	/**
+	 * Tests the instance counts of a heap histogram and the delta between two
+	 * histograms.
+	 *
+	 * @throws Exception
+	 */
+	public void testHeapHistogram() throws Exception {
+		String typeName = "java6.AllInstancesTests";
+		createLineBreakpoint(64, typeName);
+		IJavaLineBreakpoint bp2 = createLineBreakpoint(66, typeName);
+		IJavaThread thread= null;
+		try {
+			thread= launchToBreakpoint(typeName);
+			assertNotNull("Breakpoint not hit within timeout period", thread);
+			JDIDebugTarget target = (JDIDebugTarget) thread.getDebugTarget();
+			if (target.supportsInstanceRetrieval()) {
+				JDIHeapHistogram first = JDIHeapHistogram.create(target, null);
+				assertNotNull("Missing histogram", first);
+				assertTrue("Histogram should contain types", first.getTypeCount() > 0);
+				Entry entry = find(first.compare(null), "java6.AllInstancesTests$RefObject");
+				assertNotNull("Missing entry for RefObject", entry);
+				assertEquals("Wrong instance count", 13, entry.getCount());
+				assertEquals("Wrong delta without previous histogram", 13, entry.getDelta());
+
+				thread = resumeToLineBreakpoint(thread, bp2);
+				JDIHeapHistogram second = JDIHeapHistogram.create(target, null);
+				assertNotNull("Missing histogram", second);
+				Entry[] entries = second.compare(first);
+				entry = find(entries, "java6.AllInstancesTests$RefClass");
+				assertNotNull("Missing entry for RefClass", entry);
+				assertEquals("Wrong instance count", 1002, entry.getCount());
+				assertEquals("Wrong delta", 1002, entry.getDelta());
+				for (int i = 1; i < entries.length; i++) {
+					assertTrue("Entries should be ordered by growth", entries[i - 1].getDelta() >= entries[i].getDelta());
+				}
+				assertEquals("Wrong type", "java6.AllInstancesTests$RefClass", second.getType(entry).getName());
+			}
+		} finally {
+			terminateAndRemove(thread);
+			removeAllBreakpoints();
+		}
+	}
+
+	private Entry find(Entry[] entries, String name) {
+		for (Entry entry : entries) {
+			if (entry.getName().equals(name)) {
+				return entry;
+			}
+		}
+		return null;
+	}
 }
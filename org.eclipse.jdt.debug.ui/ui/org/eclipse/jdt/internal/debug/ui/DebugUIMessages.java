@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -265,6 +265,7 @@ public class DebugUIMessages extends NLS {
 	public static String JavaDetailFormattersPreferencePage_2;
 	public static String JavaDetailFormattersPreferencePage_3;
 	public static String JavaDetailFormattersPreferencePage_4;
+	public static String JavaDetailFormattersPreferencePage_5;
 	public static String JavaDetailFormattersPreferencePage_Remove_all_selected_detail_formatters_8;
 	public static String JavaDetailFormattersPreferencePage__Edit____9;
 	public static String JavaDetailFormattersPreferencePage_Edit_the_selected_detail_formatter_10;
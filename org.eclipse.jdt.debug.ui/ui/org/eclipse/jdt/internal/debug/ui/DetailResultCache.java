@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.ui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IDebugElement;
+import org.eclipse.debug.core.model.IDebugTarget;
+import org.eclipse.debug.core.model.IValue;
+import org.eclipse.debug.ui.IValueDetailListener;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaObject;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+
+/**
+ * Cache of computed details, keyed by the unique id of an object, the detail formatter used
+ * and the suspend epoch of the debug target. The epoch of a target advances whenever a thread
+ * of the target suspends or resumes for anything other than an implicit evaluation, or a
+ * variable is modified, which discards all details computed for the target before.
+ * <p>
+ * Requests for a detail that is already being computed are coalesced, their listeners are
+ * notified when the pending computation completes. A computation that does not complete within
+ * the debugger's request timeout, or whose target suspends, resumes or terminates meanwhile, is
+ * no longer joined, later requests compute the detail again.
+ * </p>
+ */
+class DetailResultCache {
+
+	/**
+	 * Detail formatter key used when the detail is computed with <code>toString()</code>
+	 */
+	private static final String TO_STRING = ""; //$NON-NLS-1$
+
+	/**
+	 * Details computed in the current epoch of each target
+	 */
+	private final Map<Key, String> fResults = new HashMap<>();
+
+	/**
+	 * Detail computations in progress
+	 */
+	private final Map<Key, Request> fPending = new HashMap<>();
+
+	/**
+	 * Current suspend epoch of each target
+	 */
+	private final Map<IDebugTarget, Long> fEpochs = new HashMap<>();
+
+	/**
+	 * Incremented when all details are discarded, for example when the detail formatters change
+	 */
+	private long fGeneration = 0;
+
+	/**
+	 * Returns the listener to notify with the computed detail of the given object, or <code>null</code>
+	 * if the listener has already been notified from the cache or the detail is already being computed.
+	 *
+	 * @param object the object to compute the detail for
+	 * @param target the target of the object
+	 * @param formatter the snippet of the detail formatter or <code>null</code> if <code>toString()</code> is used
+	 * @param listener the listener waiting for the detail
+	 * @return the listener to pass the detail to or <code>null</code> if no computation is required
+	 */
+	IValueDetailListener request(IJavaObject object, IJavaDebugTarget target, String formatter, IValueDetailListener listener) {
+		long id;
+		try {
+			id = object.getUniqueId();
+		} catch (DebugException e) {
+			return listener;
+		}
+		if (id < 0) {
+			return listener;
+		}
+		String result;
+		synchronized (this) {
+			Key key = new Key(target, id, formatter == null ? TO_STRING : formatter, getEpoch(target), fGeneration);
+			result = fResults.get(key);
+			if (result == null) {
+				Request pending = fPending.get(key);
+				// a computation taking longer than the request timeout is no longer joined
+				if (pending != null && !pending.isExpired()) {
+					pending.addListener(object, listener);
+					return null;
+				}
+				Request request = new Request(key, object, listener);
+				fPending.put(key, request);
+				return request;
+			}
+		}
+		listener.detailComputed(object, result);
+		return null;
+	}
+
+	/**
+	 * Advances the suspend epoch of targets affected by the given debug events.
+	 *
+	 * @param events debug events
+	 */
+	void handleDebugEvents(DebugEvent[] events) {
+		for (DebugEvent event : events) {
+			if (!(event.getSource() instanceof IDebugElement)) {
+				continue;
+			}
+			switch (event.getKind()) {
+				case DebugEvent.SUSPEND:
+				case DebugEvent.RESUME:
+					if (event.getDetail() == DebugEvent.EVALUATION_IMPLICIT) {
+						continue;
+					}
+					break;
+				case DebugEvent.CHANGE:
+					if (event.getDetail() != DebugEvent.CONTENT) {
+						continue;
+					}
+					break;
+				case DebugEvent.TERMINATE:
+					break;
+				default:
+					continue;
+			}
+			invalidate(((IDebugElement) event.getSource()).getDebugTarget());
+		}
+	}
+
+	/**
+	 * Discards all details computed for the given target.
+	 *
+	 * @param target the target
+	 */
+	synchronized void invalidate(IDebugTarget target) {
+		if (target == null) {
+			return;
+		}
+		if (target.isTerminated()) {
+			fEpochs.remove(target);
+		} else {
+			fEpochs.put(target, Long.valueOf(getEpoch(target) + 1));
+		}
+		for (Iterator<Key> iter = fResults.keySet().iterator(); iter.hasNext();) {
+			if (iter.next().fTarget == target) {
+				iter.remove();
+			}
+		}
+		// computations still pending notify their listeners if they complete
+		for (Iterator<Key> iter = fPending.keySet().iterator(); iter.hasNext();) {
+			if (iter.next().fTarget == target) {
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discards all computed details.
+	 */
+	synchronized void clear() {
+		fGeneration++;
+		fResults.clear();
+	}
+
+	private long getEpoch(IDebugTarget target) {
+		Long epoch = fEpochs.get(target);
+		return epoch == null ? 0 : epoch.longValue();
+	}
+
+	/**
+	 * Detail computation in progress, notifies all listeners waiting for the detail on completion.
+	 */
+	class Request implements IValueDetailListener {
+		private final Key fKey;
+		private final long fDeadline;
+		private final List<IValue> fValues = new ArrayList<>(1);
+		private final List<IValueDetailListener> fListeners = new ArrayList<>(1);
+
+		Request(Key key, IValue value, IValueDetailListener listener) {
+			fKey = key;
+			int timeout = Platform.getPreferencesService().getInt(JDIDebugPlugin.getUniqueIdentifier(), JDIDebugModel.PREF_REQUEST_TIMEOUT, JDIDebugModel.DEF_REQUEST_TIMEOUT, null);
+			fDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+			addListener(value, listener);
+		}
+
+		/**
+		 * Returns whether the computation takes longer than the request timeout, for example
+		 * because the evaluation is blocked in the target.
+		 */
+		boolean isExpired() {
+			return System.nanoTime() - fDeadline > 0;
+		}
+
+		void addListener(IValue value, IValueDetailListener listener) {
+			fValues.add(value);
+			fListeners.add(listener);
+		}
+
+		/**
+		 * Notifies the waiting listeners with a detail that is not cached, for example an error
+		 * message.
+		 */
+		@Override
+		public void detailComputed(IValue value, String result) {
+			complete(result, false);
+		}
+
+		/**
+		 * Notifies the waiting listeners and caches the detail for the current epoch.
+		 *
+		 * @param value the value
+		 * @param result the detail
+		 */
+		public void resultComputed(IValue value, String result) {
+			complete(result, true);
+		}
+
+		private void complete(String result, boolean cache) {
+			synchronized (DetailResultCache.this) {
+				// an expired request may have been replaced by a new one
+				if (fPending.get(fKey) == this) {
+					fPending.remove(fKey);
+				}
+				if (cache && result != null && fKey.fEpoch == getEpoch(fKey.fTarget) && fKey.fGeneration == fGeneration) {
+					fResults.put(fKey, result);
+				}
+			}
+			// no more listeners are added once removed from or replaced in the pending requests
+			for (int i = 0; i < fListeners.size(); i++) {
+				fListeners.get(i).detailComputed(fValues.get(i), result);
+			}
+		}
+	}
+
+	/**
+	 * Key of a computed detail
+	 */
+	private static final class Key {
+		final IDebugTarget fTarget;
+		final long fId;
+		final String fFormatter;
+		final long fEpoch;
+		final long fGeneration;
+
+		Key(IDebugTarget target, long id, String formatter, long epoch, long generation) {
+			fTarget = target;
+			fId = id;
+			fFormatter = formatter;
+			fEpoch = epoch;
+			fGeneration = generation;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Key) {
+				Key key = (Key) obj;
+				return fId == key.fId && fEpoch == key.fEpoch && fGeneration == key.fGeneration && fTarget.equals(key.fTarget) && fFormatter.equals(key.fFormatter);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (fId ^ (fId >>> 32)) * 31 + fFormatter.hashCode() + fTarget.hashCode();
+		}
+	}
+}
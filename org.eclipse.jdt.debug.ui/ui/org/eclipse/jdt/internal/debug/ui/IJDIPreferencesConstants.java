@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -197,6 +197,13 @@ public interface IJDIPreferencesConstants {
 	public static final String INLINE_FORMATTERS="INLINE_FORMATTERS"; //$NON-NLS-1$
 	public static final String DETAIL_PANE="DETAIL_PANE"; //$NON-NLS-1$
 
+	/**
+	 * Boolean preference indicating whether the details of arrays of objects are computed
+	 * with a single call to <code>Arrays.deepToString()</code> in the target instead of one
+	 * <code>toString()</code> call per element.
+	 */
+	public static final String PREF_ARRAY_DETAILS_SINGLE_CALL = IJavaDebugUIConstants.PLUGIN_ID + ".array_details_single_call"; //$NON-NLS-1$
+
 	/**
 	 * Common dialog settings
 	 */
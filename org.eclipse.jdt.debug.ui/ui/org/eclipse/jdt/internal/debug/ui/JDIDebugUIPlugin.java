@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -53,6 +53,7 @@ import org.eclipse.jdt.debug.core.IJavaHotCodeReplaceListener;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaThreadGroup;
+import org.eclipse.jdt.debug.core.IJavaTracepointListener;
 import org.eclipse.jdt.debug.core.IJavaValue;
 import org.eclipse.jdt.debug.core.IJavaVariable;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
@@ -60,6 +61,7 @@ import org.eclipse.jdt.debug.ui.IJavaDebugUIConstants;
 import org.eclipse.jdt.internal.debug.ui.breakpoints.ExceptionInspector;
 import org.eclipse.jdt.internal.debug.ui.breakpoints.JavaBreakpointTypeAdapterFactory;
 import org.eclipse.jdt.internal.debug.ui.classpath.ClasspathEntryAdapterFactory;
+import org.eclipse.jdt.internal.debug.ui.console.JavaTracepointConsoleWriter;
 import org.eclipse.jdt.internal.debug.ui.display.JavaInspectExpression;
 import org.eclipse.jdt.internal.debug.ui.monitors.JavaContendedMonitor;
 import org.eclipse.jdt.internal.debug.ui.monitors.JavaOwnedMonitor;
@@ -139,6 +141,11 @@ public class JDIDebugUIPlugin extends AbstractUIPlugin {
 	 */
 	private IJavaHotCodeReplaceListener fHCRListener;
 
+	/**
+	 * Writes the records of tracepoints to the console
+	 */
+	private IJavaTracepointListener fTracepointListener;
+
 	// Map of VMInstallTypeIDs to IConfigurationElements
 	protected Map<String, IConfigurationElement> fVmInstallTypePageMap;
 
@@ -408,6 +415,8 @@ public class JDIDebugUIPlugin extends AbstractUIPlugin {
 
 		fHCRListener= new JavaHotCodeReplaceListener();
 		JDIDebugModel.addHotCodeReplaceListener(fHCRListener);
+		fTracepointListener = new JavaTracepointConsoleWriter();
+		JDIDebugModel.addTracepointListener(fTracepointListener);
 
 		// initialize exception inspector handler
 		new ExceptionInspector();
@@ -443,6 +452,7 @@ public class JDIDebugUIPlugin extends AbstractUIPlugin {
 		try {
 			setShuttingDown(true);
 			JDIDebugModel.removeHotCodeReplaceListener(fHCRListener);
+			JDIDebugModel.removeTracepointListener(fTracepointListener);
 			JavaDebugOptionsManager.getDefault().shutdown();
 			if (fImageDescriptorRegistry != null) {
 				fImageDescriptorRegistry.dispose();
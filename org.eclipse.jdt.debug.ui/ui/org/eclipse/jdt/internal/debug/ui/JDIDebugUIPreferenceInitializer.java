@@ -55,6 +55,7 @@ public class JDIDebugUIPreferenceInitializer extends AbstractPreferenceInitializ
 		store.setDefault(IJDIPreferencesConstants.PREF_SHOW_UNSIGNED, false);
 		store.setDefault(IJDIPreferencesConstants.PREF_SHOW_NULL_ARRAY_ENTRIES, true);
 		store.setDefault(IJDIPreferencesConstants.PREF_SHOW_DETAILS, IJDIPreferencesConstants.DETAIL_PANE);
+		store.setDefault(IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL, false);
 
 		store.setDefault(IJavaDebugUIConstants.PREF_SHOW_SYSTEM_THREADS, false);
 		store.setDefault(IJavaDebugUIConstants.PREF_SHOW_RUNNING_THREADS, true);
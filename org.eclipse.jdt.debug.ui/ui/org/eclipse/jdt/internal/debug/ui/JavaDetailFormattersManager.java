@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.debug.ui;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
@@ -55,6 +60,7 @@ import org.eclipse.jdt.debug.eval.IEvaluationResult;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.core.JavaDebugUtils;
 import org.eclipse.jdt.internal.debug.core.logicalstructures.JDIAllInstancesValue;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 import org.eclipse.jdt.internal.debug.core.model.JDINullValue;
 import org.eclipse.jdt.internal.debug.core.model.JDIReferenceListValue;
 import org.eclipse.jface.util.IPropertyChangeListener;
@@ -96,6 +102,11 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 	 */
 	private HashMap<Key, Expression> fCacheMap;
 
+	/**
+	 * Cache of computed details, valid until the target suspends or resumes.
+	 */
+	private DetailResultCache fDetailCache;
+
 	/**
 	 * JavaDetailFormattersManager constructor.
 	 */
@@ -106,6 +117,7 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 		DebugPlugin.getDefault().addDebugEventListener(this);
 		DebugUITools.getPreferenceStore().addPropertyChangeListener(this);
 		fCacheMap= new HashMap<>();
+		fDetailCache= new DetailResultCache();
 	}
 
 	/**
@@ -142,7 +154,7 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 	}
 
 	private void resolveFormatter(final IJavaValue value, final IJavaThread thread, final IValueDetailListener listener) {
-		EvaluationListener evaluationListener= new EvaluationListener(value, thread, listener);
+		IValueDetailListener detailListener= listener;
 		if (value instanceof IJavaObject) {
 			IJavaObject objectValue= (IJavaObject) value;
 			try {
@@ -157,16 +169,22 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 				IJavaDebugTarget debugTarget= (IJavaDebugTarget) thread.getDebugTarget();
 				// get the compiled expression to use
 				Expression expression= getCompiledExpression(objectValue, debugTarget, thread);
+				// answer from the cache or wait for a pending computation of the same detail
+				detailListener= fDetailCache.request(objectValue, debugTarget, expression == null ? null : expression.getExpression().getSnippet(), listener);
+				if (detailListener == null) {
+					return;
+				}
 				if (expression != null) {
 					expression.getEngine().evaluateExpression(expression.getExpression(), objectValue, thread,
-							evaluationListener, DebugEvent.EVALUATION_IMPLICIT, false);
+							new EvaluationListener(value, thread, detailListener), DebugEvent.EVALUATION_IMPLICIT, false);
 					return;
 				}
 			} catch (CoreException e) {
-				listener.detailComputed(value, e.toString());
+				detailListener.detailComputed(value, e.toString());
 				return;
 			}
 		}
+		EvaluationListener evaluationListener= new EvaluationListener(value, thread, detailListener);
 		try {
 			evaluationListener.valueToString(value);
 		} catch (DebugException e) {
@@ -176,7 +194,7 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 			} else if (e.getStatus().getCode() == IJavaThread.ERR_INCOMPATIBLE_THREAD_STATE) {
 				detail = DebugUIMessages.JavaDetailFormattersManager_6;
 			}
-			listener.detailComputed(value, detail);
+			detailListener.detailComputed(value, detail);
 		}
 	}
 
@@ -399,6 +417,9 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 						.getCompiledExpression(snippet, javaObject);
 				if (res != null) {
 					Expression exp = new Expression(res, evaluationEngine);
+					if (debugTarget instanceof JDIDebugTarget) {
+						((JDIDebugTarget) debugTarget).getStringLiteralCache().retain(res);
+					}
 					fCacheMap.put(key, exp);
 					return exp;
 				}
@@ -448,9 +469,12 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 		String property = event.getProperty();
 		if (property.equals(IJDIPreferencesConstants.PREF_DETAIL_FORMATTERS_LIST) ||
 				property.equals(IJDIPreferencesConstants.PREF_SHOW_DETAILS) ||
+				property.equals(IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL) ||
 				property.equals(IDebugUIConstants.PREF_MAX_DETAIL_LENGTH)) {
 			populateDetailFormattersMap();
+			releaseExpressions(null);
 			fCacheMap.clear();
+			fDetailCache.clear();
 			// If a Java stack frame is selected in the Debug view, fire a change event on
 			// it so the variables view will update for any formatter changes.
             IAdaptable selected = DebugUITools.getDebugContext();
@@ -469,6 +493,7 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 	 */
 	@Override
 	public void handleDebugEvents(DebugEvent[] events) {
+		fDetailCache.handleDebugEvents(events);
 		for (int i = 0; i < events.length; i++) {
 			DebugEvent event = events[i];
 			if (event.getSource() instanceof IJavaDebugTarget && event.getKind() == DebugEvent.TERMINATE) {
@@ -514,6 +539,8 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 	 * @param debugTarget the target
 	 */
 	private synchronized void deleteCacheForTarget(IJavaDebugTarget debugTarget) {
+		fDetailCache.invalidate(debugTarget);
+		releaseExpressions(debugTarget);
 		for (Iterator<Key> iter= fCacheMap.keySet().iterator(); iter.hasNext();) {
 			Key key= iter.next();
 			if ((key).fDebugTarget == debugTarget) {
@@ -522,6 +549,21 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 		}
 	}
 
+	/**
+	 * Releases the string literals of the cached compiled expressions of the
+	 * given target, or of all targets.
+	 *
+	 * @param debugTarget the target or <code>null</code> for all targets
+	 */
+	private void releaseExpressions(IJavaDebugTarget debugTarget) {
+		for (Map.Entry<Key, Expression> entry : fCacheMap.entrySet()) {
+			IJavaDebugTarget target = entry.getKey().fDebugTarget;
+			if ((debugTarget == null || target == debugTarget) && target instanceof JDIDebugTarget) {
+				((JDIDebugTarget) target).getStringLiteralCache().release(entry.getValue().getExpression());
+			}
+		}
+	}
+
 	/**
 	 * Object used as the key in the cache map for associate a compiled
 	 * expression with a pair type name/debug target
@@ -593,6 +635,25 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 		 */
 		private static final String STRING_SIGNATURE = "Ljava/lang/String;"; //$NON-NLS-1$
 
+		/**
+		 * Type, selectors and signatures used to compute the detail of an
+		 * object array with a single invocation in the target.
+		 */
+		private static final String ARRAYS_TYPE = "java.util.Arrays"; //$NON-NLS-1$
+		private static final String DEEP_TO_STRING = "deepToString"; //$NON-NLS-1$
+		private static final String DEEP_TO_STRING_SIGNATURE = "([Ljava/lang/Object;)Ljava/lang/String;"; //$NON-NLS-1$
+		private static final String COPY_OF = "copyOf"; //$NON-NLS-1$
+		private static final String COPY_OF_SIGNATURE = "([Ljava/lang/Object;I)[Ljava/lang/Object;"; //$NON-NLS-1$
+		private static final String OBJECT_ARRAY_TYPE = "java.lang.Object[]"; //$NON-NLS-1$
+
+		/**
+		 * Marker placed between the elements of a partial array detail, which
+		 * tells the separators of the elements from the text of the elements.
+		 */
+		private static final String ELEMENT_MARKER = '\u0000' + UUID.randomUUID().toString() + '\u0000';
+		private static final String ELEMENT_SEPARATOR = ", "; //$NON-NLS-1$
+		private static final String NULL = "null"; //$NON-NLS-1$
+
 		private IJavaValue fValue;
 
 		private IValueDetailListener fListener;
@@ -640,6 +701,7 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 		public void valueToString(final IJavaValue objectValue) throws DebugException {
 			String nonEvalResult = null;
 			StringBuilder result= null;
+			boolean cacheable = true;
 			if (objectValue.getSignature() == null) {
 				// no need to spawn evaluate for a null fValue
 				nonEvalResult = DebugUIMessages.JavaDetailFormattersManager_null;
@@ -651,6 +713,7 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 				// no thread available
 				result = new StringBuilder();
 				result.append(DebugUIMessages.JavaDetailFormattersManager_no_suspended_threads);
+				cacheable = false;
 				appendJDIValueString(result, objectValue);
 			} else if (objectValue instanceof IJavaObject && STRING_SIGNATURE.equals(objectValue.getSignature())) {
 				// no need to spawn evaluate for a java.lang.String
@@ -661,7 +724,11 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 				nonEvalResult = result.toString();
 			}
 			if (nonEvalResult != null) {
-				fListener.detailComputed(fValue, nonEvalResult);
+				if (cacheable) {
+					resultComputed(nonEvalResult);
+				} else {
+					fListener.detailComputed(fValue, nonEvalResult);
+				}
 				return;
 			}
 
@@ -676,12 +743,25 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 					} else {
 						appendJDIValueString(buf, objectValue);
 					}
-					fListener.detailComputed(fValue, buf.toString());
+					resultComputed(buf.toString());
 				}
 			};
 			fThread.runEvaluation(eval, null, DebugEvent.EVALUATION_IMPLICIT, false);
 		}
 
+		/**
+		 * Notifies the listener of a successfully computed detail, which may be cached.
+		 *
+		 * @param detail the detail
+		 */
+		private void resultComputed(String detail) {
+			if (fListener instanceof DetailResultCache.Request) {
+				((DetailResultCache.Request) fListener).resultComputed(fValue, detail);
+			} else {
+				fListener.detailComputed(fValue, detail);
+			}
+		}
+
 		/*
 		 * Gets all values in array and appends the toString() if it is an array of Objects or the value if primitive.
 		 * NB - this method is only called if there is no compiled expression for an array to perform an
@@ -689,6 +769,9 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 		 * List.toString() instead of one call per item in the array).
 		 */
 		protected void appendArrayDetail(StringBuilder result, IJavaArray arrayValue) throws DebugException {
+			if (appendReferenceArrayDetail(result, arrayValue)) {
+				return;
+			}
 			result.append('[');
 			boolean partial = false;
 			IJavaValue[] arrayValues = null;
@@ -735,6 +818,135 @@ public class JavaDetailFormattersManager implements IPropertyChangeListener, IDe
 			}
 		}
 
+		/*
+		 * Appends the detail of an array of objects computed with a single call to
+		 * Arrays.deepToString() in the target instead of one toString() call per element,
+		 * if enabled by IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL.
+		 * Returns false if the array has a primitive component type or the call fails, for
+		 * example when the toString() of an element throws an exception, so that the
+		 * details of the elements are computed one by one.
+		 *
+		 * The detail is computed from a copy of the elements, of the first elements of a
+		 * partial array, interleaved with a marker, which delimits the details of the
+		 * elements, so that a partial detail is truncated after the same element as the
+		 * element wise detail. The detail of an element whose toString() returned null
+		 * reads "null", these elements are computed one by one to render them as the
+		 * element wise detail does. The intermediate arrays are not collected while the
+		 * detail is computed.
+		 */
+		protected boolean appendReferenceArrayDetail(StringBuilder result, IJavaArray arrayValue) {
+			if (!JDIDebugUIPlugin.getDefault().getPreferenceStore().getBoolean(IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL)) {
+				return false;
+			}
+			List<IJavaObject> disabled = new ArrayList<>();
+			try {
+				if (!(((IJavaArrayType) arrayValue.getJavaType()).getComponentType() instanceof IJavaReferenceType)) {
+					return false;
+				}
+				IJavaDebugTarget target = (IJavaDebugTarget) arrayValue.getDebugTarget();
+				IJavaType arrays = getType(target, ARRAYS_TYPE, IJavaClassType.class);
+				IJavaType objectArray = getType(target, OBJECT_ARRAY_TYPE, IJavaArrayType.class);
+				if (arrays == null || objectArray == null) {
+					return false;
+				}
+				int maxLength = getMaxDetailLength();
+				int maxEntries = (maxLength / 3) + 1; // guess at char/comma/space per entry
+				boolean partial = maxLength > 0 && arrayValue.getLength() > maxEntries;
+				IJavaValue[] elements;
+				if (partial) {
+					IJavaValue copy = ((IJavaClassType) arrays).sendMessage(COPY_OF, COPY_OF_SIGNATURE, new IJavaValue[] {
+							arrayValue, target.newValue(maxEntries) }, fThread);
+					if (!(copy instanceof IJavaArray)) {
+						return false;
+					}
+					disableCollection((IJavaArray) copy, disabled);
+					elements = ((IJavaArray) copy).getValues();
+				} else {
+					elements = arrayValue.getValues();
+				}
+				if (elements.length == 0) {
+					result.append("[]"); //$NON-NLS-1$
+					return true;
+				}
+				IJavaValue marker = target.newValue(ELEMENT_MARKER);
+				disableCollection((IJavaObject) marker, disabled);
+				IJavaValue[] values = new IJavaValue[elements.length * 2 - 1];
+				for (int i = 0; i < elements.length; i++) {
+					if (i > 0) {
+						values[i * 2 - 1] = marker;
+					}
+					values[i * 2] = elements[i];
+				}
+				IJavaArray marked = ((IJavaArrayType) objectArray).newInstance(values.length);
+				disableCollection(marked, disabled);
+				marked.setValues(values);
+				IJavaValue detail = ((IJavaClassType) arrays).sendMessage(DEEP_TO_STRING, DEEP_TO_STRING_SIGNATURE, new IJavaValue[] { marked }, fThread);
+				if (detail == null || detail.isNull()) {
+					return false;
+				}
+				String string = detail.getValueString();
+				String delimiter = ELEMENT_SEPARATOR + ELEMENT_MARKER + ELEMENT_SEPARATOR;
+				String[] details = string.substring(1, string.length() - 1).split(Pattern.quote(delimiter), -1);
+				if (details.length != elements.length) {
+					return false;
+				}
+				result.append('[');
+				for (int i = 0; i < details.length; i++) {
+					IJavaValue element = elements[i];
+					if (element instanceof IJavaArray && details[i].contains(NULL)) {
+						appendArrayDetail(result, (IJavaArray) element);
+					} else if (element instanceof IJavaObject && !element.isNull() && details[i].equals(NULL)) {
+						appendObjectDetail(result, (IJavaObject) element);
+					} else {
+						result.append(details[i]);
+					}
+					if (i < details.length - 1) {
+						result.append(ELEMENT_SEPARATOR);
+					}
+					// like the element wise detail, stop after the first element exceeding the
+					// maximum length and do not close the partial detail
+					if (partial && result.length() > maxLength) {
+						break;
+					}
+				}
+				if (!partial) {
+					result.append(']');
+				}
+				return true;
+			} catch (DebugException e) {
+				return false;
+			} finally {
+				for (IJavaObject object : disabled) {
+					try {
+						object.enableCollection();
+					} catch (DebugException e) {
+						// the target terminated or the object was not collectable
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the loaded type with the given name and kind, or <code>null</code> if
+		 * there is no such type.
+		 */
+		private IJavaType getType(IJavaDebugTarget target, String name, Class<? extends IJavaType> kind) throws DebugException {
+			IJavaType[] types = target.getJavaTypes(name);
+			if (types != null) {
+				for (IJavaType type : types) {
+					if (kind.isInstance(type)) {
+						return type;
+					}
+				}
+			}
+			return null;
+		}
+
+		private void disableCollection(IJavaObject object, List<IJavaObject> disabled) throws DebugException {
+			object.disableCollection();
+			disabled.add(object);
+		}
+
 		protected void appendJDIPrimitiveValueString(StringBuilder result, IJavaValue value) throws DebugException {
 			result.append(value.getValueString());
 		}
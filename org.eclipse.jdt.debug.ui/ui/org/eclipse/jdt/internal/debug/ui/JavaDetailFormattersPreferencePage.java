@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -72,6 +72,7 @@ public class JavaDetailFormattersPreferencePage extends PreferencePage implement
 	private FormatterListViewerContentProvider fFormatViewerContentProvider;
     private Button fInlineFormattersButton;
     private Button fInlineAllButton;
+    private Button fArrayDetailsSingleCallButton;
 
 	public JavaDetailFormattersPreferencePage() {
 		super();
@@ -137,6 +138,13 @@ public class JavaDetailFormattersPreferencePage extends PreferencePage implement
         Button detailPane = new Button(group, SWT.RADIO);
         detailPane.setText(DebugUIMessages.JavaDetailFormattersPreferencePage_4);
         detailPane.setSelection(preference.equals(IJDIPreferencesConstants.DETAIL_PANE));
+
+        fArrayDetailsSingleCallButton = new Button(parent, SWT.CHECK);
+        fArrayDetailsSingleCallButton.setText(DebugUIMessages.JavaDetailFormattersPreferencePage_5);
+        fArrayDetailsSingleCallButton.setSelection(getPreferenceStore().getBoolean(IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL));
+        gridData = new GridData(GridData.FILL_HORIZONTAL);
+        gridData.horizontalSpan = 2;
+        fArrayDetailsSingleCallButton.setLayoutData(gridData);
     }
 
 	/**
@@ -353,6 +361,7 @@ public class JavaDetailFormattersPreferencePage extends PreferencePage implement
 	            value= IJDIPreferencesConstants.INLINE_FORMATTERS;
 	        }
 	        JDIDebugUIPlugin.getDefault().getPreferenceStore().setValue(IJDIPreferencesConstants.PREF_SHOW_DETAILS, value);
+	        JDIDebugUIPlugin.getDefault().getPreferenceStore().setValue(IJDIPreferencesConstants.PREF_ARRAY_DETAILS_SINGLE_CALL, fArrayDetailsSingleCallButton.getSelection());
 			fCodeViewer.dispose();
 		}
 		return true;
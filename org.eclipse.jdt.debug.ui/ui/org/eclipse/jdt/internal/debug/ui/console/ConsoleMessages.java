@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -46,4 +46,7 @@ public class ConsoleMessages extends NLS {
 	public static String JavaStackTraceHyperlink_0;
 
 	public static String JavaStackTraceHyperlink_1;
+
+	public static String JavaTracepointConsoleWriter_0;
+	public static String JavaTracepointConsoleWriter_1;
 }
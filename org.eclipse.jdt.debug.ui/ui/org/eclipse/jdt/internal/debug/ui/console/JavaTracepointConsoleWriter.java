@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.ui.console;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.ui.DebugUITools;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaTraceRecord;
+import org.eclipse.jdt.debug.core.IJavaTracepoint;
+import org.eclipse.jdt.debug.core.IJavaTracepointListener;
+import org.eclipse.jdt.internal.debug.ui.JDIDebugUIPlugin;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.console.IConsole;
+import org.eclipse.ui.console.IOConsole;
+import org.eclipse.ui.console.IOConsoleOutputStream;
+
+/**
+ * Writes the records of tracepoints to the console of the process of their
+ * target, one line per record.
+ */
+public class JavaTracepointConsoleWriter implements IJavaTracepointListener {
+
+	/**
+	 * Streams of their own, to not interleave the records with the output of
+	 * the process in the middle of a line.
+	 */
+	private final Map<IOConsole, IOConsoleOutputStream> fStreams = Collections.synchronizedMap(new WeakHashMap<>());
+
+	@Override
+	public void traced(IJavaDebugTarget target, IJavaTraceRecord[] records) {
+		SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS"); //$NON-NLS-1$
+		// tracepoint attributes are read from the marker, once per batch
+		Map<IJavaTracepoint, String[]> expressions = new HashMap<>();
+		Map<IJavaTracepoint, String> locations = new HashMap<>();
+		StringBuilder text = new StringBuilder();
+		for (IJavaTraceRecord record : records) {
+			IJavaTracepoint tracepoint = record.getTracepoint();
+			String location = locations.get(tracepoint);
+			if (location == null) {
+				try {
+					location = tracepoint.getTypeName() + ':' + tracepoint.getLineNumber();
+					expressions.put(tracepoint, tracepoint.getTraceExpressions());
+				} catch (CoreException e) {
+					// the tracepoint was deleted
+					location = ""; //$NON-NLS-1$
+					expressions.put(tracepoint, new String[0]);
+				}
+				locations.put(tracepoint, location);
+			}
+			text.append(format.format(new Date(record.getTime()))).append(" ["); //$NON-NLS-1$
+			text.append(record.getThreadId()).append("] ").append(location); //$NON-NLS-1$
+			String[] names = expressions.get(tracepoint);
+			String[] values = record.getValues();
+			for (int i = 0; i < values.length && i < names.length; i++) {
+				text.append(i == 0 ? " " : ", ").append(names[i]).append(" = "); //$NON-NLS-1$ //$NON-NLS-2$
+				text.append(values[i] == null ? ConsoleMessages.JavaTracepointConsoleWriter_0 : values[i]);
+			}
+			text.append('\n');
+		}
+		write(target, text.toString());
+	}
+
+	@Override
+	public void tracesDropped(IJavaDebugTarget target, long count) {
+		write(target, NLS.bind(ConsoleMessages.JavaTracepointConsoleWriter_1, Long.toString(count)) + '\n');
+	}
+
+	private void write(IJavaDebugTarget target, String text) {
+		IProcess process = target.getProcess();
+		if (process == null) {
+			return;
+		}
+		IConsole console = DebugUITools.getConsole(process);
+		if (!(console instanceof IOConsole)) {
+			return;
+		}
+		IOConsoleOutputStream stream = fStreams.computeIfAbsent((IOConsole) console, IOConsole::newOutputStream);
+		try {
+			stream.write(text);
+		} catch (IOException e) {
+			JDIDebugUIPlugin.log(e);
+		}
+	}
+}
@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.ui.heapwalking;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.IDebugEventSetListener;
+import org.eclipse.debug.ui.DebugUITools;
+import org.eclipse.debug.ui.IDebugUIConstants;
+import org.eclipse.debug.ui.contexts.DebugContextEvent;
+import org.eclipse.debug.ui.contexts.IDebugContextListener;
+import org.eclipse.debug.ui.contexts.IDebugContextService;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.internal.debug.core.logicalstructures.JDIAllInstancesValue;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+import org.eclipse.jdt.internal.debug.core.model.JDIHeapHistogram;
+import org.eclipse.jdt.internal.debug.core.model.JDIHeapHistogram.Entry;
+import org.eclipse.jdt.internal.debug.core.model.JDIReferenceType;
+import org.eclipse.jdt.internal.debug.ui.JDIDebugUIPlugin;
+import org.eclipse.jdt.internal.debug.ui.JavaDebugImages;
+import org.eclipse.jdt.internal.debug.ui.display.JavaInspectExpression;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.IViewPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Shows the number of instances of every loaded type of the selected debug
+ * target and their change since the previous snapshot, for finding the types
+ * which leak.
+ * <p>
+ * The table is virtual as targets commonly have tens of thousands of loaded
+ * types. Double clicking a type shows its instances in the Expressions view.
+ * </p>
+ *
+ * @since 3.16
+ */
+public class HeapHistogramView extends ViewPart implements IDebugContextListener, IDebugEventSetListener {
+
+	public static final String ID = "org.eclipse.jdt.debug.ui.HeapHistogramView"; //$NON-NLS-1$
+
+	/**
+	 * Maximum number of snapshots kept per target
+	 */
+	private static final int MAX_SNAPSHOTS = 10;
+
+	/**
+	 * Snapshots of each target, oldest first
+	 */
+	private final Map<JDIDebugTarget, List<JDIHeapHistogram>> fSnapshots = new HashMap<>();
+
+	private JDIDebugTarget fTarget;
+	private Entry[] fEntries = new Entry[0];
+	private Entry[] fFiltered = fEntries;
+
+	private Text fFilterText;
+	private TableViewer fViewer;
+	private Action fSnapshotAction;
+	private Action fClearAction;
+
+	/**
+	 * Provides the filtered entries to the virtual table
+	 */
+	class HistogramContentProvider implements ILazyContentProvider {
+		@Override
+		public void updateElement(int index) {
+			if (index < fFiltered.length) {
+				fViewer.replace(fFiltered[index], index);
+			}
+		}
+
+		@Override
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		}
+
+		@Override
+		public void dispose() {
+		}
+	}
+
+	class HistogramLabelProvider extends LabelProvider implements ITableLabelProvider {
+		private final NumberFormat fFormat = NumberFormat.getIntegerInstance();
+
+		@Override
+		public Image getColumnImage(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public String getColumnText(Object element, int columnIndex) {
+			Entry entry = (Entry) element;
+			switch (columnIndex) {
+				case 0:
+					return entry.getName();
+				case 1:
+					return fFormat.format(entry.getCount());
+				default:
+					long delta = entry.getDelta();
+					return delta > 0 ? '+' + fFormat.format(delta) : fFormat.format(delta);
+			}
+		}
+	}
+
+	@Override
+	public void createPartControl(Composite parent) {
+		Composite composite = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		composite.setLayout(layout);
+
+		fFilterText = new Text(composite, SWT.SEARCH | SWT.ICON_CANCEL | SWT.ICON_SEARCH);
+		fFilterText.setMessage(Messages.HeapHistogramView_0);
+		fFilterText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		fFilterText.addModifyListener(e -> applyFilter());
+
+		fViewer = new TableViewer(composite, SWT.VIRTUAL | SWT.FULL_SELECTION | SWT.SINGLE | SWT.BORDER);
+		Table table = fViewer.getTable();
+		table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		createColumn(table, Messages.HeapHistogramView_1, SWT.LEFT, 400);
+		createColumn(table, Messages.HeapHistogramView_2, SWT.RIGHT, 100);
+		createColumn(table, Messages.HeapHistogramView_3, SWT.RIGHT, 100);
+		fViewer.setUseHashlookup(true);
+		fViewer.setContentProvider(new HistogramContentProvider());
+		fViewer.setLabelProvider(new HistogramLabelProvider());
+		fViewer.setInput(fSnapshots);
+		fViewer.addDoubleClickListener(event -> showInstances((IStructuredSelection) event.getSelection()));
+
+		createActions();
+		getSite().setSelectionProvider(fViewer);
+
+		IDebugContextService service = DebugUITools.getDebugContextManager().getContextService(getSite().getWorkbenchWindow());
+		service.addDebugContextListener(this);
+		DebugPlugin.getDefault().addDebugEventListener(this);
+		setTarget(getTarget(DebugUITools.getDebugContext()));
+	}
+
+	private static void createColumn(Table table, String name, int style, int width) {
+		TableColumn column = new TableColumn(table, style);
+		column.setText(name);
+		column.setWidth(width);
+	}
+
+	private void createActions() {
+		fSnapshotAction = new Action(Messages.HeapHistogramView_4) {
+			@Override
+			public void run() {
+				takeSnapshot();
+			}
+		};
+		fSnapshotAction.setImageDescriptor(JavaDebugImages.getImageDescriptor(JavaDebugImages.IMG_ELCL_ALL_INSTANCES));
+		fClearAction = new Action(Messages.HeapHistogramView_5) {
+			@Override
+			public void run() {
+				if (fTarget != null) {
+					fSnapshots.remove(fTarget);
+					update();
+				}
+			}
+		};
+		fClearAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_ELCL_REMOVEALL));
+		IToolBarManager manager = getViewSite().getActionBars().getToolBarManager();
+		manager.add(fSnapshotAction);
+		manager.add(fClearAction);
+	}
+
+	@Override
+	public void setFocus() {
+		fViewer.getControl().setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		IDebugContextService service = DebugUITools.getDebugContextManager().getContextService(getSite().getWorkbenchWindow());
+		service.removeDebugContextListener(this);
+		DebugPlugin.getDefault().removeDebugEventListener(this);
+		fSnapshots.clear();
+		super.dispose();
+	}
+
+	@Override
+	public void debugContextChanged(DebugContextEvent event) {
+		if ((event.getFlags() & DebugContextEvent.ACTIVATED) > 0 && event.getContext() instanceof IStructuredSelection) {
+			Object context = ((IStructuredSelection) event.getContext()).getFirstElement();
+			if (context instanceof IAdaptable) {
+				setTarget(getTarget((IAdaptable) context));
+			}
+		}
+	}
+
+	/**
+	 * Drops the snapshots of terminated targets
+	 */
+	@Override
+	public void handleDebugEvents(DebugEvent[] events) {
+		for (DebugEvent event : events) {
+			if (event.getKind() == DebugEvent.TERMINATE && event.getSource() instanceof JDIDebugTarget) {
+				JDIDebugTarget target = (JDIDebugTarget) event.getSource();
+				asyncExec(() -> {
+					fSnapshots.remove(target);
+					if (target == fTarget) {
+						update();
+					}
+				});
+			}
+		}
+	}
+
+	private static JDIDebugTarget getTarget(IAdaptable context) {
+		if (context != null) {
+			IJavaDebugTarget target = context.getAdapter(IJavaDebugTarget.class);
+			if (target instanceof JDIDebugTarget) {
+				return (JDIDebugTarget) target;
+			}
+		}
+		return null;
+	}
+
+	private void setTarget(JDIDebugTarget target) {
+		if (target != fTarget) {
+			fTarget = target;
+			update();
+		}
+	}
+
+	/**
+	 * Retrieves a new snapshot of the current target in a job
+	 */
+	private void takeSnapshot() {
+		JDIDebugTarget target = fTarget;
+		if (target == null) {
+			return;
+		}
+		Job job = new Job(Messages.HeapHistogramView_6) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					JDIHeapHistogram histogram = JDIHeapHistogram.create(target, monitor);
+					if (histogram != null) {
+						asyncExec(() -> addSnapshot(histogram));
+					}
+				} catch (DebugException e) {
+					return e.getStatus();
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+
+	private void addSnapshot(JDIHeapHistogram histogram) {
+		JDIDebugTarget target = histogram.getDebugTarget();
+		if (target.isTerminated()) {
+			return;
+		}
+		List<JDIHeapHistogram> snapshots = fSnapshots.computeIfAbsent(target, t -> new ArrayList<>());
+		snapshots.add(histogram);
+		if (snapshots.size() > MAX_SNAPSHOTS) {
+			snapshots.remove(0);
+		}
+		if (target == fTarget) {
+			update();
+		}
+	}
+
+	private void asyncExec(Runnable runnable) {
+		if (fViewer == null || fViewer.getControl().isDisposed()) {
+			return;
+		}
+		fViewer.getControl().getDisplay().asyncExec(() -> {
+			if (!fViewer.getControl().isDisposed()) {
+				runnable.run();
+			}
+		});
+	}
+
+	/**
+	 * Shows the latest snapshot of the current target compared with the one
+	 * before
+	 */
+	private void update() {
+		List<JDIHeapHistogram> snapshots = fTarget == null ? null : fSnapshots.get(fTarget);
+		if (snapshots == null || snapshots.isEmpty()) {
+			fEntries = new Entry[0];
+			setContentDescription(fTarget == null ? Messages.HeapHistogramView_7 : Messages.HeapHistogramView_8);
+		} else {
+			JDIHeapHistogram latest = snapshots.get(snapshots.size() - 1);
+			JDIHeapHistogram previous = snapshots.size() > 1 ? snapshots.get(snapshots.size() - 2) : null;
+			fEntries = latest.compare(previous);
+			NumberFormat format = NumberFormat.getIntegerInstance();
+			String time = DateFormat.getTimeInstance().format(new Date(latest.getTime()));
+			setContentDescription(NLS.bind(Messages.HeapHistogramView_9, new Object[] { time,
+					format.format(latest.getTotalCount()), format.format(latest.getTypeCount()),
+					Integer.toString(snapshots.size()) }));
+		}
+		fSnapshotAction.setEnabled(fTarget != null && !fTarget.isTerminated() && fTarget.supportsInstanceRetrieval());
+		fClearAction.setEnabled(snapshots != null && !snapshots.isEmpty());
+		applyFilter();
+	}
+
+	/**
+	 * Shows the entries whose type name contains the filter text
+	 */
+	private void applyFilter() {
+		String filter = fFilterText.getText().trim().toLowerCase(Locale.ENGLISH);
+		if (filter.isEmpty()) {
+			fFiltered = fEntries;
+		} else {
+			List<Entry> filtered = new ArrayList<>();
+			for (Entry entry : fEntries) {
+				if (entry.getName().toLowerCase(Locale.ENGLISH).contains(filter)) {
+					filtered.add(entry);
+				}
+			}
+			fFiltered = filtered.toArray(new Entry[filtered.size()]);
+		}
+		fViewer.setItemCount(fFiltered.length);
+		fViewer.refresh();
+	}
+
+	/**
+	 * Adds an expression with all instances of the selected type to the
+	 * Expressions view
+	 */
+	private void showInstances(IStructuredSelection selection) {
+		List<JDIHeapHistogram> snapshots = fTarget == null ? null : fSnapshots.get(fTarget);
+		if (!(selection.getFirstElement() instanceof Entry) || snapshots == null || snapshots.isEmpty() || fTarget.isTerminated()) {
+			return;
+		}
+		Entry entry = (Entry) selection.getFirstElement();
+		JDIReferenceType type = snapshots.get(snapshots.size() - 1).getType(entry);
+		JDIAllInstancesValue value = new JDIAllInstancesValue(fTarget, type);
+		DebugPlugin.getDefault().getExpressionManager().addExpression(new JavaInspectExpression(NLS.bind(Messages.AllInstancesActionDelegate_2, entry.getName()), value));
+		IWorkbenchPage page = getSite().getPage();
+		IViewPart part = page.findView(IDebugUIConstants.ID_EXPRESSION_VIEW);
+		if (part == null) {
+			try {
+				page.showView(IDebugUIConstants.ID_EXPRESSION_VIEW);
+			} catch (PartInitException e) {
+				JDIDebugUIPlugin.log(e);
+			}
+		} else {
+			page.bringToTop(part);
+		}
+	}
+}
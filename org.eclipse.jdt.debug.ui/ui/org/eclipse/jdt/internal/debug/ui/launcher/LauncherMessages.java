@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2018 IBM Corporation and others.
+ *  Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -53,6 +53,9 @@ public class LauncherMessages extends NLS {
 
 	public static String VMArgumentsBlock_1;
 
+	public static String VMArgumentsBlock_2;
+	public static String VMArgumentsBlock_3;
+
 	public static String VMArgumentsBlock_VM_Arguments;
 	public static String VMArgumentsBlock_4;
 
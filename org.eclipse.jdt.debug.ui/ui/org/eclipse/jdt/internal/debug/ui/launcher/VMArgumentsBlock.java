@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,7 +15,11 @@ package org.eclipse.jdt.internal.debug.ui.launcher;
 
 
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.debug.internal.ui.SWTFactory;
@@ -23,6 +27,7 @@ import org.eclipse.debug.ui.StringVariableSelectionDialog;
 import org.eclipse.jdt.debug.ui.launchConfigurations.JavaLaunchTab;
 import org.eclipse.jdt.internal.debug.ui.JDIDebugUIPlugin;
 import org.eclipse.jdt.internal.debug.ui.actions.ControlAccessibleListener;
+import org.eclipse.jdt.internal.launching.ClassDataSharing;
 import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyEvent;
@@ -36,6 +41,7 @@ import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Text;
 
@@ -47,6 +53,10 @@ public class VMArgumentsBlock extends JavaLaunchTab {
 	// VM arguments widgets
 	protected Text fVMArgumentsText;
 	private Button fUseStartOnFirstThread = null;
+	private Button fUseCDSArchive;
+	private boolean fCDSArchiveSupported = true;
+	private Job fCDSCheckJob;
+	private boolean fEnabled = true;
 	private Button fPgrmArgVariableButton;
 
 	/**
@@ -117,6 +127,14 @@ public class VMArgumentsBlock extends JavaLaunchTab {
 			}
 		});
 
+		fUseCDSArchive = SWTFactory.createCheckButton(group, LauncherMessages.VMArgumentsBlock_2, null, false, 1);
+		fUseCDSArchive.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				scheduleUpdateJob();
+			}
+		});
+
 		if(Platform.OS_MACOSX.equals(Platform.getOS())) {
 			fUseStartOnFirstThread = SWTFactory.createCheckButton(group, LauncherMessages.VMArgumentsBlock_0, null, false, 1);
 			fUseStartOnFirstThread.addSelectionListener(new SelectionAdapter() {
@@ -144,6 +162,9 @@ public class VMArgumentsBlock extends JavaLaunchTab {
 	public void initializeFrom(ILaunchConfiguration configuration) {
 		try {
 			fVMArgumentsText.setText(configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_VM_ARGUMENTS, "")); //$NON-NLS-1$
+			fUseCDSArchive.setSelection(configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_USE_CDS_ARCHIVE, false));
+			setCDSArchiveSupported(true);
+			checkCDSArchiveSupported(configuration);
 			if(fUseStartOnFirstThread != null) {
 				fUseStartOnFirstThread.setSelection(configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_USE_START_ON_FIRST_THREAD, true));
 			}
@@ -159,11 +180,57 @@ public class VMArgumentsBlock extends JavaLaunchTab {
 	@Override
 	public void performApply(ILaunchConfigurationWorkingCopy configuration) {
 		configuration.setAttribute(IJavaLaunchConfigurationConstants.ATTR_VM_ARGUMENTS, getAttributeValueFrom(fVMArgumentsText));
+		if (fUseCDSArchive.getSelection()) {
+			configuration.setAttribute(IJavaLaunchConfigurationConstants.ATTR_USE_CDS_ARCHIVE, true);
+		} else {
+			configuration.removeAttribute(IJavaLaunchConfigurationConstants.ATTR_USE_CDS_ARCHIVE);
+		}
 		if(fUseStartOnFirstThread != null) {
 			configuration.setAttribute(IJavaLaunchConfigurationConstants.ATTR_USE_START_ON_FIRST_THREAD, fUseStartOnFirstThread.getSelection());
 		}
 	}
 
+	/**
+	 * Checks in the background whether a class data sharing archive can be created for the launches of the given
+	 * configuration, which resolves its runtime classpath. The VM cannot archive classes loaded from folders, such as
+	 * the output folders of projects.
+	 *
+	 * @param configuration
+	 *            the launch configuration
+	 */
+	private void checkCDSArchiveSupported(ILaunchConfiguration configuration) {
+		if (fCDSCheckJob != null) {
+			fCDSCheckJob.cancel();
+		}
+		Display display = fUseCDSArchive.getDisplay();
+		fCDSCheckJob = new Job("") { //$NON-NLS-1$
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				boolean supported = ClassDataSharing.isSupported(configuration);
+				Job job = this;
+				display.asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						// the tab may have been closed or initialized from another configuration meanwhile
+						if (!fUseCDSArchive.isDisposed() && fCDSCheckJob == job) {
+							setCDSArchiveSupported(supported);
+						}
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		fCDSCheckJob.setSystem(true);
+		fCDSCheckJob.schedule();
+	}
+
+	private void setCDSArchiveSupported(boolean supported) {
+		fCDSArchiveSupported = supported;
+		fUseCDSArchive.setText(supported ? LauncherMessages.VMArgumentsBlock_2 : LauncherMessages.VMArgumentsBlock_3);
+		fUseCDSArchive.setEnabled(fEnabled && supported);
+		fUseCDSArchive.getParent().layout();
+	}
+
 	/**
 	 * @see org.eclipse.debug.ui.ILaunchConfigurationTab#getName()
 	 */
@@ -186,7 +253,9 @@ public class VMArgumentsBlock extends JavaLaunchTab {
 	}
 
 	public void setEnabled(boolean enabled) {
+		fEnabled = enabled;
 		fVMArgumentsText.setEnabled(enabled);
 		fPgrmArgVariableButton.setEnabled(enabled);
+		fUseCDSArchive.setEnabled(enabled && fCDSArchiveSupported);
 	}
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,6 +25,8 @@ import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.model.IDebugElement;
 import org.eclipse.debug.core.model.IDebugTarget;
 import org.eclipse.debug.core.model.IThread;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaMonitorSnapshot;
 import org.eclipse.jdt.debug.core.IJavaObject;
 import org.eclipse.jdt.debug.core.IJavaThread;
 
@@ -175,8 +177,18 @@ public class JavaMonitorThread extends PlatformObject {
 				return false;
 			}
 			try {
+				// use the monitor information retrieved for all threads of the target, if available
+				IJavaMonitorSnapshot snapshot= ThreadMonitorManager.getDefault().getMonitorSnapshot((IJavaDebugTarget) fThread.getDebugTarget());
+				IJavaObject contendedMonitor;
+				IJavaObject[] ownedMonitors;
+				if (snapshot != null && snapshot.contains(fThread)) {
+					contendedMonitor= snapshot.getContendedMonitor(fThread);
+					ownedMonitors= snapshot.getOwnedMonitors(fThread);
+				} else {
+					contendedMonitor= fThread.getContendedMonitor();
+					ownedMonitors= fThread.getOwnedMonitors();
+				}
 				// update the contended monitor
-				IJavaObject contendedMonitor= fThread.getContendedMonitor();
 				if (contendedMonitor == null) {
 					changed= fContendedMonitor != null;
 					fContendedMonitor= null;
@@ -185,7 +197,6 @@ public class JavaMonitorThread extends PlatformObject {
 					fContendedMonitor= ThreadMonitorManager.getDefault().getJavaMonitor(contendedMonitor);
 				}
 				// update the owned monitors
-				IJavaObject[] ownedMonitors= fThread.getOwnedMonitors();
 				if (ownedMonitors == null || ownedMonitors.length == 0) {
 					// no owned monitor, not much to do
 					changed= fOwnedMonitors != null && fOwnedMonitors.length != 0;
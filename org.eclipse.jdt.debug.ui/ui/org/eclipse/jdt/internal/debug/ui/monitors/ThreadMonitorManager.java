@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,19 +13,19 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.debug.ui.monitors;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.IDebugEventSetListener;
 import org.eclipse.debug.core.model.IDebugElement;
 import org.eclipse.debug.core.model.IThread;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaMonitorSnapshot;
 import org.eclipse.jdt.debug.core.IJavaObject;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.ui.IJavaDebugUIConstants;
@@ -51,6 +51,21 @@ public class ThreadMonitorManager implements IDebugEventSetListener, IPropertyCh
 	 */
 	private HashMap<IDebugElement, Object> fJavaMonitors;
 
+	/**
+	 * HashMap IJavaDebugTarget -> IJavaMonitorSnapshot, the monitor information
+	 * of the suspended threads retrieved since the last suspend or resume
+	 */
+	private HashMap<IJavaDebugTarget, IJavaMonitorSnapshot> fSnapshots;
+	/**
+	 * Incremented when the snapshots are discarded, snapshots retrieved
+	 * concurrently are not kept
+	 */
+	private long fSnapshotGeneration;
+	/**
+	 * Indicate if a deadlock detection has been scheduled but not run yet.
+	 */
+	private AtomicBoolean fDetectDeadlockPending= new AtomicBoolean();
+
 	private boolean fIsEnabled;
 
 	/**
@@ -66,6 +81,7 @@ public class ThreadMonitorManager implements IDebugEventSetListener, IPropertyCh
 	private ThreadMonitorManager() {
 		fJavaMonitorThreads= new HashMap<>();
 		fJavaMonitors= new HashMap<>();
+		fSnapshots= new HashMap<>();
 		IPreferenceStore preferenceStore = JDIDebugUIPlugin.getDefault().getPreferenceStore();
 		preferenceStore.addPropertyChangeListener(this);
 		fIsEnabled= preferenceStore.getBoolean(IJavaDebugUIConstants.PREF_SHOW_MONITOR_THREAD_INFO);
@@ -124,6 +140,7 @@ public class ThreadMonitorManager implements IDebugEventSetListener, IPropertyCh
 	}
 
 	private void handleSuspendResume() {
+		clearSnapshots();
 		JavaMonitorThread[] threads = getJavaMonitorThreads();
 		for (int i = 0; i < threads.length; i++) {
 			threads[i].setToUpdate();
@@ -142,6 +159,45 @@ public class ThreadMonitorManager implements IDebugEventSetListener, IPropertyCh
 		// remove the threads and monitors for this debug target.
 		clean(fJavaMonitors, debugTarget);
 		clean(fJavaMonitorThreads, debugTarget);
+		synchronized(fSnapshots) {
+			fSnapshots.remove(debugTarget);
+		}
+	}
+
+	private void clearSnapshots() {
+		synchronized(fSnapshots) {
+			fSnapshotGeneration++;
+			fSnapshots.clear();
+		}
+	}
+
+	/**
+	 * Returns the monitor information of the suspended threads of the given
+	 * debug target, or <code>null</code> if it is not available. The information
+	 * is retrieved once for all threads and kept until the next suspend or resume.
+	 */
+	protected IJavaMonitorSnapshot getMonitorSnapshot(IJavaDebugTarget debugTarget) {
+		long generation;
+		synchronized(fSnapshots) {
+			if (fSnapshots.containsKey(debugTarget)) {
+				return fSnapshots.get(debugTarget);
+			}
+			generation= fSnapshotGeneration;
+		}
+		IJavaMonitorSnapshot snapshot= null;
+		if (debugTarget.supportsMonitorInformation()) {
+			try {
+				snapshot= debugTarget.getMonitorSnapshot();
+			} catch (DebugException e) {
+				// the threads fall back to retrieve their own monitor information
+			}
+		}
+		synchronized(fSnapshots) {
+			if (generation == fSnapshotGeneration && !debugTarget.isTerminated()) {
+				fSnapshots.put(debugTarget, snapshot);
+			}
+		}
+		return snapshot;
 	}
 
 	private void clean(Map<IDebugElement, Object> map, IJavaDebugTarget debugTarget) {
@@ -168,7 +224,10 @@ public class ThreadMonitorManager implements IDebugEventSetListener, IPropertyCh
 			if (javaMonitorThread == null) {
 				javaMonitorThread= new JavaMonitorThread(thread, originalThread);
 				fJavaMonitorThreads.put(thread, javaMonitorThread);
-				DebugPlugin.getDefault().asyncExec(new DetectDeadlock());
+				// a single detection handles all the threads created until it runs
+				if (fDetectDeadlockPending.compareAndSet(false, true)) {
+					DebugPlugin.getDefault().asyncExec(new DetectDeadlock());
+				}
 			} else if (originalThread != null) {
 				javaMonitorThread.setOriginalThread(originalThread);
 			}
@@ -236,51 +295,25 @@ public class ThreadMonitorManager implements IDebugEventSetListener, IPropertyCh
 		}
 	}
 
+	/**
+	 *  Runnable to be run asynchronously, to look for deadlocks. The deadlocks
+	 *  are computed by the debug targets from their monitor snapshots.
+	 */
 	class DetectDeadlock implements Runnable {
 		@Override
 		public void run() {
+			fDetectDeadlockPending.set(false);
 			JavaMonitorThread[] threads= getJavaMonitorThreads();
 			JavaMonitor[] monitors= getJavaMonitors();
-			List<Object> inDeadlock= new ArrayList<>();
-			for (int i = 0; i < threads.length; i++) {
-				JavaMonitorThread thread= threads[i];
-				List<JavaMonitorThread> threadStack= new ArrayList<>();
-				List<JavaMonitor> monitorStack= new ArrayList<>();
-				while (thread != null) {
-					boolean isInDeadlock= false;
-					if (inDeadlock.contains(thread) || threadStack.contains(thread)) {
-						isInDeadlock= true;
-					} else {
-						JavaMonitor monitor = thread.getContendedMonitor0();
-						if (monitor == null) {
-							thread= null;
-						} else if (inDeadlock.contains(monitor)) {
-							isInDeadlock= true;
-						} else {
-							threadStack.add(thread);
-							monitorStack.add(monitor);
-							thread= monitor.getOwningThread0();
-						}
-					}
-					if (isInDeadlock) {
-						// is in a deadlock, set the elements of the back trace as 'in a deadlock'
-						for (Iterator<JavaMonitorThread> iter = threadStack.iterator(); iter.hasNext();) {
-							inDeadlock.add(iter.next());
-						}
-						for (Iterator<JavaMonitor> iter = monitorStack.iterator(); iter.hasNext();) {
-							inDeadlock.add(iter.next());
-						}
-						thread= null;
-					}
-				}
-			}
 			for (int i = 0; i < threads.length; i++) {
-				JavaMonitorThread thread= threads[i];
-				thread.setInDeadlock(inDeadlock.contains(thread));
+				IJavaThread thread= threads[i].getThread();
+				IJavaMonitorSnapshot snapshot= getMonitorSnapshot((IJavaDebugTarget) thread.getDebugTarget());
+				threads[i].setInDeadlock(snapshot != null && snapshot.isInDeadlock(thread));
 			}
 			for (int i = 0; i < monitors.length; i++) {
-				JavaMonitor monitor= monitors[i];
-				monitor.setInDeadlock(inDeadlock.contains(monitor));
+				IJavaObject monitor= monitors[i].getMonitor();
+				IJavaMonitorSnapshot snapshot= getMonitorSnapshot((IJavaDebugTarget) monitor.getDebugTarget());
+				monitors[i].setInDeadlock(snapshot != null && snapshot.isInDeadlock(monitor));
 			}
 		}
 	}
@@ -24,18 +24,21 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.debug.core.model.IVariable;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaObject;
 import org.eclipse.jdt.debug.core.IJavaType;
 import org.eclipse.jdt.debug.core.IJavaValue;
 import org.eclipse.jdt.debug.core.IJavaVariable;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 import org.eclipse.jdt.internal.debug.eval.ast.instructions.Instruction;
 import org.eclipse.jdt.internal.debug.eval.ast.instructions.InstructionSequence;
 
 import com.sun.jdi.VMDisconnectedException;
 
 public class Interpreter {
+	private InstructionSequence fExpression;
 	private Instruction[] fInstructions;
 	private int fInstructionCounter;
 	private IRuntimeContext fContext;
@@ -55,6 +58,7 @@ public class Interpreter {
 	private boolean fStopped = false;
 
 	public Interpreter(InstructionSequence instructions, IRuntimeContext context) {
+		fExpression = instructions;
 		fInstructions = instructions.getInstructions();
 		fContext = context;
 		fInternalVariables = new HashMap<>();
@@ -107,6 +111,24 @@ public class Interpreter {
 		}
 	}
 
+	/**
+	 * Pushes the remote string of a string literal onto the stack. If the
+	 * expression is retained by the string literal cache of the target, the
+	 * string is shared with later evaluations and its garbage collection is
+	 * already disabled.
+	 */
+	public void pushStringLiteral(String value) {
+		IJavaDebugTarget target = getContext().getVM();
+		if (target instanceof JDIDebugTarget) {
+			IJavaValue string = ((JDIDebugTarget) target).getStringLiteralCache().getString(fExpression, value);
+			if (string != null) {
+				fStack.push(string);
+				return;
+			}
+		}
+		push(target.newValue(value));
+	}
+
 	/**
 	 * Avoid garbage collecting interim results.
 	 *
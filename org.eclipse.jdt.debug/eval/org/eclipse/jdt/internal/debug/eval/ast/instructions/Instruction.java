@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -188,6 +188,10 @@ public abstract class Instruction {
 		return getVM().newValue(value);
 	}
 
+	protected void pushStringLiteral(String value) {
+		fInterpreter.pushStringLiteral(value);
+	}
+
 	protected void pushNullValue() {
 		fInterpreter.push(nullValue());
 	}
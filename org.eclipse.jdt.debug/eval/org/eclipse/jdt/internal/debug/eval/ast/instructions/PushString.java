@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,7 +26,7 @@ public class PushString extends SimpleInstruction {
 
 	@Override
 	public void execute() {
-		pushNewValue(fValue);
+		pushStringLiteral(fValue);
 	}
 
 	@Override
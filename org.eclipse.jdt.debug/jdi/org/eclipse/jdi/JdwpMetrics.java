@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi;
+
+import java.io.PrintWriter;
+
+/**
+ * A snapshot of the JDWP traffic between the debugger and a virtual machine.
+ * The metrics are counted since the connection to the virtual machine was
+ * established. To find the traffic caused by an action, subtract a snapshot
+ * taken before the action from a snapshot taken after it, see
+ * {@link #since(JdwpMetrics)}.
+ * <p>
+ * Latencies are the times in nanoseconds between sending a command and
+ * receiving its reply. They are kept in histograms with a relative precision
+ * of 12.5%.
+ * </p>
+ *
+ * @see org.eclipse.jdt.debug.core.IJavaDebugTarget#getJdwpMetrics()
+ * @since 3.16
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface JdwpMetrics {
+
+	/**
+	 * The metrics of the commands of one kind.
+	 *
+	 * @noimplement This interface is not intended to be implemented by clients.
+	 */
+	public interface CommandMetrics {
+
+		/**
+		 * @return Returns the command, which is 256 * command set + command.
+		 */
+		public int getCommand();
+
+		/**
+		 * @return Returns the name of the command set and command, like
+		 *         <code>VirtualMachine - ALL_THREADS</code>.
+		 */
+		public String getName();
+
+		/**
+		 * @return Returns the number of commands sent.
+		 */
+		public long getCount();
+
+		/**
+		 * @return Returns the number of replies with an error code.
+		 */
+		public long getErrorCount();
+
+		/**
+		 * @return Returns the number of commands whose reply was not received
+		 *         within the request timeout.
+		 */
+		public long getTimeoutCount();
+
+		/**
+		 * @return Returns the number of bytes of the command packets sent.
+		 */
+		public long getBytesSent();
+
+		/**
+		 * @return Returns the number of bytes of the reply packets received.
+		 */
+		public long getBytesReceived();
+
+		/**
+		 * @return Returns the sum of the latencies of all replies received.
+		 */
+		public long getTotalLatency();
+
+		/**
+		 * @return Returns the highest latency of the replies received.
+		 */
+		public long getMaxLatency();
+
+		/**
+		 * Returns the latency which the given percentage of the replies did not
+		 * exceed.
+		 *
+		 * @param percentile
+		 *            a percentage between 0 and 100
+		 * @return the latency at the percentile, 0 if no reply was received
+		 */
+		public long getLatency(double percentile);
+	}
+
+	/**
+	 * @return Returns the metrics of every command sent at least once, sorted by
+	 *         total latency, highest first.
+	 */
+	public CommandMetrics[] getCommandMetrics();
+
+	/**
+	 * @return Returns the number of event packets received.
+	 */
+	public long getEventCount();
+
+	/**
+	 * @return Returns the number of bytes of the event packets received.
+	 */
+	public long getEventBytesReceived();
+
+	/**
+	 * @return Returns the number of commands sent whose reply had not been
+	 *         received when this snapshot was taken.
+	 */
+	public int getInFlight();
+
+	/**
+	 * @return Returns the highest number of commands in flight at the same time.
+	 */
+	public int getMaxInFlight();
+
+	/**
+	 * Returns the traffic that occurred between the given earlier snapshot of
+	 * the same virtual machine and this snapshot. The in flight numbers are the
+	 * ones of this snapshot, the highest latency is approximated from the
+	 * histogram.
+	 *
+	 * @param earlier
+	 *            a snapshot taken before this snapshot
+	 * @return the difference between the snapshots
+	 */
+	public JdwpMetrics since(JdwpMetrics earlier);
+
+	/**
+	 * Prints this snapshot as a table, one line per command.
+	 *
+	 * @param writer
+	 *            the writer to print to
+	 */
+	public void print(PrintWriter writer);
+}
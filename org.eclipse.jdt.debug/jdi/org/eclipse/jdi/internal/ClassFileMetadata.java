@@ -0,0 +1,543 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The metadata of a type read from its local class file, read from the
+ * {@link MetadataCache} or collected from the VM: the constant pool, which
+ * identifies the class file, and the line number tables, local variable
+ * tables, source file name and source debug extension the VM would reply.
+ */
+final class ClassFileMetadata {
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+
+	/**
+	 * An entry of the local variable table of a method.
+	 */
+	static final class Variable {
+		final long fCodeIndex;
+		final String fName;
+		final String fSignature;
+		final int fLength;
+		final int fSlot;
+		String fGenericSignature;
+
+		Variable(long codeIndex, String name, String signature, int length, int slot) {
+			fCodeIndex = codeIndex;
+			fName = name;
+			fSignature = signature;
+			fLength = length;
+			fSlot = slot;
+		}
+	}
+
+	/**
+	 * The metadata of a method with code.
+	 */
+	private static final class MethodInfo {
+		final LineTable fLineTable;
+		/**
+		 * The local variable table, or <code>null</code> if absent
+		 */
+		List<Variable> fVariables;
+
+		MethodInfo(LineTable lineTable, List<Variable> variables) {
+			fLineTable = lineTable;
+			fVariables = variables;
+		}
+	}
+
+	private final String fName;
+	private final int fConstantPoolCount;
+	private final byte[] fConstantPool;
+	private final Map<String, MethodInfo> fMethods = new HashMap<>();
+	private String fSourceFile;
+	private String fSourceDebugExtension;
+
+	/**
+	 * Creates the metadata of the given type, to which the metadata collected
+	 * from the VM is added.
+	 *
+	 * @param name
+	 *            the fully qualified name of the type
+	 * @param constantPoolCount
+	 *            the number of constant pool entries plus one
+	 * @param constantPool
+	 *            the constant pool entries
+	 */
+	ClassFileMetadata(String name, int constantPoolCount, byte[] constantPool) {
+		fName = name;
+		fConstantPoolCount = constantPoolCount;
+		fConstantPool = constantPool;
+	}
+
+	/**
+	 * Reads the metadata of the given class file.
+	 *
+	 * @param bytes
+	 *            the contents of the class file
+	 * @return the metadata
+	 * @throws IOException
+	 *             if the class file is malformed
+	 */
+	static ClassFileMetadata read(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		if (in.readInt() != MAGIC) {
+			throw new IOException();
+		}
+		in.readUnsignedShort(); // minor version
+		in.readUnsignedShort(); // major version
+		int constantPoolCount = in.readUnsignedShort();
+		int start = bytes.length - in.available();
+		String[] utf8 = new String[constantPoolCount];
+		int[] classNames = new int[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++) {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+			case CONSTANT_UTF8:
+				utf8[i] = in.readUTF();
+				break;
+			case CONSTANT_CLASS:
+				classNames[i] = in.readUnsignedShort();
+				break;
+			case CONSTANT_STRING:
+			case CONSTANT_METHOD_TYPE:
+			case CONSTANT_MODULE:
+			case CONSTANT_PACKAGE:
+				in.skipBytes(2);
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				in.skipBytes(3);
+				break;
+			case CONSTANT_INTEGER:
+			case CONSTANT_FLOAT:
+			case CONSTANT_FIELDREF:
+			case CONSTANT_METHODREF:
+			case CONSTANT_INTERFACE_METHODREF:
+			case CONSTANT_NAME_AND_TYPE:
+			case CONSTANT_DYNAMIC:
+			case CONSTANT_INVOKE_DYNAMIC:
+				in.skipBytes(4);
+				break;
+			case CONSTANT_LONG:
+			case CONSTANT_DOUBLE:
+				in.skipBytes(8);
+				i++;
+				break;
+			default:
+				throw new IOException();
+			}
+		}
+		int end = bytes.length - in.available();
+		in.readUnsignedShort(); // access flags
+		String name = utf8[classNames[in.readUnsignedShort()]];
+		if (name == null) {
+			throw new IOException();
+		}
+		ClassFileMetadata metadata = new ClassFileMetadata(name.replace('/', '.'), constantPoolCount, Arrays.copyOfRange(bytes, start, end));
+		in.readUnsignedShort(); // super class
+		in.skipBytes(2 * in.readUnsignedShort()); // interfaces
+		int fieldsCount = in.readUnsignedShort();
+		for (int i = 0; i < fieldsCount; i++) {
+			in.skipBytes(6);
+			skipAttributes(in);
+		}
+		// the VM replies an empty local variable table for methods without
+		// one if any method of the class has one
+		boolean hasVariables = false;
+		int methodsCount = in.readUnsignedShort();
+		for (int i = 0; i < methodsCount; i++) {
+			in.readUnsignedShort(); // access flags
+			String methodName = utf8[in.readUnsignedShort()];
+			String descriptor = utf8[in.readUnsignedShort()];
+			int attributesCount = in.readUnsignedShort();
+			for (int j = 0; j < attributesCount; j++) {
+				String attributeName = utf8[in.readUnsignedShort()];
+				int length = in.readInt();
+				if ("Code".equals(attributeName)) { //$NON-NLS-1$
+					MethodInfo info = readCode(in, utf8);
+					metadata.fMethods.put(methodName + descriptor, info);
+					hasVariables |= info.fVariables != null;
+				} else {
+					in.skipBytes(length);
+				}
+			}
+		}
+		if (hasVariables) {
+			for (MethodInfo info : metadata.fMethods.values()) {
+				if (info.fVariables == null) {
+					info.fVariables = Collections.emptyList();
+				}
+			}
+		}
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++) {
+			String attributeName = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			if ("SourceFile".equals(attributeName)) { //$NON-NLS-1$
+				metadata.fSourceFile = utf8[in.readUnsignedShort()];
+			} else if ("SourceDebugExtension".equals(attributeName)) { //$NON-NLS-1$
+				byte[] extension = new byte[length];
+				in.readFully(extension);
+				metadata.fSourceDebugExtension = new String(extension, StandardCharsets.UTF_8);
+			} else {
+				in.skipBytes(length);
+			}
+		}
+		return metadata;
+	}
+
+	private static MethodInfo readCode(DataInputStream in, String[] utf8) throws IOException {
+		in.skipBytes(4); // max stack and locals
+		int codeLength = in.readInt();
+		in.skipBytes(codeLength);
+		in.skipBytes(8 * in.readUnsignedShort()); // exception table
+		long[] codeIndexes = null;
+		int[] lines = null;
+		List<Variable> variables = null;
+		Map<String, String> genericSignatures = null;
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++) {
+			String attributeName = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			if ("LineNumberTable".equals(attributeName)) { //$NON-NLS-1$
+				int count = in.readUnsignedShort();
+				int offset = lines == null ? 0 : lines.length;
+				codeIndexes = codeIndexes == null ? new long[count] : Arrays.copyOf(codeIndexes, offset + count);
+				lines = lines == null ? new int[count] : Arrays.copyOf(lines, offset + count);
+				for (int j = 0; j < count; j++) {
+					codeIndexes[offset + j] = in.readUnsignedShort();
+					lines[offset + j] = in.readUnsignedShort();
+				}
+			} else if ("LocalVariableTable".equals(attributeName)) { //$NON-NLS-1$
+				int count = in.readUnsignedShort();
+				if (variables == null) {
+					variables = new ArrayList<>(count);
+				}
+				for (int j = 0; j < count; j++) {
+					int codeIndex = in.readUnsignedShort();
+					int variableLength = in.readUnsignedShort();
+					String name = utf8[in.readUnsignedShort()];
+					String signature = utf8[in.readUnsignedShort()];
+					int slot = in.readUnsignedShort();
+					variables.add(new Variable(codeIndex, name, signature, variableLength, slot));
+				}
+			} else if ("LocalVariableTypeTable".equals(attributeName)) { //$NON-NLS-1$
+				int count = in.readUnsignedShort();
+				if (genericSignatures == null) {
+					genericSignatures = new HashMap<>(count * 4 / 3 + 1);
+				}
+				for (int j = 0; j < count; j++) {
+					int codeIndex = in.readUnsignedShort();
+					in.readUnsignedShort(); // length
+					String name = utf8[in.readUnsignedShort()];
+					String signature = utf8[in.readUnsignedShort()];
+					int slot = in.readUnsignedShort();
+					genericSignatures.put(variableKey(codeIndex, name, slot), signature);
+				}
+			} else {
+				in.skipBytes(length);
+			}
+		}
+		if (variables != null && genericSignatures != null) {
+			for (Variable variable : variables) {
+				variable.fGenericSignature = genericSignatures.get(variableKey(variable.fCodeIndex, variable.fName, variable.fSlot));
+			}
+		}
+		LineTable lineTable = lines == null
+				? LineTable.absent(JDIMessages.MethodImpl_No_line_number_information_available_2)
+				: LineTable.create(0, codeLength - 1, codeIndexes, lines);
+		return new MethodInfo(lineTable, variables);
+	}
+
+	private static String variableKey(long codeIndex, String name, int slot) {
+		return codeIndex + ":" + slot + ":" + name; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static void skipAttributes(DataInputStream in) throws IOException {
+		int attributesCount = in.readUnsignedShort();
+		for (int i = 0; i < attributesCount; i++) {
+			in.skipBytes(2);
+			in.skipBytes(in.readInt());
+		}
+	}
+
+	/**
+	 * Writes this metadata to the metadata cache.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if the metadata cannot be written
+	 * @see #readFrom(DataInputStream)
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		out.writeUTF(fName);
+		out.writeInt(fConstantPoolCount);
+		out.writeInt(fConstantPool.length);
+		out.write(fConstantPool);
+		writeNullableString(fSourceFile, out);
+		writeNullableString(fSourceDebugExtension, out);
+		out.writeInt(fMethods.size());
+		for (Map.Entry<String, MethodInfo> entry : fMethods.entrySet()) {
+			MethodInfo info = entry.getValue();
+			out.writeUTF(entry.getKey());
+			info.fLineTable.writeTo(out);
+			if (info.fVariables == null) {
+				out.writeInt(-1);
+				continue;
+			}
+			out.writeInt(info.fVariables.size());
+			for (Variable variable : info.fVariables) {
+				out.writeLong(variable.fCodeIndex);
+				out.writeUTF(variable.fName);
+				out.writeUTF(variable.fSignature);
+				writeNullableString(variable.fGenericSignature, out);
+				out.writeInt(variable.fLength);
+				out.writeInt(variable.fSlot);
+			}
+		}
+	}
+
+	/**
+	 * Reads metadata from the metadata cache.
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @return the metadata
+	 * @throws IOException
+	 *             if the metadata cannot be read
+	 * @see #writeTo(DataOutputStream)
+	 */
+	static ClassFileMetadata readFrom(DataInputStream in) throws IOException {
+		String name = in.readUTF();
+		int constantPoolCount = in.readInt();
+		byte[] constantPool = new byte[in.readInt()];
+		in.readFully(constantPool);
+		ClassFileMetadata metadata = new ClassFileMetadata(name, constantPoolCount, constantPool);
+		metadata.fSourceFile = readNullableString(in);
+		metadata.fSourceDebugExtension = readNullableString(in);
+		int methodsCount = in.readInt();
+		for (int i = 0; i < methodsCount; i++) {
+			String key = in.readUTF();
+			LineTable lineTable = LineTable.readFrom(in);
+			int variablesCount = in.readInt();
+			List<Variable> variables = null;
+			if (variablesCount >= 0) {
+				variables = new ArrayList<>(variablesCount);
+				for (int j = 0; j < variablesCount; j++) {
+					long codeIndex = in.readLong();
+					String variableName = in.readUTF();
+					String signature = in.readUTF();
+					String genericSignature = readNullableString(in);
+					int length = in.readInt();
+					Variable variable = new Variable(codeIndex, variableName, signature, length, in.readInt());
+					variable.fGenericSignature = genericSignature;
+					variables.add(variable);
+				}
+			}
+			metadata.fMethods.put(key, new MethodInfo(lineTable, variables));
+		}
+		return metadata;
+	}
+
+	/**
+	 * Writes a string which may be <code>null</code> or longer than
+	 * {@link DataOutputStream#writeUTF(String)} allows.
+	 */
+	private static void writeNullableString(String string, DataOutputStream out) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Adds the metadata of a method collected from the VM.
+	 *
+	 * @param name
+	 *            the name of the method
+	 * @param signature
+	 *            the signature of the method
+	 * @param lineTable
+	 *            the line table of the method
+	 * @param variables
+	 *            the local variable table of the method, or <code>null</code>
+	 *            if absent
+	 */
+	void addMethod(String name, String signature, LineTable lineTable, List<Variable> variables) {
+		fMethods.put(name + signature, new MethodInfo(lineTable, variables));
+	}
+
+	/**
+	 * Sets the source file name collected from the VM.
+	 *
+	 * @param sourceFile
+	 *            the name of the source file, or <code>null</code> if not
+	 *            available
+	 */
+	void setSourceFile(String sourceFile) {
+		fSourceFile = sourceFile;
+	}
+
+	/**
+	 * Sets the source debug extension collected from the VM.
+	 *
+	 * @param sourceDebugExtension
+	 *            the source debug extension, or <code>null</code> if not
+	 *            available
+	 */
+	void setSourceDebugExtension(String sourceDebugExtension) {
+		fSourceDebugExtension = sourceDebugExtension;
+	}
+
+	/**
+	 * @return the fully qualified name of the type
+	 */
+	String name() {
+		return fName;
+	}
+
+	/**
+	 * @return the number of constant pool entries plus one
+	 */
+	int constantPoolCount() {
+		return fConstantPoolCount;
+	}
+
+	/**
+	 * @return the constant pool entries, not to be modified
+	 */
+	byte[] constantPool() {
+		return fConstantPool;
+	}
+
+	/**
+	 * Returns whether the constant pool of this class file is the given
+	 * constant pool of a loaded type, as replied by
+	 * <code>ReferenceType.ConstantPool</code>.
+	 *
+	 * @param count
+	 *            the number of constant pool entries plus one
+	 * @param constantPool
+	 *            the constant pool entries
+	 * @return whether the constant pools are the same
+	 */
+	boolean hasConstantPool(int count, byte[] constantPool) {
+		return fConstantPoolCount == count && Arrays.equals(fConstantPool, constantPool);
+	}
+
+	/**
+	 * Returns whether this class file has code for the given method.
+	 *
+	 * @param name
+	 *            the name of the method
+	 * @param signature
+	 *            the signature of the method
+	 * @return whether the method has code
+	 */
+	boolean hasCode(String name, String signature) {
+		return fMethods.containsKey(name + signature);
+	}
+
+	/**
+	 * Returns the line table of the given method.
+	 *
+	 * @param name
+	 *            the name of the method
+	 * @param signature
+	 *            the signature of the method
+	 * @return the line table, or <code>null</code> if the method has no code
+	 *         in this class file
+	 */
+	LineTable lineTable(String name, String signature) {
+		MethodInfo info = fMethods.get(name + signature);
+		return info == null ? null : info.fLineTable;
+	}
+
+	/**
+	 * Returns the local variable table of the given method.
+	 *
+	 * @param name
+	 *            the name of the method
+	 * @param signature
+	 *            the signature of the method
+	 * @return the variables, or <code>null</code> if the method has no code
+	 *         or no local variable table
+	 */
+	List<Variable> variables(String name, String signature) {
+		MethodInfo info = fMethods.get(name + signature);
+		return info == null ? null : info.fVariables;
+	}
+
+	/**
+	 * @return the name of the source file, or <code>null</code> if not
+	 *         available
+	 */
+	String sourceFile() {
+		return fSourceFile;
+	}
+
+	/**
+	 * @return the source debug extension, or <code>null</code> if not
+	 *         available
+	 */
+	String sourceDebugExtension() {
+		return fSourceDebugExtension;
+	}
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+/**
+ * Provides the class files of types which are available locally, for example
+ * in the output folders of the workspace. The virtual machine answers queries
+ * for line number tables, local variable tables and source debug extensions
+ * of a type from its local class file instead of sending requests, once the
+ * class file is found to match the loaded type.
+ */
+public interface ClassFileProvider {
+
+	/**
+	 * Returns the contents of the local class file of the given type, or
+	 * <code>null</code> if it is not available. The class file may not match
+	 * the loaded type, which is checked by the virtual machine.
+	 *
+	 * @param typeName
+	 *            the fully qualified name of the type, for example
+	 *            <code>java.util.Map$Entry</code>
+	 * @return the contents of the class file or <code>null</code>
+	 */
+	public byte[] getClassFile(String typeName);
+}
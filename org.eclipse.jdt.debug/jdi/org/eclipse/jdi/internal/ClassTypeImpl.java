@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -120,16 +120,12 @@ public class ClassTypeImpl extends ReferenceTypeImpl implements ClassType {
 		 * methods() command); The methods of it's superclass.
 		 */
 
-		Iterator<Method> methods = methods().iterator();
-		Method method;
-		while (methods.hasNext()) {
-			method = methods.next();
-			if (method.name().equals(name) && method.signature().equals(signature)) {
-				if (method.isAbstract()) {
-					return null;
-				}
-				return method;
+		Method method = methodByNameAndSignature(name, signature);
+		if (method != null) {
+			if (method.isAbstract()) {
+				return null;
 			}
+			return method;
 		}
 
 		if (superclass() != null) {
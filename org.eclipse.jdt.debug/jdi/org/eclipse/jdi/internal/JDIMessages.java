@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -57,6 +57,8 @@ public class JDIMessages extends NLS {
 
 	public static String ObjectReferenceImpl_object_not_known;
 
+	public static String ObjectReferenceList_0;
+
 	public static String ObjectReferenceImpl_Retrieved_a_different_number_of_values_from_the_VM_than_requested_1;
 	public static String ObjectReferenceImpl_Class_does_not_contain_given_method_2;
 	public static String ObjectReferenceImpl_Number_of_arguments_doesn__t_match_3;
@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
+
+import com.sun.jdi.AbsentInformationException;
+
+/**
+ * Line number table of a method in the Java stratum. The entries are kept in
+ * primitive arrays sorted by code index and by line, so that both directions
+ * are answered with binary searches instead of boxed maps.
+ */
+final class LineTable {
+
+	private static final long[] NO_CODE_INDEXES = new long[0];
+
+	/**
+	 * Message of the absent information, or <code>null</code> if the table is
+	 * available
+	 */
+	private final String fAbsentMessage;
+
+	private final long fLowestValidCodeIndex;
+	private final long fHighestValidCodeIndex;
+
+	/**
+	 * Code indexes of the entries in ascending order
+	 */
+	private final long[] fCodeIndexes;
+
+	/**
+	 * Line of each entry of {@link #fCodeIndexes}
+	 */
+	private final int[] fLines;
+
+	/**
+	 * Lines of the entries in ascending order
+	 */
+	private final int[] fSortedLines;
+
+	/**
+	 * Code index of each entry of {@link #fSortedLines}, ascending for the
+	 * same line
+	 */
+	private final long[] fCodeIndexesByLine;
+
+	private LineTable(String absentMessage) {
+		fAbsentMessage = absentMessage;
+		fLowestValidCodeIndex = -1;
+		fHighestValidCodeIndex = -1;
+		fCodeIndexes = NO_CODE_INDEXES;
+		fLines = new int[0];
+		fSortedLines = fLines;
+		fCodeIndexesByLine = NO_CODE_INDEXES;
+	}
+
+	private LineTable(long lowest, long highest, long[] codeIndexes, int[] lines) {
+		fAbsentMessage = null;
+		fLowestValidCodeIndex = lowest;
+		fHighestValidCodeIndex = highest;
+		sortByCodeIndex(codeIndexes, lines);
+		fCodeIndexes = codeIndexes;
+		fLines = lines;
+		// the position fits in the low half as the line sorts by the high half
+		long[] keys = new long[lines.length];
+		for (int i = 0; i < lines.length; i++) {
+			keys[i] = ((long) lines[i] << 32) | i;
+		}
+		Arrays.sort(keys);
+		fSortedLines = new int[lines.length];
+		fCodeIndexesByLine = new long[lines.length];
+		for (int i = 0; i < keys.length; i++) {
+			int position = (int) keys[i];
+			fSortedLines[i] = lines[position];
+			fCodeIndexesByLine[i] = codeIndexes[position];
+		}
+	}
+
+	/**
+	 * Sorts the entries by code index, VMs usually reply them in that order
+	 * already. Entries at the same code index keep their order.
+	 */
+	private static void sortByCodeIndex(long[] codeIndexes, int[] lines) {
+		for (int i = 1; i < codeIndexes.length; i++) {
+			if (codeIndexes[i - 1] > codeIndexes[i]) {
+				Integer[] order = new Integer[codeIndexes.length];
+				for (int j = 0; j < order.length; j++) {
+					order[j] = Integer.valueOf(j);
+				}
+				long[] unsortedCodeIndexes = codeIndexes.clone();
+				int[] unsortedLines = lines.clone();
+				Arrays.sort(order, new Comparator<Integer>() {
+					@Override
+					public int compare(Integer j1, Integer j2) {
+						return Long.compare(unsortedCodeIndexes[j1.intValue()], unsortedCodeIndexes[j2.intValue()]);
+					}
+				});
+				for (int j = 0; j < order.length; j++) {
+					codeIndexes[j] = unsortedCodeIndexes[order[j].intValue()];
+					lines[j] = unsortedLines[order[j].intValue()];
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns a table recording that no line number information is available.
+	 *
+	 * @param message
+	 *            the message of the {@link AbsentInformationException}
+	 * @return the table
+	 */
+	static LineTable absent(String message) {
+		return new LineTable(message);
+	}
+
+	/**
+	 * Reads the reply of a <code>Method.LineTable</code> request.
+	 *
+	 * @param mirror
+	 *            the mirror which sent the request
+	 * @param replyPacket
+	 *            the reply
+	 * @return the table, or <code>null</code> if the reply reports an error
+	 *         other than absent information
+	 * @throws IOException
+	 *             if the reply cannot be read
+	 */
+	static LineTable read(MirrorImpl mirror, JdwpReplyPacket replyPacket) throws IOException {
+		switch (replyPacket.errorCode()) {
+		case JdwpReplyPacket.NONE:
+			break;
+		case JdwpReplyPacket.ABSENT_INFORMATION:
+		case JdwpReplyPacket.NATIVE_METHOD:
+			return absent(JDIMessages.MethodImpl_No_line_number_information_available_2);
+		default:
+			return null;
+		}
+		DataInputStream replyData = replyPacket.dataInStream();
+		long lowest = mirror.readLong("lowest index", replyData); //$NON-NLS-1$
+		long highest = mirror.readLong("highest index", replyData); //$NON-NLS-1$
+		int nrOfElements = mirror.readInt("elements", replyData); //$NON-NLS-1$
+		if (nrOfElements == 0) {
+			return absent(JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3);
+		}
+		long[] codeIndexes = new long[nrOfElements];
+		int[] lines = new int[nrOfElements];
+		for (int i = 0; i < nrOfElements; i++) {
+			codeIndexes[i] = mirror.readLong("code index", replyData); //$NON-NLS-1$
+			lines[i] = mirror.readInt("line nr", replyData); //$NON-NLS-1$
+		}
+		return new LineTable(lowest, highest, codeIndexes, lines);
+	}
+
+	/**
+	 * Creates a table of the given entries, read from a class file.
+	 *
+	 * @param lowest
+	 *            the lowest valid code index of the method
+	 * @param highest
+	 *            the highest valid code index of the method
+	 * @param codeIndexes
+	 *            the code index of each entry
+	 * @param lines
+	 *            the line of each entry
+	 * @return the table
+	 */
+	static LineTable create(long lowest, long highest, long[] codeIndexes, int[] lines) {
+		if (codeIndexes.length == 0) {
+			return absent(JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3);
+		}
+		return new LineTable(lowest, highest, codeIndexes, lines);
+	}
+
+	/**
+	 * Writes this table to the metadata cache.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if the table cannot be written
+	 * @see #readFrom(DataInputStream)
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		if (fAbsentMessage != null) {
+			// an empty table is replied as such, other tables are absent
+			out.writeInt(JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3.equals(fAbsentMessage) ? 0 : -1);
+			return;
+		}
+		out.writeInt(fCodeIndexes.length);
+		out.writeLong(fLowestValidCodeIndex);
+		out.writeLong(fHighestValidCodeIndex);
+		for (int i = 0; i < fCodeIndexes.length; i++) {
+			out.writeLong(fCodeIndexes[i]);
+			out.writeInt(fLines[i]);
+		}
+	}
+
+	/**
+	 * Reads a table from the metadata cache.
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @return the table
+	 * @throws IOException
+	 *             if the table cannot be read
+	 * @see #writeTo(DataOutputStream)
+	 */
+	static LineTable readFrom(DataInputStream in) throws IOException {
+		int nrOfElements = in.readInt();
+		if (nrOfElements < 0) {
+			return absent(JDIMessages.MethodImpl_No_line_number_information_available_2);
+		}
+		if (nrOfElements == 0) {
+			return absent(JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3);
+		}
+		long lowest = in.readLong();
+		long highest = in.readLong();
+		long[] codeIndexes = new long[nrOfElements];
+		int[] lines = new int[nrOfElements];
+		for (int i = 0; i < nrOfElements; i++) {
+			codeIndexes[i] = in.readLong();
+			lines[i] = in.readInt();
+		}
+		return new LineTable(lowest, highest, codeIndexes, lines);
+	}
+
+	/**
+	 * Returns whether the given table has the same entries as this table, or
+	 * both are absent.
+	 *
+	 * @param other
+	 *            the table to compare with
+	 * @return whether the tables are the same
+	 */
+	boolean hasSameEntries(LineTable other) {
+		if (fAbsentMessage != null || other.fAbsentMessage != null) {
+			return fAbsentMessage != null && other.fAbsentMessage != null;
+		}
+		return fLowestValidCodeIndex == other.fLowestValidCodeIndex
+				&& fHighestValidCodeIndex == other.fHighestValidCodeIndex
+				&& Arrays.equals(fCodeIndexes, other.fCodeIndexes)
+				&& Arrays.equals(fLines, other.fLines);
+	}
+
+	/**
+	 * Throws the absent information of this table, if any.
+	 *
+	 * @throws AbsentInformationException
+	 *             if no line number information is available
+	 */
+	void check() throws AbsentInformationException {
+		if (fAbsentMessage != null) {
+			throw new AbsentInformationException(fAbsentMessage);
+		}
+	}
+
+	/**
+	 * @return the lowest valid code index of the method
+	 */
+	long lowestValidCodeIndex() {
+		return fLowestValidCodeIndex;
+	}
+
+	/**
+	 * @return the code indexes of the entries in ascending order, not to be
+	 *         modified
+	 */
+	long[] codeIndexes() {
+		return fCodeIndexes;
+	}
+
+	/**
+	 * @return the line of each entry of {@link #codeIndexes()}, not to be
+	 *         modified
+	 */
+	int[] lines() {
+		return fLines;
+	}
+
+	/**
+	 * @return whether the table has an entry at the given code index
+	 */
+	boolean hasEntry(long codeIndex) {
+		return Arrays.binarySearch(fCodeIndexes, codeIndex) >= 0;
+	}
+
+	/**
+	 * Returns the position of the first entry at the given code index, or a
+	 * negative value if there is none.
+	 */
+	int positionOf(long codeIndex) {
+		int position = Arrays.binarySearch(fCodeIndexes, codeIndex);
+		while (position > 0 && fCodeIndexes[position - 1] == codeIndex) {
+			position--;
+		}
+		return position;
+	}
+
+	/**
+	 * Returns the line the given code index belongs to: the line of the closest
+	 * entry at or before the code index, or else the closest entry after it. Of
+	 * several entries at the same code index, the last one replied counts.
+	 *
+	 * @param codeIndex
+	 *            the code index
+	 * @return the line or <code>-1</code> if the code index is not valid
+	 */
+	int lineOf(long codeIndex) {
+		if (codeIndex > fHighestValidCodeIndex) {
+			return -1;
+		}
+		int position = Arrays.binarySearch(fCodeIndexes, codeIndex);
+		if (position < 0) {
+			int insertion = -position - 1;
+			if (insertion > 0 && fCodeIndexes[insertion - 1] >= fLowestValidCodeIndex) {
+				return fLines[insertion - 1];
+			}
+			if (codeIndex < fLowestValidCodeIndex || insertion == fCodeIndexes.length
+					|| fCodeIndexes[insertion] > fHighestValidCodeIndex) {
+				return -1;
+			}
+			position = insertion;
+		}
+		while (position + 1 < fCodeIndexes.length && fCodeIndexes[position + 1] == fCodeIndexes[position]) {
+			position++;
+		}
+		return fLines[position];
+	}
+
+	/**
+	 * Returns the code indexes of the entries of the given line.
+	 *
+	 * @param line
+	 *            the line
+	 * @return the code indexes in ascending order, empty if the line has no
+	 *         entries
+	 */
+	long[] codeIndexesOf(int line) {
+		int from = position(line, false);
+		int to = position(line, true);
+		if (from >= to) {
+			return NO_CODE_INDEXES;
+		}
+		return Arrays.copyOfRange(fCodeIndexesByLine, from, to);
+	}
+
+	/**
+	 * Returns the position of the first entry in {@link #fSortedLines} not
+	 * less than the given line, or greater than the given line if
+	 * <code>after</code>.
+	 */
+	private int position(int line, boolean after) {
+		int low = 0;
+		int high = fSortedLines.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (fSortedLines[middle] < line || (after && fSortedLines[middle] == line)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Metadata of the types of a JDK kept on disk across debug sessions, one file
+ * per type, JDK build and constant pool. An entry is found by the digest of
+ * the name and constant pool of a loaded type and the build of its JDK, and
+ * is only returned if it holds exactly that name, build and constant pool.
+ * Since the class files of a JDK build do not change, a matching entry holds
+ * the line tables of the loaded type without comparing them.
+ * <p>
+ * Entries are written to a temporary file first and then moved in place, so
+ * that sessions sharing the directory never read partial entries.
+ * </p>
+ */
+final class MetadataCache {
+
+	/**
+	 * Version of the format of the entries, entries of other versions are
+	 * ignored
+	 */
+	private static final int FORMAT = 2;
+
+	private static final String ENTRY_EXTENSION = ".metadata"; //$NON-NLS-1$
+
+	/**
+	 * Number of entries above which the least recently used ones are deleted
+	 */
+	private static final int MAX_ENTRIES = 20000;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private final File fDirectory;
+
+	/**
+	 * Whether the number of entries has been checked since this cache was
+	 * opened
+	 */
+	private volatile boolean fTrimmed = false;
+
+	/**
+	 * Creates a cache keeping its entries in the given directory.
+	 *
+	 * @param directory
+	 *            the directory, created when the first entry is written
+	 */
+	MetadataCache(File directory) {
+		fDirectory = directory;
+	}
+
+	/**
+	 * Returns the cached metadata of the type with the given name and constant
+	 * pool of the given JDK build.
+	 *
+	 * @param name
+	 *            the fully qualified name of the type
+	 * @param build
+	 *            the description of the JDK build of the type
+	 * @param constantPoolCount
+	 *            the number of constant pool entries plus one
+	 * @param constantPool
+	 *            the constant pool entries
+	 * @return the metadata, or <code>null</code> if not cached
+	 */
+	ClassFileMetadata get(String name, String build, int constantPoolCount, byte[] constantPool) {
+		File file = entryFile(name, build, constantPoolCount, constantPool);
+		if (file == null || !file.isFile()) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+			if (in.readInt() != FORMAT || !in.readUTF().equals(build)) {
+				return null;
+			}
+			ClassFileMetadata metadata = ClassFileMetadata.readFrom(in);
+			if (!metadata.name().equals(name) || !metadata.hasConstantPool(constantPoolCount, constantPool)) {
+				return null;
+			}
+			// the modification time orders the entries by their last use
+			file.setLastModified(System.currentTimeMillis());
+			return metadata;
+		} catch (IOException | RuntimeException e) {
+			// a damaged entry is written again
+			file.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the given metadata collected from the VM.
+	 *
+	 * @param build
+	 *            the description of the JDK build of the type
+	 * @param metadata
+	 *            the metadata
+	 */
+	void put(String build, ClassFileMetadata metadata) {
+		File file = entryFile(metadata.name(), build, metadata.constantPoolCount(), metadata.constantPool());
+		if (file == null) {
+			return;
+		}
+		File temp = null;
+		try {
+			if (!fDirectory.isDirectory() && !fDirectory.mkdirs()) {
+				return;
+			}
+			trim();
+			temp = File.createTempFile("entry", ".tmp", fDirectory); //$NON-NLS-1$ //$NON-NLS-2$
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(FORMAT);
+				out.writeUTF(build);
+				metadata.writeTo(out);
+			}
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			// the metadata is collected again in a later session
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the least recently used entries if there are more than
+	 * {@link #MAX_ENTRIES}, once per session.
+	 */
+	private void trim() {
+		if (fTrimmed) {
+			return;
+		}
+		fTrimmed = true;
+		File[] files = fDirectory.listFiles();
+		if (files == null || files.length <= MAX_ENTRIES) {
+			return;
+		}
+		long[] lastModified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for (int i = 0; i < files.length; i++) {
+			lastModified[i] = files[i].lastModified();
+			order[i] = Integer.valueOf(i);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Long.compare(lastModified[i1.intValue()], lastModified[i2.intValue()]);
+			}
+		});
+		for (int i = 0; i < files.length - MAX_ENTRIES * 3 / 4; i++) {
+			files[order[i].intValue()].delete();
+		}
+	}
+
+	/**
+	 * Returns the file of the entry of the given type, build and constant pool,
+	 * named after their digest.
+	 */
+	private File entryFile(String name, String build, int constantPoolCount, byte[] constantPool) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		digest.update(name.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(build.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(new byte[] { (byte) (constantPoolCount >>> 8), (byte) constantPoolCount });
+		digest.update(constantPool);
+		byte[] hash = digest.digest();
+		StringBuilder fileName = new StringBuilder(hash.length * 2 + ENTRY_EXTENSION.length());
+		for (byte b : hash) {
+			fileName.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+		}
+		fileName.append(ENTRY_EXTENSION);
+		return new File(fDirectory, fileName.toString());
+	}
+}
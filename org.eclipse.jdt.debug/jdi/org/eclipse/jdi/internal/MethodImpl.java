@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,8 +28,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpMethodID;
@@ -60,10 +58,7 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 
 	/** The following are the stored results of JDWP calls. */
 	private List<LocalVariable> fVariables = null;
-	private long fLowestValidCodeIndex = -1;
-	private long fHighestValidCodeIndex = -1;
-	private Map<Long, Integer> fCodeIndexToLine = null;
-	private Map<Integer, List<Long>> fLineToCodeIndexes = null;
+	private LineTable fLineTable = null;
 	private Map<String, Map<String, List<Location>>> fStratumAllLineLocations = null;
 	private int fArgumentSlotsCount = -1;
 	private List<LocalVariable> fArguments = null;
@@ -71,8 +66,6 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	private List<String> fArgumentTypeNames = null;
 	private List<String> fArgumentTypeSignatures = null;
 	private byte[] fByteCodes = null;
-	private long[] fCodeIndexTable;
-	private int[] fJavaStratumLineNumberTable;
 
 	private String fReturnTypeName = null;
 
@@ -93,13 +86,8 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	 */
 	protected void flushStoredJdwpResults() {
 		fVariables = null;
-		fLowestValidCodeIndex = -1;
-		fHighestValidCodeIndex = -1;
-		fCodeIndexToLine = null;
-		fLineToCodeIndexes = null;
+		fLineTable = null;
 		fStratumAllLineLocations = null;
-		fCodeIndexTable = null;
-		fJavaStratumLineNumberTable = null;
 		fArgumentSlotsCount = -1;
 		fArguments = null;
 		fArgumentTypes = null;
@@ -116,100 +104,70 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	}
 
 	/**
-	 * @return Returns map of location to line number.
+	 * @return Returns whether the line table of this method still has to be
+	 *         retrieved from the VM.
 	 */
-	protected Map<Long, Integer> javaStratumCodeIndexToLine()
-			throws AbsentInformationException {
-		if (isAbstract()) {
-			return Collections.EMPTY_MAP;
-		}
-		getLineTable();
-		return fCodeIndexToLine;
+	boolean needsLineTable() {
+		return fLineTable == null && !isAbstract() && !isNative() && !isObsolete();
 	}
 
 	/**
-	 * @return Returns map of line number to locations.
+	 * Stores the line table of this method, read from the reply of a request
+	 * sent for several methods.
 	 */
-	protected List<Long> javaStratumLineToCodeIndexes(int line) throws AbsentInformationException {
-		if (isAbstract() || isNative()) {
-			return null;
-		}
-		getLineTable();
-
-		return fLineToCodeIndexes.get(Integer.valueOf(line));
+	void setLineTable(LineTable lineTable) {
+		fLineTable = lineTable;
 	}
 
 	/**
-	 * Gets line table from VM.
+	 * @return Returns the line table of this method if it has been retrieved,
+	 *         or <code>null</code>.
 	 */
-	private void getLineTable() throws AbsentInformationException {
-		if (isObsolete()) {
-			return;
-		}
-		if (fCodeIndexToLine != null) {
-			if (fCodeIndexToLine.isEmpty()) {
-				throw new AbsentInformationException(
-						JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_1);
-			}
-			return;
-		}
-
-		initJdwpRequest();
-		try {
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			DataOutputStream outData = new DataOutputStream(outBytes);
-			writeWithReferenceType(this, outData);
+	LineTable retrievedLineTable() {
+		return fLineTable;
+	}
 
-			JdwpReplyPacket replyPacket = requestVM(
-					JdwpCommandPacket.M_LINE_TABLE, outBytes);
-			switch (replyPacket.errorCode()) {
-			case JdwpReplyPacket.ABSENT_INFORMATION:
-				throw new AbsentInformationException(
-						JDIMessages.MethodImpl_No_line_number_information_available_2);
-			case JdwpReplyPacket.NATIVE_METHOD:
+	/**
+	 * Gets line table from the local class file or the VM.
+	 */
+	private LineTable getLineTable() throws AbsentInformationException {
+		LineTable lineTable = fLineTable;
+		if (lineTable == null) {
+			if (isObsolete()) {
 				throw new AbsentInformationException(
 						JDIMessages.MethodImpl_No_line_number_information_available_2);
 			}
-			defaultReplyErrorHandler(replyPacket.errorCode());
-
-			DataInputStream replyData = replyPacket.dataInStream();
-			fLowestValidCodeIndex = readLong("lowest index", replyData); //$NON-NLS-1$
-			fHighestValidCodeIndex = readLong("highest index", replyData); //$NON-NLS-1$
-			int nrOfElements = readInt("elements", replyData); //$NON-NLS-1$
-			fCodeIndexToLine = new HashMap<>();
-			fLineToCodeIndexes = new HashMap<>();
-			if (nrOfElements == 0) {
-				throw new AbsentInformationException(
-						JDIMessages.MethodImpl_Got_empty_line_number_table_for_this_method_3);
+			ClassFileMetadata classFile = referenceTypeImpl().classFileMetadata(this);
+			// checking the class file may have retrieved the line table
+			lineTable = fLineTable;
+			if (lineTable == null && classFile != null) {
+				lineTable = classFile.lineTable(name(), signature());
 			}
-			fCodeIndexTable = new long[nrOfElements];
-			fJavaStratumLineNumberTable = new int[nrOfElements];
-			for (int i = 0; i < nrOfElements; i++) {
-				long lineCodeIndex = readLong("code index", replyData); //$NON-NLS-1$
-				Long lineCodeIndexLong = Long.valueOf(lineCodeIndex);
-				int lineNr = readInt("line nr", replyData); //$NON-NLS-1$
-				Integer lineNrInt = Integer.valueOf(lineNr);
-
-				// Add entry to code-index to line mapping.
-				fCodeIndexToLine.put(lineCodeIndexLong, lineNrInt);
-
-				fCodeIndexTable[i] = lineCodeIndex;
-				fJavaStratumLineNumberTable[i] = lineNr;
-
-				List<Long> lineNrEntry = fLineToCodeIndexes.get(lineNrInt);
-				if (lineNrEntry == null) {
-					lineNrEntry = new ArrayList<>();
-					fLineToCodeIndexes.put(lineNrInt, lineNrEntry);
+		}
+		if (lineTable == null) {
+			initJdwpRequest();
+			try {
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				DataOutputStream outData = new DataOutputStream(outBytes);
+				writeWithReferenceType(this, outData);
+
+				JdwpReplyPacket replyPacket = requestVM(
+						JdwpCommandPacket.M_LINE_TABLE, outBytes);
+				lineTable = LineTable.read(this, replyPacket);
+				if (lineTable == null) {
+					defaultReplyErrorHandler(replyPacket.errorCode());
+					return null;
 				}
-				lineNrEntry.add(lineCodeIndexLong);
+			} catch (IOException e) {
+				defaultIOExceptionHandler(e);
+				return null;
+			} finally {
+				handledJdwpRequest();
 			}
-		} catch (IOException e) {
-			fCodeIndexToLine = null;
-			fLineToCodeIndexes = null;
-			defaultIOExceptionHandler(e);
-		} finally {
-			handledJdwpRequest();
 		}
+		fLineTable = lineTable;
+		lineTable.check();
+		return lineTable;
 	}
 
 	/**
@@ -221,33 +179,11 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 		if (isAbstract() || isNative() || isObsolete()) {
 			return -1;
 		}
-		getLineTable();
-		if (lineCodeIndex > fHighestValidCodeIndex) {
+		int lineNr = getLineTable().lineOf(lineCodeIndex);
+		if (lineNr == -1) {
 			throw new AbsentInformationException(JDIMessages.MethodImpl_Invalid_code_index_of_a_location_given_4);
 		}
-
-		Long lineCodeIndexObj;
-		Integer lineNrObj;
-		long index = lineCodeIndex;
-		// Search for the line where this code index is located.
-		do {
-			lineCodeIndexObj = Long.valueOf(index);
-			lineNrObj = javaStratumCodeIndexToLine().get(lineCodeIndexObj);
-		} while (lineNrObj == null && --index >= fLowestValidCodeIndex);
-		if (lineNrObj == null) {
-			if (lineCodeIndex >= fLowestValidCodeIndex) {
-				index = lineCodeIndex;
-				do {
-					lineCodeIndexObj = Long.valueOf(index);
-					lineNrObj = javaStratumCodeIndexToLine().get(lineCodeIndexObj);
-				} while (lineNrObj == null && ++index <= fHighestValidCodeIndex);
-				if (lineNrObj != null) {
-					return lineNrObj.intValue();
-				}
-			}
-			throw new AbsentInformationException(JDIMessages.MethodImpl_Invalid_code_index_of_a_location_given_4);
-		}
-		return lineNrObj.intValue();
+		return lineNr;
 	}
 
 	/* (non-Javadoc)
@@ -467,8 +403,7 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 			return null;
 		}
 		try {
-			Integer lineNrInt = javaStratumCodeIndexToLine().get(Long.valueOf(index));
-			if (lineNrInt == null) {
+			if (!getLineTable().hasEntry(index)) {
 				throw new AbsentInformationException(MessageFormat.format(JDIMessages.MethodImpl_No_valid_location_at_the_specified_code_index__0__2, new Object[] { Long.toString(index) }));
 			}
 		} catch (AbsentInformationException e) {
@@ -524,6 +459,10 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 		if (fVariables != null) {
 			return fVariables;
 		}
+		ClassFileMetadata classFile = referenceTypeImpl().classFileMetadata(this);
+		if (classFile != null && classFile.hasCode(name(), signature())) {
+			return readVariables(classFile);
+		}
 		initJdwpRequest();
 		try {
 			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
@@ -583,6 +522,34 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 		}
 	}
 
+	/**
+	 * Reads the local variables from the given local class file.
+	 */
+	private List<LocalVariable> readVariables(ClassFileMetadata classFile) throws AbsentInformationException {
+		List<ClassFileMetadata.Variable> entries = classFile.variables(name(), signature());
+		if (entries == null) {
+			return inferArguments();
+		}
+		int argumentSlotsCount = isStatic() ? 0 : 1;
+		for (String signature : argumentTypeSignatures()) {
+			argumentSlotsCount += "J".equals(signature) || "D".equals(signature) ? 2 : 1; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		List<LocalVariable> variables = new ArrayList<>(entries.size());
+		for (ClassFileMetadata.Variable entry : entries) {
+			// Note that for instance methods, the first slot contains the
+			// this reference.
+			if (isStatic() || entry.fSlot > 0) {
+				variables.add(new LocalVariableImpl(virtualMachineImpl(), this,
+						entry.fCodeIndex, entry.fName, entry.fSignature,
+						entry.fGenericSignature, entry.fLength, entry.fSlot,
+						entry.fSlot < argumentSlotsCount));
+			}
+		}
+		fArgumentSlotsCount = argumentSlotsCount;
+		fVariables = variables;
+		return fVariables;
+	}
+
 	/**
 	 * @throws AbsentInformationException
 	 */
@@ -652,15 +619,16 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 			return new LocationImpl(virtualMachineImpl(), this, -1);
 		}
 		// First retrieve line code table.
+		LineTable lineTable;
 		try {
-			getLineTable();
+			lineTable = getLineTable();
 		} catch (AbsentInformationException e) {
 			return new LocationImpl(virtualMachineImpl(), this, -1);
 		}
 
 		// Return location with Lowest Valid Code Index.
 		return new LocationImpl(virtualMachineImpl(), this,
-				fLowestValidCodeIndex);
+				lineTable.lowestValidCodeIndex());
 	}
 
 	/**
@@ -853,8 +821,8 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 		}
 		if (allLineLocations == null) { // the line locations are not know,
 										// compute and store them
-			getLineTable();
-			allLineLocations = referenceTypeImpl().allLineLocations(stratum, sourceName, this, fCodeIndexTable, fJavaStratumLineNumberTable);
+			LineTable lineTable = getLineTable();
+			allLineLocations = referenceTypeImpl().allLineLocations(stratum, sourceName, this, lineTable.codeIndexes(), lineTable.lines());
 			sourceNameAllLineLocations.put(sourceName, allLineLocations);
 		}
 		return allLineLocations;
@@ -879,17 +847,29 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 	 * the specified lines.
 	 */
 	protected List<Location> javaStratumLocationsOfLines(List<Integer> javaLines)	throws AbsentInformationException {
-		Set<Long> tmpLocations = new TreeSet<>();
+		LineTable lineTable = getLineTable();
+		long[] indexes = null;
 		for (Integer key : javaLines) {
-			List<Long> indexes = javaStratumLineToCodeIndexes(key.intValue());
-			if (indexes != null) {
-				tmpLocations.addAll(indexes);
+			long[] lineIndexes = lineTable.codeIndexesOf(key.intValue());
+			if (indexes == null) {
+				indexes = lineIndexes;
+			} else if (lineIndexes.length > 0) {
+				indexes = Arrays.copyOf(indexes, indexes.length + lineIndexes.length);
+				System.arraycopy(lineIndexes, 0, indexes, indexes.length - lineIndexes.length, lineIndexes.length);
+				Arrays.sort(indexes);
 			}
 		}
+		if (indexes == null || indexes.length == 0) {
+			return new ArrayList<>();
+		}
+		long[] codeIndexTable = lineTable.codeIndexes();
 		List<Location> locations = new ArrayList<>();
-		for (Long location : tmpLocations) {
-			long index = location.longValue();
-			int position = Arrays.binarySearch(fCodeIndexTable, index);
+		for (int i = 0; i < indexes.length; i++) {
+			long index = indexes[i];
+			if (i > 0 && indexes[i - 1] == index) {
+				continue;
+			}
+			int position = lineTable.positionOf(index);
 			if(position < 0) {
 				//https://bugs.eclipse.org/bugs/show_bug.cgi?id=388172
 				//the key is not in the code index, we should not insert it as the line table is supposed to be
@@ -897,7 +877,7 @@ public class MethodImpl extends TypeComponentImpl implements Method, Locatable {
 				//See http://docs.oracle.com/javase/6/docs/platform/jpda/jdwp/jdwp-protocol.html#JDWP_Method_LineTable for more information
 				continue;
 			}
-			if (position == 0 || !tmpLocations.contains(Long.valueOf(fCodeIndexTable[position - 1]))) {
+			if (position == 0 || Arrays.binarySearch(indexes, codeIndexTable[position - 1]) < 0) {
 				locations.add(new LocationImpl(virtualMachineImpl(), this, index));
 			}
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.eclipse.jdi.Bootstrap;
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdi.internal.jdwp.JdwpMetricsRecorder;
 import org.eclipse.jdi.internal.jdwp.JdwpPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpString;
@@ -184,17 +185,71 @@ public class MirrorImpl implements Mirror {
 	 * @return Returns reply data.
 	 */
 	public JdwpReplyPacket requestVM(int command, byte[] outData) {
+		if (RequestCoalescer.isShared(command)) {
+			// identical read-only requests in flight share one reply
+			return fVirtualMachineImpl.requestCoalescer().request(this, command, outData);
+		}
+		return sendAndGetReplyVM(command, outData);
+	}
+
+	/**
+	 * Performs a VM request without sharing its reply.
+	 *
+	 * @return Returns reply data.
+	 */
+	JdwpReplyPacket sendAndGetReplyVM(int command, byte[] outData) {
+		long sent = JDIDebugOptions.DEBUG_JDI_REQUEST_TIMES ? System.currentTimeMillis() : 0;
+		return getReplyVM(sendRequestVM(command, outData), sent);
+	}
+
+	/**
+	 * Sends a VM request without waiting for its reply, which must be
+	 * retrieved with {@link #getReplyVM(JdwpCommandPacket)}. Allows several
+	 * requests to be sent before waiting for the first reply.
+	 *
+	 * @return Returns the sent command packet.
+	 */
+	public JdwpCommandPacket sendRequestVM(int command, byte[] outData) {
+		boolean shared = RequestCoalescer.isShared(command);
+		if (!shared) {
+			// later reads must not share replies which predate this command
+			fVirtualMachineImpl.requestCoalescer().commandSent();
+		}
 		JdwpCommandPacket commandPacket = new JdwpCommandPacket(command);
 		commandPacket.setData(outData);
-		long sent = System.currentTimeMillis();
-		fVirtualMachineImpl.packetSendManager().sendPacket(commandPacket);
+		JdwpMetricsRecorder metrics = fVirtualMachineImpl.packetReceiveManager().metrics();
+		metrics.sent(commandPacket);
+		try {
+			fVirtualMachineImpl.packetSendManager().sendPacket(commandPacket);
+		} catch (VMDisconnectedException e) {
+			metrics.notSent(commandPacket);
+			throw e;
+		} finally {
+			if (!shared) {
+				// nor replies of reads queued ahead of this command meanwhile
+				fVirtualMachineImpl.requestCoalescer().commandSent();
+			}
+		}
 		fPendingJdwpRequest = true;
 		writeVerboseCommandPacketHeader(commandPacket);
+		return commandPacket;
+	}
+
+	/**
+	 * Waits for the reply of a request sent with
+	 * {@link #sendRequestVM(int, byte[])}.
+	 *
+	 * @return Returns reply data.
+	 */
+	public JdwpReplyPacket getReplyVM(JdwpCommandPacket commandPacket) {
+		return getReplyVM(commandPacket, JDIDebugOptions.DEBUG_JDI_REQUEST_TIMES ? System.currentTimeMillis() : 0);
+	}
 
+	private JdwpReplyPacket getReplyVM(JdwpCommandPacket commandPacket, long sent) {
 		JdwpReplyPacket reply = fVirtualMachineImpl.packetReceiveManager()
 				.getReply(commandPacket);
-		long recieved = System.currentTimeMillis();
 		if (JDIDebugOptions.DEBUG_JDI_REQUEST_TIMES) {
+			long recieved = System.currentTimeMillis();
 			StringBuilder buf = new StringBuilder();
 			buf.append(JDIDebugOptions.FORMAT.format(new Date(sent)));
 			buf.append(" JDI Request: "); //$NON-NLS-1$
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -253,11 +253,8 @@ public class ObjectReferenceImpl extends ValueImpl implements ObjectReference {
 			if (max > 0 && elements > max) {
 				elements = max;
 			}
-			ArrayList<ObjectReference> list = new ArrayList<>();
-			for (int i = 0; i < elements; i++) {
-				list.add((ObjectReference)ValueImpl.readWithTag(this, replyData));
-			}
-			return list;
+			// the elements follow the count, their mirrors are created on access
+			return new ObjectReferenceList(this, replyPacket.data(), Integer.BYTES, elements);
 		} catch (IOException e) {
 			defaultIOExceptionHandler(e);
 			return null;
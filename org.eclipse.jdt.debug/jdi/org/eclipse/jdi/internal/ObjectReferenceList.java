@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import com.sun.jdi.ObjectReference;
+
+/**
+ * Read-only list of the tagged object IDs of a JDWP reply, for example of
+ * <code>ReferenceType.Instances</code>. The reply data is kept and the mirror
+ * of an element is created when it is accessed, so that large replies do not
+ * create a mirror for each object up front.
+ */
+class ObjectReferenceList extends AbstractList<ObjectReference> implements RandomAccess {
+
+	private final MirrorImpl fMirror;
+	private final byte[] fData;
+	private final int fStart;
+	private final int fSize;
+
+	/**
+	 * Length of an element: tag byte and object ID
+	 */
+	private final int fElementLength;
+
+	/**
+	 * Creates a list of the given number of tagged object IDs in the given
+	 * reply data.
+	 *
+	 * @param mirror
+	 *            the mirror reading the elements
+	 * @param data
+	 *            the reply data
+	 * @param start
+	 *            the offset of the first element in the data
+	 * @param size
+	 *            the number of elements
+	 */
+	ObjectReferenceList(MirrorImpl mirror, byte[] data, int start, int size) {
+		fMirror = mirror;
+		fData = data;
+		fStart = start;
+		fSize = size;
+		fElementLength = 1 + mirror.virtualMachineImpl().objectIDSize();
+		if (size < 0 || (long) start + (long) size * fElementLength > data.length) {
+			fMirror.defaultIOExceptionHandler(new IOException(JDIMessages.ObjectReferenceList_0));
+		}
+	}
+
+	@Override
+	public ObjectReference get(int index) {
+		if (index < 0 || index >= fSize) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(fData, fStart + index * fElementLength, fElementLength));
+		try {
+			return ObjectReferenceImpl.readObjectRefWithTag(fMirror, in);
+		} catch (IOException e) {
+			fMirror.defaultIOExceptionHandler(e);
+			return null;
+		}
+	}
+
+	@Override
+	public int size() {
+		return fSize;
+	}
+}
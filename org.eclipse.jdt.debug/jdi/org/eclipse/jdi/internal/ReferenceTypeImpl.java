@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -362,6 +362,14 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	private List<Field> fAllFields = null;
 	private List<Field> fVisibleFields = null;
 	private List<InterfaceType> fAllInterfaces = null;
+	/**
+	 * Indexes of the declared methods and of the visible methods and fields,
+	 * built when first needed
+	 */
+	private Map<String, Method> fMethodsByNameAndSignature = null;
+	private Map<String, List<Method>> fVisibleMethodsByName = null;
+	private Map<String, List<Method>> fVisibleMethodsByNameAndSignature = null;
+	private Map<String, Field> fVisibleFieldsByName = null;
 	private Map<String, Map<String, List<Location>>> fStratumAllLineLocations = null;
 	private String fSourceName = null;
 	private int fModifierBits = -1;
@@ -394,6 +402,18 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	 */
 	private String fSmap; // JSR-045 addition
 
+	/**
+	 * The metadata of the local class file, if it matches this type.
+	 */
+	private ClassFileMetadata fClassFileMetadata;
+	private boolean fClassFileMetadataChecked = false;
+
+	/**
+	 * Whether this type has been redefined, kept when the stored results are
+	 * flushed.
+	 */
+	private boolean fRedefined = false;
+
 	/**
 	 * Creates new instance.
 	 */
@@ -447,6 +467,10 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		fAllFields = null;
 		fVisibleFields = null;
 		fAllInterfaces = null;
+		fMethodsByNameAndSignature = null;
+		fVisibleMethodsByName = null;
+		fVisibleMethodsByNameAndSignature = null;
+		fVisibleFieldsByName = null;
 		fStratumAllLineLocations = null;
 		fSourceName = null;
 		fModifierBits = -1;
@@ -463,6 +487,9 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		fStrata = null;
 		fSmap = null;
 
+		fClassFileMetadata = null;
+		fClassFileMetadataChecked = false;
+
 		// The following cached results are stored higher up in the class
 		// hierarchy.
 		fSignature = null;
@@ -905,14 +932,15 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	 */
 	@Override
 	public Field fieldByName(String name) {
-		Iterator<Field> iter = visibleFields().iterator();
-		while (iter.hasNext()) {
-			FieldImpl field = (FieldImpl) iter.next();
-			if (field.name().equals(name)) {
-				return field;
+		Map<String, Field> fieldsByName = fVisibleFieldsByName;
+		if (fieldsByName == null) {
+			fieldsByName = new HashMap<>();
+			for (Field field : visibleFields()) {
+				fieldsByName.putIfAbsent(field.name(), field);
 			}
+			fVisibleFieldsByName = fieldsByName;
 		}
-		return null;
+		return fieldsByName.get(name);
 	}
 
 	/**
@@ -1169,15 +1197,15 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	 */
 	@Override
 	public List<Method> methodsByName(String name) {
-		List<Method> elements = new ArrayList<>();
-		Iterator<Method> iter = visibleMethods().iterator();
-		while (iter.hasNext()) {
-			Method method = iter.next();
-			if (method.name().equals(name)) {
-				elements.add(method);
+		Map<String, List<Method>> methodsByName = fVisibleMethodsByName;
+		if (methodsByName == null) {
+			methodsByName = new HashMap<>();
+			for (Method method : visibleMethods()) {
+				addToIndex(methodsByName, method.name(), method);
 			}
+			fVisibleMethodsByName = methodsByName;
 		}
-		return elements;
+		return copyOf(methodsByName.get(name));
 	}
 
 	/**
@@ -1186,15 +1214,48 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	 */
 	@Override
 	public List<Method> methodsByName(String name, String signature) {
-		List<Method> elements = new ArrayList<>();
-		Iterator<Method> iter = visibleMethods().iterator();
-		while (iter.hasNext()) {
-			MethodImpl method = (MethodImpl) iter.next();
-			if (method.name().equals(name) && method.signature().equals(signature)) {
-				elements.add(method);
+		Map<String, List<Method>> methodsByNameAndSignature = fVisibleMethodsByNameAndSignature;
+		if (methodsByNameAndSignature == null) {
+			methodsByNameAndSignature = new HashMap<>();
+			for (Method method : visibleMethods()) {
+				addToIndex(methodsByNameAndSignature, method.name() + method.signature(), method);
 			}
+			fVisibleMethodsByNameAndSignature = methodsByNameAndSignature;
+		}
+		return copyOf(methodsByNameAndSignature.get(name + signature));
+	}
+
+	private static void addToIndex(Map<String, List<Method>> index, String key, Method method) {
+		List<Method> methods = index.get(key);
+		if (methods == null) {
+			methods = new ArrayList<>(1);
+			index.put(key, methods);
 		}
-		return elements;
+		methods.add(method);
+	}
+
+	/**
+	 * Returns a modifiable copy of an indexed list of methods, so that callers
+	 * cannot change the index.
+	 */
+	private static List<Method> copyOf(List<Method> methods) {
+		return methods == null ? new ArrayList<>(0) : new ArrayList<>(methods);
+	}
+
+	/**
+	 * @return Returns the Method declared directly in this type with the given
+	 *         name and signature, or <code>null</code>.
+	 */
+	public Method methodByNameAndSignature(String name, String signature) {
+		Map<String, Method> methodsByNameAndSignature = fMethodsByNameAndSignature;
+		if (methodsByNameAndSignature == null) {
+			methodsByNameAndSignature = new HashMap<>();
+			for (Method method : methods()) {
+				methodsByNameAndSignature.putIfAbsent(method.name() + method.signature(), method);
+			}
+			fMethodsByNameAndSignature = methodsByNameAndSignature;
+		}
+		return methodsByNameAndSignature.get(name + signature);
 	}
 
 	/**
@@ -1618,6 +1679,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 			allLineLocations = sourceNameAllLineLocations.get(sourceName);
 		}
 		if (allLineLocations == null) { // the line locations are not known, compute and store them
+			loadLineTables();
 			allLineLocations = new ArrayList<>();
 			boolean hasLineInformation = false;
 			AbsentInformationException exception = null;
@@ -1646,6 +1708,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	 */
 	@Override
 	public List<Location> locationsOfLine(String stratum, String sourceName, int lineNumber) throws AbsentInformationException {
+		loadLineTables();
 		Iterator<Method> allMethods = methods().iterator();
 		List<Location> locations = new ArrayList<>();
 		boolean hasLineInformation = false;
@@ -1671,6 +1734,353 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		return locations;
 	}
 
+	/**
+	 * Returns the metadata of this type if it has already been checked, without
+	 * checking it.
+	 *
+	 * @return the metadata or <code>null</code>
+	 */
+	private ClassFileMetadata checkedClassFileMetadata() {
+		return fClassFileMetadataChecked ? fClassFileMetadata : null;
+	}
+
+	/**
+	 * Returns the metadata of the local class file of this type, if the class
+	 * file provider of the VM has one and it matches this type, or else the
+	 * metadata kept in the metadata cache of the VM. Only queries for line
+	 * and local variable tables check the metadata, as it costs a constant
+	 * pool request.
+	 * <p>
+	 * A local class file matches if it has the constant pool of this type and
+	 * code for exactly its methods with code, and if a sample of the line
+	 * tables replied by the VM are its line tables, as changes of the line
+	 * numbers alone do not change the constant pool. The sample is the line
+	 * table of the given method and of the first and last method with code,
+	 * which an inserted or removed line shifts. The sampled line tables are
+	 * kept by the methods, and all requests are sent together.
+	 * </p>
+	 * <p>
+	 * Only the types of the bootstrap class loader which have not been
+	 * redefined are kept in the metadata cache. Their class files are those
+	 * of the build of the JDK of the VM, so that an entry for the name,
+	 * constant pool and JDK build matches without requests for line tables.
+	 * If the metadata cache has no matching entry, the metadata of all
+	 * methods is collected from the VM and stored in the cache.
+	 * </p>
+	 *
+	 * @param method
+	 *            the method whose line or local variable table is queried,
+	 *            or <code>null</code>
+	 * @return the metadata or <code>null</code>
+	 */
+	ClassFileMetadata classFileMetadata(MethodImpl method) {
+		if (!fClassFileMetadataChecked) {
+			fClassFileMetadata = readClassFileMetadata(method);
+			fClassFileMetadataChecked = true;
+		}
+		return fClassFileMetadata;
+	}
+
+	/**
+	 * Called when this type is redefined, its metadata is no longer the
+	 * metadata of the class file of the JDK build.
+	 */
+	void redefined() {
+		fRedefined = true;
+	}
+
+	private ClassFileMetadata readClassFileMetadata(MethodImpl method) {
+		ClassFileProvider provider = virtualMachineImpl().classFileProvider();
+		MetadataCache cache = virtualMachineImpl().metadataCache();
+		if ((provider == null && cache == null) || !virtualMachineImpl().canGetConstantPool()) {
+			return null;
+		}
+		ClassFileMetadata classFile = null;
+		if (provider != null) {
+			try {
+				byte[] bytes = provider.getClassFile(name());
+				if (bytes != null) {
+					classFile = ClassFileMetadata.read(bytes);
+				}
+			} catch (IOException | RuntimeException e) {
+				// malformed class files are ignored
+			}
+			if (classFile != null && !classFile.name().equals(name())) {
+				classFile = null;
+			}
+		}
+		String build = null;
+		if (classFile == null) {
+			if (cache == null || fRedefined || classLoader() != null) {
+				return null;
+			}
+			build = virtualMachine().description();
+			if (build == null) {
+				return null;
+			}
+		}
+		List<MethodImpl> methods = new ArrayList<>();
+		for (Method each : methods()) {
+			if (!each.isAbstract() && !each.isNative()) {
+				methods.add((MethodImpl) each);
+			}
+		}
+		List<MethodImpl> sample = new ArrayList<>();
+		if (classFile != null && !methods.isEmpty()) {
+			if (method != null && methods.contains(method)) {
+				sample.add(method);
+			}
+			for (MethodImpl each : new MethodImpl[] { methods.get(0), methods.get(methods.size() - 1) }) {
+				if (!sample.contains(each)) {
+					sample.add(each);
+				}
+			}
+		}
+		int count;
+		byte[] constantPool;
+		LineTable[] lineTables = new LineTable[sample.size()];
+		initJdwpRequest();
+		try {
+			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+			write(this, new DataOutputStream(outBytes));
+			JdwpCommandPacket constantPoolPacket = sendRequestVM(JdwpCommandPacket.RT_CONSTANT_POOL, outBytes.toByteArray());
+			JdwpCommandPacket[] linePackets = new JdwpCommandPacket[lineTables.length];
+			for (int i = 0; i < linePackets.length; i++) {
+				lineTables[i] = sample.get(i).retrievedLineTable();
+				if (lineTables[i] == null) {
+					outBytes = new ByteArrayOutputStream();
+					sample.get(i).writeWithReferenceType(this, new DataOutputStream(outBytes));
+					linePackets[i] = sendRequestVM(JdwpCommandPacket.M_LINE_TABLE, outBytes.toByteArray());
+				}
+			}
+			// collect all replies before reading them
+			JdwpReplyPacket constantPoolReply = getReplyVM(constantPoolPacket);
+			JdwpReplyPacket[] lineReplies = new JdwpReplyPacket[linePackets.length];
+			for (int i = 0; i < linePackets.length; i++) {
+				if (linePackets[i] != null) {
+					lineReplies[i] = getReplyVM(linePackets[i]);
+				}
+			}
+			for (int i = 0; i < lineTables.length; i++) {
+				if (lineReplies[i] != null) {
+					lineTables[i] = LineTable.read(this, lineReplies[i]);
+					if (lineTables[i] != null) {
+						sample.get(i).setLineTable(lineTables[i]);
+					}
+				}
+			}
+			if (constantPoolReply.errorCode() != JdwpReplyPacket.NONE) {
+				return null;
+			}
+			DataInputStream replyData = constantPoolReply.dataInStream();
+			count = readInt("pool count", replyData); //$NON-NLS-1$
+			constantPool = new byte[readInt("byte count", replyData)]; //$NON-NLS-1$
+			replyData.readFully(constantPool);
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+			return null;
+		} finally {
+			handledJdwpRequest();
+		}
+		if (classFile != null) {
+			return matches(classFile, count, constantPool, sample, lineTables) ? classFile : null;
+		}
+		ClassFileMetadata cached = cache.get(name(), build, count, constantPool);
+		if (cached != null && matches(cached, count, constantPool, sample, lineTables)) {
+			return cached;
+		}
+		ClassFileMetadata collected = collectMetadata(count, constantPool, methods);
+		if (collected != null) {
+			cache.put(build, collected);
+		}
+		return collected;
+	}
+
+	/**
+	 * Returns whether the given metadata is the metadata of this type: it has
+	 * the given constant pool, code for exactly the methods which are neither
+	 * abstract nor native, and the given line tables of the given methods.
+	 */
+	private boolean matches(ClassFileMetadata metadata, int count, byte[] constantPool, List<MethodImpl> methods, LineTable[] lineTables) {
+		if (!metadata.name().equals(name()) || !metadata.hasConstantPool(count, constantPool)) {
+			return false;
+		}
+		for (Method method : methods()) {
+			boolean hasCode = !method.isAbstract() && !method.isNative();
+			if (hasCode != metadata.hasCode(method.name(), method.signature())) {
+				return false;
+			}
+		}
+		for (int i = 0; i < lineTables.length; i++) {
+			MethodImpl method = methods.get(i);
+			if (lineTables[i] == null || !lineTables[i].hasSameEntries(metadata.lineTable(method.name(), method.signature()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the metadata of this type from the VM: the line and local
+	 * variable tables of the given methods with code, the source file name
+	 * and the source debug extension. The line tables the methods already
+	 * retrieved are used, the line tables collected are kept by the methods.
+	 * All requests are sent before waiting for the first reply.
+	 *
+	 * @return the metadata, or <code>null</code> if a reply reports an error
+	 *         other than absent information
+	 */
+	private ClassFileMetadata collectMetadata(int count, byte[] constantPool, List<MethodImpl> methods) {
+		if (!virtualMachineImpl().isJdwpVersionGreaterOrEqual(1, 5) || !virtualMachine().canGetSourceDebugExtension()) {
+			return null;
+		}
+		initJdwpRequest();
+		try {
+			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+			write(this, new DataOutputStream(outBytes));
+			byte[] typeBytes = outBytes.toByteArray();
+			JdwpCommandPacket sourceFilePacket = sendRequestVM(JdwpCommandPacket.RT_SOURCE_FILE, typeBytes);
+			JdwpCommandPacket extensionPacket = sendRequestVM(JdwpCommandPacket.RT_SOURCE_DEBUG_EXTENSION, typeBytes);
+			LineTable[] lineTables = new LineTable[methods.size()];
+			JdwpCommandPacket[] packets = new JdwpCommandPacket[methods.size() * 2];
+			for (int i = 0; i < methods.size(); i++) {
+				outBytes = new ByteArrayOutputStream();
+				methods.get(i).writeWithReferenceType(this, new DataOutputStream(outBytes));
+				byte[] methodBytes = outBytes.toByteArray();
+				lineTables[i] = methods.get(i).retrievedLineTable();
+				if (lineTables[i] == null) {
+					packets[2 * i] = sendRequestVM(JdwpCommandPacket.M_LINE_TABLE, methodBytes);
+				}
+				packets[2 * i + 1] = sendRequestVM(JdwpCommandPacket.M_VARIABLE_TABLE_WITH_GENERIC, methodBytes);
+			}
+			// collect all replies before reading them
+			JdwpReplyPacket sourceFileReply = getReplyVM(sourceFilePacket);
+			JdwpReplyPacket extensionReply = getReplyVM(extensionPacket);
+			JdwpReplyPacket[] replies = new JdwpReplyPacket[packets.length];
+			for (int i = 0; i < packets.length; i++) {
+				if (packets[i] != null) {
+					replies[i] = getReplyVM(packets[i]);
+				}
+			}
+			for (int i = 0; i < methods.size(); i++) {
+				if (replies[2 * i] != null) {
+					lineTables[i] = LineTable.read(this, replies[2 * i]);
+					if (lineTables[i] != null) {
+						methods.get(i).setLineTable(lineTables[i]);
+					}
+				}
+			}
+			ClassFileMetadata metadata = new ClassFileMetadata(name(), count, constantPool);
+			switch (sourceFileReply.errorCode()) {
+			case JdwpReplyPacket.NONE:
+				metadata.setSourceFile(readString("source name", sourceFileReply.dataInStream())); //$NON-NLS-1$
+				break;
+			case JdwpReplyPacket.ABSENT_INFORMATION:
+				break;
+			default:
+				return null;
+			}
+			switch (extensionReply.errorCode()) {
+			case JdwpReplyPacket.NONE:
+				metadata.setSourceDebugExtension(readString(JDIMessages.ReferenceTypeImpl_32, extensionReply.dataInStream()));
+				break;
+			case JdwpReplyPacket.ABSENT_INFORMATION:
+				break;
+			default:
+				return null;
+			}
+			for (int i = 0; i < methods.size(); i++) {
+				if (lineTables[i] == null) {
+					return null;
+				}
+				List<ClassFileMetadata.Variable> variables = null;
+				JdwpReplyPacket variablesReply = replies[2 * i + 1];
+				switch (variablesReply.errorCode()) {
+				case JdwpReplyPacket.NONE:
+					DataInputStream replyData = variablesReply.dataInStream();
+					readInt("arg count", replyData); //$NON-NLS-1$
+					int nrOfElements = readInt("elements", replyData); //$NON-NLS-1$
+					variables = new ArrayList<>(nrOfElements);
+					for (int j = 0; j < nrOfElements; j++) {
+						long codeIndex = readLong("code index", replyData); //$NON-NLS-1$
+						String name = readString("name", replyData); //$NON-NLS-1$
+						String signature = readString("signature", replyData); //$NON-NLS-1$
+						String genericSignature = readString("generic signature", replyData); //$NON-NLS-1$
+						int length = readInt("length", replyData); //$NON-NLS-1$
+						int slot = readInt("slot", replyData); //$NON-NLS-1$
+						ClassFileMetadata.Variable variable = new ClassFileMetadata.Variable(codeIndex, name, signature, length, slot);
+						if (!"".equals(genericSignature)) { //$NON-NLS-1$
+							variable.fGenericSignature = genericSignature;
+						}
+						variables.add(variable);
+					}
+					break;
+				case JdwpReplyPacket.ABSENT_INFORMATION:
+					break;
+				default:
+					return null;
+				}
+				metadata.addMethod(methods.get(i).name(), methods.get(i).signature(), lineTables[i], variables);
+			}
+			return metadata;
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+			return null;
+		} finally {
+			handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * Retrieves the line tables of all methods of this type which are not
+	 * known yet, from the local class file if it matches. The requests for all
+	 * other methods are sent before waiting for the first reply, instead of
+	 * one round trip per method. Methods whose reply
+	 * reports an error retrieve their line table again when it is needed.
+	 */
+	private void loadLineTables() {
+		ClassFileMetadata classFile = classFileMetadata(null);
+		List<MethodImpl> methods = new ArrayList<>();
+		for (Method method : methods()) {
+			MethodImpl methodImpl = (MethodImpl) method;
+			if (methodImpl.needsLineTable()) {
+				LineTable lineTable = classFile == null ? null : classFile.lineTable(method.name(), method.signature());
+				if (lineTable != null) {
+					methodImpl.setLineTable(lineTable);
+				} else {
+					methods.add(methodImpl);
+				}
+			}
+		}
+		if (methods.size() < 2) {
+			return;
+		}
+		initJdwpRequest();
+		try {
+			JdwpCommandPacket[] packets = new JdwpCommandPacket[methods.size()];
+			for (int i = 0; i < packets.length; i++) {
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				methods.get(i).writeWithReferenceType(this, new DataOutputStream(outBytes));
+				packets[i] = sendRequestVM(JdwpCommandPacket.M_LINE_TABLE, outBytes.toByteArray());
+			}
+			// collect all replies before reading them
+			JdwpReplyPacket[] replies = new JdwpReplyPacket[packets.length];
+			for (int i = 0; i < packets.length; i++) {
+				replies[i] = getReplyVM(packets[i]);
+			}
+			for (int i = 0; i < replies.length; i++) {
+				LineTable lineTable = LineTable.read(this, replies[i]);
+				if (lineTable != null) {
+					methods.get(i).setLineTable(lineTable);
+				}
+			}
+		} catch (IOException e) {
+			defaultIOExceptionHandler(e);
+		} finally {
+			handledJdwpRequest();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see com.sun.jdi.ReferenceType#availableStrata()
 	 */
@@ -1735,26 +2145,35 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	}
 
 	/**
-	 * Get the source debug extension from the VM.
+	 * Get the source debug extension from the local class file or the VM.
 	 *
 	 * @throws AbsentInformationException
 	 */
 	private void getSourceDebugExtension() throws AbsentInformationException {
-		initJdwpRequest();
-		try {
-			JdwpReplyPacket replyPacket = requestVM(
-					JdwpCommandPacket.RT_SOURCE_DEBUG_EXTENSION, this);
-			if (replyPacket.errorCode() == JdwpReplyPacket.ABSENT_INFORMATION) {
+		ClassFileMetadata classFile = checkedClassFileMetadata();
+		if (classFile != null) {
+			fSmap = classFile.sourceDebugExtension();
+			if (fSmap == null) {
 				throw new AbsentInformationException(
 						JDIMessages.ReferenceTypeImpl_31);
 			}
-			defaultReplyErrorHandler(replyPacket.errorCode());
-			DataInputStream replyData = replyPacket.dataInStream();
-			fSmap = readString(JDIMessages.ReferenceTypeImpl_32, replyData);
-		} catch (IOException e) {
-			defaultIOExceptionHandler(e);
-		} finally {
-			handledJdwpRequest();
+		} else {
+			initJdwpRequest();
+			try {
+				JdwpReplyPacket replyPacket = requestVM(
+						JdwpCommandPacket.RT_SOURCE_DEBUG_EXTENSION, this);
+				if (replyPacket.errorCode() == JdwpReplyPacket.ABSENT_INFORMATION) {
+					throw new AbsentInformationException(
+							JDIMessages.ReferenceTypeImpl_31);
+				}
+				defaultReplyErrorHandler(replyPacket.errorCode());
+				DataInputStream replyData = replyPacket.dataInStream();
+				fSmap = readString(JDIMessages.ReferenceTypeImpl_32, replyData);
+			} catch (IOException e) {
+				defaultIOExceptionHandler(e);
+			} finally {
+				handledJdwpRequest();
+			}
 		}
 		// TODO: remove the workaround when the J9SC20030415 bug is fixed (see
 		// bug 96485 of the vendor bug system).
@@ -1771,7 +2190,7 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 	}
 
 	/**
-	 * Get the name of the Java source file from the VM.
+	 * Get the name of the Java source file from the local class file or the VM.
 	 *
 	 * @throws AbsentInformationException
 	 */
@@ -1779,6 +2198,15 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 		if (fSourceName != null || isSourceDebugExtensionAvailable()) {
 			return;
 		}
+		ClassFileMetadata classFile = checkedClassFileMetadata();
+		if (classFile != null) {
+			if (classFile.sourceFile() == null) {
+				throw new AbsentInformationException(
+						JDIMessages.ReferenceTypeImpl_Source_name_is_not_known_7);
+			}
+			fSourceName = classFile.sourceFile();
+			return;
+		}
 		initJdwpRequest();
 		try {
 			JdwpReplyPacket replyPacket = requestVM(
@@ -2207,11 +2635,8 @@ public abstract class ReferenceTypeImpl extends TypeImpl implements
 			if (max > 0 && elements > max) {
 				elements = max;
 			}
-			ArrayList<ObjectReference> list = new ArrayList<>();
-			for (int i = 0; i < elements; i++) {
-				list.add((ObjectReference) ValueImpl.readWithTag(this, replyData));
-			}
-			return list;
+			// the elements follow the count, their mirrors are created on access
+			return new ObjectReferenceList(this, replyPacket.data(), Integer.BYTES, elements);
 		} catch (IOException e) {
 			defaultIOExceptionHandler(e);
 			return null;
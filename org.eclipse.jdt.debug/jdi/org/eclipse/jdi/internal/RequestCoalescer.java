@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
+
+/**
+ * Shares the reply of a read-only request with identical requests issued
+ * while it is outstanding. Views, hovers and condition evaluations often ask
+ * for the same values at the same time, only the first of them sends a
+ * packet and the others wait for its reply.
+ * <p>
+ * Only requests in flight are shared, replies are not kept. Sending any other
+ * command, such as a resume or a modification, ends the sharing of the
+ * requests in flight, both before and after it is queued, so that requests
+ * issued after it see its effect. The VM processes the commands of a
+ * connection in order, a shared reply thus never predates a command sent
+ * before the request joining it. Receiving an event ends the sharing too, a
+ * shared reply never predates an event received before the request joining
+ * it, such as the suspension of a thread or the preparation of a type.
+ * </p>
+ */
+final class RequestCoalescer {
+
+	/**
+	 * Command and data of a request
+	 */
+	private static final class Key {
+		private final int fCommand;
+		private final byte[] fData;
+		private final int fHashCode;
+
+		Key(int command, byte[] data) {
+			fCommand = command;
+			fData = data == null ? new byte[0] : data;
+			fHashCode = 31 * command + Arrays.hashCode(fData);
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) object;
+			return fCommand == other.fCommand && Arrays.equals(fData, other.fData);
+		}
+	}
+
+	/**
+	 * Outcome of a request in flight, shared by the requests joining it
+	 */
+	private static final class Request {
+		private boolean fDone = false;
+		private JdwpReplyPacket fReply;
+		private RuntimeException fException;
+		private Error fError;
+
+		synchronized void complete(JdwpReplyPacket reply, RuntimeException exception, Error error) {
+			fReply = reply;
+			fException = exception;
+			fError = error;
+			fDone = true;
+			notifyAll();
+		}
+
+		synchronized JdwpReplyPacket await() {
+			boolean interrupted = false;
+			while (!fDone) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					// the sender completes the request when its reply arrives
+					// or times out
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (fException != null) {
+				throw fException;
+			}
+			if (fError != null) {
+				throw fError;
+			}
+			return fReply;
+		}
+	}
+
+	private final Map<Key, Request> fInFlight = new HashMap<>();
+
+	/**
+	 * Returns whether requests with the given command only read the state of
+	 * the VM, and identical requests in flight may share their reply.
+	 *
+	 * @param command
+	 *            the command
+	 * @return whether requests of the command are shared
+	 */
+	static boolean isShared(int command) {
+		switch (command) {
+		case JdwpCommandPacket.RT_SIGNATURE:
+		case JdwpCommandPacket.RT_SIGNATURE_WITH_GENERIC:
+		case JdwpCommandPacket.RT_FIELDS:
+		case JdwpCommandPacket.RT_FIELDS_WITH_GENERIC:
+		case JdwpCommandPacket.RT_METHODS:
+		case JdwpCommandPacket.RT_METHODS_WITH_GENERIC:
+		case JdwpCommandPacket.RT_GET_VALUES:
+		case JdwpCommandPacket.RT_SOURCE_FILE:
+		case JdwpCommandPacket.RT_STATUS:
+		case JdwpCommandPacket.RT_INTERFACES:
+		case JdwpCommandPacket.RT_CLASS_OBJECT:
+		case JdwpCommandPacket.CT_SUPERCLASS:
+		case JdwpCommandPacket.M_LINE_TABLE:
+		case JdwpCommandPacket.M_VARIABLE_TABLE:
+		case JdwpCommandPacket.M_VARIABLE_TABLE_WITH_GENERIC:
+		case JdwpCommandPacket.OR_REFERENCE_TYPE:
+		case JdwpCommandPacket.OR_GET_VALUES:
+		case JdwpCommandPacket.OR_IS_COLLECTED:
+		case JdwpCommandPacket.SR_VALUE:
+		case JdwpCommandPacket.TR_NAME:
+		case JdwpCommandPacket.TR_STATUS:
+		case JdwpCommandPacket.TR_THREAD_GROUP:
+		case JdwpCommandPacket.TR_FRAMES:
+		case JdwpCommandPacket.TR_FRAME_COUNT:
+		case JdwpCommandPacket.TR_SUSPEND_COUNT:
+		case JdwpCommandPacket.TGR_NAME:
+		case JdwpCommandPacket.AR_LENGTH:
+		case JdwpCommandPacket.AR_GET_VALUES:
+		case JdwpCommandPacket.SF_GET_VALUES:
+		case JdwpCommandPacket.SF_THIS_OBJECT:
+		case JdwpCommandPacket.COR_REFLECTED_TYPE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Performs the given read-only request, or waits for the reply of an
+	 * identical request in flight.
+	 *
+	 * @param mirror
+	 *            the mirror performing the request
+	 * @param command
+	 *            a command for which {@link #isShared(int)} holds
+	 * @param outData
+	 *            the data of the request
+	 * @return the reply, shared with the identical requests
+	 */
+	JdwpReplyPacket request(MirrorImpl mirror, int command, byte[] outData) {
+		Key key = new Key(command, outData);
+		Request request;
+		Request joined;
+		synchronized (fInFlight) {
+			joined = fInFlight.get(key);
+			request = joined == null ? new Request() : null;
+			if (request != null) {
+				fInFlight.put(key, request);
+			}
+		}
+		if (joined != null) {
+			return joined.await();
+		}
+		try {
+			JdwpReplyPacket reply = mirror.sendAndGetReplyVM(command, outData);
+			request.complete(reply, null, null);
+			return reply;
+		} catch (RuntimeException e) {
+			request.complete(null, e, null);
+			throw e;
+		} catch (Error e) {
+			request.complete(null, null, e);
+			throw e;
+		} finally {
+			synchronized (fInFlight) {
+				if (fInFlight.get(key) == request) {
+					fInFlight.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ends the sharing of the requests in flight, called before and after any
+	 * command not shared is queued, and when an event is received. Requests
+	 * issued while the command is being queued may be sent ahead of it, and
+	 * must not be joined once it has been queued.
+	 */
+	void commandSent() {
+		synchronized (fInFlight) {
+			if (!fInFlight.isEmpty()) {
+				fInFlight.clear();
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,12 @@
  *******************************************************************************/
 package org.eclipse.jdi.internal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -89,6 +92,47 @@ public class ThreadGroupReferenceImpl extends ObjectReferenceImpl implements
 		}
 	}
 
+	/**
+	 * Retrieves and caches the names of the given thread groups. The requests
+	 * for all groups are sent before waiting for the first reply.
+	 *
+	 * @param groups
+	 *            thread groups of the same virtual machine
+	 */
+	static void readNames(Collection<ThreadGroupReferenceImpl> groups) {
+		List<ThreadGroupReferenceImpl> unnamed = new ArrayList<>(groups.size());
+		for (ThreadGroupReferenceImpl group : groups) {
+			if (group.fName == null) {
+				unnamed.add(group);
+			}
+		}
+		if (unnamed.isEmpty()) {
+			return;
+		}
+		ThreadGroupReferenceImpl mirror = unnamed.get(0);
+		mirror.initJdwpRequest();
+		try {
+			JdwpCommandPacket[] packets = new JdwpCommandPacket[unnamed.size()];
+			for (int i = 0; i < packets.length; i++) {
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				unnamed.get(i).write(mirror, new DataOutputStream(outBytes));
+				packets[i] = mirror.sendRequestVM(JdwpCommandPacket.TGR_NAME, outBytes.toByteArray());
+			}
+			for (int i = 0; i < packets.length; i++) {
+				JdwpReplyPacket replyPacket = mirror.getReplyVM(packets[i]);
+				if (replyPacket.errorCode() == JdwpReplyPacket.INVALID_OBJECT || replyPacket.errorCode() == JdwpReplyPacket.INVALID_THREAD_GROUP) {
+					continue;
+				}
+				mirror.defaultReplyErrorHandler(replyPacket.errorCode());
+				unnamed.get(i).fName = mirror.readString("name", replyPacket.dataInStream()); //$NON-NLS-1$
+			}
+		} catch (IOException e) {
+			mirror.defaultIOExceptionHandler(e);
+		} finally {
+			mirror.handledJdwpRequest();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see com.sun.jdi.ThreadGroupReference#parent()
 	 */
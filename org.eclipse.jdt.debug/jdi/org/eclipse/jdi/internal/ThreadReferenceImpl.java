@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,8 +21,10 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpID;
@@ -457,6 +459,296 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements	ThreadRe
 		}
 	}
 
+	/**
+	 * Returns the owned monitors and the contended monitor of each of the given
+	 * threads. The requests for all threads are sent before waiting for the
+	 * first reply, so the information of many threads is retrieved in about
+	 * the time of a single round trip. Threads that are not suspended or no
+	 * longer exist are not contained in the result.
+	 *
+	 * @param threads
+	 *            threads of the same virtual machine
+	 * @return the monitors of each suspended thread
+	 */
+	public static Map<ThreadReference, Monitors> monitors(List<ThreadReferenceImpl> threads) {
+		Map<ThreadReference, Monitors> result = new HashMap<>(threads.size());
+		if (threads.isEmpty()) {
+			return result;
+		}
+		ThreadReferenceImpl mirror = threads.get(0);
+		if (!mirror.virtualMachine().canGetOwnedMonitorInfo() || !mirror.virtualMachine().canGetCurrentContendedMonitor()) {
+			throw new UnsupportedOperationException();
+		}
+		mirror.initJdwpRequest();
+		try {
+			JdwpCommandPacket[] ownedPackets = new JdwpCommandPacket[threads.size()];
+			JdwpCommandPacket[] contendedPackets = new JdwpCommandPacket[threads.size()];
+			for (int i = 0; i < threads.size(); i++) {
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				threads.get(i).write(mirror, new DataOutputStream(outBytes));
+				byte[] outData = outBytes.toByteArray();
+				ownedPackets[i] = mirror.sendRequestVM(JdwpCommandPacket.TR_OWNED_MONITORS, outData);
+				contendedPackets[i] = mirror.sendRequestVM(JdwpCommandPacket.TR_CURRENT_CONTENDED_MONITOR, outData);
+			}
+			// collect all replies before handling errors
+			JdwpReplyPacket[] ownedReplies = new JdwpReplyPacket[threads.size()];
+			JdwpReplyPacket[] contendedReplies = new JdwpReplyPacket[threads.size()];
+			for (int i = 0; i < threads.size(); i++) {
+				ownedReplies[i] = mirror.getReplyVM(ownedPackets[i]);
+				contendedReplies[i] = mirror.getReplyVM(contendedPackets[i]);
+			}
+			for (int i = 0; i < threads.size(); i++) {
+				if (!isMonitorReplyAvailable(mirror, ownedReplies[i]) || !isMonitorReplyAvailable(mirror, contendedReplies[i])) {
+					continue;
+				}
+				DataInputStream replyData = ownedReplies[i].dataInStream();
+				int nrOfMonitors = mirror.readInt("nr of monitors", replyData); //$NON-NLS-1$
+				List<ObjectReference> owned = new ArrayList<>(nrOfMonitors);
+				for (int j = 0; j < nrOfMonitors; j++) {
+					owned.add(ObjectReferenceImpl.readObjectRefWithTag(mirror, replyData));
+				}
+				ObjectReference contended = ObjectReferenceImpl.readObjectRefWithTag(mirror, contendedReplies[i].dataInStream());
+				result.put(threads.get(i), new Monitors(owned, contended));
+			}
+			return result;
+		} catch (IOException e) {
+			mirror.defaultIOExceptionHandler(e);
+			return null;
+		} finally {
+			mirror.handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * Returns whether the given monitor reply contains data, <code>false</code>
+	 * if the thread is not suspended or no longer exists.
+	 */
+	private static boolean isMonitorReplyAvailable(MirrorImpl mirror, JdwpReplyPacket replyPacket) {
+		switch (replyPacket.errorCode()) {
+		case JdwpReplyPacket.INVALID_THREAD:
+		case JdwpReplyPacket.INVALID_OBJECT:
+		case JdwpReplyPacket.THREAD_NOT_SUSPENDED:
+			return false;
+		}
+		mirror.defaultReplyErrorHandler(replyPacket.errorCode());
+		return true;
+	}
+
+	/**
+	 * The owned monitors and the contended monitor of a thread.
+	 *
+	 * @see ThreadReferenceImpl#monitors(List)
+	 */
+	public static class Monitors {
+		private final List<ObjectReference> fOwnedMonitors;
+		private final ObjectReference fContendedMonitor;
+
+		Monitors(List<ObjectReference> ownedMonitors, ObjectReference contendedMonitor) {
+			fOwnedMonitors = ownedMonitors;
+			fContendedMonitor = contendedMonitor;
+		}
+
+		/**
+		 * @return the monitors owned by the thread
+		 */
+		public List<ObjectReference> ownedMonitors() {
+			return fOwnedMonitors;
+		}
+
+		/**
+		 * @return the monitor the thread is waiting for or <code>null</code>
+		 */
+		public ObjectReference currentContendedMonitor() {
+			return fContendedMonitor;
+		}
+	}
+
+	/**
+	 * Returns the name, status and thread group of each of the
+	 * given threads, and the value of the given field of each thread. The
+	 * requests for all threads are sent before waiting for the first reply,
+	 * then the names of their thread groups are retrieved the same way. The
+	 * thread groups and their names are cached. Threads that no longer exist
+	 * are not contained in the result.
+	 *
+	 * @param threads
+	 *            threads of the same virtual machine
+	 * @param field
+	 *            a field declared by <code>java.lang.Thread</code> to
+	 *            retrieve the value of, or <code>null</code>
+	 * @return the state of each thread
+	 */
+	public static Map<ThreadReference, ThreadState> states(List<ThreadReferenceImpl> threads, FieldImpl field) {
+		Map<ThreadReference, ThreadState> result = new HashMap<>(threads.size());
+		if (threads.isEmpty()) {
+			return result;
+		}
+		ThreadReferenceImpl mirror = threads.get(0);
+		mirror.initJdwpRequest();
+		try {
+			byte[] fieldData = null;
+			if (field != null) {
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				DataOutputStream outData = new DataOutputStream(outBytes);
+				mirror.writeInt(1, "size", outData); //$NON-NLS-1$
+				field.write(mirror, outData);
+				fieldData = outBytes.toByteArray();
+			}
+			int size = threads.size();
+			JdwpCommandPacket[] namePackets = new JdwpCommandPacket[size];
+			JdwpCommandPacket[] statusPackets = new JdwpCommandPacket[size];
+			JdwpCommandPacket[] groupPackets = new JdwpCommandPacket[size];
+			JdwpCommandPacket[] valuePackets = new JdwpCommandPacket[size];
+			for (int i = 0; i < size; i++) {
+				ThreadReferenceImpl thread = threads.get(i);
+				ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+				thread.write(mirror, new DataOutputStream(outBytes));
+				byte[] outData = outBytes.toByteArray();
+				namePackets[i] = mirror.sendRequestVM(JdwpCommandPacket.TR_NAME, outData);
+				statusPackets[i] = mirror.sendRequestVM(JdwpCommandPacket.TR_STATUS, outData);
+				if (thread.fThreadGroup == null) {
+					groupPackets[i] = mirror.sendRequestVM(JdwpCommandPacket.TR_THREAD_GROUP, outData);
+				}
+				if (fieldData != null) {
+					byte[] valueData = new byte[outData.length + fieldData.length];
+					System.arraycopy(outData, 0, valueData, 0, outData.length);
+					System.arraycopy(fieldData, 0, valueData, outData.length, fieldData.length);
+					valuePackets[i] = mirror.sendRequestVM(JdwpCommandPacket.OR_GET_VALUES, valueData);
+				}
+			}
+			// collect all replies before handling errors
+			JdwpReplyPacket[] nameReplies = new JdwpReplyPacket[size];
+			JdwpReplyPacket[] statusReplies = new JdwpReplyPacket[size];
+			JdwpReplyPacket[] groupReplies = new JdwpReplyPacket[size];
+			JdwpReplyPacket[] valueReplies = new JdwpReplyPacket[size];
+			for (int i = 0; i < size; i++) {
+				nameReplies[i] = mirror.getReplyVM(namePackets[i]);
+				statusReplies[i] = mirror.getReplyVM(statusPackets[i]);
+				if (groupPackets[i] != null) {
+					groupReplies[i] = mirror.getReplyVM(groupPackets[i]);
+				}
+				if (valuePackets[i] != null) {
+					valueReplies[i] = mirror.getReplyVM(valuePackets[i]);
+				}
+			}
+			Set<ThreadGroupReferenceImpl> groups = new HashSet<>();
+			for (int i = 0; i < size; i++) {
+				ThreadReferenceImpl thread = threads.get(i);
+				if (!isThreadReplyAvailable(mirror, nameReplies[i]) || (groupReplies[i] != null && !isThreadReplyAvailable(mirror, groupReplies[i]))) {
+					continue;
+				}
+				String name = mirror.readString("name", nameReplies[i].dataInStream()); //$NON-NLS-1$
+				int status;
+				boolean suspended = false;
+				switch (statusReplies[i].errorCode()) {
+				case JdwpReplyPacket.ABSENT_INFORMATION:
+					status = THREAD_STATUS_UNKNOWN;
+					break;
+				case JdwpReplyPacket.INVALID_THREAD:
+					continue;
+				default:
+					mirror.defaultReplyErrorHandler(statusReplies[i].errorCode());
+					DataInputStream replyData = statusReplies[i].dataInStream();
+					status = toThreadStatus(mirror.readInt("thread status", threadStatusMap(), replyData)); //$NON-NLS-1$
+					suspended = mirror.readInt("suspend status", suspendStatusStrings(), replyData) == SUSPEND_STATUS_SUSPENDED; //$NON-NLS-1$
+				}
+				if (groupReplies[i] != null) {
+					thread.fThreadGroup = ThreadGroupReferenceImpl.read(mirror, groupReplies[i].dataInStream());
+				}
+				Value value = null;
+				if (valueReplies[i] != null && isThreadReplyAvailable(mirror, valueReplies[i])) {
+					DataInputStream replyData = valueReplies[i].dataInStream();
+					if (mirror.readInt("elements", replyData) == 1) { //$NON-NLS-1$
+						value = ValueImpl.readWithTag(mirror, replyData);
+					}
+				}
+				if (thread.fThreadGroup != null) {
+					groups.add(thread.fThreadGroup);
+				}
+				result.put(thread, new ThreadState(name, status, suspended, thread.fThreadGroup, value));
+			}
+			ThreadGroupReferenceImpl.readNames(groups);
+			return result;
+		} catch (IOException e) {
+			mirror.defaultIOExceptionHandler(e);
+			return null;
+		} finally {
+			mirror.handledJdwpRequest();
+		}
+	}
+
+	/**
+	 * Returns whether the given reply to a thread request contains data,
+	 * <code>false</code> if the thread no longer exists.
+	 */
+	private static boolean isThreadReplyAvailable(MirrorImpl mirror, JdwpReplyPacket replyPacket) {
+		switch (replyPacket.errorCode()) {
+		case JdwpReplyPacket.INVALID_THREAD:
+		case JdwpReplyPacket.INVALID_OBJECT:
+			return false;
+		}
+		mirror.defaultReplyErrorHandler(replyPacket.errorCode());
+		return true;
+	}
+
+	/**
+	 * The state of a thread at the time it was retrieved.
+	 *
+	 * @see ThreadReferenceImpl#states(List, FieldImpl)
+	 */
+	public static class ThreadState {
+		private final String fName;
+		private final int fStatus;
+		private final boolean fSuspended;
+		private final ThreadGroupReference fThreadGroup;
+		private final Value fFieldValue;
+
+		ThreadState(String name, int status, boolean suspended, ThreadGroupReference threadGroup, Value fieldValue) {
+			fName = name;
+			fStatus = status;
+			fSuspended = suspended;
+			fThreadGroup = threadGroup;
+			fFieldValue = fieldValue;
+		}
+
+		/**
+		 * @return the name of the thread
+		 */
+		public String name() {
+			return fName;
+		}
+
+		/**
+		 * @return the status of the thread, one of the
+		 *         <code>THREAD_STATUS_*</code> constants of
+		 *         {@link ThreadReference}
+		 */
+		public int status() {
+			return fStatus;
+		}
+
+		/**
+		 * @return whether the thread was suspended
+		 */
+		public boolean isSuspended() {
+			return fSuspended;
+		}
+
+		/**
+		 * @return the thread group of the thread or <code>null</code>
+		 */
+		public ThreadGroupReference threadGroup() {
+			return fThreadGroup;
+		}
+
+		/**
+		 * @return the value of the requested field or <code>null</code>
+		 */
+		public Value fieldValue() {
+			return fFieldValue;
+		}
+	}
+
 	/**
 	 * Resumes this thread.
 	 *
@@ -500,23 +792,7 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements	ThreadRe
 			int threadStatus = readInt(
 					"thread status", threadStatusMap(), replyData); //$NON-NLS-1$
 			readInt("suspend status", suspendStatusStrings(), replyData); //$NON-NLS-1$
-			switch (threadStatus) {
-			case JDWP_THREAD_STATUS_ZOMBIE:
-				return THREAD_STATUS_ZOMBIE;
-			case JDWP_THREAD_STATUS_RUNNING:
-				return THREAD_STATUS_RUNNING;
-			case JDWP_THREAD_STATUS_SLEEPING:
-				return THREAD_STATUS_SLEEPING;
-			case JDWP_THREAD_STATUS_MONITOR:
-				return THREAD_STATUS_MONITOR;
-			case JDWP_THREAD_STATUS_WAIT:
-				return THREAD_STATUS_WAIT;
-			case -1: // see bug 30816
-				return THREAD_STATUS_UNKNOWN;
-			}
-			throw new InternalException(
-					JDIMessages.ThreadReferenceImpl_Unknown_thread_status_received___6
-							+ threadStatus);
+			return toThreadStatus(threadStatus);
 		} catch (IOException e) {
 			defaultIOExceptionHandler(e);
 			return 0;
@@ -525,6 +801,29 @@ public class ThreadReferenceImpl extends ObjectReferenceImpl implements	ThreadRe
 		}
 	}
 
+	/**
+	 * @return Returns the JDI thread status of the given JDWP thread status.
+	 */
+	private static int toThreadStatus(int threadStatus) {
+		switch (threadStatus) {
+		case JDWP_THREAD_STATUS_ZOMBIE:
+			return THREAD_STATUS_ZOMBIE;
+		case JDWP_THREAD_STATUS_RUNNING:
+			return THREAD_STATUS_RUNNING;
+		case JDWP_THREAD_STATUS_SLEEPING:
+			return THREAD_STATUS_SLEEPING;
+		case JDWP_THREAD_STATUS_MONITOR:
+			return THREAD_STATUS_MONITOR;
+		case JDWP_THREAD_STATUS_WAIT:
+			return THREAD_STATUS_WAIT;
+		case -1: // see bug 30816
+			return THREAD_STATUS_UNKNOWN;
+		}
+		throw new InternalException(
+				JDIMessages.ThreadReferenceImpl_Unknown_thread_status_received___6
+						+ threadStatus);
+	}
+
 	/**
 	 * Stops this thread with an asynchronous exception.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,7 @@ package org.eclipse.jdi.internal;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -27,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jdi.Bootstrap;
+import org.eclipse.jdi.JdwpMetrics;
 import org.eclipse.jdi.internal.connect.PacketReceiveManager;
 import org.eclipse.jdi.internal.connect.PacketSendManager;
 import org.eclipse.jdi.internal.event.EventQueueImpl;
@@ -99,6 +101,21 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 	private ValueCache fCachedReftypes = new ValueCache();
 	private ValueCache fCachedObjects = new ValueCache();
 
+	/**
+	 * Provider of local class files, or <code>null</code>
+	 */
+	private volatile ClassFileProvider fClassFileProvider;
+
+	/**
+	 * Metadata of types kept across sessions, or <code>null</code>
+	 */
+	private volatile MetadataCache fMetadataCache;
+
+	/**
+	 * Shares the replies of identical read-only requests in flight
+	 */
+	private final RequestCoalescer fRequestCoalescer = new RequestCoalescer();
+
 	/** The following are the stored results of JDWP calls. */
 	private String fVersionDescription = null; // Text information on the VM
 												// version.
@@ -1236,6 +1253,72 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 		return fRequestTimeout;
 	}
 
+	/**
+	 * @return Returns a snapshot of the JDWP traffic since the connection to
+	 *         the virtual machine was established.
+	 */
+	public JdwpMetrics getJdwpMetrics() {
+		return fPacketReceiveManager.metrics().snapshot();
+	}
+
+	/**
+	 * Sets the provider of local class files, used to answer queries for the
+	 * metadata of loaded types without sending requests.
+	 *
+	 * @param provider
+	 *            the provider or <code>null</code> to send requests for all
+	 *            types
+	 */
+	public void setClassFileProvider(ClassFileProvider provider) {
+		fClassFileProvider = provider;
+	}
+
+	/**
+	 * @return Returns the provider of local class files, or <code>null</code>.
+	 */
+	public ClassFileProvider classFileProvider() {
+		return fClassFileProvider;
+	}
+
+	/**
+	 * Sets the directory in which the metadata of the types of the bootstrap
+	 * class loader is kept across debug sessions, used to answer queries for
+	 * the line number and local variable tables of JDK types whose metadata
+	 * was collected in an earlier session of the same JDK build with a single
+	 * request per type.
+	 *
+	 * @param directory
+	 *            the directory or <code>null</code> to not keep metadata
+	 */
+	public void setMetadataCacheLocation(File directory) {
+		fMetadataCache = directory == null ? null : new MetadataCache(directory);
+	}
+
+	/**
+	 * @return Returns the metadata of types kept across sessions, or
+	 *         <code>null</code>.
+	 */
+	MetadataCache metadataCache() {
+		return fMetadataCache;
+	}
+
+	/**
+	 * @return Returns the sharing of identical read-only requests in flight.
+	 */
+	RequestCoalescer requestCoalescer() {
+		return fRequestCoalescer;
+	}
+
+	/**
+	 * Ends the sharing of the requests in flight, called when an event is
+	 * received before it is queued for dispatch. The replies of requests sent
+	 * before the event may predate the suspension or preparation it reports,
+	 * and must not answer requests issued once it is handled.
+	 */
+	public void eventReceived() {
+		fRequestCoalescer.commandSent();
+	}
+
 	/**
 	 * Returns whether the JDWP version is greater than or equal to the
 	 * specified major/minor version numbers.
@@ -1271,6 +1354,7 @@ public class VirtualMachineImpl extends MirrorImpl implements VirtualMachine,
 				for (byte b : bytes) {
 					writeByte(b, "classByte", outData); //$NON-NLS-1$
 				}
+				type.redefined();
 				fCachedReftypes.remove(type.getRefTypeID()); // flush local
 																// cache of
 																// redefined
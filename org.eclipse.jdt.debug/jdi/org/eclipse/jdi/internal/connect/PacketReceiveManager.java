@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,7 @@ import java.util.ListIterator;
 import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
 import org.eclipse.jdi.internal.jdwp.JdwpCommandPacket;
+import org.eclipse.jdi.internal.jdwp.JdwpMetricsRecorder;
 import org.eclipse.jdi.internal.jdwp.JdwpPacket;
 import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
 import org.eclipse.jdt.internal.debug.core.JDIDebugOptions;
@@ -57,6 +58,9 @@ public class PacketReceiveManager extends PacketManager {
 
 	private VirtualMachineImpl fVM;
 
+	/** Traffic of the connection. */
+	private final JdwpMetricsRecorder fMetrics = new JdwpMetricsRecorder();
+
 	/**
 	 * Create a new thread that receives packets from the Virtual Machine.
 	 */
@@ -71,6 +75,7 @@ public class PacketReceiveManager extends PacketManager {
 	@Override
 	public void disconnectVM() {
 		super.disconnectVM();
+		fMetrics.disconnected();
 		synchronized (fCommandPackets) {
 			fCommandPackets.notifyAll();
 		}
@@ -79,6 +84,13 @@ public class PacketReceiveManager extends PacketManager {
 		}
 	}
 
+	/**
+	 * @return Returns the recorder of the traffic of the connection.
+	 */
+	public JdwpMetricsRecorder metrics() {
+		return fMetrics;
+	}
+
 	/**
 	 * Thread's run method.
 	 */
@@ -190,6 +202,7 @@ public class PacketReceiveManager extends PacketManager {
 					ConnectMessages.PacketReceiveManager_Got_IOException_from_Virtual_Machine_2);
 		// Check for a timeout.
 		if (packet == null) {
+			fMetrics.timedOut(id);
 			synchronized (fTimedOutPackets) {
 				fTimedOutPackets.add(Integer.valueOf(id));
 			}
@@ -303,9 +316,16 @@ public class PacketReceiveManager extends PacketManager {
 		byte[] bytes = getConnection().readPacket();
 		JdwpPacket packet = JdwpPacket.build(bytes);
 		// Add packet to command or reply queue.
-		if (packet instanceof JdwpCommandPacket)
+		if (packet instanceof JdwpCommandPacket) {
+			fMetrics.received((JdwpCommandPacket) packet);
+			if (((JdwpCommandPacket) packet).getCommand() == JdwpCommandPacket.E_COMPOSITE) {
+				// reads issued once the event is handled must see its effect
+				fVM.eventReceived();
+			}
 			addCommandPacket((JdwpCommandPacket) packet);
-		else
+		} else {
+			fMetrics.received((JdwpReplyPacket) packet);
 			addReplyPacket((JdwpReplyPacket) packet);
+		}
 	}
 }
@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.jdwp;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.jdi.JdwpMetrics;
+
+/**
+ * Counts the JDWP traffic of a virtual machine per command. Recording takes a
+ * few atomic increments per packet and never blocks, so it is always enabled.
+ * <p>
+ * Latencies are recorded in a log-linear histogram: values below 8 have a
+ * bucket each, every further power of two is divided into 8 buckets.
+ * </p>
+ */
+public class JdwpMetricsRecorder {
+
+	/** Number of buckets per power of two, as a power of two. */
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Latencies are clamped to 2^40 ns, more than 18 minutes. */
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/**
+	 * Counters of one command.
+	 */
+	private static class Counters {
+		final AtomicLong fCount = new AtomicLong();
+		final AtomicLong fErrors = new AtomicLong();
+		final AtomicLong fTimeouts = new AtomicLong();
+		final AtomicLong fBytesSent = new AtomicLong();
+		final AtomicLong fBytesReceived = new AtomicLong();
+		final AtomicLong fTotalLatency = new AtomicLong();
+		final AtomicLong fMaxLatency = new AtomicLong();
+		final AtomicLongArray fHistogram = new AtomicLongArray(BUCKETS);
+	}
+
+	/**
+	 * A command waiting for its reply.
+	 */
+	private static class Pending {
+		final Counters fCounters;
+		final long fSent;
+
+		Pending(Counters counters, long sent) {
+			fCounters = counters;
+			fSent = sent;
+		}
+	}
+
+	private final Map<Integer, Counters> fCounters = new ConcurrentHashMap<>();
+	private final Map<Integer, Pending> fPending = new ConcurrentHashMap<>();
+	private final AtomicInteger fInFlight = new AtomicInteger();
+	private final AtomicInteger fMaxInFlight = new AtomicInteger();
+	private final AtomicLong fEvents = new AtomicLong();
+	private final AtomicLong fEventBytes = new AtomicLong();
+
+	/**
+	 * Records a command that is about to be sent. Must be called before the
+	 * reply can be received.
+	 */
+	public void sent(JdwpCommandPacket commandPacket) {
+		Counters counters = fCounters.computeIfAbsent(Integer.valueOf(commandPacket.getCommand()), c -> new Counters());
+		counters.fCount.incrementAndGet();
+		counters.fBytesSent.addAndGet(commandPacket.getLength());
+		fPending.put(Integer.valueOf(commandPacket.getId()), new Pending(counters, System.nanoTime()));
+		int inFlight = fInFlight.incrementAndGet();
+		int max;
+		while (inFlight > (max = fMaxInFlight.get())) {
+			if (fMaxInFlight.compareAndSet(max, inFlight)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Withdraws a command recorded as sent which could not be sent.
+	 */
+	public void notSent(JdwpCommandPacket commandPacket) {
+		Pending pending = fPending.remove(Integer.valueOf(commandPacket.getId()));
+		if (pending != null) {
+			fInFlight.decrementAndGet();
+			pending.fCounters.fCount.decrementAndGet();
+			pending.fCounters.fBytesSent.addAndGet(-commandPacket.getLength());
+		}
+	}
+
+	/**
+	 * Records a reply received from the virtual machine.
+	 */
+	public void received(JdwpReplyPacket reply) {
+		Pending pending = fPending.remove(Integer.valueOf(reply.getId()));
+		if (pending == null) {
+			return;
+		}
+		fInFlight.decrementAndGet();
+		long latency = System.nanoTime() - pending.fSent;
+		Counters counters = pending.fCounters;
+		counters.fBytesReceived.addAndGet(reply.getLength());
+		if (reply.errorCode() != JdwpReplyPacket.NONE) {
+			counters.fErrors.incrementAndGet();
+		}
+		counters.fTotalLatency.addAndGet(latency);
+		long max;
+		while (latency > (max = counters.fMaxLatency.get())) {
+			if (counters.fMaxLatency.compareAndSet(max, latency)) {
+				break;
+			}
+		}
+		counters.fHistogram.incrementAndGet(bucket(latency));
+	}
+
+	/**
+	 * Records an event packet received from the virtual machine.
+	 */
+	public void received(JdwpCommandPacket eventPacket) {
+		fEvents.incrementAndGet();
+		fEventBytes.addAndGet(eventPacket.getLength());
+	}
+
+	/**
+	 * Records that the reply of the command with the given id was not received
+	 * in time. The command stays in flight until its reply arrives.
+	 */
+	public void timedOut(int id) {
+		Pending pending = fPending.get(Integer.valueOf(id));
+		if (pending != null) {
+			pending.fCounters.fTimeouts.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Forgets the commands in flight, their replies will never be received.
+	 */
+	public void disconnected() {
+		fPending.clear();
+		fInFlight.set(0);
+	}
+
+	/**
+	 * @return Returns a snapshot of the metrics recorded so far.
+	 */
+	public JdwpMetrics snapshot() {
+		Map<Integer, String> names = JdwpCommandPacket.commandMap();
+		List<CommandSnapshot> commands = new ArrayList<>(fCounters.size());
+		for (Map.Entry<Integer, Counters> entry : fCounters.entrySet()) {
+			Counters counters = entry.getValue();
+			long[] histogram = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				histogram[i] = counters.fHistogram.get(i);
+			}
+			int command = entry.getKey().intValue();
+			String name = names.get(entry.getKey());
+			commands.add(new CommandSnapshot(command, name == null ? Integer.toString(command) : name, counters.fCount.get(), counters.fErrors.get(), counters.fTimeouts.get(), counters.fBytesSent.get(), counters.fBytesReceived.get(), counters.fTotalLatency.get(), counters.fMaxLatency.get(), histogram));
+		}
+		return new Snapshot(commands, fEvents.get(), fEventBytes.get(), fInFlight.get(), fMaxInFlight.get());
+	}
+
+	/**
+	 * @return Returns the histogram bucket of the given latency.
+	 */
+	static int bucket(long latency) {
+		if (latency < SUB_BUCKETS) {
+			return latency < 0 ? 0 : (int) latency;
+		}
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(latency), MAX_EXPONENT - 1);
+		int subBucket = (int) (Math.min(latency, (1L << MAX_EXPONENT) - 1) >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return Returns the highest latency of the given histogram bucket.
+	 */
+	static long highestLatency(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	private static class CommandSnapshot implements JdwpMetrics.CommandMetrics {
+		private final int fCommand;
+		private final String fName;
+		private final long fCount;
+		private final long fErrors;
+		private final long fTimeouts;
+		private final long fBytesSent;
+		private final long fBytesReceived;
+		private final long fTotalLatency;
+		private final long fMaxLatency;
+		private final long[] fHistogram;
+
+		CommandSnapshot(int command, String name, long count, long errors, long timeouts, long bytesSent, long bytesReceived, long totalLatency, long maxLatency, long[] histogram) {
+			fCommand = command;
+			fName = name;
+			fCount = count;
+			fErrors = errors;
+			fTimeouts = timeouts;
+			fBytesSent = bytesSent;
+			fBytesReceived = bytesReceived;
+			fTotalLatency = totalLatency;
+			fMaxLatency = maxLatency;
+			fHistogram = histogram;
+		}
+
+		/**
+		 * @return Returns the traffic between the given earlier snapshot of
+		 *         the same command and this one.
+		 */
+		CommandSnapshot since(CommandSnapshot earlier) {
+			long[] histogram = new long[BUCKETS];
+			int highest = -1;
+			for (int i = 0; i < BUCKETS; i++) {
+				histogram[i] = fHistogram[i] - earlier.fHistogram[i];
+				if (histogram[i] > 0) {
+					highest = i;
+				}
+			}
+			long maxLatency = highest < 0 ? 0 : Math.min(highestLatency(highest), fMaxLatency);
+			return new CommandSnapshot(fCommand, fName, fCount - earlier.fCount, fErrors - earlier.fErrors, fTimeouts - earlier.fTimeouts, fBytesSent - earlier.fBytesSent, fBytesReceived - earlier.fBytesReceived, fTotalLatency - earlier.fTotalLatency, maxLatency, histogram);
+		}
+
+		@Override
+		public int getCommand() {
+			return fCommand;
+		}
+
+		@Override
+		public String getName() {
+			return fName;
+		}
+
+		@Override
+		public long getCount() {
+			return fCount;
+		}
+
+		@Override
+		public long getErrorCount() {
+			return fErrors;
+		}
+
+		@Override
+		public long getTimeoutCount() {
+			return fTimeouts;
+		}
+
+		@Override
+		public long getBytesSent() {
+			return fBytesSent;
+		}
+
+		@Override
+		public long getBytesReceived() {
+			return fBytesReceived;
+		}
+
+		@Override
+		public long getTotalLatency() {
+			return fTotalLatency;
+		}
+
+		@Override
+		public long getMaxLatency() {
+			return fMaxLatency;
+		}
+
+		@Override
+		public long getLatency(double percentile) {
+			long total = 0;
+			for (long count : fHistogram) {
+				total += count;
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += fHistogram[i];
+				if (seen >= rank) {
+					return Math.min(highestLatency(i), fMaxLatency);
+				}
+			}
+			return fMaxLatency;
+		}
+	}
+
+	private static class Snapshot implements JdwpMetrics {
+		private final CommandSnapshot[] fCommands;
+		private final long fEvents;
+		private final long fEventBytes;
+		private final int fInFlight;
+		private final int fMaxInFlight;
+
+		Snapshot(List<CommandSnapshot> commands, long events, long eventBytes, int inFlight, int maxInFlight) {
+			fCommands = commands.toArray(new CommandSnapshot[commands.size()]);
+			Arrays.sort(fCommands, (c1, c2) -> Long.compare(c2.getTotalLatency(), c1.getTotalLatency()));
+			fEvents = events;
+			fEventBytes = eventBytes;
+			fInFlight = inFlight;
+			fMaxInFlight = maxInFlight;
+		}
+
+		@Override
+		public CommandMetrics[] getCommandMetrics() {
+			return fCommands.clone();
+		}
+
+		@Override
+		public long getEventCount() {
+			return fEvents;
+		}
+
+		@Override
+		public long getEventBytesReceived() {
+			return fEventBytes;
+		}
+
+		@Override
+		public int getInFlight() {
+			return fInFlight;
+		}
+
+		@Override
+		public int getMaxInFlight() {
+			return fMaxInFlight;
+		}
+
+		@Override
+		public JdwpMetrics since(JdwpMetrics earlier) {
+			if (!(earlier instanceof Snapshot)) {
+				throw new IllegalArgumentException();
+			}
+			Map<Integer, CommandSnapshot> before = new HashMap<>();
+			for (CommandSnapshot command : ((Snapshot) earlier).fCommands) {
+				before.put(Integer.valueOf(command.fCommand), command);
+			}
+			List<CommandSnapshot> commands = new ArrayList<>();
+			for (CommandSnapshot command : fCommands) {
+				CommandSnapshot previous = before.get(Integer.valueOf(command.fCommand));
+				CommandSnapshot delta = previous == null ? command : command.since(previous);
+				if (delta.fCount > 0 || delta.fBytesReceived > 0) {
+					commands.add(delta);
+				}
+			}
+			Snapshot other = (Snapshot) earlier;
+			return new Snapshot(commands, fEvents - other.fEvents, fEventBytes - other.fEventBytes, fInFlight, fMaxInFlight);
+		}
+
+		@Override
+		public void print(PrintWriter writer) {
+			writer.println(String.format("%-52s %8s %6s %8s %10s %10s %10s %10s %10s %10s", //$NON-NLS-1$
+					"Command", "Count", "Errors", "Timeouts", "Sent", "Received", "Mean us", "p50 us", "p99 us", "Max us")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+			for (CommandSnapshot command : fCommands) {
+				long replies = 0;
+				for (long count : command.fHistogram) {
+					replies += count;
+				}
+				writer.println(String.format("%-52s %8d %6d %8d %10d %10d %10d %10d %10d %10d", //$NON-NLS-1$
+						command.fName, Long.valueOf(command.fCount), Long.valueOf(command.fErrors), Long.valueOf(command.fTimeouts), Long.valueOf(command.fBytesSent), Long.valueOf(command.fBytesReceived), Long.valueOf(replies == 0 ? 0 : command.fTotalLatency / replies / 1000), Long.valueOf(command.getLatency(50) / 1000), Long.valueOf(command.getLatency(99) / 1000), Long.valueOf(command.fMaxLatency / 1000)));
+			}
+			writer.println(String.format("Events: %d (%d bytes), in flight: %d (max %d)", //$NON-NLS-1$
+					Long.valueOf(fEvents), Long.valueOf(fEventBytes), Integer.valueOf(fInFlight), Integer.valueOf(fMaxInFlight)));
+			writer.flush();
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.spy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A binary capture of the JDWP packets of a debug session.
+ * <p>
+ * A capture starts with a magic number and a format version, followed by
+ * records. A packet record contains the time since the start of the recording
+ * in nanoseconds, the direction of the packet and the packet as sent on the
+ * wire. An ID sizes record contains the sizes of the IDs used by the VM, which
+ * are required to decode the packets.
+ * </p>
+ * <p>
+ * Captures are written by {@link TcpipSpy} with the <code>-record</code>
+ * option and answered by {@link JdwpReplayServer}. Running this class prints a
+ * capture like {@link TcpipSpy} prints live traffic.
+ * </p>
+ */
+public class JdwpRecording {
+
+	private static final int MAGIC = 0x4A445752; // "JDWR"
+	private static final short VERSION = 1;
+	private static final byte KIND_PACKET = 0;
+	private static final byte KIND_ID_SIZES = 1;
+
+	/**
+	 * A recorded packet.
+	 */
+	public static class Record {
+		private final long fTime;
+		private final boolean fFromVM;
+		private final JdwpPacket fPacket;
+
+		Record(long time, boolean fromVM, JdwpPacket packet) {
+			fTime = time;
+			fFromVM = fromVM;
+			fPacket = packet;
+		}
+
+		/**
+		 * @return Returns time since the start of the recording in nanoseconds.
+		 */
+		public long getTime() {
+			return fTime;
+		}
+
+		/**
+		 * @return Returns whether the packet was sent by the VM.
+		 */
+		public boolean isFromVM() {
+			return fFromVM;
+		}
+
+		/**
+		 * @return Returns the packet.
+		 */
+		public JdwpPacket getPacket() {
+			return fPacket;
+		}
+	}
+
+	/**
+	 * Writes a capture, packets of both directions can be recorded
+	 * concurrently.
+	 */
+	public static class Recorder implements Closeable {
+		private final DataOutputStream fOut;
+		private final long fStart = System.nanoTime();
+		private boolean fHasSizes;
+
+		public Recorder(File file) throws IOException {
+			fOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			fOut.writeInt(MAGIC);
+			fOut.writeShort(VERSION);
+		}
+
+		/**
+		 * Records the given packet, followed by the ID sizes as soon as they
+		 * are known to {@link TcpipSpy}.
+		 */
+		public synchronized void record(JdwpPacket packet, boolean fromVM) throws IOException {
+			long time = System.nanoTime() - fStart;
+			fOut.writeByte(KIND_PACKET);
+			fOut.writeLong(time);
+			fOut.writeBoolean(fromVM);
+			packet.write(fOut);
+			if (!fHasSizes && TcpipSpy.hasSizes()) {
+				fOut.writeByte(KIND_ID_SIZES);
+				fOut.writeLong(time);
+				fOut.writeInt(TcpipSpy.getFieldIDSize());
+				fOut.writeInt(TcpipSpy.getMethodIDSize());
+				fOut.writeInt(TcpipSpy.getObjectIDSize());
+				fOut.writeInt(TcpipSpy.getReferenceTypeIDSize());
+				fOut.writeInt(TcpipSpy.getFrameIDSize());
+				fHasSizes = true;
+			}
+			fOut.flush();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			fOut.close();
+		}
+	}
+
+	private final List<Record> fRecords;
+	private final int[] fIDSizes;
+
+	private JdwpRecording(List<Record> records, int[] idSizes) {
+		fRecords = Collections.unmodifiableList(records);
+		fIDSizes = idSizes;
+	}
+
+	/**
+	 * Reads the given capture.
+	 */
+	public static JdwpRecording read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(MessageFormat.format("{0} is not a JDWP capture", new Object[] { file.getAbsolutePath() })); //$NON-NLS-1$
+			}
+			short version = in.readShort();
+			if (version != VERSION) {
+				throw new IOException(MessageFormat.format("Unsupported capture version {0}", new Object[] { Short.valueOf(version) })); //$NON-NLS-1$
+			}
+			List<Record> records = new ArrayList<>();
+			int[] idSizes = null;
+			while (true) {
+				int kind = in.read();
+				if (kind == -1) {
+					break;
+				}
+				try {
+					long time = in.readLong();
+					if (kind == KIND_PACKET) {
+						boolean fromVM = in.readBoolean();
+						records.add(new Record(time, fromVM, JdwpPacket.read(in)));
+					} else if (kind == KIND_ID_SIZES) {
+						idSizes = new int[5];
+						for (int i = 0; i < idSizes.length; i++) {
+							idSizes[i] = in.readInt();
+						}
+					} else {
+						throw new IOException(MessageFormat.format("Unknown record kind {0}", new Object[] { Integer.valueOf(kind) })); //$NON-NLS-1$
+					}
+				} catch (EOFException e) {
+					// the recorded session was killed while writing the last record
+					break;
+				}
+			}
+			return new JdwpRecording(records, idSizes);
+		}
+	}
+
+	/**
+	 * @return Returns the recorded packets in the order they were sent.
+	 */
+	public List<Record> getRecords() {
+		return fRecords;
+	}
+
+	/**
+	 * @return Returns whether the ID sizes of the VM have been recorded.
+	 */
+	public boolean hasSizes() {
+		return fIDSizes != null;
+	}
+
+	/**
+	 * Makes the recorded ID sizes known to {@link TcpipSpy}, which is required
+	 * to decode the packets.
+	 */
+	public void applySizes() {
+		if (fIDSizes != null) {
+			TcpipSpy.setFieldIDSize(fIDSizes[0]);
+			TcpipSpy.setMethodIDSize(fIDSizes[1]);
+			TcpipSpy.setObjectIDSize(fIDSizes[2]);
+			TcpipSpy.setReferenceTypeIDSize(fIDSizes[3]);
+			TcpipSpy.setFrameIDSize(fIDSizes[4]);
+			TcpipSpy.setHasSizes(true);
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.out.println("usage: JdwpRecording <capture file>"); //$NON-NLS-1$
+			System.exit(-1);
+		}
+		VerbosePacketStream out = new VerbosePacketStream(new BufferedOutputStream(System.out));
+		try {
+			JdwpRecording recording = read(new File(args[0]));
+			recording.applySizes();
+			for (Record record : recording.getRecords()) {
+				JdwpPacket packet = record.getPacket();
+				if (!(record.isFromVM() && (packet.getFlags() & JdwpPacket.FLAG_REPLY_PACKET) == 0)) {
+					TcpipSpy.store(packet);
+				}
+				out.println(MessageFormat.format("{0} us", new Object[] { Long.valueOf(record.getTime() / 1000) })); //$NON-NLS-1$
+				out.print(packet, record.isFromVM());
+			}
+		} catch (IOException e) {
+			out.println(e);
+		}
+		out.flush();
+	}
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdi.internal.spy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdi.internal.spy.JdwpRecording.Record;
+
+/**
+ * Stand-in for a VM that answers the commands of a debugger from a capture
+ * written by {@link TcpipSpy}.
+ * <p>
+ * A command is answered with the reply recorded for the same command and
+ * payload, with the id of the incoming command. Identical commands are answered
+ * in the order they were recorded, the last reply is repeated once all have
+ * been used. The VM events that were recorded after a reply are sent after
+ * replaying it, the events recorded before the first command are sent after the
+ * handshake. Commands that have not been recorded are answered with
+ * <code>NOT_IMPLEMENTED</code>.
+ * </p>
+ * <p>
+ * By default replies are sent immediately, which makes the replay suitable to
+ * benchmark the debugger deterministically. When the recorded latency is
+ * enabled, every reply is delayed by the time the VM took to send it.
+ * </p>
+ */
+public class JdwpReplayServer extends Thread {
+
+	private static final byte[] handshakeBytes = "JDWP-Handshake".getBytes(); //$NON-NLS-1$
+
+	/**
+	 * A recorded command with its reply and the events that followed.
+	 */
+	private static class Exchange {
+		final JdwpReplyPacket fReply;
+		final long fLatency;
+		final List<JdwpPacket> fEvents = new ArrayList<>();
+
+		Exchange(JdwpReplyPacket reply, long latency) {
+			fReply = reply;
+			fLatency = latency;
+		}
+	}
+
+	/**
+	 * Command and payload of a recorded command.
+	 */
+	private static final class Key {
+		final int fCommand;
+		final byte[] fData;
+		final int fHashCode;
+
+		Key(JdwpCommandPacket command) {
+			fCommand = command.getCommand();
+			fData = command.data() == null ? new byte[0] : command.data();
+			fHashCode = 31 * fCommand + Arrays.hashCode(fData);
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return fCommand == other.fCommand && Arrays.equals(fData, other.fData);
+		}
+	}
+
+	private final ServerSocket fServerSocket;
+	private final Map<Key, Deque<Exchange>> fExchanges = new HashMap<>();
+	private final List<JdwpPacket> fInitialEvents = new ArrayList<>();
+	private boolean fRecordedLatency;
+	private int fUnmatched;
+
+	/**
+	 * Creates a server for the given capture, listening on the given port of
+	 * the loopback address. The server is not started.
+	 *
+	 * @param recording
+	 *            the capture to replay
+	 * @param port
+	 *            the port, or 0 for any free port
+	 */
+	public JdwpReplayServer(JdwpRecording recording, int port) throws IOException {
+		super("JDWP replay server"); //$NON-NLS-1$
+		setDaemon(true);
+		index(recording);
+		fServerSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Indexes the recorded replies by their command.
+	 */
+	private void index(JdwpRecording recording) {
+		Map<Integer, Record> commands = new HashMap<>();
+		List<JdwpPacket> events = fInitialEvents;
+		for (Record record : recording.getRecords()) {
+			JdwpPacket packet = record.getPacket();
+			if (!record.isFromVM()) {
+				if (packet instanceof JdwpCommandPacket) {
+					commands.put(Integer.valueOf(packet.getId()), record);
+				}
+			} else if (packet instanceof JdwpReplyPacket) {
+				Record command = commands.remove(Integer.valueOf(packet.getId()));
+				if (command != null) {
+					Exchange exchange = new Exchange((JdwpReplyPacket) packet, record.getTime() - command.getTime());
+					fExchanges.computeIfAbsent(new Key((JdwpCommandPacket) command.getPacket()), k -> new ArrayDeque<>()).add(exchange);
+					events = exchange.fEvents;
+				}
+			} else {
+				events.add(packet);
+			}
+		}
+	}
+
+	/**
+	 * Sets whether replies are delayed by the latency of the recorded session.
+	 */
+	public void setRecordedLatency(boolean recordedLatency) {
+		fRecordedLatency = recordedLatency;
+	}
+
+	/**
+	 * @return Returns the port the server listens on.
+	 */
+	public int getPort() {
+		return fServerSocket.getLocalPort();
+	}
+
+	/**
+	 * @return Returns the number of commands that had no recorded reply.
+	 */
+	public synchronized int getUnmatchedCount() {
+		return fUnmatched;
+	}
+
+	/**
+	 * Stops the server and closes the connection to the debugger.
+	 */
+	public void close() throws IOException {
+		fServerSocket.close();
+	}
+
+	/**
+	 * Accepts a single debugger connection and answers its commands until it
+	 * disconnects or disposes the VM.
+	 */
+	@Override
+	public void run() {
+		try (ServerSocket serverSocket = fServerSocket; Socket socket = serverSocket.accept()) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			byte[] handshake = new byte[handshakeBytes.length];
+			in.readFully(handshake);
+			out.write(handshakeBytes);
+			write(out, fInitialEvents);
+			while (true) {
+				JdwpPacket packet = JdwpPacket.read(in);
+				if (!(packet instanceof JdwpCommandPacket)) {
+					continue;
+				}
+				JdwpCommandPacket command = (JdwpCommandPacket) packet;
+				Exchange exchange = next(new Key(command));
+				JdwpReplyPacket reply = new JdwpReplyPacket();
+				reply.setId(command.getId());
+				reply.setFlags(JdwpPacket.FLAG_REPLY_PACKET);
+				if (exchange == null) {
+					reply.setErrorCode(JdwpReplyPacket.NOT_IMPLEMENTED);
+				} else {
+					if (fRecordedLatency) {
+						sleep(exchange.fLatency / 1000000, (int) (exchange.fLatency % 1000000));
+					}
+					reply.setErrorCode(exchange.fReply.errorCode());
+					reply.setData(exchange.fReply.data());
+				}
+				reply.write(out);
+				if (exchange != null) {
+					write(out, exchange.fEvents);
+				}
+				out.flush();
+				if (command.getCommand() == JdwpCommandPacket.VM_DISPOSE || command.getCommand() == JdwpCommandPacket.VM_EXIT) {
+					break;
+				}
+			}
+		} catch (EOFException e) {
+		} catch (SocketException e) {
+		} catch (InterruptedException e) {
+		} catch (IOException e) {
+			System.out.println(MessageFormat.format("Caught exception: {0}", new Object[] { e.toString() })); //$NON-NLS-1$
+		}
+	}
+
+	private synchronized Exchange next(Key key) {
+		Deque<Exchange> exchanges = fExchanges.get(key);
+		if (exchanges == null) {
+			fUnmatched++;
+			return null;
+		}
+		return exchanges.size() > 1 ? exchanges.poll() : exchanges.peek();
+	}
+
+	private void write(DataOutputStream out, List<JdwpPacket> packets) throws IOException {
+		for (JdwpPacket packet : packets) {
+			packet.write(out);
+		}
+		out.flush();
+	}
+
+	public static void main(String[] args) {
+		File file = null;
+		int port = 0;
+		boolean latency = false;
+		try {
+			int i = 0;
+			if (args[i].equals("-latency")) { //$NON-NLS-1$
+				latency = true;
+				i++;
+			}
+			file = new File(args[i++]);
+			port = Integer.parseInt(args[i]);
+		} catch (Exception e) {
+			System.out.println("usage: JdwpReplayServer [-latency] <capture file> <port>"); //$NON-NLS-1$
+			System.exit(-1);
+		}
+		try {
+			JdwpReplayServer server = new JdwpReplayServer(JdwpRecording.read(file), port);
+			server.setRecordedLatency(latency);
+			System.out.println(MessageFormat.format("Replaying {0} on port {1}", new Object[] { file.getAbsolutePath(), //$NON-NLS-1$
+					Integer.toString(server.getPort()) }));
+			server.start();
+			server.join();
+			System.out.println(MessageFormat.format("{0} commands were not recorded", new Object[] { //$NON-NLS-1$
+					Integer.valueOf(server.getUnmatchedCount()) }));
+		} catch (IOException e) {
+			System.out.println(e);
+		} catch (InterruptedException e) {
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -39,7 +39,10 @@ import java.util.Map;
  * parameters are: 1) The port number to which the debugger application
  * connects; 2) The name of the host on which the VM or proxy waits for a JDWP
  * connection; 3) The port number on which the VM or proxy waits for a JDWP
- * connection; 4) The file where the trace is written to.
+ * connection; 4) The file where the trace is written to. With the option
+ * <code>-record &lt;capture file&gt;</code> all packets are additionally
+ * recorded to a binary capture, see {@link JdwpRecording} and
+ * {@link JdwpReplayServer}.
  *
  * Note that if this program is used for tracing JDWP activity of Leapfrog, the
  * 'debug remote program' option must be used, and the J9 proxy must first be
@@ -52,9 +55,11 @@ public class TcpipSpy extends Thread {
 	private boolean fVMtoDebugger;
 	private DataInputStream fDataIn;
 	private DataOutputStream fDataOut;
+	private Socket[] fSockets;
 
 	private static VerbosePacketStream out = new VerbosePacketStream(System.out);
 	private static Map<Integer, JdwpConversation> fPackets = new HashMap<>();
+	private static JdwpRecording.Recorder fRecorder;
 
 	private static int fFieldIDSize;
 	private static int fMethodIDSize;
@@ -70,20 +75,36 @@ public class TcpipSpy extends Thread {
 		fHasSizes = false;
 	}
 
+	/**
+	 * Creates a spy forwarding the packets read from one socket to the other.
+	 * Both sockets are closed when it ends, which also ends the spy of the
+	 * other direction.
+	 */
+	public TcpipSpy(boolean VMtoDebugger, Socket in, Socket out) throws IOException {
+		this(VMtoDebugger, in.getInputStream(), out.getOutputStream());
+		fSockets = new Socket[] { in, out };
+	}
+
 	public static void main(String[] args) {
 		int inPort = 0;
 		String serverHost = null;
 		int outPort = 0;
 		String outputFile = null;
+		String captureFile = null;
 		try {
-			inPort = Integer.parseInt(args[0]);
-			serverHost = args[1];
-			outPort = Integer.parseInt(args[2]);
-			if (args.length > 3) {
-				outputFile = args[3];
+			int i = 0;
+			if (args[i].equals("-record")) { //$NON-NLS-1$
+				captureFile = args[i + 1];
+				i += 2;
+			}
+			inPort = Integer.parseInt(args[i++]);
+			serverHost = args[i++];
+			outPort = Integer.parseInt(args[i++]);
+			if (args.length > i) {
+				outputFile = args[i];
 			}
 		} catch (Exception e) {
-			out.println("usage: TcpipSpy <client port> <server host> <server port> [<output file>]"); //$NON-NLS-1$
+			out.println("usage: TcpipSpy [-record <capture file>] <client port> <server host> <server port> [<output file>]"); //$NON-NLS-1$
 			System.exit(-1);
 		}
 
@@ -99,17 +120,38 @@ public class TcpipSpy extends Thread {
 						.format("Could not open {0}.  Using stdout instead", new Object[] { file.getAbsolutePath() })); //$NON-NLS-1$
 			}
 		}
+		if (captureFile != null) {
+			File file = new File(captureFile);
+			out.println(MessageFormat
+					.format("Recording packets to {0}", new Object[] { file.getAbsolutePath() })); //$NON-NLS-1$
+			try {
+				fRecorder = new JdwpRecording.Recorder(file);
+			} catch (IOException e) {
+				out.println(MessageFormat
+						.format("Could not open {0}.  Packets are not recorded", new Object[] { file.getAbsolutePath() })); //$NON-NLS-1$
+			}
+		}
 		out.println();
 		try (ServerSocket serverSock = new ServerSocket(inPort);
 			Socket inSock = serverSock.accept();
 			Socket outSock = new Socket(InetAddress.getByName(serverHost),
 					outPort);){
-			new TcpipSpy(false, inSock.getInputStream(),
-					outSock.getOutputStream()).start();
-			new TcpipSpy(true, outSock.getInputStream(),
-					inSock.getOutputStream()).start();
+			TcpipSpy toVM = new TcpipSpy(false, inSock, outSock);
+			TcpipSpy toDebugger = new TcpipSpy(true, outSock, inSock);
+			toVM.start();
+			toDebugger.start();
+			// the session ends when either side disconnects
+			toVM.join();
+			toDebugger.join();
 		} catch (Exception e) {
 			out.println(e);
+		} finally {
+			if (fRecorder != null) {
+				try {
+					fRecorder.close();
+				} catch (IOException e) {
+				}
+			}
 		}
 	}
 
@@ -122,6 +164,9 @@ public class TcpipSpy extends Thread {
 			handshakeLength = handshakeBytes.length;
 			while (handshakeLength-- > 0) {
 				int b = fDataIn.read();
+				if (b == -1) {
+					throw new EOFException();
+				}
 				fDataOut.write(b);
 			}
 			fDataOut.flush();
@@ -135,8 +180,16 @@ public class TcpipSpy extends Thread {
 				if (!(fVMtoDebugger && (p.getFlags() & JdwpPacket.FLAG_REPLY_PACKET) == 0)) {
 					store(p);
 				}
-				out.print(p, fVMtoDebugger);
+				try {
+					out.print(p, fVMtoDebugger);
+				} catch (RuntimeException e) {
+					// a packet that cannot be printed must still be forwarded
+					e.printStackTrace(out);
+				}
 				out.flush();
+				if (fRecorder != null) {
+					fRecorder.record(p, fVMtoDebugger);
+				}
 				p.write(fDataOut);
 				fDataOut.flush();
 			}
@@ -149,9 +202,21 @@ public class TcpipSpy extends Thread {
 		} finally {
 			try {
 				fDataIn.close();
+			} catch (IOException e) {
+			}
+			try {
 				fDataOut.close();
 			} catch (IOException e) {
 			}
+			if (fSockets != null) {
+				// unblock the spy of the other direction
+				for (Socket socket : fSockets) {
+					try {
+						socket.close();
+					} catch (IOException e) {
+					}
+				}
+			}
 			out.flush();
 		}
 	}
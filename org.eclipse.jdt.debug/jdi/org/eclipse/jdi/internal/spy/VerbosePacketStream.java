@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -1761,12 +1761,12 @@ public class VerbosePacketStream extends PrintStream {
 		for (int i = 0; i < methodsCount; i++) {
 			long methodId = readMethodID(in);
 			String name = readString(in);
+			String signature = readString(in);
 			String genericSignature = readString(in);
 			int modifiers = in.readInt();
 			printlnMethodId("Method id:", methodId); //$NON-NLS-1$
 			println("Name:", name); //$NON-NLS-1$
-			// println(TcpIpSpyMessages.VerbosePacketStream_Signature__106,
-			// signature);
+			println("Signature:", signature); //$NON-NLS-1$
 			println("Generic signature:", genericSignature); //$NON-NLS-1$
 			printMethodModifiers(modifiers);
 		}
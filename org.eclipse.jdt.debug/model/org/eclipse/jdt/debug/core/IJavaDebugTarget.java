@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ package org.eclipse.jdt.debug.core;
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.model.IDebugTarget;
 import org.eclipse.debug.core.model.IStepFilters;
+import org.eclipse.jdi.JdwpMetrics;
 
 /**
  * A Java virtual machine.
@@ -402,6 +403,39 @@ public interface IJavaDebugTarget extends IDebugTarget, IStepFilters {
 	 */
 	public boolean supportsMonitorInformation();
 
+	/**
+	 * Returns the owned and contended monitors of all suspended threads of
+	 * this target, retrieved at once. The monitor information of all threads
+	 * is requested before waiting for the replies, and deadlocks between the
+	 * threads are computed in linear time.
+	 *
+	 * @return the monitor information of the suspended threads
+	 * @exception DebugException
+	 *                if this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>Failure communicating with the VM. The
+	 *                DebugException's status code contains the underlying
+	 *                exception responsible for the failure.</li>
+	 *                <li>This target does not support monitor information,
+	 *                see {@link #supportsMonitorInformation()}</li>
+	 *                </ul>
+	 * @since 3.16
+	 */
+	public IJavaMonitorSnapshot getMonitorSnapshot() throws DebugException;
+
+	/**
+	 * Returns a snapshot of the JDWP traffic between the debugger and the VM
+	 * of this target: the number of commands sent, the bytes sent and received
+	 * and the latency histogram per command, the timeouts and the number of
+	 * commands in flight. Once this target has terminated or disconnected, the
+	 * traffic of the whole session is returned.
+	 *
+	 * @return the JDWP traffic of this target, or <code>null</code> if the
+	 *         underlying JDI implementation does not count it
+	 * @since 3.16
+	 */
+	public JdwpMetrics getJdwpMetrics();
+
 	/**
 	 * Returns whether this target supports access watchpoints.
 	 *
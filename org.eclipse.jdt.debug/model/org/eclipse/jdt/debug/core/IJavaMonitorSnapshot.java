@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.core;
+
+/**
+ * The owned and contended monitors of all suspended threads of a debug target,
+ * retrieved at one point in time, together with the deadlocks between these
+ * threads.
+ * <p>
+ * A thread is in a deadlock if it waits for a monitor owned by a thread that
+ * (directly or indirectly) waits for a monitor owned by the first thread, or
+ * if it waits for a monitor owned by a thread in a deadlock. A monitor is in a
+ * deadlock if it is contended by a thread in a deadlock.
+ * </p>
+ * <p>
+ * A snapshot is not updated when threads resume or suspend, a new snapshot
+ * has to be retrieved from the debug target instead.
+ * </p>
+ *
+ * @see IJavaDebugTarget#getMonitorSnapshot()
+ * @since 3.16
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ */
+public interface IJavaMonitorSnapshot {
+
+	/**
+	 * Returns the threads contained in this snapshot, which are the threads
+	 * that were suspended when the snapshot was taken.
+	 *
+	 * @return the threads of this snapshot
+	 */
+	public IJavaThread[] getThreads();
+
+	/**
+	 * Returns whether this snapshot contains the monitor information of the
+	 * given thread.
+	 *
+	 * @param thread
+	 *            a thread
+	 * @return whether the given thread is contained in this snapshot
+	 */
+	public boolean contains(IJavaThread thread);
+
+	/**
+	 * Returns the monitors owned by the given thread, an empty array if the
+	 * thread owns no monitor or is not contained in this snapshot.
+	 *
+	 * @param thread
+	 *            a thread
+	 * @return the monitors owned by the thread
+	 */
+	public IJavaObject[] getOwnedMonitors(IJavaThread thread);
+
+	/**
+	 * Returns the monitor the given thread is waiting for, or
+	 * <code>null</code> if it is not waiting for a monitor or is not contained
+	 * in this snapshot.
+	 *
+	 * @param thread
+	 *            a thread
+	 * @return the monitor the thread is waiting for or <code>null</code>
+	 */
+	public IJavaObject getContendedMonitor(IJavaThread thread);
+
+	/**
+	 * Returns the thread owning the given monitor, or <code>null</code> if the
+	 * monitor is not owned by any thread of this snapshot.
+	 *
+	 * @param monitor
+	 *            a monitor
+	 * @return the owning thread or <code>null</code>
+	 */
+	public IJavaThread getOwningThread(IJavaObject monitor);
+
+	/**
+	 * Returns the deadlocks of this snapshot. Each deadlock is a cycle of
+	 * threads where every thread waits for a monitor owned by the next thread
+	 * and the last thread waits for a monitor owned by the first thread.
+	 *
+	 * @return the deadlock cycles, an empty array if there is no deadlock
+	 */
+	public IJavaThread[][] getDeadlocks();
+
+	/**
+	 * Returns whether the given thread is in a deadlock.
+	 *
+	 * @param thread
+	 *            a thread
+	 * @return whether the thread is in a deadlock
+	 */
+	public boolean isInDeadlock(IJavaThread thread);
+
+	/**
+	 * Returns whether the given monitor is in a deadlock.
+	 *
+	 * @param monitor
+	 *            a monitor
+	 * @return whether the monitor is in a deadlock
+	 */
+	public boolean isInDeadlock(IJavaObject monitor);
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.core;
+
+/**
+ * The values of the expressions of a tracepoint, recorded when a thread
+ * executed its line.
+ *
+ * @see IJavaTracepointListener
+ * @since 3.16
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface IJavaTraceRecord {
+
+	/**
+	 * @return Returns the tracepoint which recorded this record.
+	 */
+	public IJavaTracepoint getTracepoint();
+
+	/**
+	 * @return Returns the time the record was recorded at, in milliseconds
+	 *         since January 1, 1970 UTC, by the clock of the target.
+	 */
+	public long getTime();
+
+	/**
+	 * @return Returns the id of the thread, as returned by
+	 *         <code>Thread.getId()</code> in the target.
+	 */
+	public long getThreadId();
+
+	/**
+	 * Returns the values of the expressions of the tracepoint, in the order
+	 * of {@link IJavaTracepoint#getTraceExpressions()}. Objects are returned as
+	 * the result of their <code>toString()</code> method and long strings are
+	 * truncated. Values which were not available at the line are returned as
+	 * <code>null</code>, the array is shorter than the expressions if the
+	 * values did not fit into the record.
+	 *
+	 * @return the values of the expressions
+	 */
+	public String[] getValues();
+}
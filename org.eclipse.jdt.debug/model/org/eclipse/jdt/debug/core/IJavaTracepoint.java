@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.core;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * A line breakpoint which records the values of expressions each time the line
+ * is executed, without suspending the thread. The line is instrumented by the
+ * javaagent of the launching plug-in, which has to be enabled in the target,
+ * and the records are drained from the target periodically and passed to the
+ * registered {@link IJavaTracepointListener}s.
+ * <p>
+ * An expression is the name of a local variable visible at the line,
+ * <code>this</code> or the name of a field declared by the type of the line.
+ * Objects are recorded as the result of their <code>toString()</code> method.
+ * Types in named modules are not supported.
+ * </p>
+ *
+ * @see JDIDebugModel#createTracepoint(org.eclipse.core.resources.IResource,
+ *      String, int, int, int, String[], boolean, java.util.Map)
+ * @see JDIDebugModel#PREF_TRACEPOINT_DRAIN_INTERVAL
+ * @since 3.16
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ */
+public interface IJavaTracepoint extends IJavaLineBreakpoint {
+
+	/**
+	 * Returns the expressions whose values are recorded.
+	 *
+	 * @return the expressions of this tracepoint
+	 * @exception CoreException
+	 *                if unable to access the property on this tracepoint's
+	 *                underlying marker
+	 */
+	public String[] getTraceExpressions() throws CoreException;
+
+	/**
+	 * Sets the expressions whose values are recorded.
+	 *
+	 * @param expressions
+	 *            the expressions of this tracepoint
+	 * @exception CoreException
+	 *                if unable to set the property on this tracepoint's
+	 *                underlying marker
+	 */
+	public void setTraceExpressions(String[] expressions) throws CoreException;
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.debug.core;
+
+/**
+ * Receives the records of tracepoints.
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ *
+ * @see JDIDebugModel#addTracepointListener(IJavaTracepointListener)
+ * @since 3.16
+ */
+public interface IJavaTracepointListener {
+
+	/**
+	 * Notification that records were drained from the given target. Called
+	 * from a background job, the records are in the order they were recorded.
+	 *
+	 * @param target
+	 *            the target the records were recorded in
+	 * @param records
+	 *            the records
+	 */
+	public void traced(IJavaDebugTarget target, IJavaTraceRecord[] records);
+
+	/**
+	 * Notification that records were lost, because the target recorded them
+	 * faster than they were drained.
+	 *
+	 * @param target
+	 *            the target the records were recorded in
+	 * @param count
+	 *            the number of records lost
+	 */
+	public void tracesDropped(IJavaDebugTarget target, long count);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,6 +41,7 @@ import org.eclipse.jdt.internal.debug.core.breakpoints.JavaMethodEntryBreakpoint
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaPatternBreakpoint;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaStratumLineBreakpoint;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaTargetPatternBreakpoint;
+import org.eclipse.jdt.internal.debug.core.breakpoints.JavaTracepoint;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaWatchpoint;
 import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 import org.osgi.service.prefs.BackingStoreException;
@@ -143,6 +144,41 @@ public class JDIDebugModel {
 	 */
 	public static final String PREF_SUSPEND_ON_RECURRENCE_STRATEGY = getPluginIdentifier() + ".PREF_SUSPEND_ON_RECURRENCE_STRATEGY"; //$NON-NLS-1$
 
+	/**
+	 * Preference key for the interval in milliseconds at which the records of
+	 * tracepoints are drained from a target.
+	 *
+	 * @see IJavaTracepoint
+	 * @since 3.16
+	 */
+	public static final String PREF_TRACEPOINT_DRAIN_INTERVAL = getPluginIdentifier() + ".PREF_TRACEPOINT_DRAIN_INTERVAL"; //$NON-NLS-1$
+
+	/**
+	 * The default value for {@link #PREF_TRACEPOINT_DRAIN_INTERVAL} when no
+	 * preference is set.
+	 *
+	 * @since 3.16
+	 */
+	public static final int DEF_TRACEPOINT_DRAIN_INTERVAL = 100;
+
+	/**
+	 * Preference key for whether the line number and local variable tables of
+	 * types are read from the class files in the workspace when they match the
+	 * loaded types, instead of being requested from the target.
+	 *
+	 * @since 3.16
+	 */
+	public static final String PREF_USE_LOCAL_CLASS_FILES = getPluginIdentifier() + ".PREF_USE_LOCAL_CLASS_FILES"; //$NON-NLS-1$
+
+	/**
+	 * Preference key for whether the line number and local variable tables of
+	 * types are kept on disk across debug sessions, and served to later
+	 * sessions when the loaded types match.
+	 *
+	 * @since 3.16
+	 */
+	public static final String PREF_CACHE_TYPE_METADATA = getPluginIdentifier() + ".PREF_CACHE_TYPE_METADATA"; //$NON-NLS-1$
+
 	/**
 	 * Not to be instantiated.
 	 */
@@ -315,6 +351,32 @@ public class JDIDebugModel {
 		JDIDebugPlugin.getDefault().removeJavaBreakpointListener(listener);
 	}
 
+	/**
+	 * Registers the given listener for the records of tracepoints. Has no
+	 * effect if an identical listener is already registered.
+	 *
+	 * @param listener
+	 *            tracepoint listener
+	 * @see IJavaTracepointListener
+	 * @since 3.16
+	 */
+	public static void addTracepointListener(IJavaTracepointListener listener) {
+		JDIDebugPlugin.getDefault().addTracepointListener(listener);
+	}
+
+	/**
+	 * Unregisters the given listener for the records of tracepoints. Has no
+	 * effect if an identical listener is not already registered.
+	 *
+	 * @param listener
+	 *            tracepoint listener
+	 * @see IJavaTracepointListener
+	 * @since 3.16
+	 */
+	public static void removeTracepointListener(IJavaTracepointListener listener) {
+		JDIDebugPlugin.getDefault().removeTracepointListener(listener);
+	}
+
 	/**
 	 * Creates and returns a line breakpoint in the type with the given name, at
 	 * the given line number. The marker associated with the breakpoint will be
@@ -377,6 +439,61 @@ public class JDIDebugModel {
 				charStart, charEnd, hitCount, register, attributes);
 	}
 
+	/**
+	 * Creates and returns a tracepoint in the type with the given name, at the
+	 * given line number, which records the values of the given expressions
+	 * without suspending execution. The marker associated with the tracepoint
+	 * will be created on the specified resource.
+	 *
+	 * @param resource
+	 *            the resource on which to create the associated breakpoint
+	 *            marker
+	 * @param typeName
+	 *            the fully qualified name of the type the tracepoint is to be
+	 *            installed in, see
+	 *            {@link #createLineBreakpoint(IResource, String, int, int, int, int, boolean, Map)}
+	 * @param lineNumber
+	 *            the lineNumber on which the tracepoint is set - line numbers
+	 *            are 1 based, associated with the source file in which the
+	 *            tracepoint is set
+	 * @param charStart
+	 *            the first character index associated with the tracepoint, or
+	 *            -1 if unspecified, in the source file in which the tracepoint
+	 *            is set
+	 * @param charEnd
+	 *            the last character index associated with the tracepoint, or
+	 *            -1 if unspecified, in the source file in which the tracepoint
+	 *            is set
+	 * @param expressions
+	 *            the expressions whose values are recorded, see
+	 *            {@link IJavaTracepoint}
+	 * @param register
+	 *            whether to add this tracepoint to the breakpoint manager
+	 * @param attributes
+	 *            a map of client defined attributes that should be assigned to
+	 *            the underlying breakpoint marker on creation, or
+	 *            <code>null</code> if none.
+	 * @return a tracepoint
+	 * @exception CoreException
+	 *                If this method fails. Reasons include:
+	 *                <ul>
+	 *                <li>Failure creating underlying marker. The exception's
+	 *                status contains the underlying exception responsible for
+	 *                the failure.</li>
+	 *                </ul>
+	 * @since 3.16
+	 */
+	public static IJavaTracepoint createTracepoint(IResource resource,
+			String typeName, int lineNumber, int charStart, int charEnd,
+			String[] expressions, boolean register, Map<String, Object> attributes)
+			throws CoreException {
+		if (attributes == null) {
+			attributes = new HashMap<>(10);
+		}
+		return new JavaTracepoint(resource, typeName, lineNumber, charStart,
+				charEnd, expressions, register, attributes);
+	}
+
 	/**
 	 * Creates and returns a pattern breakpoint for the given resource at the
 	 * given line number, which is installed in all classes whose fully
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -40,6 +40,8 @@ import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaHotCodeReplaceListener;
 import org.eclipse.jdt.debug.core.IJavaLineBreakpoint;
 import org.eclipse.jdt.debug.core.IJavaThread;
+import org.eclipse.jdt.debug.core.IJavaTraceRecord;
+import org.eclipse.jdt.debug.core.IJavaTracepointListener;
 import org.eclipse.jdt.debug.core.IJavaType;
 import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.jdt.debug.eval.IAstEvaluationEngine;
@@ -151,6 +153,11 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 	 */
 	private ListenerList<IJavaBreakpointListener> fBreakpointListeners = null;
 
+	/**
+	 * Tracepoint listener list.
+	 */
+	private ListenerList<IJavaTracepointListener> fTracepointListeners = null;
+
 	/**
 	 * Breakpoint notification types
 	 */
@@ -320,6 +327,7 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 				});
 		JavaHotCodeReplaceManager.getDefault().startup();
 		fBreakpointListeners = new ListenerList<>();
+		fTracepointListeners = new ListenerList<>();
 		fJavaBreakpointManager = new BreakpointListenerManager();
 		IEclipsePreferences node = InstanceScope.INSTANCE.getNode(getUniqueIdentifier());
 		if(node != null) {
@@ -369,6 +377,7 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 				}
 			}
 			fBreakpointListeners = null;
+			fTracepointListeners = null;
 			ResourcesPlugin.getWorkspace().removeSaveParticipant(getUniqueIdentifier());
 		} finally {
 			fgPlugin = null;
@@ -465,6 +474,72 @@ public class JDIDebugPlugin extends Plugin implements IEclipsePreferences.IPrefe
 		fBreakpointListeners.remove(listener);
 	}
 
+	/**
+	 * Adds the given tracepoint listener to the JDI debug model.
+	 *
+	 * @param listener
+	 *            tracepoint listener
+	 */
+	public void addTracepointListener(IJavaTracepointListener listener) {
+		fTracepointListeners.add(listener);
+	}
+
+	/**
+	 * Removes the given tracepoint listener from the JDI debug model.
+	 *
+	 * @param listener
+	 *            tracepoint listener
+	 */
+	public void removeTracepointListener(IJavaTracepointListener listener) {
+		fTracepointListeners.remove(listener);
+	}
+
+	/**
+	 * Returns whether tracepoint listeners are registered, records do not need
+	 * to be decoded otherwise.
+	 *
+	 * @return whether tracepoint listeners are registered
+	 */
+	public boolean hasTracepointListeners() {
+		ListenerList<IJavaTracepointListener> listeners = fTracepointListeners;
+		return listeners != null && !listeners.isEmpty();
+	}
+
+	/**
+	 * Notifies listeners of the records drained from the given target.
+	 *
+	 * @param target
+	 *            Java debug target
+	 * @param records
+	 *            the records
+	 * @param dropped
+	 *            the number of records lost since the last notification
+	 */
+	public void fireTraced(final IJavaDebugTarget target, final IJavaTraceRecord[] records, final long dropped) {
+		ListenerList<IJavaTracepointListener> listeners = fTracepointListeners;
+		if (listeners == null) {
+			return;
+		}
+		for (final IJavaTracepointListener listener : listeners) {
+			SafeRunner.run(new ISafeRunnable() {
+				@Override
+				public void run() throws Exception {
+					if (dropped > 0) {
+						listener.tracesDropped(target, dropped);
+					}
+					if (records.length > 0) {
+						listener.traced(target, records);
+					}
+				}
+
+				@Override
+				public void handleException(Throwable exception) {
+					log(exception);
+				}
+			});
+		}
+	}
+
 	/**
 	 * Notifies listeners that the given breakpoint is about to be added.
 	 *
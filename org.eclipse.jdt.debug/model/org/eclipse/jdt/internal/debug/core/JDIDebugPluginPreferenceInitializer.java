@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2018 IBM Corporation and others.
+ * Copyright (c) 2004, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -49,6 +49,9 @@ public class JDIDebugPluginPreferenceInitializer extends
 		node.putBoolean(JDIDebugModel.PREF_SHOW_STEP_RESULT, true);
 		node.putBoolean(JDIDebugModel.PREF_SHOW_STEP_RESULT_REMOTE, false);
 		node.putInt(JDIDebugModel.PREF_SHOW_STEP_TIMEOUT, JDIDebugModel.DEF_SHOW_STEP_TIMEOUT);
+		node.putInt(JDIDebugModel.PREF_TRACEPOINT_DRAIN_INTERVAL, JDIDebugModel.DEF_TRACEPOINT_DRAIN_INTERVAL);
+		node.putBoolean(JDIDebugModel.PREF_USE_LOCAL_CLASS_FILES, true);
+		node.putBoolean(JDIDebugModel.PREF_CACHE_TYPE_METADATA, true);
 		node.putBoolean(JDIDebugPlugin.PREF_ENABLE_ADVANCED_SOURCELOOKUP, true);
 	}
 }
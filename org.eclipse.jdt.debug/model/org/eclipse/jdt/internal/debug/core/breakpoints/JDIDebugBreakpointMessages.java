@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -52,6 +52,9 @@ public class JDIDebugBreakpointMessages extends NLS {
 	public static String JavaClassPrepareBreakpoint_2;
 	public static String JavaClassPrepareBreakpoint_3;
 
+	public static String TracepointManager_0;
+	public static String TracepointManager_1;
+
 	static {
 		// load message values from bundle file
 		NLS.initializeMessages(BUNDLE_NAME, JDIDebugBreakpointMessages.class);
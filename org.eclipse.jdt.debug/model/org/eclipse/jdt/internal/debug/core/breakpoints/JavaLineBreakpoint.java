@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -224,6 +224,11 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	 * threads in the given target.
 	 */
 	protected void clearCachedExpressionFor(JDIDebugTarget target) {
+		for (Map.Entry<IJavaThread, ICompiledExpression> entry : fCompiledExpressions.entrySet()) {
+			if (entry.getKey().getDebugTarget() == target) {
+				target.getStringLiteralCache().release(entry.getValue());
+			}
+		}
 		removeCachedThreads(fCompiledExpressions, target);
 
 		// clean up cached projects for stack frames
@@ -533,6 +538,9 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	@Override
 	public void setCondition(String condition) throws CoreException {
 		// Clear the cached compiled expressions
+		for (Map.Entry<IJavaThread, ICompiledExpression> entry : fCompiledExpressions.entrySet()) {
+			releaseExpression(entry.getKey(), entry.getValue());
+		}
 		fCompiledExpressions.clear();
 		fConditionValues.clear();
 		fSuspendEvents.clear();
@@ -596,7 +604,7 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	@Override
 	protected void cleanupForThreadTermination(JDIThread thread) {
 		fSuspendEvents.remove(thread);
-		fCompiledExpressions.remove(thread);
+		releaseExpression(thread, fCompiledExpressions.remove(thread));
 		super.cleanupForThreadTermination(thread);
 	}
 
@@ -666,7 +674,31 @@ public class JavaLineBreakpoint extends JavaBreakpoint implements
 	 */
 	protected void setExpression(IJavaThread thread,
 			ICompiledExpression expression) {
-		fCompiledExpressions.put(thread, expression);
+		IDebugTarget target = thread.getDebugTarget();
+		if (target instanceof JDIDebugTarget) {
+			((JDIDebugTarget) target).getStringLiteralCache().retain(expression);
+		}
+		ICompiledExpression previous = fCompiledExpressions.put(thread, expression);
+		if (previous != expression) {
+			releaseExpression(thread, previous);
+		}
+	}
+
+	/**
+	 * Releases the string literals of a compiled expression which is no
+	 * longer cached for a thread.
+	 *
+	 * @param thread
+	 *            thread the expression was compiled for
+	 * @param expression
+	 *            the compiled expression or <code>null</code>
+	 */
+	private void releaseExpression(IJavaThread thread,
+			ICompiledExpression expression) {
+		IDebugTarget target = thread.getDebugTarget();
+		if (expression != null && target instanceof JDIDebugTarget) {
+			((JDIDebugTarget) target).getStringLiteralCache().release(expression);
+		}
 	}
 
 	/**
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.breakpoints;
+
+import java.util.Map;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.jdt.debug.core.IJavaTracepoint;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+
+/**
+ * A line breakpoint which is installed by the javaagent instead of a JDI
+ * breakpoint request, see {@link TracepointManager}.
+ */
+public class JavaTracepoint extends JavaLineBreakpoint implements IJavaTracepoint {
+
+	public static final String JAVA_TRACEPOINT = "org.eclipse.jdt.debug.javaTracepointMarker"; //$NON-NLS-1$
+
+	/**
+	 * Breakpoint attribute storing the comma separated expressions of a
+	 * tracepoint (value
+	 * <code>"org.eclipse.jdt.debug.core.traceExpressions"</code>). This
+	 * attribute is stored as a <code>String</code>.
+	 */
+	protected static final String TRACE_EXPRESSIONS = "org.eclipse.jdt.debug.core.traceExpressions"; //$NON-NLS-1$
+
+	public JavaTracepoint() {
+	}
+
+	/**
+	 * @see org.eclipse.jdt.debug.core.JDIDebugModel#createTracepoint(IResource,
+	 *      String, int, int, int, String[], boolean, Map)
+	 */
+	public JavaTracepoint(IResource resource, String typeName, int lineNumber,
+			int charStart, int charEnd, String[] expressions, boolean add,
+			Map<String, Object> attributes) throws DebugException {
+		super(resource, typeName, lineNumber, charStart, charEnd, 0, add,
+				addExpressions(attributes, expressions), JAVA_TRACEPOINT);
+	}
+
+	private static Map<String, Object> addExpressions(Map<String, Object> attributes, String[] expressions) {
+		attributes.put(TRACE_EXPRESSIONS, String.join(",", expressions)); //$NON-NLS-1$
+		return attributes;
+	}
+
+	@Override
+	public String[] getTraceExpressions() throws CoreException {
+		String expressions = ensureMarker().getAttribute(TRACE_EXPRESSIONS, ""); //$NON-NLS-1$
+		return expressions.isEmpty() ? new String[0] : expressions.split(","); //$NON-NLS-1$
+	}
+
+	@Override
+	public void setTraceExpressions(String[] expressions) throws CoreException {
+		setAttribute(TRACE_EXPRESSIONS, String.join(",", expressions)); //$NON-NLS-1$
+		recreate();
+	}
+
+	/**
+	 * Publishes this tracepoint to the javaagent of the target instead of
+	 * creating breakpoint requests.
+	 */
+	@Override
+	protected void createRequests(JDIDebugTarget target) throws CoreException {
+		if (target.isTerminated() || shouldSkipBreakpoint() || !isEnabled()) {
+			return;
+		}
+		target.getTracepointManager().add(this);
+	}
+
+	@Override
+	protected void removeRequests(JDIDebugTarget target) throws CoreException {
+		target.getTracepointManager().remove(this);
+	}
+
+	/**
+	 * Called by the tracepoint manager once this tracepoint was published to
+	 * the javaagent of the given target.
+	 */
+	void installed(JDIDebugTarget target) throws CoreException {
+		incrementInstallCount();
+		fireInstalled(target);
+	}
+
+	/**
+	 * Called by the tracepoint manager when this tracepoint was withdrawn from
+	 * the javaagent of a target.
+	 */
+	void uninstalled() throws CoreException {
+		decrementInstallCount();
+	}
+
+	@Override
+	public boolean supportsCondition() {
+		return false;
+	}
+
+	@Override
+	public boolean supportsInstanceFilters() {
+		return false;
+	}
+
+	@Override
+	public boolean supportsThreadFilters() {
+		return false;
+	}
+}
@@ -0,0 +1,559 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.breakpoints;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.debug.core.IJavaTraceRecord;
+import org.eclipse.jdt.debug.core.IJavaTracepoint;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
+import org.eclipse.jdt.internal.debug.core.IJDIEventListener;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
+import org.eclipse.osgi.util.NLS;
+
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ClassNotLoadedException;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.InvalidTypeException;
+import com.sun.jdi.LongValue;
+import com.sun.jdi.ObjectCollectedException;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.Value;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequestManager;
+
+/**
+ * Installs the tracepoints of a debug target with the javaagent of the
+ * launching plug-in and drains their records. The tracepoints are published by
+ * setting the <code>requests</code> field of the javaagent's
+ * <code>Tracepoints</code> class, once it is loaded, and interrupting its
+ * <code>thread</code>, which instruments their lines. The javaagent loads the
+ * class before the application classes, if the type of a tracepoint is loaded
+ * first the target was launched without the javaagent, which is reported. The instrumented code writes the records to the
+ * ring buffer of the <code>TraceBuffer</code> class, which a job reads in bulk
+ * at the interval of {@link JDIDebugModel#PREF_TRACEPOINT_DRAIN_INTERVAL}: the
+ * records written since the last drain are read with one or two array reads,
+ * without suspending the target.
+ * <p>
+ * The format of the requests and the records must match the javaagent.
+ * </p>
+ */
+public class TracepointManager implements IJDIEventListener {
+
+	private static final String TRACEPOINTS = "org.eclipse.jdt.launching.internal.javaagent.Tracepoints"; //$NON-NLS-1$
+
+	private static final String TRACE_BUFFER = "org.eclipse.jdt.launching.internal.javaagent.TraceBuffer"; //$NON-NLS-1$
+
+	private static final int RECORD_SIZE = 32;
+
+	private static final int HEADER_SIZE = 4;
+
+	private static final long TRUNCATED = 1L << 48;
+
+	private final JDIDebugTarget fTarget;
+
+	/** ids of the tracepoints to publish */
+	private final Map<JavaTracepoint, Integer> fIds = new LinkedHashMap<>();
+
+	/** tracepoints by id, removed tracepoints are kept to report their last records */
+	private final Map<Integer, JavaTracepoint> fTracepoints = new ConcurrentHashMap<>();
+
+	/** tracepoints published to the javaagent */
+	private final Set<JavaTracepoint> fInstalled = new HashSet<>();
+
+	private int fNextId = 1;
+
+	/** the javaagent's <code>Tracepoints</code> class, once it is loaded */
+	private ClassType fTracepointsType;
+
+	private ClassPrepareRequest fPrepareRequest;
+
+	/**
+	 * requests for the types of the tracepoints, prepared before the
+	 * javaagent's <code>Tracepoints</code> class if the javaagent is missing
+	 */
+	private final Map<String, ClassPrepareRequest> fTypePrepareRequests = new HashMap<>();
+
+	/** whether the target was launched without the javaagent */
+	private boolean fAgentMissing = false;
+
+	private final DrainJob fJob = new DrainJob();
+
+	/** the <code>long[]</code> of the ring buffer, accessed by the drain job only */
+	private ArrayReference fBuffer;
+
+	/** the <code>AtomicLong</code> with the index of the next record to write */
+	private ObjectReference fPosition;
+
+	private Field fPositionValue;
+
+	/** the index of the next record to read */
+	private long fDrained;
+
+	public TracepointManager(JDIDebugTarget target) {
+		fTarget = target;
+	}
+
+	/**
+	 * Installs the given tracepoint, or updates it if it is already installed.
+	 */
+	public synchronized void add(JavaTracepoint tracepoint) throws CoreException {
+		if (!fIds.containsKey(tracepoint)) {
+			Integer id = Integer.valueOf(fNextId++);
+			fIds.put(tracepoint, id);
+			fTracepoints.put(id, tracepoint);
+		}
+		publish();
+	}
+
+	/**
+	 * Uninstalls the given tracepoint.
+	 */
+	public synchronized void remove(JavaTracepoint tracepoint) throws CoreException {
+		if (fIds.remove(tracepoint) == null) {
+			return;
+		}
+		if (fInstalled.remove(tracepoint)) {
+			tracepoint.uninstalled();
+		}
+		if (fTarget.isAvailable()) {
+			publish();
+			// drain the last records
+			fJob.schedule();
+		}
+	}
+
+	/**
+	 * Stops draining records, the target is terminated or disconnected.
+	 */
+	public void dispose() {
+		fJob.cancel();
+	}
+
+	private void publish() throws CoreException {
+		if (fAgentMissing) {
+			return;
+		}
+		ClassType type = getTracepointsType();
+		if (type == null) {
+			watchTracepointTypes();
+			return;
+		}
+		StringBuilder requests = new StringBuilder();
+		for (Entry<JavaTracepoint, Integer> entry : fIds.entrySet()) {
+			JavaTracepoint tracepoint = entry.getKey();
+			requests.append(entry.getValue()).append('\t');
+			requests.append(tracepoint.getTypeName()).append('\t');
+			requests.append(tracepoint.getLineNumber()).append('\t');
+			requests.append(String.join(",", tracepoint.getTraceExpressions())).append('\n'); //$NON-NLS-1$
+		}
+		try {
+			setRequests(type, requests.toString());
+			wakeAgent(type);
+		} catch (VMDisconnectedException e) {
+			return;
+		} catch (InvalidTypeException | ClassNotLoadedException e) {
+			JDIDebugPlugin.log(e);
+			return;
+		} catch (RuntimeException e) {
+			fTarget.internalError(e);
+			return;
+		}
+		for (JavaTracepoint tracepoint : fIds.keySet()) {
+			if (fInstalled.add(tracepoint)) {
+				tracepoint.installed(fTarget);
+			}
+		}
+		if (!fIds.isEmpty()) {
+			fJob.schedule(getDrainInterval());
+		}
+	}
+
+	private void setRequests(ClassType type, String requests) throws InvalidTypeException, ClassNotLoadedException {
+		Field field = type.fieldByName("requests"); //$NON-NLS-1$
+		while (true) {
+			StringReference value = fTarget.getVM().mirrorOf(requests);
+			try {
+				value.disableCollection();
+			} catch (ObjectCollectedException e) {
+				// collected before it was referenced, try again
+				continue;
+			}
+			try {
+				type.setValue(field, value);
+				return;
+			} finally {
+				value.enableCollection();
+			}
+		}
+	}
+
+	/**
+	 * Interrupts the thread of the javaagent, which waits for changes of the
+	 * requests. If it is not started yet, it reads the requests when it starts.
+	 */
+	private void wakeAgent(ClassType type) {
+		Field field = type.fieldByName("thread"); //$NON-NLS-1$
+		Value thread = field == null ? null : type.getValue(field);
+		if (thread instanceof ThreadReference) {
+			((ThreadReference) thread).interrupt();
+		}
+	}
+
+	/**
+	 * Watches the loading of the types of the tracepoints while the
+	 * javaagent's <code>Tracepoints</code> class is not loaded, and reports the
+	 * missing javaagent if one of them is already loaded.
+	 */
+	private void watchTracepointTypes() throws CoreException {
+		for (JavaTracepoint tracepoint : fIds.keySet()) {
+			String typeName = tracepoint.getTypeName();
+			if (fTypePrepareRequests.containsKey(typeName)) {
+				continue;
+			}
+			for (ReferenceType type : fTarget.jdiClassesByName(typeName)) {
+				if (type.classLoader() != null) {
+					agentMissing(typeName);
+					return;
+				}
+			}
+			ClassPrepareRequest request = fTarget.createClassPrepareRequest(typeName);
+			fTypePrepareRequests.put(typeName, request);
+			fTarget.addJDIEventListener(this, request);
+		}
+	}
+
+	/**
+	 * Reports that the tracepoints cannot be installed, as the target was
+	 * launched without the javaagent.
+	 */
+	private void agentMissing(String typeName) {
+		fAgentMissing = true;
+		removePrepareRequests();
+		JDIDebugPlugin.log(new Status(IStatus.WARNING, JDIDebugPlugin.getUniqueIdentifier(), NLS.bind(JDIDebugBreakpointMessages.TracepointManager_1, typeName)));
+	}
+
+	/**
+	 * Returns the javaagent's <code>Tracepoints</code> class, or
+	 * <code>null</code> if it is not loaded yet. The tracepoints are published
+	 * when it is loaded then.
+	 */
+	private ClassType getTracepointsType() throws CoreException {
+		if (fTracepointsType == null) {
+			for (ReferenceType type : fTarget.jdiClassesByName(TRACEPOINTS)) {
+				if (type instanceof ClassType && type.isPrepared()) {
+					fTracepointsType = (ClassType) type;
+					break;
+				}
+			}
+			if (fTracepointsType == null && fPrepareRequest == null) {
+				fPrepareRequest = fTarget.createClassPrepareRequest(TRACEPOINTS);
+				fTarget.addJDIEventListener(this, fPrepareRequest);
+			}
+		}
+		return fTracepointsType;
+	}
+
+	@Override
+	public boolean handleEvent(Event event, JDIDebugTarget target, boolean suspendVote, EventSet eventSet) {
+		synchronized (this) {
+			ReferenceType type = ((ClassPrepareEvent) event).referenceType();
+			if (fTracepointsType != null || fAgentMissing) {
+				return true;
+			}
+			if (!TRACEPOINTS.equals(type.name())) {
+				if (type.classLoader() != null) {
+					agentMissing(type.name());
+				}
+			} else if (type instanceof ClassType) {
+				fTracepointsType = (ClassType) type;
+				removePrepareRequests();
+				try {
+					publish();
+				} catch (CoreException e) {
+					JDIDebugPlugin.log(e);
+				}
+			}
+		}
+		return true;
+	}
+
+	private void removePrepareRequests() {
+		List<ClassPrepareRequest> requests = new ArrayList<>(fTypePrepareRequests.values());
+		if (fPrepareRequest != null) {
+			requests.add(fPrepareRequest);
+			fPrepareRequest = null;
+		}
+		fTypePrepareRequests.clear();
+		EventRequestManager manager = fTarget.getEventRequestManager();
+		for (ClassPrepareRequest request : requests) {
+			fTarget.removeJDIEventListener(this, request);
+			if (manager != null) {
+				try {
+					manager.deleteEventRequest(request);
+				} catch (VMDisconnectedException e) {
+					// the target is gone
+				}
+			}
+		}
+	}
+
+	@Override
+	public void eventSetComplete(Event event, JDIDebugTarget target, boolean suspend, EventSet eventSet) {
+	}
+
+	private synchronized boolean hasTracepoints() {
+		return !fIds.isEmpty();
+	}
+
+	private static int getDrainInterval() {
+		return Platform.getPreferencesService().getInt(JDIDebugPlugin.getUniqueIdentifier(), JDIDebugModel.PREF_TRACEPOINT_DRAIN_INTERVAL, JDIDebugModel.DEF_TRACEPOINT_DRAIN_INTERVAL, null);
+	}
+
+	/**
+	 * Reads the records written since the last drain and passes them to the
+	 * tracepoint listeners.
+	 */
+	private void drain() {
+		if (fBuffer == null && !findBuffer()) {
+			return;
+		}
+		int capacity = fBuffer.length() / RECORD_SIZE;
+		long position = readPosition();
+		long from = fDrained;
+		long dropped = 0;
+		if (position - from > capacity) {
+			// overwritten before they were drained
+			dropped = position - capacity - from;
+			from = position - capacity;
+		}
+		JDIDebugPlugin plugin = JDIDebugPlugin.getDefault();
+		if (plugin == null) {
+			return;
+		}
+		if (!plugin.hasTracepointListeners()) {
+			fDrained = position;
+			return;
+		}
+		List<IJavaTraceRecord> records = new ArrayList<>();
+		long index = from;
+		if (from < position) {
+			long[] values = read(from, position, capacity);
+			// records the target wrapped around to while they were read
+			long overwritten = readPosition() - capacity;
+			for (; index < position; index++) {
+				int offset = (int) (index - from) * RECORD_SIZE;
+				if (index < overwritten) {
+					dropped++;
+				} else if (values[offset] != index + 1) {
+					// still being written, read again by the next drain
+					break;
+				} else {
+					IJavaTraceRecord record = decode(values, offset);
+					if (record != null) {
+						records.add(record);
+					}
+				}
+			}
+		}
+		fDrained = index;
+		if (dropped > 0 || !records.isEmpty()) {
+			plugin.fireTraced(fTarget, records.toArray(new IJavaTraceRecord[records.size()]), dropped);
+		}
+	}
+
+	/**
+	 * Finds the ring buffer, which is loaded when the javaagent installs the
+	 * first tracepoint.
+	 */
+	private boolean findBuffer() {
+		for (ReferenceType type : fTarget.jdiClassesByName(TRACE_BUFFER)) {
+			if (type.classLoader() == null && type.isInitialized()) {
+				ObjectReference buffer = (ObjectReference) type.getValue(type.fieldByName("buffer")); //$NON-NLS-1$
+				fPosition = (ObjectReference) type.getValue(type.fieldByName("position")); //$NON-NLS-1$
+				fPositionValue = fPosition.referenceType().fieldByName("value"); //$NON-NLS-1$
+				fBuffer = (ArrayReference) buffer.getValue(buffer.referenceType().fieldByName("array")); //$NON-NLS-1$
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private long readPosition() {
+		return ((LongValue) fPosition.getValue(fPositionValue)).value();
+	}
+
+	/**
+	 * Reads the records with the given indexes, with one array read, or two if
+	 * they wrap around the end of the buffer.
+	 */
+	private long[] read(long from, long to, int capacity) {
+		int count = (int) (to - from);
+		int start = (int) (from % capacity);
+		int first = Math.min(count, capacity - start);
+		long[] result = new long[count * RECORD_SIZE];
+		int i = 0;
+		for (Value value : fBuffer.getValues(start * RECORD_SIZE, first * RECORD_SIZE)) {
+			result[i++] = ((LongValue) value).value();
+		}
+		if (first < count) {
+			for (Value value : fBuffer.getValues(0, (count - first) * RECORD_SIZE)) {
+				result[i++] = ((LongValue) value).value();
+			}
+		}
+		return result;
+	}
+
+	private IJavaTraceRecord decode(long[] values, int offset) {
+		long info = values[offset + 1];
+		JavaTracepoint tracepoint = fTracepoints.get(Integer.valueOf((int) (info >>> 32)));
+		if (tracepoint == null) {
+			return null;
+		}
+		int count = (int) info;
+		int end = offset + RECORD_SIZE;
+		int slot = offset + HEADER_SIZE;
+		String[] strings = new String[count];
+		for (int i = 0; i < count && slot < end; i++) {
+			long tag = values[slot++];
+			switch ((char) (tag >>> 56)) {
+				case 'N':
+					strings[i] = "null"; //$NON-NLS-1$
+					break;
+				case 'U':
+					strings[i] = null;
+					break;
+				case 'L':
+					int length = (int) tag;
+					StringBuilder string = new StringBuilder(length + 3);
+					for (int j = 0; j < length && slot < end; j += 4) {
+						long chars = values[slot++];
+						for (int k = j; k < j + 4 && k < length; k++) {
+							string.append((char) (chars >>> (48 - 16 * (k - j))));
+						}
+					}
+					if ((tag & TRUNCATED) != 0) {
+						string.append("..."); //$NON-NLS-1$
+					}
+					strings[i] = string.toString();
+					break;
+				case 'Z':
+					strings[i] = Boolean.toString(values[slot++] != 0);
+					break;
+				case 'C':
+					strings[i] = String.valueOf((char) values[slot++]);
+					break;
+				case 'F':
+					strings[i] = Float.toString(Float.intBitsToFloat((int) values[slot++]));
+					break;
+				case 'D':
+					strings[i] = Double.toString(Double.longBitsToDouble(values[slot++]));
+					break;
+				default:
+					strings[i] = Long.toString(values[slot++]);
+			}
+		}
+		return new TraceRecord(tracepoint, values[offset + 2], values[offset + 3], strings);
+	}
+
+	class DrainJob extends Job {
+
+		DrainJob() {
+			super(JDIDebugBreakpointMessages.TracepointManager_0);
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			if (!fTarget.isAvailable()) {
+				return Status.OK_STATUS;
+			}
+			try {
+				drain();
+			} catch (VMDisconnectedException | ObjectCollectedException e) {
+				return Status.OK_STATUS;
+			} catch (RuntimeException e) {
+				fTarget.internalError(e);
+				return Status.OK_STATUS;
+			}
+			if (hasTracepoints() && !monitor.isCanceled()) {
+				schedule(getDrainInterval());
+			}
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == fTarget;
+		}
+	}
+
+	static class TraceRecord implements IJavaTraceRecord {
+
+		private final IJavaTracepoint fTracepoint;
+		private final long fTime;
+		private final long fThreadId;
+		private final String[] fValues;
+
+		TraceRecord(IJavaTracepoint tracepoint, long time, long threadId, String[] values) {
+			fTracepoint = tracepoint;
+			fTime = time;
+			fThreadId = threadId;
+			fValues = values;
+		}
+
+		@Override
+		public IJavaTracepoint getTracepoint() {
+			return fTracepoint;
+		}
+
+		@Override
+		public long getTime() {
+			return fTime;
+		}
+
+		@Override
+		public long getThreadId() {
+			return fThreadId;
+		}
+
+		@Override
+		public String[] getValues() {
+			return fValues;
+		}
+	}
+}
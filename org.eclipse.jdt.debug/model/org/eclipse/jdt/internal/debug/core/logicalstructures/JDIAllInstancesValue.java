@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@
 package org.eclipse.jdt.internal.debug.core.logicalstructures;
 
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.model.IVariable;
@@ -28,19 +30,24 @@ import org.eclipse.jdt.internal.debug.core.model.JDIArrayValue;
 import org.eclipse.jdt.internal.debug.core.model.JDIDebugTarget;
 import org.eclipse.jdt.internal.debug.core.model.JDIPlaceholderValue;
 import org.eclipse.jdt.internal.debug.core.model.JDIReferenceType;
+import org.eclipse.jdt.internal.debug.core.model.JDIValue;
+
+import com.sun.jdi.ObjectReference;
 
 
 
 /**
  * Java value containing an array of java objects. This value is used to hold a
- * list of all instances of a specific java type.
+ * list of all instances of a specific java type. The values of the instances
+ * are created when they are accessed, so that the variables view only creates
+ * the values of the partitions shown.
  *
  * @since 3.3
  * @see org.eclipse.jdt.internal.debug.ui.heapwalking.AllInstancesActionDelegate
  */
 public class JDIAllInstancesValue extends JDIArrayValue {
 
-	private IJavaObject[] fInstances;
+	private List<ObjectReference> fInstances;
 	private JDIReferenceType fRoot;
 	private IJavaArrayType fType;
 	private boolean fIsMoreThanPreference;
@@ -67,26 +74,25 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	}
 
 	/**
-	 * @return an array of java objects that are instances of the root type
+	 * @return the instances of the root type, at most as many as the
+	 *         preference allows
 	 */
-	protected IJavaObject[] getInstances() {
+	protected synchronized List<ObjectReference> getInstanceList() {
 		if (fInstances != null) {
 			return fInstances;
 		}
-		IJavaObject[] instances = new IJavaObject[0];
+		List<ObjectReference> instances = Collections.emptyList();
 		fIsMoreThanPreference = false;
 		if (fRoot != null) {
 			int max = HeapWalkingManager.getDefault()
 					.getAllInstancesMaxCount();
 			try {
 				if (max == 0) {
-					instances = fRoot.getInstances(max);
+					instances = fRoot.getInstanceReferences(max);
 				} else {
-					instances = fRoot.getInstances(max + 1);
-					if (instances.length > max) {
-						instances[max] = new JDIPlaceholderValue(
-								(JDIDebugTarget) fRoot.getDebugTarget(),
-								MessageFormat.format(LogicalStructuresMessages.JDIAllInstancesValue_2, Integer.toString(max)));
+					instances = fRoot.getInstanceReferences(max + 1);
+					if (instances.size() > max) {
+						instances = instances.subList(0, max);
 						fIsMoreThanPreference = true;
 					}
 				}
@@ -98,14 +104,38 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 		return instances;
 	}
 
+	/**
+	 * @return an array of java objects that are instances of the root type
+	 */
+	protected IJavaObject[] getInstances() {
+		IJavaObject[] instances = new IJavaObject[getSize()];
+		for (int i = 0; i < instances.length; i++) {
+			instances[i] = getInstance(i);
+		}
+		return instances;
+	}
+
+	/**
+	 * @return the instance at the given index, the placeholder telling that
+	 *         there are more instances after the last one
+	 */
+	private IJavaObject getInstance(int index) {
+		List<ObjectReference> instances = getInstanceList();
+		if (index < instances.size()) {
+			return (IJavaObject) JDIValue.createValue(getJavaDebugTarget(), instances.get(index));
+		}
+		return new JDIPlaceholderValue(getJavaDebugTarget(),
+				MessageFormat.format(LogicalStructuresMessages.JDIAllInstancesValue_2, Integer.toString(instances.size())));
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
 	 * @see org.eclipse.jdt.internal.debug.core.model.JDIArrayValue#getLength()
 	 */
 	@Override
-	public synchronized int getLength() throws DebugException {
-		return getInstances().length;
+	public synchronized int getLength() {
+		return getSize();
 	}
 
 	/*
@@ -114,8 +144,9 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	 * @see org.eclipse.jdt.internal.debug.core.model.JDIArrayValue#getSize()
 	 */
 	@Override
-	public int getSize() throws DebugException {
-		return getInstances().length;
+	public synchronized int getSize() {
+		int size = getInstanceList().size();
+		return fIsMoreThanPreference ? size + 1 : size;
 	}
 
 	/*
@@ -126,10 +157,10 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	 */
 	@Override
 	public IJavaValue getValue(int index) throws DebugException {
-		if (index > getInstances().length - 1 || index < 0) {
+		if (index > getSize() - 1 || index < 0) {
 			internalError(LogicalStructuresMessages.JDIAllInstancesValue_0);
 		}
-		return getInstances()[index];
+		return getInstance(index);
 	}
 
 	/*
@@ -150,17 +181,17 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	 */
 	@Override
 	public IVariable getVariable(int offset) throws DebugException {
-		if (offset > getInstances().length - 1 || offset < 0) {
+		if (offset > getSize() - 1 || offset < 0) {
 			internalError(LogicalStructuresMessages.JDIAllInstancesValue_1);
 		}
-		if (isMoreThanPreference() && offset == getInstances().length - 1) {
+		if (isMoreThanPreference() && offset == getSize() - 1) {
 			return new JDIPlaceholderVariable(
 					LogicalStructuresMessages.JDIAllInstancesValue_4,
-					getInstances()[offset]);
+					getInstance(offset));
 		}
 		return new JDIPlaceholderVariable(MessageFormat.format(LogicalStructuresMessages.JDIAllInstancesValue_5,
 				Integer.toString(offset)),
-				getInstances()[offset]);
+				getInstance(offset));
 	}
 
 	/*
@@ -176,7 +207,7 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 		if (length == 0) {
 			return new IVariable[0];
 		}
-		if (offset > getInstances().length - 1 || offset < 0) {
+		if (offset > getSize() - 1 || offset < 0) {
 			internalError(LogicalStructuresMessages.JDIAllInstancesValue_1);
 		}
 		IVariable[] vars = new JDIPlaceholderVariable[length];
@@ -193,7 +224,7 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	 */
 	@Override
 	public IVariable[] getVariables() throws DebugException {
-		return getVariables(0, getInstances().length);
+		return getVariables(0, getSize());
 	}
 
 	/*
@@ -238,7 +269,7 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	 */
 	@Override
 	public boolean hasVariables() throws DebugException {
-		return getInstances().length > 0;
+		return getSize() > 0;
 	}
 
 	/*
@@ -282,13 +313,13 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	public String getValueString() throws DebugException {
 		if (isMoreThanPreference()) {
 			return MessageFormat.format(LogicalStructuresMessages.JDIAllInstancesValue_7,
-							Integer.toString(getInstances().length - 1));
-		} else if (getInstances().length == 1) {
+							Integer.toString(getSize() - 1));
+		} else if (getSize() == 1) {
 			return MessageFormat.format(LogicalStructuresMessages.JDIAllInstancesValue_8,
-					Integer.toString(getInstances().length));
+					Integer.toString(getSize()));
 		} else {
 			return MessageFormat.format(LogicalStructuresMessages.JDIAllInstancesValue_9,
-					Integer.toString(getInstances().length));
+					Integer.toString(getSize()));
 		}
 	}
 
@@ -329,8 +360,8 @@ public class JDIAllInstancesValue extends JDIArrayValue {
 	 *         displayed
 	 */
 	protected boolean isMoreThanPreference() {
-		getInstances(); // The instances must be requested to know if there are
-						// more than the preference
+		getInstanceList(); // The instances must be requested to know if there
+							// are more than the preference
 		return fIsMoreThanPreference;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -62,6 +62,8 @@ public class JDIDebugModelMessages extends NLS {
 	public static String JDIDebugTarget_Unable_to_retrieve_types___VM_disconnected__4;
 	public static String JDIDebugTarget_0;
 	public static String JDIDebugTarget_ThreadNameNotifier;
+	public static String JDIDebugTarget_does_not_support_monitor_information;
+	public static String JDIDebugTarget_exception_retrieving_monitor_information;
 
 	public static String JDIFieldVariable_exception_modifying_value;
 	public static String JDIFieldVariable_exception_retrieving_field_name;
@@ -106,6 +108,10 @@ public class JDIDebugModelMessages extends NLS {
 
 	public static String JDIReferenceType_5;
 
+	public static String JDIHeapHistogram_0;
+	public static String JDIHeapHistogram_1;
+	public static String JDIHeapHistogram_2;
+
 	public static String JDIStackFrame__unknown_declaring_type__1;
 	public static String JDIStackFrame__unknown_method__1;
 	public static String JDIStackFrame__unknown_receiving_type__2;
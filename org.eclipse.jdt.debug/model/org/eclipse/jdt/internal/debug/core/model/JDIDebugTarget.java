@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,8 @@
 package org.eclipse.jdt.internal.debug.core.model;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.URI;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -63,6 +65,7 @@ import org.eclipse.debug.core.model.IMemoryBlockRetrieval;
 import org.eclipse.debug.core.model.IProcess;
 import org.eclipse.debug.core.model.ISuspendResume;
 import org.eclipse.debug.core.model.IThread;
+import org.eclipse.jdi.JdwpMetrics;
 import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdi.internal.VirtualMachineImpl;
 import org.eclipse.jdi.internal.jdwp.JdwpReplyPacket;
@@ -82,6 +85,7 @@ import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
 import org.eclipse.jdt.debug.core.IJavaBreakpoint;
 import org.eclipse.jdt.debug.core.IJavaDebugTarget;
 import org.eclipse.jdt.debug.core.IJavaHotCodeReplaceListener;
+import org.eclipse.jdt.debug.core.IJavaMonitorSnapshot;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaThreadGroup;
 import org.eclipse.jdt.debug.core.IJavaType;
@@ -92,9 +96,11 @@ import org.eclipse.jdt.debug.eval.EvaluationManager;
 import org.eclipse.jdt.debug.eval.IAstEvaluationEngine;
 import org.eclipse.jdt.internal.debug.core.EventDispatcher;
 import org.eclipse.jdt.internal.debug.core.IJDIEventListener;
+import org.eclipse.jdt.internal.debug.core.JDIDebugOptions;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaBreakpoint;
 import org.eclipse.jdt.internal.debug.core.breakpoints.JavaLineBreakpoint;
+import org.eclipse.jdt.internal.debug.core.breakpoints.TracepointManager;
 
 import com.sun.jdi.ClassType;
 import com.sun.jdi.InternalException;
@@ -126,6 +132,12 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		IJavaDebugTarget, ILaunchListener, IBreakpointManagerListener,
 		IDebugEventSetListener {
 
+	/**
+	 * Folder in the state location of the plug-in in which the metadata of
+	 * types is kept across debug sessions
+	 */
+	private static final String TYPE_METADATA_FOLDER = "typeMetadata"; //$NON-NLS-1$
+
 	/**
 	 * Threads contained in this debug target. When a thread starts it is added
 	 * to the list. When a thread ends it is removed from the list.
@@ -148,6 +160,21 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 * Underlying virtual machine.
 	 */
 	private VirtualMachine fVirtualMachine;
+	/**
+	 * JDWP traffic of the terminated session, or <code>null</code> while the VM
+	 * is connected.
+	 */
+	private JdwpMetrics fJdwpMetrics;
+	/**
+	 * Installs the tracepoints of this target, created when the first
+	 * tracepoint is added.
+	 */
+	private TracepointManager fTracepointManager;
+	/**
+	 * The remote strings of the literals of cached compiled expressions,
+	 * created when the first expression is retained.
+	 */
+	private StringLiteralCache fStringLiteralCache;
 	/**
 	 * Whether terminate is supported. Not all targets support terminate. For
 	 * example, a VM that was attached to remotely may not allow the user to
@@ -218,6 +245,19 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	private ThreadNameChangeHandler fThreadNameChangeHandler;
 
+	/**
+	 * The state of all threads, retrieved at once while this target is
+	 * suspended and discarded when it resumes, or <code>null</code>
+	 */
+	private volatile JDIThreadStateSnapshot fThreadStates;
+
+	/**
+	 * Whether retrieving the state of all threads failed since this target
+	 * last suspended, the threads then retrieve their state themselves until
+	 * it resumes
+	 */
+	private volatile boolean fThreadStatesFailed;
+
 	/**
 	 * Whether this VM is suspended.
 	 */
@@ -238,6 +278,18 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	private int fSuspendCount;
 
+	/**
+	 * Count of the suspensions and resumes of threads and modifications of
+	 * fields in this target, field values retrieved before a change are out of
+	 * date
+	 */
+	private final AtomicInteger fFieldValueGeneration = new AtomicInteger();
+
+	/**
+	 * Values of static fields, retrieved a type at a time
+	 */
+	private final JDIStaticFieldValues fStaticFieldValues = new JDIStaticFieldValues(this);
+
 	/**
 	 * Evaluation engine cache by Java project. Engines are disposed when this
 	 * target terminates.
@@ -255,6 +307,11 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	private int fStepFilterMask;
 
+	/**
+	 * Step filter information of the methods of this target
+	 */
+	private final StepFilterCache fStepFilterCache = new StepFilterCache();
+
 	/**
 	 * Step filter bit mask - indicates if step filters are enabled.
 	 */
@@ -547,6 +604,27 @@ public class JDIDebugTarget extends JDIDebugElement implements
 				JDIDebugModel.PREF_REQUEST_TIMEOUT,
 				JDIDebugModel.DEF_REQUEST_TIMEOUT,
 				null));
+		if (Platform.getPreferencesService().getBoolean(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugModel.PREF_USE_LOCAL_CLASS_FILES,
+				true,
+				null)) {
+			VirtualMachine vm = getVM();
+			if (vm instanceof VirtualMachineImpl) {
+				((VirtualMachineImpl) vm).setClassFileProvider(new WorkspaceClassFileProvider());
+			}
+		}
+		if (Platform.getPreferencesService().getBoolean(
+				JDIDebugPlugin.getUniqueIdentifier(),
+				JDIDebugModel.PREF_CACHE_TYPE_METADATA,
+				true,
+				null)) {
+			VirtualMachine vm = getVM();
+			if (vm instanceof VirtualMachineImpl) {
+				((VirtualMachineImpl) vm).setMetadataCacheLocation(
+						JDIDebugPlugin.getDefault().getStateLocation().append(TYPE_METADATA_FOLDER).toFile());
+			}
+		}
 		initializeRequests();
 		initializeState();
 		initializeBreakpoints();
@@ -592,6 +670,9 @@ public class JDIDebugTarget extends JDIDebugElement implements
 				internalError(e);
 			}
 			if (threads != null) {
+				// initialize the threads from the state retrieved for all of them
+				fThreadStates = createThreadStates(threads);
+				fThreadStatesFailed = fThreadStates == null;
 				Iterator<ThreadReference> initialThreads = threads.iterator();
 				while (initialThreads.hasNext()) {
 					createThread(initialThreads.next());
@@ -602,6 +683,10 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		if (isResumeOnStartup()) {
 			setSuspended(false);
 		}
+		if (!isSuspended()) {
+			fThreadStates = null;
+			fThreadStatesFailed = false;
+		}
 	}
 
 	/**
@@ -928,6 +1013,11 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	public void setHCROccurred(boolean occurred) {
 		fHasHCROccurred = occurred;
+		if (occurred) {
+			// the replaced methods keep their ids
+			fStepFilterCache.clear();
+			fStaticFieldValues.typesRedefined();
+		}
 	}
 
 	public void removeOutOfSynchTypes(List<String> qualifiedNames) {
@@ -1126,6 +1216,9 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 */
 	private void setSuspended(boolean suspended) {
 		fSuspended = suspended;
+		if (!suspended) {
+			fThreadStatesFailed = false;
+		}
 	}
 
 	/**
@@ -1327,6 +1420,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		}
 		try {
 			setSuspended(false);
+			fThreadStates = null;
 			resumeThreads();
 			VirtualMachine vm = getVM();
 			if (vm != null) {
@@ -1844,6 +1938,7 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	 * </p>
 	 */
 	protected void cleanup() {
+		fThreadStates = null;
 		removeAllThreads();
 		DebugPlugin plugin = DebugPlugin.getDefault();
 		plugin.getBreakpointManager().removeBreakpointListener(this);
@@ -1852,6 +1947,14 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		plugin.removeDebugEventListener(this);
 		removeAllBreakpoints();
 		DebugPlugin.getDefault().getBreakpointManager().enableTriggerPoints(null, true);
+		synchronized (this) {
+			if (fTracepointManager != null) {
+				fTracepointManager.dispose();
+			}
+			if (fStringLiteralCache != null) {
+				fStringLiteralCache.dispose();
+			}
+		}
 		fOutOfSynchTypes.clear();
 		if (fEngines != null) {
 			Iterator<IAstEvaluationEngine> engines = fEngines.values().iterator();
@@ -1862,6 +1965,14 @@ public class JDIDebugTarget extends JDIDebugElement implements
 			}
 			fEngines.clear();
 		}
+		if (fVirtualMachine instanceof VirtualMachineImpl) {
+			fJdwpMetrics = ((VirtualMachineImpl) fVirtualMachine).getJdwpMetrics();
+			if (JDIDebugOptions.DEBUG_JDI_REQUEST_TIMES) {
+				StringWriter buf = new StringWriter();
+				fJdwpMetrics.print(new PrintWriter(buf));
+				JDIDebugOptions.trace(buf.toString());
+			}
+		}
 		fVirtualMachine = null;
 		setThreadStartHandler(null);
 		setEventDispatcher(null);
@@ -2462,6 +2573,13 @@ public class JDIDebugTarget extends JDIDebugElement implements
 			return null;
 		}
 
+		/**
+		 * @return whether thread name changes are reported
+		 */
+		boolean isActive() {
+			return request != null;
+		}
+
 		void deleteRequest() {
 			if (request != null) {
 				removeJDIEventListener(this, request);
@@ -2478,6 +2596,10 @@ public class JDIDebugTarget extends JDIDebugElement implements
 			if (thread == null) {
 				thread = target.findThread(ref);
 			}
+			JDIThreadStateSnapshot states = fThreadStates;
+			if (states != null) {
+				states.nameChanged(ref);
+			}
 			if (thread != null) {
 				// trigger updates on the thread
 				notfierJob.notifyAboutChange(thread);
@@ -2770,6 +2892,17 @@ public class JDIDebugTarget extends JDIDebugElement implements
 	@Override
 	public void setStepFilters(String[] list) {
 		fStepFilters = list;
+		// notified of every change of the step filter preferences
+		fStepFilterCache.clearVerdicts();
+	}
+
+	/**
+	 * Returns the step filter information of the methods of this target.
+	 *
+	 * @return the step filter cache
+	 */
+	StepFilterCache getStepFilterCache() {
+		return fStepFilterCache;
 	}
 
 	@Override
@@ -2859,6 +2992,149 @@ public class JDIDebugTarget extends JDIDebugElement implements
 		return false;
 	}
 
+	/**
+	 * Returns the state of all threads of this target, retrieved at once on
+	 * first access while this target is suspended, or <code>null</code> if not
+	 * available. The threads use it to avoid a round trip per thread and
+	 * property until this target resumes.
+	 *
+	 * @return the state of all threads or <code>null</code>
+	 */
+	JDIThreadStateSnapshot getThreadStates() {
+		JDIThreadStateSnapshot states = fThreadStates;
+		if (states == null && !fThreadStatesFailed && isSuspended() && isAvailable()) {
+			VirtualMachine vm = getVM();
+			if (vm instanceof org.eclipse.jdi.VirtualMachine) {
+				try {
+					states = createThreadStates(vm.allThreads());
+				} catch (RuntimeException e) {
+					// the threads retrieve their state themselves
+				}
+				fThreadStates = states;
+				// do not try again before this target resumes
+				fThreadStatesFailed = states == null;
+				// do not keep it if this target resumed meanwhile
+				if (!isSuspended()) {
+					fThreadStates = null;
+					fThreadStatesFailed = false;
+				}
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * Called when the given thread resumes, its state is no longer up to date.
+	 *
+	 * @param thread
+	 *            the resumed thread
+	 */
+	void threadResumed(ThreadReference thread) {
+		fieldValuesChanged();
+		JDIThreadStateSnapshot states = fThreadStates;
+		if (states != null) {
+			states.resumed(thread);
+		}
+	}
+
+	/**
+	 * Called when the given thread suspends. Other threads may have been
+	 * running until then, field values retrieved before are out of date.
+	 *
+	 * @param thread
+	 *            the suspended thread
+	 */
+	void threadSuspended(ThreadReference thread) {
+		fieldValuesChanged();
+	}
+
+	/**
+	 * Returns the number of times threads of this target suspended or resumed,
+	 * or fields were modified. Field values retrieved for a generation are
+	 * reused until it changes, while this target is suspended.
+	 *
+	 * @return the field value generation
+	 */
+	int getFieldValueGeneration() {
+		return fFieldValueGeneration.get();
+	}
+
+	/**
+	 * Called when field values may have changed, such as when a field is
+	 * modified.
+	 */
+	void fieldValuesChanged() {
+		fFieldValueGeneration.incrementAndGet();
+	}
+
+	/**
+	 * Returns the values of the static fields of this target.
+	 *
+	 * @return the static field values
+	 */
+	JDIStaticFieldValues getStaticFieldValues() {
+		return fStaticFieldValues;
+	}
+
+	private JDIThreadStateSnapshot createThreadStates(List<ThreadReference> threads) {
+		try {
+			ThreadNameChangeHandler handler = getThreadNameChangeHandler();
+			return JDIThreadStateSnapshot.create(this, threads, handler != null && handler.isActive());
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public IJavaMonitorSnapshot getMonitorSnapshot() throws DebugException {
+		if (!supportsMonitorInformation()) {
+			notSupported(JDIDebugModelMessages.JDIDebugTarget_does_not_support_monitor_information);
+		}
+		List<JDIThread> threads = new ArrayList<>();
+		Iterator<JDIThread> itr = getThreadIterator();
+		while (itr.hasNext()) {
+			JDIThread thread = itr.next();
+			if (thread.isSuspended()) {
+				threads.add(thread);
+			}
+		}
+		return new JDIMonitorSnapshot(this, threads);
+	}
+
+	@Override
+	public JdwpMetrics getJdwpMetrics() {
+		VirtualMachine vm = getVM();
+		if (vm instanceof VirtualMachineImpl) {
+			return ((VirtualMachineImpl) vm).getJdwpMetrics();
+		}
+		return fJdwpMetrics;
+	}
+
+	/**
+	 * Returns the manager installing the tracepoints of this target.
+	 *
+	 * @return the tracepoint manager of this target
+	 */
+	public synchronized TracepointManager getTracepointManager() {
+		if (fTracepointManager == null) {
+			fTracepointManager = new TracepointManager(this);
+		}
+		return fTracepointManager;
+	}
+
+	/**
+	 * Returns the remote strings of the literals of the compiled expressions
+	 * this target evaluates repeatedly.
+	 *
+	 * @return the string literal cache of this target
+	 */
+	public synchronized StringLiteralCache getStringLiteralCache() {
+		if (fStringLiteralCache == null) {
+			fStringLiteralCache = new StringLiteralCache(this);
+		}
+		return fStringLiteralCache;
+	}
+
 	/**
 	 * Sets whether or not this debug target is currently performing a hot code
 	 * replace.
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.sun.jdi.Field;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
+
+/**
+ * Values of the fields shown as children of an object or a static frame,
+ * retrieved a page at a time. The values of a page are retrieved with one
+ * request for its instance fields when the first of them is needed, instead of
+ * one request per field. The values of its static fields are shared by the
+ * target, see {@link JDIStaticFieldValues}.
+ * <p>
+ * The pages are only kept while the whole target is suspended, until a thread
+ * of the target suspends or resumes or a field is modified, see
+ * {@link JDIDebugTarget#getFieldValueGeneration()}. A field whose page cannot be
+ * retrieved retrieves its value itself, as does a field while the target is not
+ * suspended.
+ * </p>
+ */
+class JDIFieldValues {
+
+	/**
+	 * Number of fields per page, the number of children per partition of the
+	 * variables view
+	 */
+	static final int PAGE_SIZE = 100;
+
+	private final JDIDebugTarget fTarget;
+
+	/**
+	 * The object containing the instance fields, or <code>null</code> if all
+	 * fields are static
+	 */
+	private final ObjectReference fObject;
+
+	/**
+	 * The fields in the order of the children
+	 */
+	private final List<Field> fFields;
+
+	/**
+	 * Retrieved pages by page number
+	 */
+	private final Map<Integer, Map<Field, Value>> fPages = new HashMap<>();
+
+	/**
+	 * Field value generation of the target when the pages were retrieved
+	 */
+	private int fGeneration;
+
+	/**
+	 * Constructs the values of the given fields.
+	 *
+	 * @param target
+	 *            the debug target
+	 * @param object
+	 *            the object containing the instance fields, or
+	 *            <code>null</code> if all fields are static
+	 * @param fields
+	 *            the fields in the order of the children
+	 */
+	JDIFieldValues(JDIDebugTarget target, ObjectReference object, List<Field> fields) {
+		fTarget = target;
+		fObject = object;
+		fFields = fields;
+		fGeneration = target.getFieldValueGeneration();
+	}
+
+	/**
+	 * Returns the values of the page containing the field at the given
+	 * position, retrieving them if necessary.
+	 *
+	 * @param position
+	 *            the position of a field
+	 * @return the values of the fields of the page, or <code>null</code> if they
+	 *         cannot be retrieved or the target is not suspended
+	 */
+	synchronized Map<Field, Value> getPage(int position) {
+		if (!fTarget.isSuspended()) {
+			// running threads may change the values at any time
+			return null;
+		}
+		int generation = fTarget.getFieldValueGeneration();
+		if (generation != fGeneration) {
+			fPages.clear();
+			fGeneration = generation;
+		}
+		Integer page = Integer.valueOf(position / PAGE_SIZE);
+		Map<Field, Value> values = fPages.get(page);
+		if (values == null) {
+			int from = page.intValue() * PAGE_SIZE;
+			values = retrieve(fFields.subList(from, Math.min(from + PAGE_SIZE, fFields.size())));
+			// do not keep values which may have changed meanwhile
+			if (values != null && fTarget.getFieldValueGeneration() == generation) {
+				fPages.put(page, values);
+			}
+		}
+		return values;
+	}
+
+	private Map<Field, Value> retrieve(List<Field> fields) {
+		List<Field> instanceFields = new ArrayList<>();
+		Map<ReferenceType, List<Field>> staticFields = new LinkedHashMap<>();
+		for (Field field : fields) {
+			if (field.isStatic()) {
+				List<Field> declared = staticFields.get(field.declaringType());
+				if (declared == null) {
+					declared = new ArrayList<>();
+					staticFields.put(field.declaringType(), declared);
+				}
+				declared.add(field);
+			} else {
+				instanceFields.add(field);
+			}
+		}
+		try {
+			Map<Field, Value> values = new HashMap<>(fields.size() * 2);
+			if (!instanceFields.isEmpty()) {
+				if (fObject == null) {
+					return null;
+				}
+				values.putAll(fObject.getValues(instanceFields));
+			}
+			for (Entry<ReferenceType, List<Field>> entry : staticFields.entrySet()) {
+				Map<Field, Value> typeValues = fTarget.getStaticFieldValues().getValues(entry.getKey());
+				if (typeValues == null) {
+					return null;
+				}
+				for (Field field : entry.getValue()) {
+					values.put(field, typeValues.get(field));
+				}
+			}
+			return values;
+		} catch (RuntimeException e) {
+			// the fields report the failure when retrieving their values
+			return null;
+		}
+	}
+}
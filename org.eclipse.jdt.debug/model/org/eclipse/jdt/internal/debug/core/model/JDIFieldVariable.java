@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.jdt.internal.debug.core.model;
 
 import java.text.MessageFormat;
+import java.util.Map;
 
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
@@ -63,6 +64,17 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 	 */
 	private IJavaValue fLogicalParent;
 
+	/**
+	 * The values of this field and its siblings retrieved a page at a time, or
+	 * <code>null</code> if this field retrieves its value itself.
+	 */
+	private JDIFieldValues fValues;
+
+	/**
+	 * The position of this field in {@link #fValues}
+	 */
+	private int fPosition;
+
 	/**
 	 * Constructs a field for the given field.
 	 */
@@ -77,6 +89,18 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 		fLogicalParent = logicalParent;
 	}
 
+	/**
+	 * Constructs a field for the given field, retrieving its value with the
+	 * page of the given values containing it.
+	 */
+	JDIFieldVariable(JDIDebugTarget target, Field field,
+			ObjectReference objectRef, IJavaValue logicalParent,
+			JDIFieldValues values, int position) {
+		this(target, field, objectRef, logicalParent);
+		fValues = values;
+		fPosition = position;
+	}
+
 	/**
 	 * Constructs a field to wrap the given field.
 	 */
@@ -87,13 +111,30 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 		fType = refType;
 	}
 
+	/**
+	 * Constructs a field to wrap the given field, retrieving its value with
+	 * the page of the given values containing it.
+	 */
+	JDIFieldVariable(JDIDebugTarget target, Field field,
+			ReferenceType refType, JDIFieldValues values, int position) {
+		this(target, field, refType);
+		fValues = values;
+		fPosition = position;
+	}
+
 	/**
 	 * Returns this variable's current <code>Value</code>.
 	 */
 	@Override
 	protected Value retrieveValue() {
+		if (fValues != null) {
+			Map<Field, Value> values = fValues.getPage(fPosition);
+			if (values != null && values.containsKey(getField())) {
+				return values.get(getField());
+			}
+		}
 		if (getField().isStatic()) {
-			return (getField().declaringType().getValue(getField()));
+			return getJavaDebugTarget().getStaticFieldValues().getValue(getField());
 		}
 		return getObjectReference().getValue(getField());
 	}
@@ -138,6 +179,7 @@ public class JDIFieldVariable extends JDIModificationVariable implements
 			} else {
 				getObjectReference().setValue(getField(), value);
 			}
+			getJavaDebugTarget().fieldValuesChanged();
 			fireChangeEvent(DebugEvent.CONTENT);
 		} catch (ClassNotLoadedException e) {
 			targetRequestFailed(
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.debug.core.DebugException;
+
+import com.sun.jdi.ObjectCollectedException;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VirtualMachine;
+
+/**
+ * The number of instances of every loaded reference type of a debug target at
+ * a point in time.
+ * <p>
+ * The counts are retrieved with <code>VirtualMachine.InstanceCounts</code>
+ * requests of up to {@value #BATCH_SIZE} types. Each request walks the whole
+ * heap of the target, so the batches are as large as possible.
+ * </p>
+ */
+public class JDIHeapHistogram {
+
+	private static final int BATCH_SIZE = 65536;
+
+	/**
+	 * Orders entries by decreasing delta, then by decreasing count
+	 */
+	private static final Comparator<Entry> BY_GROWTH = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			int result = Long.compare(e2.fDelta, e1.fDelta);
+			return result != 0 ? result : Long.compare(e2.fCount, e1.fCount);
+		}
+	};
+
+	/**
+	 * The instance count of a type in a histogram.
+	 */
+	public static class Entry {
+		private final ReferenceType fType;
+		private final long fCount;
+		private final long fDelta;
+
+		Entry(ReferenceType type, long count, long delta) {
+			fType = type;
+			fCount = count;
+			fDelta = delta;
+		}
+
+		/**
+		 * @return the underlying type
+		 */
+		public ReferenceType getType() {
+			return fType;
+		}
+
+		/**
+		 * @return the fully qualified name of the type
+		 */
+		public String getName() {
+			return fType.name();
+		}
+
+		/**
+		 * @return the number of instances of the type
+		 */
+		public long getCount() {
+			return fCount;
+		}
+
+		/**
+		 * @return the change of the number of instances since the histogram
+		 *         compared with, or the number of instances
+		 */
+		public long getDelta() {
+			return fDelta;
+		}
+	}
+
+	private final JDIDebugTarget fTarget;
+	private final long fTime;
+	private final Map<ReferenceType, Long> fCounts;
+	private final long fTotal;
+
+	private JDIHeapHistogram(JDIDebugTarget target, long time, Map<ReferenceType, Long> counts, long total) {
+		fTarget = target;
+		fTime = time;
+		fCounts = counts;
+		fTotal = total;
+	}
+
+	/**
+	 * Retrieves the instance counts of all loaded reference types of the given
+	 * target.
+	 *
+	 * @param target
+	 *            the debug target, which must support instance retrieval
+	 * @param monitor
+	 *            progress monitor or <code>null</code>
+	 * @return the histogram
+	 * @throws DebugException
+	 *             if the instance counts cannot be retrieved
+	 * @throws OperationCanceledException
+	 *             if the monitor is cancelled
+	 */
+	public static JDIHeapHistogram create(JDIDebugTarget target, IProgressMonitor monitor) throws DebugException {
+		VirtualMachine vm = target.getVM();
+		if (vm == null || !target.supportsInstanceRetrieval()) {
+			target.notSupported(JDIDebugModelMessages.JDIHeapHistogram_0);
+			return null;
+		}
+		try {
+			long time = System.currentTimeMillis();
+			List<ReferenceType> types = vm.allClasses();
+			SubMonitor progress = SubMonitor.convert(monitor, JDIDebugModelMessages.JDIHeapHistogram_1, types.size());
+			Map<ReferenceType, Long> counts = new HashMap<>(types.size() * 4 / 3 + 1);
+			long total = 0;
+			for (int start = 0; start < types.size(); start += BATCH_SIZE) {
+				if (progress.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				List<ReferenceType> batch = types.subList(start, Math.min(start + BATCH_SIZE, types.size()));
+				total += retrieveCounts(vm, batch, counts);
+				progress.worked(batch.size());
+			}
+			return new JDIHeapHistogram(target, time, counts, total);
+		} catch (RuntimeException e) {
+			target.targetRequestFailed(JDIDebugModelMessages.JDIHeapHistogram_2, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Retrieves the instance counts of the given types. When a type was
+	 * unloaded meanwhile, the batch is split to retrieve the others.
+	 *
+	 * @return the total number of instances
+	 */
+	private static long retrieveCounts(VirtualMachine vm, List<ReferenceType> types, Map<ReferenceType, Long> counts) {
+		long[] result;
+		try {
+			result = vm.instanceCounts(types);
+		} catch (ObjectCollectedException e) {
+			if (types.size() == 1) {
+				return 0;
+			}
+			int half = types.size() / 2;
+			return retrieveCounts(vm, types.subList(0, half), counts) + retrieveCounts(vm, types.subList(half, types.size()), counts);
+		}
+		long total = 0;
+		for (int i = 0; i < result.length; i++) {
+			counts.put(types.get(i), Long.valueOf(result[i]));
+			total += result[i];
+		}
+		return total;
+	}
+
+	/**
+	 * @return the debug target of this histogram
+	 */
+	public JDIDebugTarget getDebugTarget() {
+		return fTarget;
+	}
+
+	/**
+	 * @return the time this histogram was taken at, in milliseconds
+	 */
+	public long getTime() {
+		return fTime;
+	}
+
+	/**
+	 * @return the number of types in this histogram
+	 */
+	public int getTypeCount() {
+		return fCounts.size();
+	}
+
+	/**
+	 * @return the total number of instances
+	 */
+	public long getTotalCount() {
+		return fTotal;
+	}
+
+	/**
+	 * Returns the entries of this histogram ordered by growth since the given
+	 * histogram, then by number of instances. Types which no longer have
+	 * instances are included with their negative delta.
+	 *
+	 * @param previous
+	 *            a previous histogram of the same target or <code>null</code>
+	 *            to order by number of instances
+	 * @return the entries with instances or a delta
+	 */
+	public Entry[] compare(JDIHeapHistogram previous) {
+		List<Entry> entries = new ArrayList<>(fCounts.size());
+		for (Map.Entry<ReferenceType, Long> count : fCounts.entrySet()) {
+			long value = count.getValue().longValue();
+			Long before = previous == null ? null : previous.fCounts.get(count.getKey());
+			long delta = before == null ? value : value - before.longValue();
+			if (value != 0 || delta != 0) {
+				entries.add(new Entry(count.getKey(), value, delta));
+			}
+		}
+		if (previous != null) {
+			for (Map.Entry<ReferenceType, Long> count : previous.fCounts.entrySet()) {
+				long before = count.getValue().longValue();
+				if (before != 0 && !fCounts.containsKey(count.getKey())) {
+					entries.add(new Entry(count.getKey(), 0, -before));
+				}
+			}
+		}
+		Entry[] result = entries.toArray(new Entry[entries.size()]);
+		Arrays.sort(result, BY_GROWTH);
+		return result;
+	}
+
+	/**
+	 * Returns the debug model type of the given entry, for example to retrieve
+	 * its instances.
+	 *
+	 * @param entry
+	 *            an entry of this histogram
+	 * @return the reference type
+	 */
+	public JDIReferenceType getType(Entry entry) {
+		return (JDIReferenceType) JDIType.createType(fTarget, entry.getType());
+	}
+}
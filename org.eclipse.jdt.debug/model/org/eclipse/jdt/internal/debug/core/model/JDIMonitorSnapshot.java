@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.jdi.internal.ThreadReferenceImpl;
+import org.eclipse.jdt.debug.core.IJavaMonitorSnapshot;
+import org.eclipse.jdt.debug.core.IJavaObject;
+import org.eclipse.jdt.debug.core.IJavaThread;
+
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ThreadReference;
+
+/**
+ * Monitor information of the suspended threads of a debug target.
+ * <p>
+ * The information of all threads is retrieved with pipelined JDWP requests
+ * when the target runs on the Eclipse JDI implementation. Since a thread waits
+ * for at most one monitor, the wait-for graph has at most one outgoing edge per
+ * thread and its cycles are found with a single walk over all threads.
+ * </p>
+ */
+public class JDIMonitorSnapshot implements IJavaMonitorSnapshot {
+
+	private static final IJavaObject[] NO_MONITORS = new IJavaObject[0];
+
+	/**
+	 * Owned monitors of each thread of this snapshot
+	 */
+	private final Map<IJavaThread, IJavaObject[]> fOwnedMonitors = new LinkedHashMap<>();
+
+	/**
+	 * Contended monitor of each waiting thread
+	 */
+	private final Map<IJavaThread, IJavaObject> fContendedMonitors = new HashMap<>();
+
+	/**
+	 * Owning thread of each owned monitor
+	 */
+	private final Map<IJavaObject, IJavaThread> fOwningThreads = new HashMap<>();
+
+	private final Set<IJavaThread> fThreadsInDeadlock = new HashSet<>();
+	private final Set<IJavaObject> fMonitorsInDeadlock = new HashSet<>();
+	private final List<IJavaThread[]> fDeadlocks = new ArrayList<>();
+
+	/**
+	 * Retrieves the monitor information of the given threads and computes the
+	 * deadlocks between them.
+	 *
+	 * @param target
+	 *            the debug target
+	 * @param threads
+	 *            the suspended threads of the target
+	 * @throws DebugException
+	 *             if the monitor information cannot be retrieved
+	 */
+	JDIMonitorSnapshot(JDIDebugTarget target, List<JDIThread> threads) throws DebugException {
+		try {
+			if (isPipelined(threads)) {
+				retrievePipelined(target, threads);
+			} else {
+				retrieve(target, threads);
+			}
+		} catch (RuntimeException e) {
+			target.targetRequestFailed(JDIDebugModelMessages.JDIDebugTarget_exception_retrieving_monitor_information, e);
+		}
+		computeDeadlocks();
+	}
+
+	private boolean isPipelined(List<JDIThread> threads) {
+		for (JDIThread thread : threads) {
+			if (!(thread.getUnderlyingThread() instanceof ThreadReferenceImpl)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void retrievePipelined(JDIDebugTarget target, List<JDIThread> threads) {
+		List<ThreadReferenceImpl> references = new ArrayList<>(threads.size());
+		Map<ThreadReference, JDIThread> byReference = new HashMap<>();
+		for (JDIThread thread : threads) {
+			ThreadReferenceImpl reference = (ThreadReferenceImpl) thread.getUnderlyingThread();
+			references.add(reference);
+			byReference.put(reference, thread);
+		}
+		Map<ThreadReference, ThreadReferenceImpl.Monitors> monitors = ThreadReferenceImpl.monitors(references);
+		for (ThreadReferenceImpl reference : references) {
+			ThreadReferenceImpl.Monitors threadMonitors = monitors.get(reference);
+			if (threadMonitors != null) {
+				add(target, byReference.get(reference), threadMonitors.ownedMonitors(), threadMonitors.currentContendedMonitor());
+			}
+		}
+	}
+
+	private void retrieve(JDIDebugTarget target, List<JDIThread> threads) {
+		for (JDIThread thread : threads) {
+			ThreadReference reference = thread.getUnderlyingThread();
+			try {
+				add(target, thread, reference.ownedMonitors(), reference.currentContendedMonitor());
+			} catch (IncompatibleThreadStateException e) {
+				// the thread has been resumed in the meantime
+			}
+		}
+	}
+
+	private void add(JDIDebugTarget target, IJavaThread thread, List<ObjectReference> ownedMonitors, ObjectReference contendedMonitor) {
+		IJavaObject[] owned = NO_MONITORS;
+		if (!ownedMonitors.isEmpty()) {
+			owned = new IJavaObject[ownedMonitors.size()];
+			for (int i = 0; i < owned.length; i++) {
+				owned[i] = new JDIObjectValue(target, ownedMonitors.get(i));
+				fOwningThreads.put(owned[i], thread);
+			}
+		}
+		fOwnedMonitors.put(thread, owned);
+		if (contendedMonitor != null) {
+			fContendedMonitors.put(thread, new JDIObjectValue(target, contendedMonitor));
+		}
+	}
+
+	/**
+	 * Walks the wait-for chains of all threads, visiting every thread once. A
+	 * chain either ends at a thread which is not waiting, joins a chain visited
+	 * before or closes a cycle. All threads of a chain leading to a cycle are in
+	 * a deadlock.
+	 */
+	private void computeDeadlocks() {
+		// threads whose chain has been completely walked
+		Set<IJavaThread> visited = new HashSet<>();
+		for (IJavaThread start : fOwnedMonitors.keySet()) {
+			if (visited.contains(start)) {
+				continue;
+			}
+			List<IJavaThread> chain = new ArrayList<>();
+			Map<IJavaThread, Integer> onChain = new HashMap<>();
+			IJavaThread thread = start;
+			boolean inDeadlock = false;
+			while (thread != null) {
+				if (visited.contains(thread)) {
+					inDeadlock = fThreadsInDeadlock.contains(thread);
+					break;
+				}
+				Integer index = onChain.get(thread);
+				if (index != null) {
+					fDeadlocks.add(chain.subList(index.intValue(), chain.size()).toArray(new IJavaThread[0]));
+					inDeadlock = true;
+					break;
+				}
+				onChain.put(thread, Integer.valueOf(chain.size()));
+				chain.add(thread);
+				IJavaObject monitor = fContendedMonitors.get(thread);
+				thread = monitor == null ? null : fOwningThreads.get(monitor);
+			}
+			visited.addAll(chain);
+			if (inDeadlock) {
+				for (IJavaThread waiting : chain) {
+					fThreadsInDeadlock.add(waiting);
+					fMonitorsInDeadlock.add(fContendedMonitors.get(waiting));
+				}
+			}
+		}
+	}
+
+	@Override
+	public IJavaThread[] getThreads() {
+		return fOwnedMonitors.keySet().toArray(new IJavaThread[fOwnedMonitors.size()]);
+	}
+
+	@Override
+	public boolean contains(IJavaThread thread) {
+		return fOwnedMonitors.containsKey(thread);
+	}
+
+	@Override
+	public IJavaObject[] getOwnedMonitors(IJavaThread thread) {
+		IJavaObject[] monitors = fOwnedMonitors.get(thread);
+		return monitors == null ? NO_MONITORS : monitors.clone();
+	}
+
+	@Override
+	public IJavaObject getContendedMonitor(IJavaThread thread) {
+		return fContendedMonitors.get(thread);
+	}
+
+	@Override
+	public IJavaThread getOwningThread(IJavaObject monitor) {
+		return fOwningThreads.get(monitor);
+	}
+
+	@Override
+	public IJavaThread[][] getDeadlocks() {
+		return fDeadlocks.toArray(new IJavaThread[fDeadlocks.size()][]);
+	}
+
+	@Override
+	public boolean isInDeadlock(IJavaThread thread) {
+		return fThreadsInDeadlock.contains(thread);
+	}
+
+	@Override
+	public boolean isInDeadlock(IJavaObject monitor) {
+		return fMonitorsInDeadlock.contains(monitor);
+	}
+}
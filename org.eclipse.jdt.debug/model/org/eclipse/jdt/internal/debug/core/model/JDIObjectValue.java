@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,17 +17,22 @@ package org.eclipse.jdt.internal.debug.core.model;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IIndexedValue;
 import org.eclipse.debug.core.model.IValue;
+import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.jdi.internal.InterfaceTypeImpl;
 import org.eclipse.jdt.debug.core.IJavaFieldVariable;
 import org.eclipse.jdt.debug.core.IJavaObject;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.jdt.debug.core.IJavaValue;
+import org.eclipse.jdt.debug.core.IJavaVariable;
 
 import com.sun.jdi.ArrayType;
 import com.sun.jdi.ClassType;
@@ -35,6 +40,7 @@ import com.sun.jdi.Field;
 import com.sun.jdi.IncompatibleThreadStateException;
 import com.sun.jdi.InterfaceType;
 import com.sun.jdi.Method;
+import com.sun.jdi.ObjectCollectedException;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
@@ -43,13 +49,35 @@ import com.sun.jdi.Value;
 
 /**
  * Implementation of a value referencing an object on the target VM.
+ * <p>
+ * The fields of an object are indexed like the elements of an array, so that
+ * the variables view partitions objects with many fields. Field variables are
+ * created for the partitions shown, and their values are retrieved a page at a
+ * time.
+ * </p>
  */
-public class JDIObjectValue extends JDIValue implements IJavaObject {
+public class JDIObjectValue extends JDIValue implements IJavaObject, IIndexedValue {
 
-	private IJavaObject[] fCachedReferences;
+	private List<ObjectReference> fCachedReferences;
 	private int fSuspendCount;
 	private long fPreviousMax;
 
+	/**
+	 * The fields of this object in the order of its children, statics first
+	 * and sorted by name within each group, computed on first access
+	 */
+	private List<Field> fFields;
+
+	/**
+	 * The variable of each field of {@link #fFields}, created on first access
+	 */
+	private IJavaVariable[] fFieldVariables;
+
+	/**
+	 * The values of the fields of {@link #fFields}
+	 */
+	private JDIFieldValues fFieldValues;
+
 	/**
 	 * Constructs a new target object on the given target with the specified
 	 * object reference.
@@ -547,6 +575,28 @@ public class JDIObjectValue extends JDIValue implements IJavaObject {
 	 */
 	@Override
 	public IJavaObject[] getReferringObjects(long max) throws DebugException {
+		List<ObjectReference> list = getReferringObjectReferences(max);
+		IJavaObject[] references = new IJavaObject[list.size()];
+		for (int i = 0; i < references.length; i++) {
+			references[i] = (IJavaObject) JDIValue.createValue(
+					getJavaDebugTarget(), list.get(i));
+		}
+		return references;
+	}
+
+	/**
+	 * Returns the objects referring to this object without creating a value
+	 * for each of them, see {@link JDIReferenceType#getInstanceReferences(long)}.
+	 *
+	 * @param max
+	 *            the maximum number of referring objects to return or 0 for
+	 *            all
+	 * @return the objects referring to this object
+	 * @throws DebugException
+	 *             if the referring objects cannot be retrieved
+	 * @see #getReferringObjects(long)
+	 */
+	public synchronized List<ObjectReference> getReferringObjectReferences(long max) throws DebugException {
 		// The cached references should be reloaded if the suspend count has
 		// changed, or the maximum entries has changed
 		if (fCachedReferences == null
@@ -583,13 +633,7 @@ public class JDIObjectValue extends JDIValue implements IJavaObject {
 	 */
 	protected void reloadReferringObjects(long max) throws DebugException {
 		try {
-			List<ObjectReference> list = getUnderlyingObject().referringObjects(max);
-			IJavaObject[] references = new IJavaObject[list.size()];
-			for (int i = 0; i < references.length; i++) {
-				references[i] = (IJavaObject) JDIValue.createValue(
-						getJavaDebugTarget(), list.get(i));
-			}
-			fCachedReferences = references;
+			fCachedReferences = getUnderlyingObject().referringObjects(max);
 		} catch (RuntimeException e) {
 			fCachedReferences = null;
 			targetRequestFailed(MessageFormat.format(
@@ -634,4 +678,145 @@ public class JDIObjectValue extends JDIValue implements IJavaObject {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the variables of the fields of this object. Arrays are handled
+	 * by {@link JDIValue}.
+	 *
+	 * @see org.eclipse.jdt.internal.debug.core.model.JDIValue#getVariablesList()
+	 */
+	@Override
+	protected synchronized List<IJavaVariable> getVariablesList() throws DebugException {
+		if (isArray()) {
+			return super.getVariablesList();
+		}
+		List<Field> fields = getFields();
+		if (fields.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Arrays.asList(getFieldVariables(0, fields.size()));
+	}
+
+	/**
+	 * Returns the fields of this object in the order of its children, statics
+	 * first and sorted by name within each group.
+	 *
+	 * @return the fields, empty if the object has been collected
+	 * @throws DebugException
+	 *             if the fields cannot be retrieved
+	 */
+	private synchronized List<Field> getFields() throws DebugException {
+		if (fFields == null) {
+			ObjectReference object = getUnderlyingObject();
+			if (object == null || isArray()) {
+				return Collections.emptyList();
+			}
+			List<Field> fields;
+			try {
+				fields = new ArrayList<>(object.referenceType().allFields());
+			} catch (ObjectCollectedException e) {
+				return Collections.emptyList();
+			} catch (RuntimeException e) {
+				targetRequestFailed(
+						MessageFormat.format(
+								JDIDebugModelMessages.JDIValue_exception_retrieving_fields,
+								e.toString()), e);
+				// execution will not reach this line, as
+				// #targetRequestFailed will thrown an exception
+				return null;
+			}
+			Collections.sort(fields, new Comparator<Field>() {
+				@Override
+				public int compare(Field f1, Field f2) {
+					if (f1.isStatic() != f2.isStatic()) {
+						return f1.isStatic() ? -1 : 1;
+					}
+					return f1.name().compareToIgnoreCase(f2.name());
+				}
+			});
+			fFieldVariables = new IJavaVariable[fields.size()];
+			fFieldValues = new JDIFieldValues(getJavaDebugTarget(), object, fields);
+			fFields = fields;
+		}
+		return fFields;
+	}
+
+	/**
+	 * Returns the variables of the given range of fields, creating them if
+	 * necessary.
+	 */
+	private synchronized IJavaVariable[] getFieldVariables(int offset, int length) {
+		IJavaVariable[] variables = new IJavaVariable[length];
+		for (int i = 0; i < length; i++) {
+			int position = offset + i;
+			if (fFieldVariables[position] == null) {
+				fFieldVariables[position] = new JDIFieldVariable(
+						getJavaDebugTarget(), fFields.get(position),
+						getUnderlyingObject(), fLogicalParent, fFieldValues,
+						position);
+			}
+			variables[i] = fFieldVariables[position];
+		}
+		return variables;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jdt.internal.debug.core.model.JDIValue#hasVariables()
+	 */
+	@Override
+	public boolean hasVariables() throws DebugException {
+		if (isArray()) {
+			return super.hasVariables();
+		}
+		return getSize() > 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getSize()
+	 */
+	@Override
+	public int getSize() throws DebugException {
+		return getFields().size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getVariable(int)
+	 */
+	@Override
+	public IVariable getVariable(int offset) throws DebugException {
+		return getVariables(offset, 1)[0];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getVariables(int, int)
+	 */
+	@Override
+	public synchronized IVariable[] getVariables(int offset, int length) throws DebugException {
+		int size = getSize();
+		if (offset >= size) {
+			requestFailed(JDIDebugModelMessages.JDIArrayValue_6, new IndexOutOfBoundsException(Integer.toString(offset)));
+		}
+		if ((offset + length - 1) >= size) {
+			requestFailed(JDIDebugModelMessages.JDIArrayValue_8, new IndexOutOfBoundsException(Integer.toString(offset + length - 1)));
+		}
+		return getFieldVariables(offset, length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getInitialOffset()
+	 */
+	@Override
+	public int getInitialOffset() {
+		return 0;
+	}
+}
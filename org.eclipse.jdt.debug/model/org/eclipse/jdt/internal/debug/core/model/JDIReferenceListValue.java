@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,13 +15,14 @@
 package org.eclipse.jdt.internal.debug.core.model;
 
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.model.IIndexedValue;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.jdt.debug.core.IJavaObject;
 import org.eclipse.jdt.debug.core.IJavaType;
-import org.eclipse.jdt.debug.core.IJavaVariable;
 import org.eclipse.jdt.internal.debug.core.HeapWalkingManager;
 import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
 import org.eclipse.jdt.internal.debug.core.logicalstructures.JDIPlaceholderVariable;
@@ -70,34 +71,53 @@ public class JDIReferenceListValue extends JDIObjectValue implements
 	}
 
 	/**
-	 * @return all references to the root object as an array of IJavaObjects
+	 * @return the objects referring to the root object, at most as many as the
+	 *         preference allows. Values are created for the entries when they
+	 *         are accessed.
 	 */
-	protected synchronized IJavaObject[] getReferences() {
+	protected synchronized List<ObjectReference> getReferenceList() {
 		try {
 			int max = HeapWalkingManager.getDefault()
 					.getAllReferencesMaxCount();
-			IJavaObject[] referringObjects = null;
 			fIsMoreThanPreference = false;
 			if (max == 0) {
-				referringObjects = fRoot.getReferringObjects(max);
-			} else {
-				referringObjects = fRoot.getReferringObjects(max + 1);
-				if (referringObjects.length > max) {
-					fIsMoreThanPreference = true;
-					referringObjects[max] = new JDIPlaceholderValue(
-							(JDIDebugTarget) fRoot.getDebugTarget(),
-							MessageFormat
-									.format(JDIDebugModelMessages.JDIReferenceListValue_9,
-											Integer.toString(max)));
-				}
+				return ((JDIObjectValue) fRoot).getReferringObjectReferences(max);
+			}
+			List<ObjectReference> referringObjects = ((JDIObjectValue) fRoot).getReferringObjectReferences(max + 1);
+			if (referringObjects.size() > max) {
+				fIsMoreThanPreference = true;
+				return referringObjects.subList(0, max);
 			}
 			return referringObjects;
 		} catch (DebugException e) {
 			JDIDebugPlugin.log(e);
-			return new IJavaObject[0];
+			return Collections.emptyList();
 		}
 	}
 
+	/**
+	 * @return all references to the root object as an array of IJavaObjects
+	 */
+	protected synchronized IJavaObject[] getReferences() {
+		List<ObjectReference> list = getReferenceList();
+		IJavaObject[] referringObjects = new IJavaObject[fIsMoreThanPreference ? list.size() + 1 : list.size()];
+		for (int i = 0; i < list.size(); i++) {
+			referringObjects[i] = (IJavaObject) JDIValue.createValue(getJavaDebugTarget(), list.get(i));
+		}
+		if (fIsMoreThanPreference) {
+			referringObjects[list.size()] = createMoreThanPreferenceValue();
+		}
+		return referringObjects;
+	}
+
+	private IJavaObject createMoreThanPreferenceValue() {
+		return new JDIPlaceholderValue(
+				(JDIDebugTarget) fRoot.getDebugTarget(),
+				MessageFormat
+						.format(JDIDebugModelMessages.JDIReferenceListValue_9,
+								Integer.toString(HeapWalkingManager.getDefault().getAllReferencesMaxCount())));
+	}
+
 	/**
 	 * @return whether the references to the root object have been loaded from
 	 *         the vm yet.
@@ -116,22 +136,7 @@ public class JDIReferenceListValue extends JDIObjectValue implements
 	 */
 	@Override
 	public IVariable[] getVariables() throws DebugException {
-		IJavaObject[] elements = getReferences();
-		IVariable[] vars = new JDIPlaceholderVariable[elements.length];
-		int length = elements.length;
-		if (fIsMoreThanPreference) {
-			length--;
-			vars[length] = new JDIPlaceholderVariable(
-					JDIDebugModelMessages.JDIReferenceListValue_11,
-					elements[length]);
-		}
-
-		for (int i = 0; i < length; i++) {
-			vars[i] = new JDIReferenceListEntryVariable(MessageFormat.format(
-					JDIDebugModelMessages.JDIReferenceListValue_0,
-					Integer.toString(i)), elements[i]);
-		}
-		return vars;
+		return getVariables(0, getSize());
 	}
 
 	/*
@@ -154,7 +159,7 @@ public class JDIReferenceListValue extends JDIObjectValue implements
 	@Override
 	public boolean hasVariables() throws DebugException {
 		if (referencesLoaded()) {
-			return getReferences().length > 0;
+			return getSize() > 0;
 		}
 		return true;
 	}
@@ -304,8 +309,9 @@ public class JDIReferenceListValue extends JDIObjectValue implements
 	 * @see org.eclipse.debug.core.model.IIndexedValue#getSize()
 	 */
 	@Override
-	public int getSize() throws DebugException {
-		return getVariables().length;
+	public synchronized int getSize() throws DebugException {
+		int size = getReferenceList().size();
+		return fIsMoreThanPreference ? size + 1 : size;
 	}
 
 	/*
@@ -314,10 +320,17 @@ public class JDIReferenceListValue extends JDIObjectValue implements
 	 * @see org.eclipse.debug.core.model.IIndexedValue#getVariable(int)
 	 */
 	@Override
-	public IVariable getVariable(int offset) throws DebugException {
-		IVariable[] variables = getVariables();
-		if (offset < variables.length) {
-			return variables[offset];
+	public synchronized IVariable getVariable(int offset) throws DebugException {
+		List<ObjectReference> list = getReferenceList();
+		if (offset >= 0 && offset < list.size()) {
+			return new JDIReferenceListEntryVariable(MessageFormat.format(
+					JDIDebugModelMessages.JDIReferenceListValue_0,
+					Integer.toString(offset)), (IJavaObject) JDIValue.createValue(getJavaDebugTarget(), list.get(offset)));
+		}
+		if (fIsMoreThanPreference && offset == list.size()) {
+			return new JDIPlaceholderVariable(
+					JDIDebugModelMessages.JDIReferenceListValue_11,
+					createMoreThanPreferenceValue());
 		}
 		requestFailed(JDIDebugModelMessages.JDIReferenceListValue_7, new IndexOutOfBoundsException());
 		return null;
@@ -329,16 +342,16 @@ public class JDIReferenceListValue extends JDIObjectValue implements
 	 * @see org.eclipse.debug.core.model.IIndexedValue#getVariables(int, int)
 	 */
 	@Override
-	public IVariable[] getVariables(int offset, int length)
+	public synchronized IVariable[] getVariables(int offset, int length)
 			throws DebugException {
-		IVariable[] variables = getVariables();
-		if (offset < variables.length && (offset + length) <= variables.length) {
-			IJavaVariable[] vars = new IJavaVariable[length];
-			System.arraycopy(variables, offset, vars, 0, length);
-			return vars;
+		if (offset < 0 || length < 0 || offset + length > getSize()) {
+			requestFailed(JDIDebugModelMessages.JDIReferenceListValue_8, new IndexOutOfBoundsException());
 		}
-		requestFailed(JDIDebugModelMessages.JDIReferenceListValue_8, new IndexOutOfBoundsException());
-		return null;
+		IVariable[] vars = new IVariable[length];
+		for (int i = 0; i < length; i++) {
+			vars[i] = getVariable(offset + i);
+		}
+		return vars;
 	}
 
 }
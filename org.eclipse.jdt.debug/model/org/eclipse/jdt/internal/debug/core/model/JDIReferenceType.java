@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -367,18 +367,35 @@ public abstract class JDIReferenceType extends JDIType implements
 	 */
 	@Override
 	public IJavaObject[] getInstances(long max) throws DebugException {
+		List<ObjectReference> list = getInstanceReferences(max);
+		IJavaObject[] instances = new IJavaObject[list.size()];
+		for (int i = 0; i < instances.length; i++) {
+			instances[i] = (IJavaObject) JDIValue.createValue(
+					getJavaDebugTarget(), list.get(i));
+		}
+		return instances;
+	}
+
+	/**
+	 * Returns the instances of this type without creating a value for each of
+	 * them. The Eclipse JDI implementation creates the mirror of an instance
+	 * when it is accessed, so a page of a large list of instances can be
+	 * shown without materializing the others.
+	 *
+	 * @param max
+	 *            the maximum number of instances to return or 0 for all
+	 * @return the instances of this type
+	 * @throws DebugException
+	 *             if the instances cannot be retrieved
+	 * @see #getInstances(long)
+	 */
+	public List<ObjectReference> getInstanceReferences(long max) throws DebugException {
 		try {
-			List<ObjectReference> list = getReferenceType().instances(max);
-			IJavaObject[] instances = new IJavaObject[list.size()];
-			for (int i = 0; i < instances.length; i++) {
-				instances[i] = (IJavaObject) JDIValue.createValue(
-						getJavaDebugTarget(), list.get(i));
-			}
-			return instances;
+			return getReferenceType().instances(max);
 		} catch (RuntimeException e) {
 			targetRequestFailed(JDIDebugModelMessages.JDIReferenceType_5, e);
 		}
-		return null;
+		return Collections.emptyList();
 	}
 
 	/*
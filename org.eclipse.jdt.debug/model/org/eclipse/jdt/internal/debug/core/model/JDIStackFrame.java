@@ -343,31 +343,30 @@ public class JDIStackFrame extends JDIDebugElement implements IJavaStackFrame {
 						return Collections.EMPTY_LIST;
 					}
 					if (allFields != null) {
+						List<Field> staticFields = new ArrayList<>();
 						Iterator<Field> fields = allFields.iterator();
 						while (fields.hasNext()) {
 							Field field = fields.next();
 							if (field.isStatic()) {
-								fVariables.add(new JDIFieldVariable(
-										(JDIDebugTarget) getDebugTarget(),
-										field, declaringType));
+								staticFields.add(field);
 							}
 						}
-						Collections.sort(fVariables,
-								new Comparator<IJavaVariable>() {
-									@Override
-									public int compare(IJavaVariable a, IJavaVariable b) {
-										JDIFieldVariable v1 = (JDIFieldVariable) a;
-										JDIFieldVariable v2 = (JDIFieldVariable) b;
-										try {
-											return v1.getName()
-													.compareToIgnoreCase(
-															v2.getName());
-										} catch (DebugException de) {
-											logError(de);
-											return -1;
-										}
-									}
-								});
+						Collections.sort(staticFields, new Comparator<Field>() {
+							@Override
+							public int compare(Field f1, Field f2) {
+								return f1.name().compareToIgnoreCase(f2.name());
+							}
+						});
+						// the values of the statics are retrieved a page at a time
+						JDIFieldValues values = new JDIFieldValues(
+								(JDIDebugTarget) getDebugTarget(), null,
+								staticFields);
+						for (int i = 0; i < staticFields.size(); i++) {
+							fVariables.add(new JDIFieldVariable(
+									(JDIDebugTarget) getDebugTarget(),
+									staticFields.get(i), declaringType, values,
+									i));
+						}
 					}
 				} else {
 					// add "this"
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.jdi.Field;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
+
+/**
+ * Values of the static fields of the types of a debug target. The static
+ * fields declared by a type are retrieved with one request when the first of
+ * them is needed, instead of one request per field.
+ * <p>
+ * The values are only kept while the whole target is suspended, until a thread
+ * of the target suspends or resumes or a field is modified, see
+ * {@link JDIDebugTarget#getFieldValueGeneration()}. Running threads may change
+ * them at any time. Constants, the final static fields of primitive and
+ * <code>String</code> types of initialized types, cannot change and are kept
+ * until a hot code replace.
+ * </p>
+ */
+class JDIStaticFieldValues {
+
+	private static final String STRING_SIGNATURE = "Ljava/lang/String;"; //$NON-NLS-1$
+
+	private final JDIDebugTarget fTarget;
+
+	/**
+	 * Values of the static fields of each type retrieved in the current
+	 * generation
+	 */
+	private final Map<ReferenceType, Map<Field, Value>> fValues = new HashMap<>();
+
+	/**
+	 * Values of the constants of each initialized type
+	 */
+	private final Map<ReferenceType, Map<Field, Value>> fConstants = new HashMap<>();
+
+	/**
+	 * Field value generation of the target when {@link #fValues} were
+	 * retrieved
+	 */
+	private int fGeneration;
+
+	/**
+	 * Constructs the static field values of the given target.
+	 *
+	 * @param target
+	 *            the debug target
+	 */
+	JDIStaticFieldValues(JDIDebugTarget target) {
+		fTarget = target;
+		fGeneration = target.getFieldValueGeneration();
+	}
+
+	/**
+	 * Returns the value of the given static field, retrieving the values of
+	 * all static fields of its declaring type if necessary.
+	 *
+	 * @param field
+	 *            a static field
+	 * @return the value of the field
+	 * @throws RuntimeException
+	 *             if the value cannot be retrieved, see
+	 *             {@link ReferenceType#getValue(Field)}
+	 */
+	Value getValue(Field field) {
+		ReferenceType type = field.declaringType();
+		Map<Field, Value> values = getValues(type);
+		if (values != null && values.containsKey(field)) {
+			return values.get(field);
+		}
+		synchronized (this) {
+			Map<Field, Value> constants = fConstants.get(type);
+			if (constants != null && constants.containsKey(field)) {
+				return constants.get(field);
+			}
+		}
+		return type.getValue(field);
+	}
+
+	/**
+	 * Returns the values of the static fields declared by the given type,
+	 * retrieving them if necessary.
+	 *
+	 * @param type
+	 *            the type
+	 * @return the values of the static fields of the type, or
+	 *         <code>null</code> if they cannot be retrieved at once or the
+	 *         target is not suspended
+	 */
+	Map<Field, Value> getValues(ReferenceType type) {
+		if (!fTarget.isSuspended()) {
+			// running threads may change the values at any time
+			return null;
+		}
+		int generation;
+		Map<Field, Value> constants;
+		synchronized (this) {
+			generation = fTarget.getFieldValueGeneration();
+			if (generation != fGeneration) {
+				fValues.clear();
+				fGeneration = generation;
+			}
+			Map<Field, Value> values = fValues.get(type);
+			if (values != null) {
+				return values;
+			}
+			constants = fConstants.get(type);
+		}
+		try {
+			List<Field> fields = new ArrayList<>();
+			for (Field field : type.fields()) {
+				if (field.isStatic() && (constants == null || !constants.containsKey(field))) {
+					fields.add(field);
+				}
+			}
+			// a type is initialized before reading its constants, as they
+			// have the default values of their types until then
+			List<Field> constantFields = constants == null ? getConstantFields(fields) : null;
+			boolean initialized = constantFields != null && (constantFields.isEmpty() || type.isInitialized());
+			Map<Field, Value> values = new HashMap<>(type.getValues(fields));
+			if (constants == null) {
+				if (initialized) {
+					constants = new HashMap<>();
+					for (Field field : constantFields) {
+						constants.put(field, values.get(field));
+					}
+				}
+			} else {
+				values.putAll(constants);
+			}
+			synchronized (this) {
+				if (constants != null) {
+					fConstants.put(type, constants);
+				}
+				// do not keep values which may have changed meanwhile
+				if (fTarget.getFieldValueGeneration() == generation) {
+					fValues.put(type, values);
+				}
+			}
+			return values;
+		} catch (RuntimeException e) {
+			// the field reports the failure when retrieving its value
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the final static fields of primitive and <code>String</code>
+	 * types among the given fields.
+	 */
+	private List<Field> getConstantFields(List<Field> fields) {
+		List<Field> constants = new ArrayList<>();
+		for (Field field : fields) {
+			String signature = field.signature();
+			if (field.isFinal() && (signature.length() == 1 || STRING_SIGNATURE.equals(signature))) {
+				constants.add(field);
+			}
+		}
+		return constants;
+	}
+
+	/**
+	 * Discards all values when types have been redefined.
+	 */
+	synchronized void typesRedefined() {
+		fValues.clear();
+		fConstants.clear();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,10 +41,10 @@ import org.eclipse.debug.core.model.IBreakpoint;
 import org.eclipse.debug.core.model.IDebugTarget;
 import org.eclipse.debug.core.model.IStackFrame;
 import org.eclipse.debug.core.model.IStep;
-import org.eclipse.debug.core.model.IStepFilter;
 import org.eclipse.debug.core.model.ISuspendResume;
 import org.eclipse.debug.core.model.ITerminate;
 import org.eclipse.debug.core.model.IThread;
+import org.eclipse.jdi.internal.ThreadReferenceImpl.ThreadState;
 import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.debug.core.IEvaluationRunnable;
 import org.eclipse.jdt.debug.core.IJavaBreakpoint;
@@ -393,9 +393,12 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		// state
 		setTerminated(false);
 		setRunning(false);
+		JDIThreadStateSnapshot states = getJavaDebugTarget().getThreadStates();
+		ThreadState state = states == null ? null : states.getState(fThread);
 		try {
 			// see bug 30816
-			if (fThread.status() == ThreadReference.THREAD_STATUS_UNKNOWN) {
+			int status = state == null ? fThread.status() : state.status();
+			if (status == ThreadReference.THREAD_STATUS_UNKNOWN) {
 				setRunning(true);
 				return;
 			}
@@ -414,7 +417,7 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 			// class prepare event quietly). The class prepare event handler
 			// will notify
 			// this thread when it resumes
-			setRunning(!fThread.isSuspended());
+			setRunning(!(state == null ? fThread.isSuspended() : state.isSuspended()));
 		} catch (VMDisconnectedException e) {
 			disconnected();
 			return;
@@ -588,6 +591,12 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 */
 	protected void determineIfDaemonThread() throws DebugException {
 		fIsDaemon = false;
+		JDIThreadStateSnapshot states = getJavaDebugTarget().getThreadStates();
+		Boolean daemon = states == null ? null : states.isDaemon(fThread);
+		if (daemon != null) {
+			fIsDaemon = daemon.booleanValue();
+			return;
+		}
 		try {
 			ReferenceType referenceType = getUnderlyingThread().referenceType();
 			Field field = referenceType.fieldByName("daemon"); //$NON-NLS-1$
@@ -1328,6 +1337,12 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 	 */
 	@Override
 	public String getName() throws DebugException {
+		JDIThreadStateSnapshot states = getJavaDebugTarget().getThreadStates();
+		String name = states == null ? null : states.getName(fThread);
+		if (name != null) {
+			fPreviousName = name;
+			return name;
+		}
 		try {
 			fPreviousName = fThread.name();
 		} catch (RuntimeException e) {
@@ -1776,6 +1791,9 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		fRunning = running;
 		if (running) {
 			fCurrentBreakpoints.clear();
+			getJavaDebugTarget().threadResumed(fThread);
+		} else {
+			getJavaDebugTarget().threadSuspended(fThread);
 		}
 	}
 
@@ -3021,19 +3039,13 @@ public class JDIThread extends JDIDebugElement implements IJavaThread {
 		protected boolean locationIsFiltered(Method method, boolean orig) {
 			if (isStepFiltersEnabled()) {
 				JDIDebugTarget target = getJavaDebugTarget();
-				if ((target.isFilterStaticInitializers() && method.isStaticInitializer())
-						|| (target.isFilterSynthetics() && method.isSynthetic())
-						|| (target.isFilterConstructors() && method.isConstructor())
-						|| (target.isFilterGetters() && JDIMethod.isGetterMethod(method))
-						|| (target.isFilterSetters() && JDIMethod.isSetterMethod(method))) {
+				// the verdicts are cached per method, step events repeatedly end in the same methods
+				StepFilterCache cache = target.getStepFilterCache();
+				if (cache.isFiltered(method, target)) {
 					return true;
 				}
-				if(!orig) {
-					for (IStepFilter contributedFilter : DebugPlugin.getStepFilters(JDIDebugPlugin.getUniqueIdentifier())) {
-						if (contributedFilter.isFiltered(method)) {
-							return true;
-						}
-					}
+				if (!orig && cache.isFilteredByContributedFilters(method)) {
+					return true;
 				}
 			}
 			return false;
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdi.internal.FieldImpl;
+import org.eclipse.jdi.internal.ThreadReferenceImpl;
+import org.eclipse.jdi.internal.ThreadReferenceImpl.ThreadState;
+import org.eclipse.jdt.core.Signature;
+
+import com.sun.jdi.BooleanValue;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+/**
+ * Name, status, suspend count, thread group and daemon flag of all threads of a
+ * debug target, retrieved with pipelined JDWP requests when the target runs on
+ * the Eclipse JDI implementation.
+ * <p>
+ * The thread groups are cached by the JDI implementation. The state of a thread
+ * is dropped when the thread resumes, its name when the thread changes its
+ * name. The threads then retrieve this information themselves.
+ * </p>
+ */
+class JDIThreadStateSnapshot {
+
+	private static final String THREAD_TYPE_NAME = "java.lang.Thread"; //$NON-NLS-1$
+
+	private final Map<ThreadReference, ThreadState> fStates;
+
+	/**
+	 * Whether name changes are reported to this snapshot, names are not used
+	 * otherwise
+	 */
+	private final boolean fNamesTracked;
+
+	/**
+	 * Whether the daemon flag was retrieved, threads are no daemons otherwise
+	 */
+	private final boolean fDaemonRetrieved;
+
+	private final Set<ThreadReference> fChangedNames = ConcurrentHashMap.newKeySet();
+	private final Set<ThreadReference> fResumed = ConcurrentHashMap.newKeySet();
+
+	private JDIThreadStateSnapshot(Map<ThreadReference, ThreadState> states, boolean namesTracked, boolean daemonRetrieved) {
+		fStates = states;
+		fNamesTracked = namesTracked;
+		fDaemonRetrieved = daemonRetrieved;
+	}
+
+	/**
+	 * Retrieves the state of the given threads.
+	 *
+	 * @param target
+	 *            the debug target
+	 * @param threads
+	 *            the threads of the target
+	 * @param namesTracked
+	 *            whether {@link #nameChanged(ThreadReference)} is called when a
+	 *            thread changes its name
+	 * @return the snapshot, or <code>null</code> if the threads cannot be
+	 *         retrieved with pipelined requests
+	 */
+	static JDIThreadStateSnapshot create(JDIDebugTarget target, List<ThreadReference> threads, boolean namesTracked) {
+		List<ThreadReferenceImpl> impls = new ArrayList<>(threads.size());
+		for (ThreadReference thread : threads) {
+			if (!(thread instanceof ThreadReferenceImpl)) {
+				return null;
+			}
+			impls.add((ThreadReferenceImpl) thread);
+		}
+		Field daemon = getDaemonField(target);
+		Map<ThreadReference, ThreadState> states = ThreadReferenceImpl.states(impls, (FieldImpl) daemon);
+		if (states == null) {
+			return null;
+		}
+		return new JDIThreadStateSnapshot(Collections.unmodifiableMap(states), namesTracked, daemon != null);
+	}
+
+	/**
+	 * Returns the boolean field of <code>java.lang.Thread</code> holding the
+	 * daemon flag, or <code>null</code>, see
+	 * {@link JDIThread#determineIfDaemonThread()}
+	 */
+	private static Field getDaemonField(JDIDebugTarget target) {
+		for (ReferenceType type : target.jdiClassesByName(THREAD_TYPE_NAME)) {
+			if (type instanceof ClassType) {
+				Field field = type.fieldByName("daemon"); //$NON-NLS-1$
+				if (field == null) {
+					field = type.fieldByName("isDaemon"); //$NON-NLS-1$
+				}
+				if (field != null && field.signature().equals(Signature.SIG_BOOLEAN) && field instanceof FieldImpl) {
+					return field;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the state of the given thread, or <code>null</code> if the
+	 * thread is not part of this snapshot or has been resumed since.
+	 */
+	ThreadState getState(ThreadReference thread) {
+		if (fResumed.contains(thread)) {
+			return null;
+		}
+		return fStates.get(thread);
+	}
+
+	/**
+	 * Returns the name of the given thread, or <code>null</code> if the name is
+	 * not known.
+	 */
+	String getName(ThreadReference thread) {
+		if (!fNamesTracked || fChangedNames.contains(thread)) {
+			return null;
+		}
+		ThreadState state = fStates.get(thread);
+		return state == null ? null : state.name();
+	}
+
+	/**
+	 * Returns whether the given thread is a daemon thread, or <code>null</code>
+	 * if the thread is not part of this snapshot.
+	 */
+	Boolean isDaemon(ThreadReference thread) {
+		ThreadState state = fStates.get(thread);
+		if (state == null) {
+			return null;
+		}
+		if (!fDaemonRetrieved) {
+			return Boolean.FALSE;
+		}
+		Value value = state.fieldValue();
+		return Boolean.valueOf(value instanceof BooleanValue && ((BooleanValue) value).booleanValue());
+	}
+
+	/**
+	 * Called when the given thread changes its name.
+	 */
+	void nameChanged(ThreadReference thread) {
+		fChangedNames.add(thread);
+	}
+
+	/**
+	 * Called when the given thread resumes.
+	 */
+	void resumed(ThreadReference thread) {
+		fResumed.add(thread);
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.model.IStepFilter;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+
+import com.sun.jdi.Method;
+
+/**
+ * Step filter information of the methods of a debug target, so that the step
+ * events in a method filtered out do not evaluate the filters again.
+ * <p>
+ * The properties of a method the built-in filters check do not depend on the
+ * step filter preferences and are kept until a hot code replace. The verdicts
+ * of the contributed step filters are discarded when the step filters of the
+ * target change. The methods of unloaded types are not removed, all entries
+ * are discarded instead when there are too many.
+ * </p>
+ */
+class StepFilterCache {
+
+	private static final int STATIC_INITIALIZER = 0x01;
+	private static final int SYNTHETIC = 0x02;
+	private static final int CONSTRUCTOR = 0x04;
+	private static final int GETTER = 0x08;
+	private static final int SETTER = 0x10;
+	/**
+	 * Whether getter or setter have been determined, as they need the byte
+	 * codes of the method
+	 */
+	private static final int GETTER_KNOWN = 0x20;
+	private static final int SETTER_KNOWN = 0x40;
+
+	/**
+	 * Maximum number of methods kept in each map, all are discarded when
+	 * exceeded
+	 */
+	private static final int MAX_METHODS = 10000;
+
+	/**
+	 * Properties of each method, see the constants
+	 */
+	private final Map<Method, Integer> fProperties = new ConcurrentHashMap<>();
+
+	/**
+	 * Whether each method is filtered by a contributed step filter
+	 */
+	private final Map<Method, Boolean> fContributedVerdicts = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns whether the given method is filtered by the built-in step filters
+	 * enabled for the given target.
+	 *
+	 * @param method
+	 *            the method to check
+	 * @param target
+	 *            the target of the method
+	 * @return whether the method is filtered
+	 */
+	boolean isFiltered(Method method, JDIDebugTarget target) {
+		int properties = getProperties(method, target.isFilterGetters(), target.isFilterSetters());
+		return (target.isFilterStaticInitializers() && (properties & STATIC_INITIALIZER) != 0)
+				|| (target.isFilterSynthetics() && (properties & SYNTHETIC) != 0)
+				|| (target.isFilterConstructors() && (properties & CONSTRUCTOR) != 0)
+				|| (target.isFilterGetters() && (properties & GETTER) != 0)
+				|| (target.isFilterSetters() && (properties & SETTER) != 0);
+	}
+
+	private int getProperties(Method method, boolean getter, boolean setter) {
+		Integer cached = fProperties.get(method);
+		int properties;
+		if (cached == null) {
+			properties = 0;
+			if (method.isStaticInitializer()) {
+				properties |= STATIC_INITIALIZER;
+			}
+			if (method.isSynthetic()) {
+				properties |= SYNTHETIC;
+			}
+			if (method.isConstructor()) {
+				properties |= CONSTRUCTOR;
+			}
+		} else {
+			properties = cached.intValue();
+		}
+		int known = properties;
+		if (getter && (properties & GETTER_KNOWN) == 0) {
+			properties |= GETTER_KNOWN | (JDIMethod.isGetterMethod(method) ? GETTER : 0);
+		}
+		if (setter && (properties & SETTER_KNOWN) == 0) {
+			properties |= SETTER_KNOWN | (JDIMethod.isSetterMethod(method) ? SETTER : 0);
+		}
+		if (cached == null || known != properties) {
+			put(fProperties, method, Integer.valueOf(properties));
+		}
+		return properties;
+	}
+
+	/**
+	 * Returns whether the given method is filtered by one of the step filters
+	 * contributed to the Java debug model.
+	 *
+	 * @param method
+	 *            the method to check
+	 * @return whether the method is filtered
+	 */
+	boolean isFilteredByContributedFilters(Method method) {
+		Boolean verdict = fContributedVerdicts.get(method);
+		if (verdict == null) {
+			verdict = Boolean.FALSE;
+			for (IStepFilter contributedFilter : DebugPlugin.getStepFilters(JDIDebugPlugin.getUniqueIdentifier())) {
+				if (contributedFilter.isFiltered(method)) {
+					verdict = Boolean.TRUE;
+					break;
+				}
+			}
+			put(fContributedVerdicts, method, verdict);
+		}
+		return verdict.booleanValue();
+	}
+
+	private static <V> void put(Map<Method, V> map, Method method, V value) {
+		if (map.size() >= MAX_METHODS) {
+			map.clear();
+		}
+		map.put(method, value);
+	}
+
+	/**
+	 * Discards the verdicts of the contributed step filters, called when the
+	 * step filters change.
+	 */
+	void clearVerdicts() {
+		fContributedVerdicts.clear();
+	}
+
+	/**
+	 * Discards all information, called when types are replaced.
+	 */
+	void clear() {
+		fProperties.clear();
+		fContributedVerdicts.clear();
+	}
+}
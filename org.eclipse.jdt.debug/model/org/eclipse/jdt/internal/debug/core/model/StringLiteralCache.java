@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.jdt.debug.core.IJavaObject;
+import org.eclipse.jdt.debug.core.IJavaValue;
+import org.eclipse.jdt.debug.eval.ICompiledExpression;
+import org.eclipse.jdt.internal.debug.core.JDIDebugPlugin;
+
+import com.sun.jdi.VMDisconnectedException;
+
+/**
+ * The remote strings of the string literals of the compiled expressions a
+ * debug target evaluates repeatedly, such as breakpoint conditions and detail
+ * formatters. The cache owning such an expression retains it while it is
+ * cached and releases it when it is evicted.
+ * <p>
+ * Each literal is created in the target once and shared by all retained
+ * expressions using it. Its garbage collection is disabled until the last of
+ * these expressions is released, so evaluations do not create, pin and
+ * unpin the same strings on every hit.
+ * </p>
+ */
+public class StringLiteralCache {
+
+	/**
+	 * A remote string and the number of retained expressions using it
+	 */
+	private static final class Literal {
+		final IJavaObject fString;
+		int fUses;
+
+		Literal(IJavaObject string) {
+			fString = string;
+		}
+	}
+
+	private final JDIDebugTarget fTarget;
+
+	/**
+	 * The remote string of each literal
+	 */
+	private final Map<String, Literal> fLiterals = new HashMap<>();
+
+	/**
+	 * The literals used by each retained expression
+	 */
+	private final Map<ICompiledExpression, Set<String>> fExpressions = new IdentityHashMap<>();
+
+	/**
+	 * Whether the target has terminated and no more strings are created
+	 */
+	private boolean fDisposed = false;
+
+	/**
+	 * Constructs a cache for the given target.
+	 *
+	 * @param target
+	 *            the debug target
+	 */
+	StringLiteralCache(JDIDebugTarget target) {
+		fTarget = target;
+	}
+
+	/**
+	 * Retains the given expression until it is released. The string literals
+	 * it pushes are shared with later evaluations from then on.
+	 *
+	 * @param expression
+	 *            a compiled expression kept for repeated evaluation
+	 */
+	public synchronized void retain(ICompiledExpression expression) {
+		if (!fDisposed && !fExpressions.containsKey(expression)) {
+			fExpressions.put(expression, new HashSet<String>());
+		}
+	}
+
+	/**
+	 * Releases the given expression. Strings no other retained expression uses
+	 * are collectable again.
+	 *
+	 * @param expression
+	 *            a compiled expression which is no longer cached
+	 */
+	public void release(ICompiledExpression expression) {
+		List<IJavaObject> released = new ArrayList<>();
+		synchronized (this) {
+			Set<String> values = fExpressions.remove(expression);
+			if (values == null) {
+				return;
+			}
+			for (String value : values) {
+				Literal literal = fLiterals.get(value);
+				if (--literal.fUses == 0) {
+					fLiterals.remove(value);
+					released.add(literal.fString);
+				}
+			}
+		}
+		for (IJavaObject string : released) {
+			if (!enableCollection(string)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the shared remote string of the given literal of the given
+	 * expression, creating it and disabling its garbage collection on first
+	 * use. The string is created without holding the lock of the cache, of
+	 * strings created concurrently for the same literal only the first one
+	 * published is kept.
+	 *
+	 * @param expression
+	 *            the expression being evaluated
+	 * @param value
+	 *            the string literal
+	 * @return the remote string, or <code>null</code> if the expression is
+	 *         not retained or the string cannot be created
+	 */
+	public IJavaValue getString(ICompiledExpression expression, String value) {
+		synchronized (this) {
+			Set<String> values = fExpressions.get(expression);
+			if (values == null) {
+				return null;
+			}
+			Literal literal = fLiterals.get(value);
+			if (literal != null) {
+				if (values.add(value)) {
+					literal.fUses++;
+				}
+				return literal.fString;
+			}
+		}
+		IJavaValue string = fTarget.newValue(value);
+		if (!(string instanceof IJavaObject)) {
+			return null;
+		}
+		try {
+			((IJavaObject) string).disableCollection();
+		} catch (DebugException e) {
+			return null;
+		}
+		Literal literal = new Literal((IJavaObject) string);
+		IJavaObject shared = null;
+		synchronized (this) {
+			// the expression may have been released meanwhile
+			Set<String> values = fExpressions.get(expression);
+			if (values != null) {
+				Literal published = fLiterals.putIfAbsent(value, literal);
+				if (published != null) {
+					literal = published;
+				}
+				if (values.add(value)) {
+					literal.fUses++;
+				}
+				shared = literal.fString;
+			}
+		}
+		if (shared != string) {
+			enableCollection((IJavaObject) string);
+		}
+		return shared;
+	}
+
+	/**
+	 * Enables the garbage collection of the given string.
+	 *
+	 * @param string
+	 *            the remote string
+	 * @return <code>false</code> if the target has terminated
+	 */
+	private static boolean enableCollection(IJavaObject string) {
+		try {
+			string.enableCollection();
+		} catch (DebugException e) {
+			// don't worry about GC if the VM has terminated
+			if (e.getStatus().getException() instanceof VMDisconnectedException) {
+				return false;
+			}
+			JDIDebugPlugin.log(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Discards all strings when the target has terminated.
+	 */
+	synchronized void dispose() {
+		fDisposed = true;
+		fLiterals.clear();
+		fExpressions.clear();
+	}
+}
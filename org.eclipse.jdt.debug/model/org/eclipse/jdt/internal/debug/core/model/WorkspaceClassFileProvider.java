@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.debug.core.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdi.internal.ClassFileProvider;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Provides the class files in the output folders of the Java projects in the
+ * workspace, so that the VM does not request the line number and local
+ * variable tables of workspace types from the target. The VM checks that a
+ * class file matches the loaded type before using it.
+ */
+class WorkspaceClassFileProvider implements ClassFileProvider {
+
+	private static final String CLASS_FILE_EXTENSION = ".class"; //$NON-NLS-1$
+
+	/**
+	 * Workspace paths of the output folders, computed on first use
+	 */
+	private volatile IPath[] fOutputLocations;
+
+	@Override
+	public byte[] getClassFile(String typeName) {
+		String path = typeName.replace('.', '/') + CLASS_FILE_EXTENSION;
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (IPath outputLocation : getOutputLocations()) {
+			IResource resource = root.findMember(outputLocation.append(path));
+			if (resource instanceof IFile) {
+				IPath location = resource.getLocation();
+				if (location != null) {
+					try {
+						return Files.readAllBytes(location.toFile().toPath());
+					} catch (IOException e) {
+						return null;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private IPath[] getOutputLocations() {
+		IPath[] outputLocations = fOutputLocations;
+		if (outputLocations == null) {
+			Set<IPath> locations = new LinkedHashSet<>();
+			try {
+				for (IJavaProject project : JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects()) {
+					if (!project.getProject().isOpen()) {
+						continue;
+					}
+					try {
+						locations.add(project.getOutputLocation());
+						for (IClasspathEntry entry : project.getRawClasspath()) {
+							if (entry.getEntryKind() == IClasspathEntry.CPE_SOURCE && entry.getOutputLocation() != null) {
+								locations.add(entry.getOutputLocation());
+							}
+						}
+					} catch (JavaModelException e) {
+						// the project is skipped
+					}
+				}
+			} catch (JavaModelException e) {
+				// no output locations
+			}
+			outputLocations = locations.toArray(new IPath[locations.size()]);
+			fOutputLocations = outputLocations;
+		}
+		return outputLocations;
+	}
+}
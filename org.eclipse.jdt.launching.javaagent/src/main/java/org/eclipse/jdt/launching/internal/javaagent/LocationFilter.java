@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.javaagent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects the code source locations whose classes are instrumented. A location is instrumented if it matches one of
+ * the include patterns and none of the exclude patterns. Patterns are matched against the whole location URL, like
+ * <code>file:/home/user/.m2/repository/</code>, <code>*</code> matches any sequence of characters.
+ * <p>
+ * The patterns are comma separated lists read from the system properties {@value #INCLUDE_PROPERTY} and
+ * {@value #EXCLUDE_PROPERTY}. By default all locations are included and the classes of the runtime image are
+ * excluded, which source lookup cannot find in the workspace.
+ * </p>
+ */
+public class LocationFilter {
+
+	public static final String INCLUDE_PROPERTY = "org.eclipse.jdt.launching.javaagent.include"; //$NON-NLS-1$
+
+	public static final String EXCLUDE_PROPERTY = "org.eclipse.jdt.launching.javaagent.exclude"; //$NON-NLS-1$
+
+	private static final String DEFAULT_INCLUDE = "*"; //$NON-NLS-1$
+
+	private static final String DEFAULT_EXCLUDE = "jrt:*"; //$NON-NLS-1$
+
+	private final String[][] includes;
+
+	private final String[][] excludes;
+
+	public LocationFilter(String include, String exclude) {
+		this.includes = parse(include);
+		this.excludes = parse(exclude);
+	}
+
+	/**
+	 * @return the filter configured by the system properties
+	 */
+	public static LocationFilter fromSystemProperties() {
+		return new LocationFilter(System.getProperty(INCLUDE_PROPERTY, DEFAULT_INCLUDE), System.getProperty(EXCLUDE_PROPERTY, DEFAULT_EXCLUDE));
+	}
+
+	public boolean accept(String location) {
+		return matchesAny(includes, location) && !matchesAny(excludes, location);
+	}
+
+	/**
+	 * Splits every pattern at its wildcards.
+	 */
+	private static String[][] parse(String patterns) {
+		List<String[]> result = new ArrayList<String[]>();
+		for (String pattern : patterns.split(",")) { //$NON-NLS-1$
+			pattern = pattern.trim();
+			if (pattern.length() > 0) {
+				result.add(pattern.split("\\*", -1)); //$NON-NLS-1$
+			}
+		}
+		return result.toArray(new String[result.size()][]);
+	}
+
+	private static boolean matchesAny(String[][] patterns, String location) {
+		for (String[] pattern : patterns) {
+			if (matches(pattern, location)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param pattern
+	 *            the literal parts of a pattern, between its wildcards
+	 */
+	private static boolean matches(String[] pattern, String location) {
+		if (pattern.length == 1) {
+			return location.equals(pattern[0]);
+		}
+		String first = pattern[0];
+		String last = pattern[pattern.length - 1];
+		if (!location.startsWith(first) || location.length() < first.length() + last.length() || !location.endsWith(last)) {
+			return false;
+		}
+		int offset = first.length();
+		int end = location.length() - last.length();
+		for (int i = 1; i < pattern.length - 1; i++) {
+			int index = location.indexOf(pattern[i], offset);
+			if (index < 0 || index + pattern[i].length() > end) {
+				return false;
+			}
+			offset = index + pattern[i].length();
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2019 Igor Fedorenko
+ * Copyright (c) 2011, 2020 Igor Fedorenko
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,6 +41,8 @@ public class Premain {
 			return;
 		}
 
+		final LocationFilter filter = LocationFilter.fromSystemProperties();
+
 		inst.addTransformer(new ClassFileTransformer() {
 			@Override
 			public byte[] transform(ClassLoader loader, final String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
@@ -64,6 +66,9 @@ public class Premain {
 					}
 
 					final String location = locationUrl.toExternalForm();
+					if (!filter.accept(location)) {
+						return null;
+					}
 
 					return transformer.transform(classfileBuffer, location);
 				}
@@ -77,6 +82,8 @@ public class Premain {
 			}
 		});
 
+		Tracepoints.install(inst, debuglog);
+
 		if (debuglog) {
 			System.err.println("Advanced source lookup enabled."); //$NON-NLS-1$
 		}
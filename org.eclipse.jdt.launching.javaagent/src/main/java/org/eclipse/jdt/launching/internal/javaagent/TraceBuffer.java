@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.javaagent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer the tracepoints write their records to, without locking and without suspending the traced thread. The
+ * debugger drains the buffer in bulk by reading the <code>array</code> of {@link #buffer} and the <code>value</code> of
+ * {@link #position} over JDWP.
+ * <p>
+ * The class is added to the bootstrap class path when the first tracepoint is installed, so that the instrumented
+ * classes of all class loaders can call {@link #record(int, Object[])}. It must not refer to the other classes of the
+ * javaagent.
+ * </p>
+ * <p>
+ * A record takes {@value #RECORD_SIZE} longs: the header, which is the index of the record plus one once the record is
+ * complete and 0 while it is being written, the tracepoint id in the high and the number of values in the low 32 bits,
+ * the time in milliseconds, the id of the thread and the values. Every value starts with a tag, which holds the type of
+ * the value in its highest byte, the {@link #TRUNCATED} flag and the number of chars of a string. Primitives are
+ * followed by one long with their bits, strings by their chars, four per long. Objects are recorded as their
+ * <code>toString()</code>, values which do not fit into the record are left out.
+ * </p>
+ */
+public final class TraceBuffer {
+
+	public static final String CAPACITY_PROPERTY = "org.eclipse.jdt.launching.javaagent.tracepoints.capacity"; //$NON-NLS-1$
+
+	private static final int DEFAULT_CAPACITY = 16384;
+
+	public static final int RECORD_SIZE = 32;
+
+	private static final int HEADER_SIZE = 4;
+
+	public static final long TRUNCATED = 1L << 48;
+
+	/**
+	 * Placeholder for the values of expressions which are not available at the location of a tracepoint.
+	 */
+	public static final Object UNAVAILABLE = new Object();
+
+	/**
+	 * The records, {@link #RECORD_SIZE} longs each.
+	 */
+	public static final AtomicLongArray buffer;
+
+	/**
+	 * The index of the next record to write, the record is at <code>(position % capacity) * RECORD_SIZE</code>.
+	 */
+	public static final AtomicLong position = new AtomicLong();
+
+	private static final int mask;
+
+	/**
+	 * Set while a thread records, to not call <code>toString()</code> methods which hit tracepoints themselves.
+	 */
+	private static final ThreadLocal<boolean[]> recording = new ThreadLocal<boolean[]>();
+
+	static {
+		int capacity = DEFAULT_CAPACITY;
+		try {
+			capacity = Integer.parseInt(System.getProperty(CAPACITY_PROPERTY, Integer.toString(DEFAULT_CAPACITY)));
+		}
+		catch (NumberFormatException e) {
+			// use the default
+		}
+		// round up to a power of two
+		capacity = Integer.highestOneBit(Math.max(1, Math.min(capacity, 1 << 20)) * 2 - 1);
+		mask = capacity - 1;
+		buffer = new AtomicLongArray(capacity * RECORD_SIZE);
+	}
+
+	private TraceBuffer() {
+	}
+
+	/**
+	 * Records the values of the expressions of a tracepoint. Called by the instrumented code.
+	 *
+	 * @param id
+	 *            the id of the tracepoint
+	 * @param values
+	 *            the values of the expressions, boxed, or {@link #UNAVAILABLE}
+	 */
+	public static void record(int id, Object[] values) {
+		boolean[] active = recording.get();
+		if (active == null) {
+			active = new boolean[1];
+			recording.set(active);
+		}
+		boolean nested = active[0];
+		active[0] = true;
+		try {
+			long index = position.getAndIncrement();
+			int offset = (int) (index & mask) * RECORD_SIZE;
+			int end = offset + RECORD_SIZE;
+			buffer.lazySet(offset, 0);
+			int slot = offset + HEADER_SIZE;
+			int count = 0;
+			while (count < values.length && slot < end) {
+				slot = write(values[count], slot, end, nested);
+				if (slot < 0) {
+					break;
+				}
+				count++;
+			}
+			buffer.set(offset + 1, ((long) id << 32) | count);
+			buffer.set(offset + 2, System.currentTimeMillis());
+			buffer.set(offset + 3, Thread.currentThread().getId());
+			buffer.lazySet(offset, index + 1);
+		}
+		finally {
+			active[0] = nested;
+		}
+	}
+
+	/**
+	 * @return the slot after the value, or -1 if the value is a primitive whose bits do not fit into the record
+	 */
+	private static int write(Object value, int slot, int end, boolean nested) {
+		if (value == null) {
+			buffer.set(slot, tag('N', 0));
+			return slot + 1;
+		}
+		if (value == UNAVAILABLE) {
+			buffer.set(slot, tag('U', 0));
+			return slot + 1;
+		}
+		if (isPrimitive(value)) {
+			if (slot + 1 == end) {
+				return -1;
+			}
+			if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+				buffer.set(slot, tag(value instanceof Integer ? 'I' : value instanceof Long ? 'J' : value instanceof Short ? 'S' : 'B', 0));
+				buffer.set(slot + 1, ((Number) value).longValue());
+				return slot + 2;
+			}
+			if (value instanceof Boolean) {
+				buffer.set(slot, tag('Z', 0));
+				buffer.set(slot + 1, ((Boolean) value).booleanValue() ? 1 : 0);
+				return slot + 2;
+			}
+			if (value instanceof Character) {
+				buffer.set(slot, tag('C', 0));
+				buffer.set(slot + 1, ((Character) value).charValue());
+				return slot + 2;
+			}
+			if (value instanceof Double) {
+				buffer.set(slot, tag('D', 0));
+				buffer.set(slot + 1, Double.doubleToRawLongBits(((Double) value).doubleValue()));
+				return slot + 2;
+			}
+			buffer.set(slot, tag('F', 0));
+			buffer.set(slot + 1, Float.floatToRawIntBits(((Float) value).floatValue()));
+			return slot + 2;
+		}
+		String string = toString(value, nested);
+		int length = Math.min(string.length(), (end - slot - 1) * 4);
+		buffer.set(slot, tag('L', length) | (length < string.length() ? TRUNCATED : 0));
+		slot++;
+		for (int i = 0; i < length; i += 4) {
+			long chars = 0;
+			for (int j = i; j < i + 4; j++) {
+				chars = (chars << 16) | (j < length ? string.charAt(j) : 0);
+			}
+			buffer.set(slot++, chars);
+		}
+		return slot;
+	}
+
+	private static boolean isPrimitive(Object value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof Boolean
+				|| value instanceof Character || value instanceof Double || value instanceof Float;
+	}
+
+	private static String toString(Object value, boolean nested) {
+		if (value instanceof String) {
+			return (String) value;
+		}
+		if (nested) {
+			return value.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(value));
+		}
+		try {
+			return String.valueOf(value);
+		}
+		catch (Throwable e) {
+			return "<" + e.getClass().getName() + " in toString()>"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private static long tag(char type, int length) {
+		return ((long) type << 56) | length;
+	}
+}
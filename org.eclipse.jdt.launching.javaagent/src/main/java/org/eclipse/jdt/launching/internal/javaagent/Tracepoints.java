@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.javaagent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.jdt.launching.internal.weaving.TracepointTransformer;
+import org.eclipse.jdt.launching.internal.weaving.TracepointTransformer.Tracepoint;
+
+/**
+ * Installs the tracepoints the debugger publishes in {@link #requests}. A daemon thread sleeps until the debugger
+ * interrupts it after changing the requests, then retransforms the loaded classes whose tracepoints changed, classes
+ * loaded later are instrumented when they are loaded. The thread does not wake up in VMs without tracepoints.
+ * {@link TraceBuffer} is only added to the bootstrap class path when the first tracepoint is installed, as this disables
+ * class data sharing for the other class loaders.
+ * <p>
+ * Classes in named modules are not instrumented, they cannot read the unnamed module of {@link TraceBuffer}.
+ * </p>
+ */
+public class Tracepoints implements ClassFileTransformer, Runnable {
+
+	// not TraceBuffer.class, which would load the class before it is on the bootstrap class path
+	private static final String TRACE_BUFFER_CLASS = "org/eclipse/jdt/launching/internal/javaagent/TraceBuffer.class"; //$NON-NLS-1$
+
+	/**
+	 * The tracepoints to install, one per line: id, type name, line number and comma separated expressions, separated
+	 * by tabs. Written by the debugger.
+	 */
+	public static volatile String requests;
+
+	/**
+	 * The thread installing the tracepoints, interrupted by the debugger after it changed {@link #requests}.
+	 */
+	public static volatile Thread thread;
+
+	/**
+	 * The requests whose tracepoints have been installed, for the debugger to check that a change of the requests has
+	 * been applied.
+	 */
+	public static volatile String installed;
+
+	private final Instrumentation inst;
+
+	private final boolean debuglog;
+
+	/** the tracepoints by internal type name */
+	private volatile Map<String, List<Tracepoint>> tracepoints = Collections.emptyMap();
+
+	/** the packages of the named modules of the boot layer, in internal form */
+	private Set<String> modulePackages;
+
+	private Tracepoints(Instrumentation inst, boolean debuglog) {
+		this.inst = inst;
+		this.debuglog = debuglog;
+	}
+
+	/**
+	 * Starts the thread waiting for the tracepoint requests.
+	 */
+	static void install(Instrumentation inst, boolean debuglog) {
+		if (!inst.isRetransformClassesSupported()) {
+			return;
+		}
+		Tracepoints tracepoints = new Tracepoints(inst, debuglog);
+		inst.addTransformer(tracepoints, true);
+		// set before the thread first reads the requests: the debugger either finds the thread to interrupt, or the
+		// thread reads the requests the debugger published before
+		thread = new Thread(tracepoints, "Tracepoints"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * The javaagent jar is on the application class path, {@link TraceBuffer} is copied to a jar of its own, to not
+	 * load the other classes of the javaagent with the bootstrap class loader.
+	 */
+	private static File createTraceBufferJar() throws IOException {
+		InputStream in = Tracepoints.class.getClassLoader().getResourceAsStream(TRACE_BUFFER_CLASS);
+		if (in == null) {
+			throw new IOException("Missing " + TRACE_BUFFER_CLASS); //$NON-NLS-1$
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[4096];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				bytes.write(buf, 0, n);
+			}
+		}
+		finally {
+			in.close();
+		}
+		File file = File.createTempFile("javaagent-tracepoints", ".jar"); //$NON-NLS-1$ //$NON-NLS-2$
+		file.deleteOnExit();
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+		try {
+			out.putNextEntry(new ZipEntry(TRACE_BUFFER_CLASS));
+			bytes.writeTo(out);
+			out.closeEntry();
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Override
+	public void run() {
+		String current = null;
+		boolean bootstrap = false;
+		while (true) {
+			String latest = requests;
+			if (latest == current) {
+				try {
+					Thread.sleep(Long.MAX_VALUE);
+				}
+				catch (InterruptedException e) {
+					// the debugger changed the requests
+				}
+				continue;
+			}
+			current = latest;
+			if (!bootstrap) {
+				try {
+					inst.appendToBootstrapClassLoaderSearch(new JarFile(createTraceBufferJar()));
+					bootstrap = true;
+				}
+				catch (IOException e) {
+					System.err.printf("Could not install tracepoints: %s.\n", e.getMessage()); //$NON-NLS-1$
+					return;
+				}
+			}
+			update(parse(latest));
+			installed = latest;
+		}
+	}
+
+	/**
+	 * Parses the requests, see {@link #requests}.
+	 */
+	private Map<String, List<Tracepoint>> parse(String latest) {
+		Map<String, List<Tracepoint>> result = new HashMap<String, List<Tracepoint>>();
+		if (latest == null) {
+			return result;
+		}
+		for (String request : latest.split("\n")) { //$NON-NLS-1$
+			String[] parts = request.split("\t", -1); //$NON-NLS-1$
+			if (parts.length != 4) {
+				continue;
+			}
+			try {
+				String type = parts[1].replace('.', '/');
+				String[] expressions = parts[3].length() == 0 ? new String[0] : parts[3].split(","); //$NON-NLS-1$
+				List<Tracepoint> list = result.get(type);
+				if (list == null) {
+					list = new ArrayList<Tracepoint>();
+					result.put(type, list);
+				}
+				list.add(new Tracepoint(Integer.parseInt(parts[0]), Integer.parseInt(parts[2]), expressions));
+			}
+			catch (NumberFormatException e) {
+				System.err.printf("Invalid tracepoint: %s.\n", request); //$NON-NLS-1$
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Installs the given tracepoints and retransforms the loaded classes whose tracepoints changed.
+	 */
+	private void update(Map<String, List<Tracepoint>> newTracepoints) {
+		Map<String, List<Tracepoint>> oldTracepoints = tracepoints;
+		Set<String> changed = new HashSet<String>(oldTracepoints.keySet());
+		changed.addAll(newTracepoints.keySet());
+		tracepoints = newTracepoints;
+
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (Class<?> loaded : inst.getAllLoadedClasses()) {
+			if (!inst.isModifiableClass(loaded)) {
+				continue;
+			}
+			String name = loaded.getName().replace('.', '/');
+			for (String type : changed) {
+				if (name.equals(type) || name.startsWith(type + '$')) {
+					classes.add(loaded);
+					break;
+				}
+			}
+		}
+		for (Class<?> loaded : classes) {
+			try {
+				inst.retransformClasses(loaded);
+			}
+			catch (Throwable e) {
+				// the class is left as it is
+				System.err.printf("Could not install tracepoints in class %s: %s.\n", loaded.getName(), e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	@Override
+	public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+		Map<String, List<Tracepoint>> current = tracepoints;
+		if (current.isEmpty() || className == null) {
+			return null;
+		}
+		List<Tracepoint> list = null;
+		for (int end = className.length(); end > 0; end = className.lastIndexOf('$', end - 1)) {
+			List<Tracepoint> type = current.get(className.substring(0, end));
+			if (type != null) {
+				if (list == null) {
+					list = new ArrayList<Tracepoint>();
+				}
+				list.addAll(type);
+			}
+		}
+		if (list == null) {
+			return null;
+		}
+		if (isInNamedModule(className)) {
+			System.err.printf("Could not install tracepoints in class %s: classes in named modules are not supported.\n", className); //$NON-NLS-1$
+			return null;
+		}
+		try {
+			return TracepointTransformer.transform(classfileBuffer, list);
+		}
+		catch (Exception e) {
+			System.err.printf("Could not install tracepoints in class %s: %s.\n", className, e.getMessage()); //$NON-NLS-1$
+			if (debuglog) {
+				e.printStackTrace(System.err);
+			}
+		}
+		return null;
+	}
+
+	private synchronized boolean isInNamedModule(String className) {
+		if (modulePackages == null) {
+			modulePackages = readModulePackages();
+		}
+		int end = className.lastIndexOf('/');
+		return end > 0 && modulePackages.contains(className.substring(0, end));
+	}
+
+	/**
+	 * Reads the packages of the named modules of the boot layer, by reflection as the javaagent is compiled for Java 6.
+	 */
+	private Set<String> readModulePackages() {
+		Set<String> packages = new HashSet<String>();
+		try {
+			Class<?> layerClass = Class.forName("java.lang.ModuleLayer"); //$NON-NLS-1$
+			Object layer = layerClass.getMethod("boot").invoke(null); //$NON-NLS-1$
+			for (Object module : (Set<?>) layerClass.getMethod("modules").invoke(layer)) { //$NON-NLS-1$
+				for (Object name : (Set<?>) module.getClass().getMethod("getPackages").invoke(module)) { //$NON-NLS-1$
+					packages.add(((String) name).replace('.', '/'));
+				}
+			}
+		}
+		catch (ClassNotFoundException e) {
+			// no modules before Java 9
+		}
+		catch (Exception e) {
+			if (debuglog) {
+				e.printStackTrace(System.err);
+			}
+		}
+		return packages;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2019 Igor Fedorenko
+ * Copyright (c) 2014, 2020 Igor Fedorenko
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,39 +28,67 @@ public class ClassfileTransformer {
 	public static final int MAX_CLASS_MAJOR = Opcodes.V15;
 
 	/** supported ASM API version, must match {@link #MAX_CLASS_MAJOR} above */
-	private static final int ASM_API = Opcodes.ASM8;
+	static final int ASM_API = Opcodes.ASM8;
 
+	/**
+	 * Adds the SMAP of the given location to the given classfile.
+	 *
+	 * @return the changed classfile, or <code>null</code> if it does not need to be changed
+	 */
 	public byte[] transform(byte[] classfileBuffer, final String location) {
+		try {
+			return SourceDebugExtensionWeaver.weave(classfileBuffer, location);
+		}
+		catch (SourceDebugExtensionWeaver.UnsupportedClassfileException e) {
+			return transformWithAsm(classfileBuffer, location);
+		}
+	}
 
+	private byte[] transformWithAsm(byte[] classfileBuffer, final String location) {
 		final ClassReader r = new ClassReader(classfileBuffer, 0, classfileBuffer.length);
 		final ClassWriter w = new ClassWriter(r, 0);
 
 		r.accept(new ClassVisitor(ASM_API, w) {
 			@Override
 			public void visitSource(String source, String debug) {
-				String javaSource = source;
-				// TODO merge SMAP if present (always present when used together with Equinox weaver)
-				if (debug == null) {
-					StringBuilder smap = new StringBuilder();
-					smap.append("SMAP\n"); //$NON-NLS-1$
-					smap.append(javaSource).append("\n"); //$NON-NLS-1$
-					// default strata name
-					smap.append("Java\n"); //$NON-NLS-1$
-					smap.append("*S " + STRATA_ID + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
-					smap.append("*F\n"); //$NON-NLS-1$
-					smap.append("1 ").append(source).append("\n"); //$NON-NLS-1$ //$NON-NLS-2$
-					smap.append("2 ").append(location).append("\n"); //$NON-NLS-1$ //$NON-NLS-2$
-					// JSR-045, StratumSection
-					// "One FileSection and one LineSection (in either order) must follow the StratumSection"
-					smap.append("*L\n"); //$NON-NLS-1$
-					smap.append("*E\n"); //$NON-NLS-1$
-					debug = smap.toString();
-				}
-
-				super.visitSource(javaSource, debug);
+				String smap = source == null ? null : smap(source, debug, location);
+				super.visitSource(source, smap != null ? smap : debug);
 			}
 		}, 0);
 
 		return w.toByteArray();
 	}
+
+	/**
+	 * Returns the SMAP of a class with the given source file and SMAP, which contains the {@link #STRATA_ID} stratum
+	 * mapping the source file to the given location. An existing SMAP is kept and the stratum is added to it.
+	 *
+	 * @return the new SMAP, or <code>null</code> if the existing SMAP already has the stratum or cannot be merged
+	 */
+	static String smap(String source, String debug, String location) {
+		StringBuilder smap = new StringBuilder();
+		if (debug == null) {
+			smap.append("SMAP\n"); //$NON-NLS-1$
+			smap.append(source).append("\n"); //$NON-NLS-1$
+			// default strata name
+			smap.append("Java\n"); //$NON-NLS-1$
+		} else {
+			// JSR-045, the SMAP ends with the EndSection, strata are added in front of it
+			int end = debug.lastIndexOf("*E"); //$NON-NLS-1$
+			if (!debug.startsWith("SMAP") || end < 0 || debug.substring(end + 2).trim().length() > 0 //$NON-NLS-1$
+					|| debug.contains("*S " + STRATA_ID + "\n")) { //$NON-NLS-1$ //$NON-NLS-2$
+				return null;
+			}
+			smap.append(debug, 0, end);
+		}
+		smap.append("*S " + STRATA_ID + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		smap.append("*F\n"); //$NON-NLS-1$
+		smap.append("1 ").append(source).append("\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		smap.append("2 ").append(location).append("\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		// JSR-045, StratumSection
+		// "One FileSection and one LineSection (in either order) must follow the StratumSection"
+		smap.append("*L\n"); //$NON-NLS-1$
+		smap.append("*E\n"); //$NON-NLS-1$
+		return smap.toString();
+	}
 }
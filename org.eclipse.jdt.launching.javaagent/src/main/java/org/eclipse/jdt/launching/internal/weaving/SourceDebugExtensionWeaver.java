@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.weaving;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Adds the SMAP to a classfile by editing its bytes. Only the constant pool and
+ * the attributes are parsed, fields and methods are skipped and the class is
+ * not rebuilt: the <code>SourceDebugExtension</code> attribute is appended, or
+ * replaced if the class already has one, and its name is added to the constant
+ * pool if missing.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se15/html/jvms-4.html">The class File Format</a>
+ */
+class SourceDebugExtensionWeaver {
+
+	/**
+	 * Thrown for classfiles the weaver does not understand, which are left to
+	 * ASM.
+	 */
+	static class UnsupportedClassfileException extends Exception {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static final int CONSTANT_Utf8 = 1;
+	private static final int CONSTANT_Integer = 3;
+	private static final int CONSTANT_Float = 4;
+	private static final int CONSTANT_Long = 5;
+	private static final int CONSTANT_Double = 6;
+	private static final int CONSTANT_Class = 7;
+	private static final int CONSTANT_String = 8;
+	private static final int CONSTANT_Fieldref = 9;
+	private static final int CONSTANT_Methodref = 10;
+	private static final int CONSTANT_InterfaceMethodref = 11;
+	private static final int CONSTANT_NameAndType = 12;
+	private static final int CONSTANT_MethodHandle = 15;
+	private static final int CONSTANT_MethodType = 16;
+	private static final int CONSTANT_Dynamic = 17;
+	private static final int CONSTANT_InvokeDynamic = 18;
+	private static final int CONSTANT_Module = 19;
+	private static final int CONSTANT_Package = 20;
+
+	private static final String SOURCE_FILE = "SourceFile"; //$NON-NLS-1$
+	private static final String SOURCE_DEBUG_EXTENSION = "SourceDebugExtension"; //$NON-NLS-1$
+
+	private final byte[] b;
+
+	/** offsets of the constant pool entries, indexed like the pool */
+	private int[] cpOffsets;
+
+	/** offset of the first byte after the constant pool */
+	private int cpEnd;
+
+	private SourceDebugExtensionWeaver(byte[] classfile) {
+		this.b = classfile;
+	}
+
+	/**
+	 * Adds the SMAP of the given location to the given classfile.
+	 *
+	 * @return the changed classfile, or <code>null</code> if the classfile has
+	 *         no source file or already has a SMAP for the location stratum
+	 */
+	static byte[] weave(byte[] classfile, String location) throws UnsupportedClassfileException {
+		try {
+			return new SourceDebugExtensionWeaver(classfile).weave(location);
+		}
+		catch (ArrayIndexOutOfBoundsException e) {
+			// truncated classfile
+			throw new UnsupportedClassfileException();
+		}
+	}
+
+	private byte[] weave(String location) throws UnsupportedClassfileException {
+		if (readInt(0) != 0xCAFEBABE) {
+			throw new UnsupportedClassfileException();
+		}
+		readConstantPool();
+
+		// access_flags, this_class, super_class, interfaces
+		int offset = cpEnd + 6;
+		offset += 2 + 2 * readUnsignedShort(offset);
+		offset = skipMembers(offset); // fields
+		offset = skipMembers(offset); // methods
+
+		int attributesCountOffset = offset;
+		int attributesCount = readUnsignedShort(offset);
+		offset += 2;
+		String source = null;
+		int debugOffset = -1;
+		for (int i = 0; i < attributesCount; i++) {
+			String name = readUtf8Constant(readUnsignedShort(offset));
+			int length = readInt(offset + 2);
+			if (SOURCE_FILE.equals(name)) {
+				source = readUtf8Constant(readUnsignedShort(offset + 6));
+			} else if (SOURCE_DEBUG_EXTENSION.equals(name)) {
+				debugOffset = offset;
+			}
+			offset += 6 + length;
+		}
+		if (offset != b.length) {
+			throw new UnsupportedClassfileException();
+		}
+		if (source == null) {
+			return null;
+		}
+
+		String debug = debugOffset < 0 ? null : readUtf8(debugOffset + 6, readInt(debugOffset + 2));
+		String smap = ClassfileTransformer.smap(source, debug, location);
+		if (smap == null) {
+			return null;
+		}
+		byte[] smapBytes = encodeUtf8(smap);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(b.length + smapBytes.length + 64);
+		if (debugOffset >= 0) {
+			// replace the existing attribute
+			out.write(b, 0, debugOffset + 2);
+			writeInt(out, smapBytes.length);
+			out.write(smapBytes, 0, smapBytes.length);
+			int next = debugOffset + 6 + readInt(debugOffset + 2);
+			out.write(b, next, b.length - next);
+			return out.toByteArray();
+		}
+
+		int nameIndex = findUtf8Constant(SOURCE_DEBUG_EXTENSION);
+		if (nameIndex < 0) {
+			int count = cpOffsets.length;
+			if (count == 0xFFFF) {
+				throw new UnsupportedClassfileException();
+			}
+			byte[] name = encodeUtf8(SOURCE_DEBUG_EXTENSION);
+			nameIndex = count;
+			// magic, versions, constant_pool_count + 1, constant pool, new Utf8 constant
+			out.write(b, 0, 8);
+			writeShort(out, count + 1);
+			out.write(b, 10, cpEnd - 10);
+			out.write(CONSTANT_Utf8);
+			writeShort(out, name.length);
+			out.write(name, 0, name.length);
+		} else {
+			out.write(b, 0, cpEnd);
+		}
+		// class body up to the attributes, attributes_count + 1, attributes, new attribute
+		out.write(b, cpEnd, attributesCountOffset - cpEnd);
+		writeShort(out, attributesCount + 1);
+		out.write(b, attributesCountOffset + 2, b.length - attributesCountOffset - 2);
+		writeShort(out, nameIndex);
+		writeInt(out, smapBytes.length);
+		out.write(smapBytes, 0, smapBytes.length);
+		return out.toByteArray();
+	}
+
+	private void readConstantPool() throws UnsupportedClassfileException {
+		int count = readUnsignedShort(8);
+		cpOffsets = new int[count];
+		int offset = 10;
+		for (int i = 1; i < count; i++) {
+			cpOffsets[i] = offset;
+			int tag = b[offset] & 0xFF;
+			switch (tag) {
+				case CONSTANT_Utf8:
+					offset += 3 + readUnsignedShort(offset + 1);
+					break;
+				case CONSTANT_Class:
+				case CONSTANT_String:
+				case CONSTANT_MethodType:
+				case CONSTANT_Module:
+				case CONSTANT_Package:
+					offset += 3;
+					break;
+				case CONSTANT_MethodHandle:
+					offset += 4;
+					break;
+				case CONSTANT_Integer:
+				case CONSTANT_Float:
+				case CONSTANT_Fieldref:
+				case CONSTANT_Methodref:
+				case CONSTANT_InterfaceMethodref:
+				case CONSTANT_NameAndType:
+				case CONSTANT_Dynamic:
+				case CONSTANT_InvokeDynamic:
+					offset += 5;
+					break;
+				case CONSTANT_Long:
+				case CONSTANT_Double:
+					// takes two entries
+					offset += 9;
+					i++;
+					break;
+				default:
+					throw new UnsupportedClassfileException();
+			}
+		}
+		cpEnd = offset;
+	}
+
+	private int skipMembers(int offset) {
+		int count = readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < count; i++) {
+			// access_flags, name_index, descriptor_index
+			offset += 6;
+			int attributesCount = readUnsignedShort(offset);
+			offset += 2;
+			for (int j = 0; j < attributesCount; j++) {
+				offset += 6 + readInt(offset + 2);
+			}
+		}
+		return offset;
+	}
+
+	private int findUtf8Constant(String value) {
+		byte[] bytes = encodeUtf8(value);
+		for (int i = 1; i < cpOffsets.length; i++) {
+			int offset = cpOffsets[i];
+			if (offset != 0 && b[offset] == CONSTANT_Utf8 && readUnsignedShort(offset + 1) == bytes.length && regionMatches(offset + 3, bytes)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean regionMatches(int offset, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			if (b[offset + i] != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String readUtf8Constant(int index) throws UnsupportedClassfileException {
+		if (index <= 0 || index >= cpOffsets.length || cpOffsets[index] == 0 || b[cpOffsets[index]] != CONSTANT_Utf8) {
+			throw new UnsupportedClassfileException();
+		}
+		int offset = cpOffsets[index];
+		return readUtf8(offset + 3, readUnsignedShort(offset + 1));
+	}
+
+	/**
+	 * Decodes modified UTF-8, see JVMS 4.4.7.
+	 */
+	private String readUtf8(int offset, int length) throws UnsupportedClassfileException {
+		char[] chars = new char[length];
+		int count = 0;
+		int end = offset + length;
+		while (offset < end) {
+			int c = b[offset++] & 0xFF;
+			if (c < 0x80) {
+				chars[count++] = (char) c;
+			} else if ((c & 0xE0) == 0xC0) {
+				chars[count++] = (char) (((c & 0x1F) << 6) | (b[offset++] & 0x3F));
+			} else if ((c & 0xF0) == 0xE0) {
+				chars[count++] = (char) (((c & 0x0F) << 12) | ((b[offset++] & 0x3F) << 6) | (b[offset++] & 0x3F));
+			} else {
+				throw new UnsupportedClassfileException();
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	/**
+	 * Encodes modified UTF-8, see JVMS 4.4.7.
+	 */
+	private static byte[] encodeUtf8(String value) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				out.write(c);
+			} else if (c <= 0x07FF) {
+				out.write(0xC0 | (c >> 6));
+				out.write(0x80 | (c & 0x3F));
+			} else {
+				out.write(0xE0 | (c >> 12));
+				out.write(0x80 | ((c >> 6) & 0x3F));
+				out.write(0x80 | (c & 0x3F));
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private int readUnsignedShort(int offset) {
+		return ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+	}
+
+	private int readInt(int offset) {
+		return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16) | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+	}
+
+	private static void writeShort(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+}
@@ -0,0 +1,433 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.weaving;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Instruments the lines of tracepoints. At the first instruction of a line, in every method containing the line, the
+ * values of the expressions of the tracepoint are boxed into an array and passed to <code>TraceBuffer.record</code>.
+ * The inserted code leaves the operand stack as it found it and does not branch, so the stack map frames stay valid.
+ * <p>
+ * An expression is the name of a local variable, <code>this</code> or the name of a field declared by the class.
+ * Expressions which are not available at the line, like local variables out of scope or classes compiled without
+ * local variable tables, are recorded as <code>TraceBuffer.UNAVAILABLE</code>.
+ * </p>
+ * <p>
+ * Local variables are matched to the line by the order of the labels, which is the same when the class is read again:
+ * the local variable table is only visited after the code.
+ * </p>
+ */
+public class TracepointTransformer {
+
+	// must match the javaagent TraceBuffer class
+	private static final String TRACE_BUFFER = "org/eclipse/jdt/launching/internal/javaagent/TraceBuffer"; //$NON-NLS-1$
+
+	private static final String THIS = "this"; //$NON-NLS-1$
+
+	private static final String INIT = "<init>"; //$NON-NLS-1$
+
+	/**
+	 * A tracepoint to install.
+	 */
+	public static class Tracepoint {
+		final int id;
+		final int line;
+		final String[] expressions;
+
+		public Tracepoint(int id, int line, String[] expressions) {
+			this.id = id;
+			this.line = line;
+			this.expressions = expressions;
+		}
+	}
+
+	private static class LocalVariable {
+		final String name;
+		final String desc;
+		final int index;
+		final int start;
+		final int end;
+
+		LocalVariable(String name, String desc, int index, int start, int end) {
+			this.name = name;
+			this.desc = desc;
+			this.index = index;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Numbers the labels of a method in the order they are visited.
+	 */
+	private static class LabelCounter extends MethodVisitor {
+		final Map<Label, Integer> ordinals = new HashMap<Label, Integer>();
+
+		LabelCounter(MethodVisitor mv) {
+			super(ClassfileTransformer.ASM_API, mv);
+		}
+
+		@Override
+		public void visitLabel(Label label) {
+			ordinals.put(label, Integer.valueOf(ordinals.size()));
+			super.visitLabel(label);
+		}
+	}
+
+	/** fields of the class by name, static ones with a leading <code>S</code> in their descriptor */
+	private final Map<String, String> fields = new HashMap<String, String>();
+
+	/** local variables of the methods containing a line of a tracepoint, by method name and descriptor */
+	private final Map<String, List<LocalVariable>> locals = new HashMap<String, List<LocalVariable>>();
+
+	private final Map<Integer, Tracepoint> tracepoints = new HashMap<Integer, Tracepoint>();
+
+	private String className;
+
+	private boolean instrumented;
+
+	private TracepointTransformer(List<Tracepoint> tracepoints) {
+		for (Tracepoint tracepoint : tracepoints) {
+			this.tracepoints.put(Integer.valueOf(tracepoint.line), tracepoint);
+		}
+	}
+
+	/**
+	 * Instruments the lines of the given tracepoints in the given classfile.
+	 *
+	 * @return the changed classfile, or <code>null</code> if the class contains none of the lines
+	 */
+	public static byte[] transform(byte[] classfile, List<Tracepoint> tracepoints) {
+		return new TracepointTransformer(tracepoints).transform(classfile);
+	}
+
+	private byte[] transform(byte[] classfile) {
+		ClassReader r = new ClassReader(classfile);
+		r.accept(new Collector(), 0);
+		if (locals.isEmpty()) {
+			return null;
+		}
+		ClassWriter w = new ClassWriter(r, ClassWriter.COMPUTE_MAXS);
+		r.accept(new Instrumenter(w), 0);
+		return instrumented ? w.toByteArray() : null;
+	}
+
+	/**
+	 * Collects the fields of the class and the local variables of its methods.
+	 */
+	private class Collector extends ClassVisitor {
+
+		Collector() {
+			super(ClassfileTransformer.ASM_API);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			className = name;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			fields.put(name, (access & Opcodes.ACC_STATIC) != 0 ? 'S' + descriptor : descriptor);
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			final String key = name + descriptor;
+			final List<LocalVariable> variables = new ArrayList<LocalVariable>();
+			return new LabelCounter(null) {
+				@Override
+				public void visitLineNumber(int line, Label start) {
+					if (tracepoints.containsKey(Integer.valueOf(line))) {
+						locals.put(key, variables);
+					}
+				}
+
+				@Override
+				public void visitLocalVariable(String varName, String desc, String varSignature, Label start, Label end, int index) {
+					Integer from = ordinals.get(start);
+					Integer to = ordinals.get(end);
+					if (from != null && to != null) {
+						variables.add(new LocalVariable(varName, desc, index, from.intValue(), to.intValue()));
+					}
+				}
+			};
+		}
+	}
+
+	private class Instrumenter extends ClassVisitor {
+
+		Instrumenter(ClassVisitor cv) {
+			super(ClassfileTransformer.ASM_API, cv);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+			List<LocalVariable> variables = locals.get(name + descriptor);
+			if (variables == null) {
+				return mv;
+			}
+			return new LineInstrumenter(mv, (access & Opcodes.ACC_STATIC) != 0, INIT.equals(name), variables);
+		}
+	}
+
+	/**
+	 * Inserts the tracepoints before the first instruction of their line, after the stack map frame of the line.
+	 */
+	private class LineInstrumenter extends LabelCounter {
+		private final boolean isStatic;
+		private final List<LocalVariable> variables;
+		private final Set<Integer> lines = new HashSet<Integer>();
+
+		/** whether <code>this</code> is initialized, in constructors after the call to the super constructor */
+		private boolean initialized;
+
+		/** number of objects created but not yet initialized by type, to find the super constructor call */
+		private final Map<String, Integer> uninitialized = new HashMap<String, Integer>();
+
+		private Tracepoint pending;
+		private int pendingLabel;
+
+		LineInstrumenter(MethodVisitor mv, boolean isStatic, boolean constructor, List<LocalVariable> variables) {
+			super(mv);
+			this.isStatic = isStatic;
+			this.initialized = !constructor;
+			this.variables = variables;
+		}
+
+		@Override
+		public void visitLineNumber(int line, Label start) {
+			super.visitLineNumber(line, start);
+			Tracepoint tracepoint = tracepoints.get(Integer.valueOf(line));
+			// like the debugger, only the first location of a line in a method
+			if (tracepoint != null && lines.add(Integer.valueOf(line))) {
+				Integer label = ordinals.get(start);
+				pending = tracepoint;
+				pendingLabel = label != null ? label.intValue() : -1;
+			}
+		}
+
+		private void insertPending() {
+			if (pending == null) {
+				return;
+			}
+			Tracepoint tracepoint = pending;
+			pending = null;
+			instrumented = true;
+			mv.visitLdcInsn(Integer.valueOf(tracepoint.id));
+			mv.visitLdcInsn(Integer.valueOf(tracepoint.expressions.length));
+			mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object"); //$NON-NLS-1$
+			for (int i = 0; i < tracepoint.expressions.length; i++) {
+				mv.visitInsn(Opcodes.DUP);
+				mv.visitLdcInsn(Integer.valueOf(i));
+				load(tracepoint.expressions[i]);
+				mv.visitInsn(Opcodes.AASTORE);
+			}
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, TRACE_BUFFER, "record", "(I[Ljava/lang/Object;)V", false); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		/**
+		 * Pushes the boxed value of the given expression.
+		 */
+		private void load(String expression) {
+			boolean hasThis = !isStatic && initialized;
+			if (THIS.equals(expression)) {
+				if (hasThis) {
+					mv.visitVarInsn(Opcodes.ALOAD, 0);
+				} else {
+					loadUnavailable();
+				}
+				return;
+			}
+			LocalVariable variable = findVariable(expression);
+			if (variable != null) {
+				Type type = Type.getType(variable.desc);
+				mv.visitVarInsn(type.getOpcode(Opcodes.ILOAD), variable.index);
+				box(type);
+				return;
+			}
+			String field = fields.get(expression);
+			if (field != null && field.charAt(0) == 'S') {
+				Type type = Type.getType(field.substring(1));
+				mv.visitFieldInsn(Opcodes.GETSTATIC, className, expression, type.getDescriptor());
+				box(type);
+			} else if (field != null && hasThis) {
+				Type type = Type.getType(field);
+				mv.visitVarInsn(Opcodes.ALOAD, 0);
+				mv.visitFieldInsn(Opcodes.GETFIELD, className, expression, type.getDescriptor());
+				box(type);
+			} else {
+				loadUnavailable();
+			}
+		}
+
+		private LocalVariable findVariable(String name) {
+			if (pendingLabel < 0) {
+				return null;
+			}
+			for (LocalVariable variable : variables) {
+				if (variable.name.equals(name) && variable.start <= pendingLabel && pendingLabel < variable.end) {
+					return variable;
+				}
+			}
+			return null;
+		}
+
+		private void loadUnavailable() {
+			mv.visitFieldInsn(Opcodes.GETSTATIC, TRACE_BUFFER, "UNAVAILABLE", "Ljava/lang/Object;"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		private void box(Type type) {
+			Type boxed;
+			switch (type.getSort()) {
+				case Type.BOOLEAN:
+					boxed = Type.getType(Boolean.class);
+					break;
+				case Type.CHAR:
+					boxed = Type.getType(Character.class);
+					break;
+				case Type.BYTE:
+					boxed = Type.getType(Byte.class);
+					break;
+				case Type.SHORT:
+					boxed = Type.getType(Short.class);
+					break;
+				case Type.INT:
+					boxed = Type.getType(Integer.class);
+					break;
+				case Type.FLOAT:
+					boxed = Type.getType(Float.class);
+					break;
+				case Type.LONG:
+					boxed = Type.getType(Long.class);
+					break;
+				case Type.DOUBLE:
+					boxed = Type.getType(Double.class);
+					break;
+				default:
+					return;
+			}
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, boxed.getInternalName(), "valueOf", Type.getMethodDescriptor(boxed, type), false); //$NON-NLS-1$
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			insertPending();
+			super.visitInsn(opcode);
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			insertPending();
+			super.visitIntInsn(opcode, operand);
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int var) {
+			insertPending();
+			super.visitVarInsn(opcode, var);
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			insertPending();
+			if (opcode == Opcodes.NEW && !initialized) {
+				Integer count = uninitialized.get(type);
+				uninitialized.put(type, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+			}
+			super.visitTypeInsn(opcode, type);
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+			insertPending();
+			super.visitFieldInsn(opcode, owner, name, descriptor);
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			insertPending();
+			if (opcode == Opcodes.INVOKESPECIAL && !initialized && INIT.equals(name)) {
+				Integer count = uninitialized.get(owner);
+				if (count == null || count.intValue() == 0) {
+					// the super or this constructor call
+					initialized = true;
+				} else {
+					uninitialized.put(owner, Integer.valueOf(count.intValue() - 1));
+				}
+			}
+			super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+			insertPending();
+			super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			insertPending();
+			super.visitJumpInsn(opcode, label);
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			insertPending();
+			super.visitLdcInsn(value);
+		}
+
+		@Override
+		public void visitIincInsn(int var, int increment) {
+			insertPending();
+			super.visitIincInsn(var, increment);
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			insertPending();
+			super.visitTableSwitchInsn(min, max, dflt, labels);
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			insertPending();
+			super.visitLookupSwitchInsn(dflt, keys, labels);
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+			insertPending();
+			super.visitMultiANewArrayInsn(descriptor, numDimensions);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.javaagent;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the selection of the instrumented code source locations.
+ */
+public class LocationFilterTests extends TestCase {
+
+	/**
+	 * Tests that by default the runtime image is excluded and everything else is included.
+	 */
+	public void testDefaults() throws Exception {
+		String include = System.clearProperty(LocationFilter.INCLUDE_PROPERTY);
+		String exclude = System.clearProperty(LocationFilter.EXCLUDE_PROPERTY);
+		try {
+			LocationFilter filter = LocationFilter.fromSystemProperties();
+			assertFalse("Runtime image included", filter.accept("jrt:/java.base")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue("Folder excluded", filter.accept("file:/workspace/sample/bin/")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue("Jar excluded", filter.accept("file:/home/user/.m2/repository/junit/junit/4.13/junit-4.13.jar")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		finally {
+			restore(LocationFilter.INCLUDE_PROPERTY, include);
+			restore(LocationFilter.EXCLUDE_PROPERTY, exclude);
+		}
+	}
+
+	/**
+	 * Tests that the system properties replace the defaults.
+	 */
+	public void testSystemProperties() throws Exception {
+		String include = System.setProperty(LocationFilter.INCLUDE_PROPERTY, "file:/workspace/*"); //$NON-NLS-1$
+		String exclude = System.setProperty(LocationFilter.EXCLUDE_PROPERTY, ""); //$NON-NLS-1$
+		try {
+			LocationFilter filter = LocationFilter.fromSystemProperties();
+			assertTrue("Workspace excluded", filter.accept("file:/workspace/sample/bin/")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertFalse("Repository included", filter.accept("file:/home/user/.m2/repository/")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertFalse("Runtime image included", filter.accept("jrt:/java.base")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		finally {
+			restore(LocationFilter.INCLUDE_PROPERTY, include);
+			restore(LocationFilter.EXCLUDE_PROPERTY, exclude);
+		}
+	}
+
+	/**
+	 * Tests that an excluded location is rejected even if it is included.
+	 */
+	public void testExcludeWins() throws Exception {
+		LocationFilter filter = new LocationFilter("file:/workspace/*", "*/generated/*"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Workspace excluded", filter.accept("file:/workspace/sample/bin/")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("Generated classes included", filter.accept("file:/workspace/sample/generated/bin/")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests patterns with several wildcards and patterns without wildcard.
+	 */
+	public void testPatterns() throws Exception {
+		LocationFilter filter = new LocationFilter(" file:/*/lib/*.jar , file:/exact/ ", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Jar excluded", filter.accept("file:/app/lib/a.jar")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("Folder included", filter.accept("file:/app/lib/classes/")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Exact location excluded", filter.accept("file:/exact/")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("Prefix of exact location included", filter.accept("file:/exact/sub/")); //$NON-NLS-1$ //$NON-NLS-2$
+		// the wildcards cannot match overlapping parts
+		assertFalse("Overlapping match", new LocationFilter("ab*ba", "").accept("aba")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static void restore(String key, String value) {
+		if (value == null) {
+			System.clearProperty(key);
+		} else {
+			System.setProperty(key, value);
+		}
+	}
+}
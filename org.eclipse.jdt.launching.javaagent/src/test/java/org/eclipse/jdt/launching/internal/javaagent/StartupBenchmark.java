@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.javaagent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Measures the startup overhead of the javaagent. Starts a JVM which loads all classes of the given jars, alternately
+ * with and without the javaagent, and prints the median times.
+ *
+ * <pre>
+ * mvn package
+ * java -cp target/test-classes org.eclipse.jdt.launching.internal.javaagent.StartupBenchmark [-runs N] [-Dproperty=value...] target/javaagent-shaded.jar app.jar...
+ * </pre>
+ *
+ * System properties given before the javaagent jar are passed to the JVMs, for example to configure the
+ * {@link LocationFilter}.
+ */
+public class StartupBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int runs = 10;
+		List<String> properties = new ArrayList<String>();
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i++) { //$NON-NLS-1$
+			if (args[i].equals("-runs")) { //$NON-NLS-1$
+				runs = Integer.parseInt(args[++i]);
+			} else {
+				properties.add(args[i]);
+			}
+		}
+		if (args.length - i < 2) {
+			System.out.println("usage: StartupBenchmark [-runs N] [-Dproperty=value...] <javaagent jar> <jar>..."); //$NON-NLS-1$
+			System.exit(-1);
+		}
+		String agent = new File(args[i]).getAbsolutePath();
+		List<String> jars = Arrays.asList(args).subList(i + 1, args.length);
+
+		long[] withAgent = new long[runs];
+		long[] withoutAgent = new long[runs];
+		// one warm up run each, to fill the file system cache
+		run(null, properties, jars);
+		run(agent, properties, jars);
+		for (int run = 0; run < runs; run++) {
+			withoutAgent[run] = run(null, properties, jars);
+			withAgent[run] = run(agent, properties, jars);
+		}
+		long off = median(withoutAgent);
+		long on = median(withAgent);
+		System.out.printf("agent off: %d ms, agent on: %d ms, overhead: %d ms (%.1f%%), median of %d runs\n", //$NON-NLS-1$
+				Long.valueOf(off), Long.valueOf(on), Long.valueOf(on - off), Double.valueOf(100.0 * (on - off) / off), Integer.valueOf(runs));
+	}
+
+	/**
+	 * Runs a JVM loading all classes of the given jars.
+	 *
+	 * @return the elapsed time in milliseconds
+	 */
+	private static long run(String agent, List<String> properties, List<String> jars) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<String>();
+		command.add(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+		if (agent != null) {
+			command.add("-javaagent:" + agent); //$NON-NLS-1$
+		}
+		command.addAll(properties);
+		command.add("-cp"); //$NON-NLS-1$
+		command.add(new File(StartupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getAbsolutePath());
+		command.add(LoadClasses.class.getName());
+		command.addAll(jars);
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.startsWith("Could not instrument")) { //$NON-NLS-1$
+				System.out.println(line);
+			}
+		}
+		if (process.waitFor() != 0) {
+			throw new IOException("JVM failed: " + command); //$NON-NLS-1$
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	private static long median(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	/**
+	 * Loads all classes of the jars given as arguments, without initializing them.
+	 */
+	public static class LoadClasses {
+
+		public static void main(String[] args) throws IOException {
+			URL[] urls = new URL[args.length];
+			for (int i = 0; i < args.length; i++) {
+				urls[i] = new File(args[i]).toURI().toURL();
+			}
+			ClassLoader loader = new URLClassLoader(urls, null);
+			int loaded = 0;
+			for (String jar : args) {
+				ZipFile zip = new ZipFile(jar);
+				try {
+					Enumeration<? extends ZipEntry> entries = zip.entries();
+					while (entries.hasMoreElements()) {
+						String name = entries.nextElement().getName();
+						if (!name.endsWith(".class") || name.contains("-")) { //$NON-NLS-1$ //$NON-NLS-2$
+							// skip module-info and package-info
+							continue;
+						}
+						try {
+							Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, loader);
+							loaded++;
+						}
+						catch (Throwable e) {
+							// missing dependency
+						}
+					}
+				}
+				finally {
+					zip.close();
+				}
+			}
+			System.out.println(loaded + " classes loaded"); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.launching.internal.weaving;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests adding the SMAP to classfiles, with and without an existing <code>SourceDebugExtension</code>.
+ */
+public class ClassfileTransformerTests extends TestCase {
+
+	private static final String SOURCE = "Sample.java"; //$NON-NLS-1$
+
+	private static final String LOCATION = "file:/workspace/sample/bin/"; //$NON-NLS-1$
+
+	private static final String JSP_SMAP = "SMAP\nSample.java\nJSP\n*S JSP\n*F\n1 index.jsp\n*L\n1:10\n*E\n"; //$NON-NLS-1$
+
+	/**
+	 * Tests that a SMAP is added to a class without one, and that the name of the attribute is added to the constant
+	 * pool.
+	 */
+	public void testInsertSmap() throws Exception {
+		byte[] classfile = sampleClass(SOURCE, null, null);
+		byte[] woven = SourceDebugExtensionWeaver.weave(classfile, LOCATION);
+		assertNotNull("Class not changed", woven); //$NON-NLS-1$
+		assertEquals("Wrong SMAP", ClassfileTransformer.smap(SOURCE, null, LOCATION), readSource(woven)[1]); //$NON-NLS-1$
+		assertEquals("Wrong constant pool size", new ClassReader(classfile).getItemCount() + 1, new ClassReader(woven).getItemCount()); //$NON-NLS-1$
+		assertMembers(woven);
+	}
+
+	/**
+	 * Tests that the name of the attribute is reused if the constant pool already has it.
+	 */
+	public void testInsertSmapExistingConstant() throws Exception {
+		byte[] classfile = sampleClass(SOURCE, null, "SourceDebugExtension"); //$NON-NLS-1$
+		byte[] woven = SourceDebugExtensionWeaver.weave(classfile, LOCATION);
+		assertNotNull("Class not changed", woven); //$NON-NLS-1$
+		assertEquals("Wrong SMAP", ClassfileTransformer.smap(SOURCE, null, LOCATION), readSource(woven)[1]); //$NON-NLS-1$
+		assertEquals("Wrong constant pool size", new ClassReader(classfile).getItemCount(), new ClassReader(woven).getItemCount()); //$NON-NLS-1$
+		assertMembers(woven);
+	}
+
+	/**
+	 * Tests that the stratum is added to an existing SMAP, which keeps its strata.
+	 */
+	public void testMergeSmap() throws Exception {
+		byte[] woven = new ClassfileTransformer().transform(sampleClass(SOURCE, JSP_SMAP, null), LOCATION);
+		assertNotNull("Class not changed", woven); //$NON-NLS-1$
+		String smap = readSource(woven)[1];
+		assertEquals("Wrong SMAP", "SMAP\nSample.java\nJSP\n*S JSP\n*F\n1 index.jsp\n*L\n1:10\n" //$NON-NLS-1$ //$NON-NLS-2$
+				+ "*S jdt\n*F\n1 Sample.java\n2 " + LOCATION + "\n*L\n*E\n", smap); //$NON-NLS-1$ //$NON-NLS-2$
+		assertMembers(woven);
+	}
+
+	/**
+	 * Tests that a class whose SMAP already has the stratum is not changed.
+	 */
+	public void testExistingStratum() throws Exception {
+		byte[] woven = new ClassfileTransformer().transform(sampleClass(SOURCE, JSP_SMAP, null), LOCATION);
+		assertNull("Class changed twice", new ClassfileTransformer().transform(woven, LOCATION)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a SourceDebugExtension which is not a SMAP is kept.
+	 */
+	public void testUnknownSourceDebugExtension() throws Exception {
+		assertNull("Class changed", new ClassfileTransformer().transform(sampleClass(SOURCE, "not a SMAP", null), LOCATION)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests that a class without source file is not changed.
+	 */
+	public void testNoSourceFile() throws Exception {
+		assertNull("Class changed", new ClassfileTransformer().transform(sampleClass(null, null, null), LOCATION)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a classfile the weaver does not understand is rejected, so it is left to ASM.
+	 */
+	public void testTruncatedClassfile() throws Exception {
+		byte[] classfile = sampleClass(SOURCE, null, null);
+		byte[] truncated = new byte[classfile.length - 1];
+		System.arraycopy(classfile, 0, truncated, 0, truncated.length);
+		try {
+			SourceDebugExtensionWeaver.weave(truncated, LOCATION);
+			fail("Truncated classfile accepted"); //$NON-NLS-1$
+		}
+		catch (SourceDebugExtensionWeaver.UnsupportedClassfileException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Returns a class with a field and a method, the given source file and SMAP, and a string constant if not
+	 * <code>null</code>.
+	 */
+	private static byte[] sampleClass(String source, String debug, String constant) {
+		ClassWriter w = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		w.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "sample/Sample", null, "java/lang/Object", null); //$NON-NLS-1$ //$NON-NLS-2$
+		w.visitSource(source, debug);
+		w.visitField(Opcodes.ACC_PRIVATE, "value", "J", null, Long.valueOf(42)).visitEnd(); //$NON-NLS-1$ //$NON-NLS-2$
+		MethodVisitor m = w.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()Ljava/lang/Object;", null, null); //$NON-NLS-1$ //$NON-NLS-2$
+		m.visitCode();
+		if (constant != null) {
+			m.visitLdcInsn(constant);
+		} else {
+			m.visitInsn(Opcodes.ACONST_NULL);
+		}
+		m.visitInsn(Opcodes.ARETURN);
+		m.visitMaxs(0, 0);
+		m.visitEnd();
+		w.visitEnd();
+		return w.toByteArray();
+	}
+
+	/**
+	 * @return the source file and SMAP of the given class
+	 */
+	private static String[] readSource(byte[] classfile) {
+		final String[] result = new String[2];
+		new ClassReader(classfile).accept(new ClassVisitor(ClassfileTransformer.ASM_API) {
+			@Override
+			public void visitSource(String source, String debug) {
+				result[0] = source;
+				result[1] = debug;
+			}
+		}, 0);
+		return result;
+	}
+
+	/**
+	 * Asserts that the fields and methods of the sample class are unchanged.
+	 */
+	private static void assertMembers(byte[] classfile) {
+		final List<String> members = new ArrayList<String>();
+		new ClassReader(classfile).accept(new ClassVisitor(ClassfileTransformer.ASM_API) {
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				members.add(name + descriptor + "=" + value); //$NON-NLS-1$
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				members.add(name + descriptor);
+				return null;
+			}
+		}, 0);
+		assertEquals("Wrong members", "[valueJ=42, run()Ljava/lang/Object;]", members.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
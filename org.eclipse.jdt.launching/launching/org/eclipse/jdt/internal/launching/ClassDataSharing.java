@@ -0,0 +1,350 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.launching;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.debug.core.ILaunchesListener2;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
+import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
+import org.eclipse.jdt.launching.IVMInstall;
+import org.eclipse.jdt.launching.IVMInstall2;
+import org.eclipse.jdt.launching.JavaRuntime;
+import org.eclipse.jdt.launching.VMRunnerConfiguration;
+
+/**
+ * Adds the arguments for a dynamic AppCDS archive to the command line of a launch.
+ * <p>
+ * The first launch of a configuration records the loaded classes with
+ * {@code -XX:ArchiveClassesAtExit}, subsequent launches map them with {@code -XX:SharedArchiveFile}.
+ * The archive is keyed by the JRE and the classpath (including size and time stamp of every
+ * archive), so a new archive is created as soon as either changes.
+ * </p>
+ * <p>
+ * Every launch creating an archive dumps it into a file of its own, which is renamed to the archive
+ * once the launch terminates. Concurrent launches of a configuration thus never write the same file,
+ * and a launch never maps an archive that is still being written.
+ * </p>
+ * <p>
+ * Dynamic archives require Java 13 and cannot be created for classpaths containing non-empty
+ * directories, no arguments are added in that case.
+ * </p>
+ */
+public class ClassDataSharing {
+
+	private static final String ARCHIVE_DIRECTORY = "cds"; //$NON-NLS-1$
+	private static final String ARCHIVE_EXTENSION = ".jsa"; //$NON-NLS-1$
+	private static final String DUMP_EXTENSION = ".part"; //$NON-NLS-1$
+	private static final String ARCHIVE_CLASSES_AT_EXIT = "-XX:ArchiveClassesAtExit="; //$NON-NLS-1$
+	private static final String SHARED_ARCHIVE_FILE = "-XX:SharedArchiveFile="; //$NON-NLS-1$
+
+	/**
+	 * VM arguments that conflict with a dynamic archive managed by the launcher
+	 */
+	private static final String[] CONFLICTING_ARGUMENTS = { "-XX:ArchiveClassesAtExit", //$NON-NLS-1$
+			"-XX:SharedArchiveFile", //$NON-NLS-1$
+			"-XX:+AutoCreateSharedArchive", //$NON-NLS-1$
+			"-Xshare:off", //$NON-NLS-1$
+			"-Xshare:dump" //$NON-NLS-1$
+	};
+
+	private final String fJavaVersion;
+	private final File fInstallLocation;
+	private final VMRunnerConfiguration fConfig;
+	private final File fArchiveDirectory;
+
+	/**
+	 * @param vmInstall
+	 *            the vm installation
+	 * @param config
+	 *            the runner configuration
+	 */
+	public ClassDataSharing(IVMInstall vmInstall, VMRunnerConfiguration config) {
+		this(getJavaVersion(vmInstall), vmInstall.getInstallLocation(), config, LaunchingPlugin.getDefault().getStateLocation().append(ARCHIVE_DIRECTORY).toFile());
+	}
+
+	protected ClassDataSharing(String javaVersion, File installLocation, VMRunnerConfiguration config, File archiveDirectory) {
+		Assert.isNotNull(config);
+		Assert.isNotNull(archiveDirectory);
+		fJavaVersion = javaVersion;
+		fInstallLocation = installLocation;
+		fConfig = config;
+		fArchiveDirectory = archiveDirectory;
+	}
+
+	private static String getJavaVersion(IVMInstall vmInstall) {
+		if (vmInstall instanceof IVMInstall2) {
+			return ((IVMInstall2) vmInstall).getJavaVersion();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the given VM arguments followed by the argument to create or use the archive of the given launch, or the
+	 * unmodified arguments if class data sharing is not enabled or not possible for the launch.
+	 *
+	 * @param launch
+	 *            the launch
+	 * @param vmArgs
+	 *            the VM arguments
+	 * @return the VM arguments to use
+	 */
+	public String[] addArchiveArgument(ILaunch launch, String[] vmArgs) {
+		if (!isEnabled(launch) || !isSupported(vmArgs)) {
+			return vmArgs;
+		}
+		String key = computeKey();
+		if (key == null) {
+			return vmArgs;
+		}
+		String name = getLaunchConfigurationName(launch);
+		String prefix = hash(name) + '-';
+		File archive = new File(fArchiveDirectory, prefix + key + ARCHIVE_EXTENSION);
+		String argument;
+		if (archive.isFile()) {
+			argument = SHARED_ARCHIVE_FILE + archive.getAbsolutePath();
+		} else {
+			// the command line of a launch that is not run
+			if (!isRegistered(launch)) {
+				return vmArgs;
+			}
+			if (!fArchiveDirectory.isDirectory() && !fArchiveDirectory.mkdirs()) {
+				return vmArgs;
+			}
+			File dump;
+			try {
+				dump = File.createTempFile(prefix + key + '-', DUMP_EXTENSION, fArchiveDirectory);
+			} catch (IOException e) {
+				LaunchingPlugin.log(e);
+				return vmArgs;
+			}
+			publishWhenTerminated(launch, dump, archive, prefix);
+			argument = ARCHIVE_CLASSES_AT_EXIT + dump.getAbsolutePath();
+		}
+		if (LaunchingPlugin.DEBUG) {
+			LaunchingPlugin.trace("<CDS> " + name + ": " + argument); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		String[] args = Arrays.copyOf(vmArgs, vmArgs.length + 1);
+		args[vmArgs.length] = argument;
+		return args;
+	}
+
+	/**
+	 * Returns whether class data sharing may be possible for launches of the given configuration, which is not the case
+	 * if its runtime classpath contains directories with content, such as the output folders of projects.
+	 *
+	 * @param configuration
+	 *            the launch configuration
+	 * @return whether an archive may be created for the launches of the configuration
+	 */
+	public static boolean isSupported(ILaunchConfiguration configuration) {
+		try {
+			IRuntimeClasspathEntry[] entries = JavaRuntime.computeUnresolvedRuntimeClasspath(configuration);
+			for (IRuntimeClasspathEntry entry : JavaRuntime.resolveRuntimeClasspath(entries, configuration)) {
+				if (entry.getClasspathProperty() != IRuntimeClasspathEntry.STANDARD_CLASSES && entry.getLocation() != null
+						&& containsDirectory(new String[] { entry.getLocation() })) {
+					return false;
+				}
+			}
+		} catch (CoreException e) {
+			// the launch reports the problem
+		}
+		return true;
+	}
+
+	protected boolean isRegistered(ILaunch launch) {
+		return DebugPlugin.getDefault().getLaunchManager().isRegistered(launch);
+	}
+
+	/**
+	 * Renames the dump of the given launch to the archive once the launch terminated.
+	 */
+	protected void publishWhenTerminated(ILaunch launch, File dump, File archive, String prefix) {
+		ILaunchManager manager = DebugPlugin.getDefault().getLaunchManager();
+		manager.addLaunchListener(new ILaunchesListener2() {
+			private boolean fDone = false;
+
+			@Override
+			public void launchesTerminated(ILaunch[] launches) {
+				launchesRemoved(launches);
+			}
+
+			@Override
+			public synchronized void launchesRemoved(ILaunch[] launches) {
+				if (!fDone && Arrays.asList(launches).contains(launch)) {
+					fDone = true;
+					manager.removeLaunchListener(this);
+					publish(dump, archive, prefix);
+				}
+			}
+
+			@Override
+			public void launchesAdded(ILaunch[] launches) {
+			}
+
+			@Override
+			public void launchesChanged(ILaunch[] launches) {
+			}
+		});
+	}
+
+	/**
+	 * Renames the given dump to the archive, unless the VM did not write it or another launch already created the
+	 * archive, and deletes the archives of the launch configuration that were created for a different JRE or
+	 * classpath.
+	 *
+	 * @param dump
+	 *            the file the VM dumped the archive into
+	 * @param archive
+	 *            the archive
+	 * @param prefix
+	 *            the prefix of the archives of the launch configuration
+	 */
+	protected void publish(File dump, File archive, String prefix) {
+		if (dump.length() == 0 || archive.exists() || !dump.renameTo(archive)) {
+			dump.delete();
+		}
+		if (archive.isFile()) {
+			deleteStaleArchives(prefix, archive);
+		}
+	}
+
+	protected boolean isEnabled(ILaunch launch) {
+		ILaunchConfiguration configuration = launch.getLaunchConfiguration();
+		if (configuration == null) {
+			return false;
+		}
+		try {
+			return configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_USE_CDS_ARCHIVE, false);
+		} catch (CoreException e) {
+			LaunchingPlugin.log(e);
+			return false;
+		}
+	}
+
+	protected String getLaunchConfigurationName(ILaunch launch) {
+		return launch.getLaunchConfiguration().getName();
+	}
+
+	/**
+	 * Returns whether the VM supports dynamic archives, the user did not configure class data sharing explicitly and
+	 * the class- and modulepath contain no directories with content.
+	 */
+	private boolean isSupported(String[] vmArgs) {
+		if (fJavaVersion == null || fInstallLocation == null || JavaCore.compareJavaVersions(fJavaVersion, JavaCore.VERSION_13) < 0) {
+			return false;
+		}
+		for (String arg : vmArgs) {
+			for (String conflicting : CONFLICTING_ARGUMENTS) {
+				if (arg.startsWith(conflicting)) {
+					return false;
+				}
+			}
+		}
+		return !containsDirectory(fConfig.getClassPath()) && !containsDirectory(fConfig.getModulepath());
+	}
+
+	private static boolean containsDirectory(String[] path) {
+		if (path != null) {
+			for (String entry : path) {
+				String[] children = new File(entry).list();
+				if (children != null && children.length > 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the key of the archive from the JRE and the class- and modulepath.
+	 *
+	 * @return the key or <code>null</code> if it could not be computed
+	 */
+	private String computeKey() {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			update(digest, fInstallLocation.getAbsolutePath());
+			update(digest, fJavaVersion);
+			update(digest, fConfig.getBootClassPath());
+			update(digest, fConfig.getClassPath());
+			update(digest, fConfig.getModulepath());
+			update(digest, String.valueOf(fConfig.isPreviewEnabled()));
+			return toHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			LaunchingPlugin.log(e);
+			return null;
+		}
+	}
+
+	private static void update(MessageDigest digest, String[] path) {
+		update(digest, String.valueOf(path == null ? -1 : path.length));
+		if (path != null) {
+			for (String entry : path) {
+				File file = new File(entry);
+				update(digest, entry);
+				update(digest, file.length() + ":" + file.lastModified()); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Deletes the archives of the launch configuration other than the given one
+	 */
+	private void deleteStaleArchives(String prefix, File current) {
+		File[] archives = fArchiveDirectory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(ARCHIVE_EXTENSION));
+		if (archives != null) {
+			for (File archive : archives) {
+				if (!archive.equals(current)) {
+					archive.delete();
+				}
+			}
+		}
+	}
+
+	private static String hash(String value) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			return toHex(digest.digest(value.getBytes(StandardCharsets.UTF_8))).substring(0, 16);
+		} catch (NoSuchAlgorithmException e) {
+			return Integer.toHexString(value.hashCode());
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder buf = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			buf.append(Character.forDigit((b >> 4) & 0xF, 16));
+			buf.append(Character.forDigit(b & 0xF, 16));
+		}
+		return buf.toString();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2017 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -493,14 +493,42 @@ public class JavaLaunchableTester extends PropertyTester {
 	private boolean hasItemOnBuildPath(IJavaElement element, Object[] args) {
 		if(element != null && args != null) {
 			IJavaProject project = element.getJavaProject();
+			if (project == null) {
+				return false;
+			}
+			for (String spath : getBuildPath(project)) {
+				for(int j = 0; j < args.length; j++) {
+					if(spath.lastIndexOf((String)args[j]) != -1) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the portable paths of the resolved build path entries of the given project and
+	 * of the projects it requires, computed once per project until a build path changes.
+	 *
+	 * @param project the Java project
+	 * @return the portable paths of the build path entries
+	 */
+	private List<String> getBuildPath(IJavaProject project) {
+		LaunchableTesterCache cache = LaunchableTesterCache.getDefault();
+		List<String> paths = cache.getBuildPath(project);
+		if (paths == null) {
+			long generation = cache.getGeneration();
+			paths = new ArrayList<>();
 			Set<IJavaProject> searched = new HashSet<>();
 			searched.add(project);
-			return hasItemsOnBuildPath(project, searched, args);
+			collectBuildPath(project, searched, paths);
+			cache.putBuildPath(generation, project, paths);
 		}
-		return false;
+		return paths;
 	}
 
-	private boolean hasItemsOnBuildPath(IJavaProject project, Set<IJavaProject> searched, Object[] args) {
+	private void collectBuildPath(IJavaProject project, Set<IJavaProject> searched, List<String> paths) {
 		try {
 			List<IJavaProject> projects = new ArrayList<>();
 	        if(project != null && project.exists()) {
@@ -508,12 +536,7 @@ public class JavaLaunchableTester extends PropertyTester {
 	            for(int i = 0; i < entries.length; i++) {
 	                IClasspathEntry entry = entries[i];
 					IPath path = entry.getPath();
-	                String spath = path.toPortableString();
-	                for(int j = 0; j < args.length; j++) {
-	                	if(spath.lastIndexOf((String)args[j]) != -1) {
-	                		return true;
-	                	}
-	                }
+	                paths.add(path.toPortableString());
 	                if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
 	                	String name = entry.getPath().lastSegment();
 	                	IProject dep = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
@@ -524,17 +547,15 @@ public class JavaLaunchableTester extends PropertyTester {
 	                }
 	            }
 	        }
-	        // search referenced projects
+	        // collect referenced projects
 	        Iterator<IJavaProject> iterator = projects.iterator();
 	        while (iterator.hasNext()) {
 	        	IJavaProject jp = iterator.next();
-	        	searched.add(jp);
-	        	if (hasItemsOnBuildPath(jp, searched, args)) {
-	        		return true;
+	        	if (searched.add(jp)) {
+	        		collectBuildPath(jp, searched, paths);
 	        	}
 	        }
 		} catch (JavaModelException e) {}
-		return false;
 	}
 
 	/**
@@ -596,6 +617,28 @@ public class JavaLaunchableTester extends PropertyTester {
 				}
 			}
 		}
+		if (element != null && isCacheable(property)) {
+			LaunchableTesterCache cache = LaunchableTesterCache.getDefault();
+			Boolean verdict = cache.getVerdict(element, property, args);
+			if (verdict == null) {
+				long generation = cache.getGeneration();
+				verdict = Boolean.valueOf(testProperty(element, property, args));
+				cache.putVerdict(generation, element, property, args, verdict.booleanValue());
+			}
+			return verdict.booleanValue();
+		}
+		return testProperty(element, property, args);
+	}
+
+	/**
+	 * Runs the test of the given property on the given element
+	 *
+	 * @param element the element to test or <code>null</code>
+	 * @param property the property to test
+	 * @param args the arguments of the test
+	 * @return the result of the test
+	 */
+	private boolean testProperty(IJavaElement element, String property, Object[] args) {
 		if(PROPERTY_HAS_MAIN.equals(property)) {
 			return hasMain(element);
 		}
@@ -629,4 +672,29 @@ public class JavaLaunchableTester extends PropertyTester {
 		return false;
 	}
 
+	/**
+	 * Returns whether the verdicts of the given property are cached. The verdicts of these
+	 * properties only depend on the element and its type hierarchy, and need to parse or search
+	 * the element. The build path reference test uses the cached build paths instead.
+	 *
+	 * @param property the property to test
+	 * @return whether verdicts of the property are cached
+	 */
+	private static boolean isCacheable(String property) {
+		return PROPERTY_HAS_MAIN.equals(property) || PROPERTY_HAS_METHOD.equals(property)
+				|| PROPERTY_HAS_METHOD_WITH_ANNOTATION.equals(property) || PROPERTY_HAS_TYPE_WITH_ANNOTATION.equals(property)
+				|| dependsOnHierarchy(property);
+	}
+
+	/**
+	 * Returns whether the verdicts of the given property depend on the type hierarchy of the
+	 * element, and not only on its compilation unit or class file
+	 *
+	 * @param property the tested property
+	 * @return whether the verdicts depend on the type hierarchy
+	 */
+	static boolean dependsOnHierarchy(String property) {
+		return PROPERTY_EXTENDS_CLASS.equals(property) || PROPERTY_EXTENDS_INTERFACE.equals(property);
+	}
+
 }
@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.launching;
+
+import static org.eclipse.jdt.core.IJavaElementDelta.F_ADDED_TO_CLASSPATH;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_AST_AFFECTED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_CHILDREN;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_CLASSPATH_CHANGED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_CLOSED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_CONTENT;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_FINE_GRAINED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_OPENED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_PRIMARY_RESOURCE;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_PRIMARY_WORKING_COPY;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Verdicts of the {@link JavaLaunchableTester} per element, property and arguments, and the
+ * build path items of each project including the projects it requires.
+ * <p>
+ * The tester runs whenever a context menu opens or the selection changes. Verdicts of elements
+ * in a compilation unit or class file are discarded when its content changes, verdicts depending
+ * on the type hierarchy when any content changes, and all verdicts and build paths on any other
+ * change of the Java model.
+ * </p>
+ */
+class LaunchableTesterCache implements IElementChangedListener {
+
+	/**
+	 * Maximum number of verdicts kept, all are discarded when exceeded
+	 */
+	private static final int MAX_VERDICTS = 5000;
+
+	/**
+	 * Content changes of a compilation unit or class file which do not affect other elements
+	 */
+	private static final int CONTENT_FLAGS = F_CONTENT | F_FINE_GRAINED | F_AST_AFFECTED | F_CHILDREN | F_PRIMARY_RESOURCE | F_PRIMARY_WORKING_COPY;
+
+	private static LaunchableTesterCache fgDefault = null;
+
+	private final Map<Key, Boolean> fVerdicts = new ConcurrentHashMap<>();
+
+	private final Map<IJavaProject, List<String>> fBuildPaths = new ConcurrentHashMap<>();
+
+	/**
+	 * Incremented on every invalidation, verdicts computed concurrently with an invalidation
+	 * are not cached
+	 */
+	private volatile long fGeneration = 0;
+
+	/**
+	 * Returns the shared cache
+	 *
+	 * @return the shared cache
+	 */
+	static synchronized LaunchableTesterCache getDefault() {
+		if (fgDefault == null) {
+			fgDefault = new LaunchableTesterCache();
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Starts listening for changes that invalidate cached verdicts
+	 */
+	static void start() {
+		JavaCore.addElementChangedListener(getDefault(), ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Stops listening for changes and discards all cached verdicts
+	 */
+	static void stop() {
+		LaunchableTesterCache cache = getDefault();
+		JavaCore.removeElementChangedListener(cache);
+		cache.clear();
+	}
+
+	/**
+	 * Returns the current generation, to be passed to {@link #putVerdict(long, IJavaElement, String, Object[], boolean)}
+	 *
+	 * @return the current generation
+	 */
+	long getGeneration() {
+		return fGeneration;
+	}
+
+	/**
+	 * Returns the cached verdict of the given test or <code>null</code>
+	 *
+	 * @param element the tested element
+	 * @param property the tested property
+	 * @param args the arguments of the test
+	 * @return the verdict or <code>null</code>
+	 */
+	Boolean getVerdict(IJavaElement element, String property, Object[] args) {
+		return fVerdicts.get(new Key(element, property, args));
+	}
+
+	/**
+	 * Caches the verdict of the given test unless the cache was invalidated since the given
+	 * generation
+	 *
+	 * @param generation the generation before the verdict was computed
+	 * @param element the tested element
+	 * @param property the tested property
+	 * @param args the arguments of the test
+	 * @param verdict the verdict
+	 */
+	void putVerdict(long generation, IJavaElement element, String property, Object[] args, boolean verdict) {
+		if (fVerdicts.size() >= MAX_VERDICTS) {
+			clearVerdicts();
+			return;
+		}
+		fVerdicts.put(new Key(element, property, args), Boolean.valueOf(verdict));
+		if (generation != fGeneration) {
+			fVerdicts.remove(new Key(element, property, args));
+		}
+	}
+
+	/**
+	 * Returns the cached portable paths of the build path items of the given project and the
+	 * projects it requires, or <code>null</code>
+	 *
+	 * @param project the Java project
+	 * @return the paths or <code>null</code>
+	 */
+	List<String> getBuildPath(IJavaProject project) {
+		return fBuildPaths.get(project);
+	}
+
+	/**
+	 * Caches the build path items of the given project unless the cache was invalidated since
+	 * the given generation
+	 *
+	 * @param generation the generation before the paths were computed
+	 * @param project the Java project
+	 * @param paths the portable paths of the build path items
+	 */
+	void putBuildPath(long generation, IJavaProject project, List<String> paths) {
+		fBuildPaths.put(project, paths);
+		if (generation != fGeneration) {
+			fBuildPaths.remove(project);
+		}
+	}
+
+	/**
+	 * Discards all verdicts and build paths
+	 */
+	void clear() {
+		fGeneration++;
+		fVerdicts.clear();
+		fBuildPaths.clear();
+	}
+
+	private void clearVerdicts() {
+		fGeneration++;
+		fVerdicts.clear();
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		Set<IJavaElement> units = new HashSet<>();
+		if (collectChangedUnits(event.getDelta(), units)) {
+			if (!units.isEmpty()) {
+				removeVerdicts(units);
+			}
+		} else if (isClasspathChange(event.getDelta())) {
+			clear();
+		} else {
+			clearVerdicts();
+		}
+	}
+
+	/**
+	 * Collects the compilation units and class files whose content changed. Returns
+	 * <code>false</code> if the delta contains other changes.
+	 *
+	 * @param delta the delta to visit
+	 * @param units the collected compilation units and class files
+	 * @return whether the delta only contains content changes
+	 */
+	private boolean collectChangedUnits(IJavaElementDelta delta, Collection<IJavaElement> units) {
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.COMPILATION_UNIT:
+			case IJavaElement.CLASS_FILE:
+				if (delta.getKind() == IJavaElementDelta.CHANGED && (delta.getFlags() & ~CONTENT_FLAGS) == 0) {
+					units.add(delta.getElement());
+					return true;
+				}
+				return false;
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ~(F_CHILDREN | F_CONTENT)) != 0) {
+					return false;
+				}
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					if (!collectChangedUnits(child, units)) {
+						return false;
+					}
+				}
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Removes the verdicts of elements in the given compilation units or class files, the verdicts
+	 * of elements containing compilation units or class files, and the verdicts depending on type
+	 * hierarchies
+	 *
+	 * @param units the changed compilation units and class files
+	 */
+	private void removeVerdicts(Set<IJavaElement> units) {
+		fGeneration++;
+		for (Iterator<Key> iterator = fVerdicts.keySet().iterator(); iterator.hasNext();) {
+			Key key = iterator.next();
+			IJavaElement unit = getUnit(key.fElement);
+			if (key.fHierarchy || unit == null || units.contains(unit)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private static IJavaElement getUnit(IJavaElement element) {
+		IJavaElement unit = element.getAncestor(IJavaElement.COMPILATION_UNIT);
+		return unit != null ? unit : element.getAncestor(IJavaElement.CLASS_FILE);
+	}
+
+	/**
+	 * Returns whether the given delta describes a change of a build path. Only the Java model,
+	 * project and package fragment root levels are visited.
+	 *
+	 * @param delta the delta to check
+	 * @return whether the delta affects build paths
+	 */
+	private boolean isClasspathChange(IJavaElementDelta delta) {
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & (F_CLASSPATH_CHANGED | F_RESOLVED_CLASSPATH_CHANGED | F_OPENED | F_CLOSED)) != 0) {
+					return true;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				return delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & (F_ADDED_TO_CLASSPATH | F_REMOVED_FROM_CLASSPATH)) != 0;
+			default:
+				return false;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			if (isClasspathChange(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Key of a verdict
+	 */
+	private static final class Key {
+		private final IJavaElement fElement;
+		private final String fProperty;
+		private final List<Object> fArgs;
+		/**
+		 * Whether the verdict depends on the type hierarchy of the element
+		 */
+		private final boolean fHierarchy;
+		private final int fHashCode;
+
+		Key(IJavaElement element, String property, Object[] args) {
+			fElement = element;
+			fProperty = property;
+			fArgs = args == null ? null : Arrays.asList(args.clone());
+			fHierarchy = JavaLaunchableTester.dependsOnHierarchy(property);
+			fHashCode = Objects.hash(element, property, fArgs);
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return fElement.equals(other.fElement) && fProperty.equals(other.fProperty) && Objects.equals(fArgs, other.fArgs);
+		}
+	}
+}
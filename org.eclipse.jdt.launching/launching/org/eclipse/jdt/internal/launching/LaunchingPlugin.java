@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -103,8 +104,10 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	 */
 	public static boolean DEBUG = false;
 	public static boolean DEBUG_JRE_CONTAINER = false;
+	public static boolean DEBUG_CLASSPATH_RESOLUTION = false;
 
 	public static final String DEBUG_JRE_CONTAINER_FLAG = "org.eclipse.jdt.launching/debug/classpath/jreContainer"; //$NON-NLS-1$
+	public static final String DEBUG_CLASSPATH_RESOLUTION_FLAG = "org.eclipse.jdt.launching/debug/classpath/resolution"; //$NON-NLS-1$
 	public static final String DEBUG_FLAG = "org.eclipse.jdt.launching/debug"; //$NON-NLS-1$
 
 	/**
@@ -180,6 +183,12 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	 */
 	private static Object installLock = new Object();
 
+	/**
+	 * Mutex for reading and writing the library info map, library information
+	 * may be computed for several installs concurrently
+	 */
+	private static Object libraryInfoLock = new Object();
+
 	/**
 	 * Whether changes in VM preferences are being batched. When being batched
 	 * the plug-in can ignore processing and changes.
@@ -425,10 +434,12 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	 * path, or <code>null</code> if none
 	 */
 	public static LibraryInfo getLibraryInfo(String javaInstallPath) {
-		if (fgLibraryInfoMap == null) {
-			restoreLibraryInfo();
+		synchronized (libraryInfoLock) {
+			if (fgLibraryInfoMap == null) {
+				restoreLibraryInfo();
+			}
+			return fgLibraryInfoMap.get(javaInstallPath);
 		}
-		return fgLibraryInfoMap.get(javaInstallPath);
 	}
 
 	/**
@@ -442,22 +453,28 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 		if (isVMLogging()) {
 			LaunchingPlugin.log(LaunchingMessages.VMLogging_2 + javaInstallPath);
 		}
-		if (fgLibraryInfoMap == null) {
-			restoreLibraryInfo();
-		}
-		if (info == null) {
-			fgLibraryInfoMap.remove(javaInstallPath);
-			if(fgInstallTimeMap != null) {
-				fgInstallTimeMap.remove(javaInstallPath);
-				writeInstallInfo();
+		synchronized (libraryInfoLock) {
+			if (fgLibraryInfoMap == null) {
+				restoreLibraryInfo();
 			}
+			if (info == null) {
+				fgLibraryInfoMap.remove(javaInstallPath);
+				synchronized (installLock) {
+					if(fgInstallTimeMap != null) {
+						fgInstallTimeMap.remove(javaInstallPath);
+						writeInstallInfo();
+					}
+				}
 
-		} else {
-			fgLibraryInfoMap.put(javaInstallPath, info);
+			} else {
+				fgLibraryInfoMap.put(javaInstallPath, info);
+			}
+			//once the library info has been set we can forget it has changed
+			synchronized (installLock) {
+				fgHasChanged.remove(javaInstallPath);
+			}
+			saveLibraryInfo();
 		}
-		//once the library info has been set we can forget it has changed
-		fgHasChanged.remove(javaInstallPath);
-		saveLibraryInfo();
 	}
 
 	public static boolean isVMLogging() {
@@ -534,6 +551,8 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	public void stop(BundleContext context) throws Exception {
 		try {
 			AdvancedSourceLookupSupport.stop();
+			RuntimeClasspathCache.stop();
+			LaunchableTesterCache.stop();
 
 			DebugPlugin.getDefault().getLaunchManager().removeLaunchListener(this);
 			DebugPlugin.getDefault().removeDebugEventListener(this);
@@ -573,7 +592,9 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 					log(e);
 				}
 				//catch in case any install times are still cached for removed JREs
-				writeInstallInfo();
+				synchronized (installLock) {
+					writeInstallInfo();
+				}
 			}
 		});
 
@@ -584,6 +605,8 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 		DebugPlugin.getDefault().addDebugEventListener(this);
 
 		AdvancedSourceLookupSupport.start();
+		RuntimeClasspathCache.start();
+		LaunchableTesterCache.start();
 	}
 
 	/**
@@ -887,6 +910,9 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	private static Element infoAsElement(Document doc, LibraryInfo info) {
 		Element libraryElement = doc.createElement("libraryInfo"); //$NON-NLS-1$
 		libraryElement.setAttribute("version", info.getVersion()); //$NON-NLS-1$
+		if (info.getFingerprint() != null) {
+			libraryElement.setAttribute("fingerprint", info.getFingerprint()); //$NON-NLS-1$
+		}
 		appendPathElements(doc, "bootpath", libraryElement, info.getBootpath()); //$NON-NLS-1$
 		appendPathElements(doc, "extensionDirs", libraryElement, info.getExtensionDirs()); //$NON-NLS-1$
 		appendPathElements(doc, "endorsedDirs", libraryElement, info.getEndorsedDirs()); //$NON-NLS-1$
@@ -941,7 +967,7 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	 * Restores library information for VMs
 	 */
 	private static void restoreLibraryInfo() {
-		fgLibraryInfoMap = new HashMap<>(10);
+		fgLibraryInfoMap = new ConcurrentHashMap<>(10);
 		IPath libPath = getDefault().getStateLocation();
 		libPath = libPath.append("libraryInfos.xml"); //$NON-NLS-1$
 		File file = libPath.toFile();
@@ -974,6 +1000,10 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 									LaunchingPlugin.log(LaunchingMessages.VMLogging_1 + location);
 								}
 								LibraryInfo info = new LibraryInfo(version, bootpath, extDirs, endDirs);
+								String fingerprint = element.getAttribute("fingerprint"); //$NON-NLS-1$
+								if (fingerprint.length() > 0) {
+									info.setFingerprint(fingerprint);
+								}
 								fgLibraryInfoMap.put(location, info);
 							}
 						}
@@ -1326,6 +1356,7 @@ public class LaunchingPlugin extends Plugin implements DebugOptionsListener, IEc
 	public void optionsChanged(DebugOptions options) {
 		DEBUG = options.getBooleanOption(DEBUG_FLAG, false);
 		DEBUG_JRE_CONTAINER = DEBUG && options.getBooleanOption(DEBUG_JRE_CONTAINER_FLAG, false);
+		DEBUG_CLASSPATH_RESOLUTION = DEBUG && options.getBooleanOption(DEBUG_CLASSPATH_RESOLUTION_FLAG, false);
 	}
 
 	/**
@@ -23,6 +23,7 @@ public class LibraryInfo {
 	private String[] fBootpath;
 	private String[] fExtensionDirs;
 	private String[] fEndorsedDirs;
+	private String fFingerprint;
 
 	public LibraryInfo(String version, String[] bootpath, String[] extDirs, String[] endDirs) {
 		fVersion = version;
@@ -66,4 +67,24 @@ public class LibraryInfo {
 	public String[] getEndorsedDirs() {
 		return fEndorsedDirs;
 	}
+
+	/**
+	 * Returns the content fingerprint of the VM install this information was
+	 * computed for, or <code>null</code> if unknown.
+	 *
+	 * @return the install fingerprint or <code>null</code>
+	 */
+	public String getFingerprint() {
+		return fFingerprint;
+	}
+
+	/**
+	 * Sets the content fingerprint of the VM install this information was
+	 * computed for.
+	 *
+	 * @param fingerprint the install fingerprint or <code>null</code>
+	 */
+	public void setFingerprint(String fingerprint) {
+		fFingerprint = fingerprint;
+	}
 }
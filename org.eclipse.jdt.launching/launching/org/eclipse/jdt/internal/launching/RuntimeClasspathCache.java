@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.launching;
+
+import static org.eclipse.jdt.core.IJavaElementDelta.F_ADDED_TO_CLASSPATH;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_CLASSPATH_CHANGED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_CLOSED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_OPENED;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+import static org.eclipse.jdt.core.IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.core.variables.IDynamicVariable;
+import org.eclipse.core.variables.IStringVariableManager;
+import org.eclipse.core.variables.IValueVariable;
+import org.eclipse.core.variables.IValueVariableListener;
+import org.eclipse.core.variables.VariablesPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IRuntimeClasspathEntry;
+import org.eclipse.jdt.launching.IVMInstall;
+import org.eclipse.jdt.launching.IVMInstallChangedListener;
+import org.eclipse.jdt.launching.JavaRuntime;
+import org.eclipse.jdt.launching.PropertyChangeEvent;
+
+/**
+ * Cache of resolved runtime classpaths, keyed by the attributes of the launch configuration
+ * (which include the Java project and whether test code is excluded) and the unresolved
+ * runtime classpath entries.
+ * <p>
+ * Resolving the runtime classpath walks the complete project graph of the launched project,
+ * which is repeated on every launch. The cached classpaths are discarded as soon as the
+ * classpath of any Java project, a classpath container or variable, a VM install, a
+ * launching preference or a string substitution variable changes. Classpaths with
+ * entries referring to dynamic variables, whose values change without notice, are not
+ * cached.
+ * </p>
+ * <p>
+ * Runtime classpath entries are mutable, the cache keeps and answers copies of them.
+ * </p>
+ */
+public class RuntimeClasspathCache implements IElementChangedListener, IVMInstallChangedListener, IPreferenceChangeListener, IValueVariableListener {
+
+	/**
+	 * Resolves a runtime classpath when it is not available from the cache
+	 */
+	public interface IResolver {
+
+		/**
+		 * Resolves the runtime classpath
+		 *
+		 * @return the resolved runtime classpath entries
+		 * @throws CoreException if unable to resolve the classpath
+		 */
+		IRuntimeClasspathEntry[] resolve() throws CoreException;
+	}
+
+	/**
+	 * Maximum number of resolved classpaths kept
+	 */
+	private static final int MAX_CACHE_SIZE = 100;
+
+	private static RuntimeClasspathCache fgDefault = null;
+
+	private final Map<Key, IRuntimeClasspathEntry[]> fCache = new LinkedHashMap<Key, IRuntimeClasspathEntry[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Entry<Key, IRuntimeClasspathEntry[]> eldest) {
+			return size() > MAX_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Incremented on every invalidation, classpaths resolved concurrently with an
+	 * invalidation are not cached
+	 */
+	private long fGeneration = 0;
+
+	private final AtomicLong fHits = new AtomicLong();
+	private final AtomicLong fMisses = new AtomicLong();
+
+	/**
+	 * Returns the shared cache
+	 *
+	 * @return the shared cache
+	 */
+	public static synchronized RuntimeClasspathCache getDefault() {
+		if (fgDefault == null) {
+			fgDefault = new RuntimeClasspathCache();
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Starts listening for changes that invalidate cached classpaths
+	 */
+	public static void start() {
+		RuntimeClasspathCache cache = getDefault();
+		JavaCore.addElementChangedListener(cache, ElementChangedEvent.POST_CHANGE);
+		JavaRuntime.addVMInstallChangedListener(cache);
+		InstanceScope.INSTANCE.getNode(LaunchingPlugin.ID_PLUGIN).addPreferenceChangeListener(cache);
+		VariablesPlugin.getDefault().getStringVariableManager().addValueVariableListener(cache);
+	}
+
+	/**
+	 * Stops listening for changes and discards all cached classpaths
+	 */
+	public static void stop() {
+		RuntimeClasspathCache cache = getDefault();
+		JavaCore.removeElementChangedListener(cache);
+		JavaRuntime.removeVMInstallChangedListener(cache);
+		InstanceScope.INSTANCE.getNode(LaunchingPlugin.ID_PLUGIN).removePreferenceChangeListener(cache);
+		VariablesPlugin.getDefault().getStringVariableManager().removeValueVariableListener(cache);
+		cache.clear();
+	}
+
+	/**
+	 * Returns the resolved runtime classpath for the given unresolved entries and launch configuration,
+	 * using the given resolver if it has not been cached yet.
+	 *
+	 * @param entries the unresolved runtime classpath entries
+	 * @param configuration the launch configuration
+	 * @param resolver resolves the classpath on a cache miss
+	 * @return the resolved runtime classpath entries
+	 * @throws CoreException if unable to resolve the classpath
+	 */
+	public IRuntimeClasspathEntry[] resolve(IRuntimeClasspathEntry[] entries, ILaunchConfiguration configuration, IResolver resolver) throws CoreException {
+		if (refersToDynamicVariables(entries)) {
+			return resolver.resolve();
+		}
+		long start = System.nanoTime();
+		Key key = new Key(configuration.getAttributes(), entries);
+		IRuntimeClasspathEntry[] resolved;
+		long generation;
+		synchronized (fCache) {
+			resolved = fCache.get(key);
+			generation = fGeneration;
+		}
+		if (resolved != null && archivesExist(resolved)) {
+			fHits.incrementAndGet();
+			if (LaunchingPlugin.DEBUG_CLASSPATH_RESOLUTION) {
+				LaunchingPlugin.trace("<CLASSPATH> cache hit for " + configuration.getName() + " in " + (System.nanoTime() - start) / 1000 + "us"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			return copy(resolved);
+		}
+		fMisses.incrementAndGet();
+		resolved = resolver.resolve();
+		synchronized (fCache) {
+			if (generation == fGeneration) {
+				fCache.put(key, copy(resolved));
+			}
+		}
+		if (LaunchingPlugin.DEBUG_CLASSPATH_RESOLUTION) {
+			LaunchingPlugin.trace("<CLASSPATH> resolved " + configuration.getName() + " in " + (System.nanoTime() - start) / 1000 + "us (" + resolved.length + " entries)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+		return resolved;
+	}
+
+	/**
+	 * Returns copies of the given runtime classpath entries. Entries other than
+	 * {@link RuntimeClasspathEntry}, which are only contributed by custom resolvers,
+	 * are shared.
+	 *
+	 * @param entries the runtime classpath entries
+	 * @return the copies
+	 */
+	private static IRuntimeClasspathEntry[] copy(IRuntimeClasspathEntry[] entries) {
+		IRuntimeClasspathEntry[] copies = new IRuntimeClasspathEntry[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			IRuntimeClasspathEntry entry = entries[i];
+			copies[i] = entry instanceof RuntimeClasspathEntry ? new RuntimeClasspathEntry((RuntimeClasspathEntry) entry) : entry;
+		}
+		return copies;
+	}
+
+	/**
+	 * Returns whether any of the given unresolved entries is a string substitution referring
+	 * to a dynamic variable.
+	 *
+	 * @param entries the unresolved runtime classpath entries
+	 * @return whether the resolved classpath depends on dynamic variables
+	 */
+	private static boolean refersToDynamicVariables(IRuntimeClasspathEntry[] entries) {
+		IDynamicVariable[] variables = null;
+		for (IRuntimeClasspathEntry entry : entries) {
+			if (entry instanceof VariableClasspathEntry) {
+				String expression = ((VariableClasspathEntry) entry).getVariableString();
+				if (expression == null) {
+					continue;
+				}
+				if (variables == null) {
+					IStringVariableManager manager = VariablesPlugin.getDefault().getStringVariableManager();
+					variables = manager.getDynamicVariables();
+				}
+				for (IDynamicVariable variable : variables) {
+					String reference = "${" + variable.getName(); //$NON-NLS-1$
+					if (expression.contains(reference + '}') || expression.contains(reference + ':')) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether the archives of the given resolved classpath still exist, resolution
+	 * fails for missing archives that are not optional.
+	 *
+	 * @param resolved the resolved runtime classpath entries
+	 * @return whether all archives exist
+	 */
+	private boolean archivesExist(IRuntimeClasspathEntry[] resolved) {
+		for (IRuntimeClasspathEntry entry : resolved) {
+			if (entry.getType() == IRuntimeClasspathEntry.ARCHIVE) {
+				String location = entry.getLocation();
+				if (location != null && !new File(location).exists()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Discards all cached classpaths
+	 */
+	public void clear() {
+		synchronized (fCache) {
+			fGeneration++;
+			if (!fCache.isEmpty()) {
+				fCache.clear();
+				if (LaunchingPlugin.DEBUG_CLASSPATH_RESOLUTION) {
+					LaunchingPlugin.trace("<CLASSPATH> cache cleared"); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns how many classpaths have been answered from the cache
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return fHits.get();
+	}
+
+	/**
+	 * Returns how many classpaths had to be resolved
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return fMisses.get();
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (isClasspathChange(event.getDelta())) {
+			clear();
+		}
+	}
+
+	/**
+	 * Returns whether the given delta describes a change that can affect a resolved runtime
+	 * classpath. Only the Java model, project and package fragment root levels are visited.
+	 *
+	 * @param delta the delta to check
+	 * @return whether the delta affects classpaths
+	 */
+	private boolean isClasspathChange(IJavaElementDelta delta) {
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & (F_CLASSPATH_CHANGED | F_RESOLVED_CLASSPATH_CHANGED | F_OPENED | F_CLOSED)) != 0) {
+					return true;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				return delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & (F_ADDED_TO_CLASSPATH | F_REMOVED_FROM_CLASSPATH | F_ARCHIVE_CONTENT_CHANGED)) != 0;
+			default:
+				return false;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			if (isClasspathChange(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void defaultVMInstallChanged(IVMInstall previous, IVMInstall current) {
+		clear();
+	}
+
+	@Override
+	public void vmChanged(PropertyChangeEvent event) {
+		clear();
+	}
+
+	@Override
+	public void vmAdded(IVMInstall vm) {
+		clear();
+	}
+
+	@Override
+	public void vmRemoved(IVMInstall vm) {
+		clear();
+	}
+
+	@Override
+	public void preferenceChange(PreferenceChangeEvent event) {
+		clear();
+	}
+
+	@Override
+	public void variablesAdded(IValueVariable[] variables) {
+		clear();
+	}
+
+	@Override
+	public void variablesChanged(IValueVariable[] variables) {
+		clear();
+	}
+
+	@Override
+	public void variablesRemoved(IValueVariable[] variables) {
+		clear();
+	}
+
+	/**
+	 * Key of a resolved classpath
+	 */
+	private static final class Key {
+		private final Map<String, Object> fAttributes;
+		private final List<IRuntimeClasspathEntry> fEntries;
+		private final int fHashCode;
+
+		Key(Map<String, Object> attributes, IRuntimeClasspathEntry[] entries) {
+			fAttributes = new HashMap<>(attributes);
+			fEntries = Arrays.asList(copy(entries));
+			fHashCode = 31 * fAttributes.hashCode() + fEntries.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return fHashCode == other.fHashCode && fAttributes.equals(other.fAttributes) && fEntries.equals(other.fEntries);
+		}
+	}
+}
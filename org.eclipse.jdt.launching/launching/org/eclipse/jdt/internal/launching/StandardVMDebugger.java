@@ -218,6 +218,7 @@ public class StandardVMDebugger extends StandardVMRunner {
 		}
 
 		String[] allVMArgs = combineVmArgs(config, fVMInstance);
+		allVMArgs = new ClassDataSharing(fVMInstance, config).addArchiveArgument(launch, allVMArgs);
 		addArguments(ensureEncoding(launch, allVMArgs), arguments);
 		addBootClassPathArguments(arguments, config);
 
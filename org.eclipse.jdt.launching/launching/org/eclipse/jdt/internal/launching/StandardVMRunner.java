@@ -423,6 +423,7 @@ public class StandardVMRunner extends AbstractVMRunner {
 		// VM args are the first thing after the java program so that users can specify
 		// options like '-client' & '-server' which are required to be the first option
 		String[] allVMArgs = combineVmArgs(config, fVMInstance);
+		allVMArgs = new ClassDataSharing(fVMInstance, config).addArchiveArgument(launch, allVMArgs);
 		addArguments(ensureEncoding(launch, allVMArgs), arguments);
 
 		addBootClassPathArguments(arguments, config);
@@ -20,6 +20,7 @@ package org.eclipse.jdt.internal.launching;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -28,16 +29,24 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -83,6 +92,13 @@ public class StandardVMType extends AbstractVMInstallType {
 	private static final String RELEASE_FILE = "release"; //$NON-NLS-1$
 	private static final String JAVA_VERSION = "JAVA_VERSION"; //$NON-NLS-1$
 	private static final String JRT_FS_JAR = "jrt-fs.jar"; //$NON-NLS-1$
+	private static final String MODULES_FILE = "modules"; //$NON-NLS-1$
+
+	/**
+	 * Size in bytes of the header of a <code>lib/modules</code> runtime image: magic, version,
+	 * flags, resource count, table length, locations size and strings size.
+	 */
+	private static final int JIMAGE_HEADER_SIZE = 28;
 
 	public static final String ID_STANDARD_VM_TYPE = "org.eclipse.jdt.internal.debug.ui.launcher.StandardVMType"; //$NON-NLS-1$
 
@@ -116,7 +132,21 @@ public class StandardVMType extends AbstractVMInstallType {
 	 * Map of the install path for which we were unable to generate
 	 * the library info during this session.
 	 */
-	private static Map<String, LibraryInfo> fgFailedInstallPath = new HashMap<>();
+	private static Map<String, LibraryInfo> fgFailedInstallPath = new ConcurrentHashMap<>();
+
+	/**
+	 * Mutexes for computing library information, one per install path. Library information
+	 * for different installs can be computed concurrently.
+	 * <br><br>
+	 * Map&lt;{@link String}, {@link Object}&gt;
+	 */
+	private static Map<String, Object> fgInstallLocks = new ConcurrentHashMap<>();
+
+	/**
+	 * Install paths whose persisted library information has been checked against the
+	 * install fingerprint during this session.
+	 */
+	private static Set<String> fgVerifiedInstallPath = ConcurrentHashMap.newKeySet();
 
 	/**
 	 * Cache for default library locations. See {@link #getDefaultLibraryLocations(File)}
@@ -125,7 +155,7 @@ public class StandardVMType extends AbstractVMInstallType {
 	 *
 	 * @since 3.7
 	 */
-	private static Map<String, List<LibraryLocation>> fgDefaultLibLocs = new HashMap<>();
+	private static Map<String, List<LibraryLocation>> fgDefaultLibLocs = new ConcurrentHashMap<>();
 
 	/**
 	 * The list of locations in which to look for the java executable in candidate
@@ -226,33 +256,150 @@ public class StandardVMType extends AbstractVMInstallType {
 	 * @param javaExecutable the Java executable file
 	 * @return the {@link LibraryInfo} for the home and executable path or an empty object, never <code>null</code>
 	 */
-	protected synchronized LibraryInfo getLibraryInfo(File javaHome, File javaExecutable) {
+	protected LibraryInfo getLibraryInfo(File javaHome, File javaExecutable) {
 		String installPath = javaHome.getAbsolutePath();
-		LibraryInfo info = LaunchingPlugin.getLibraryInfo(installPath);
-		if (info == null || LaunchingPlugin.timeStampChanged(installPath)) {
-			info = fgFailedInstallPath.get(installPath);
-			if (info == null) {
-				String version = readReleaseVersion(javaHome);
-				if (JavaCore.compareJavaVersions(version, JavaCore.VERSION_1_8) > 0) {
-					info = new LibraryInfo(version, new String[0], new String[0], new String[0]);
-					LaunchingPlugin.setLibraryInfo(installPath, info);
-				} else {
-					info = generateLibraryInfo(javaHome, javaExecutable);
-					if (info == null) {
-						// Bug 536943: try again in case we have a timing problem with process execution and output retrieval
-						info = generateLibraryInfo(javaHome, javaExecutable);
-					}
-					if (info == null) {
-						info = getDefaultLibraryInfo(javaHome);
-						fgFailedInstallPath.put(installPath, info);
-					} else {
-						// only persist if we were able to generate information - see bug 70011
+		synchronized (fgInstallLocks.computeIfAbsent(installPath, path -> new Object())) {
+			LibraryInfo info = LaunchingPlugin.getLibraryInfo(installPath);
+			if (info == null || LaunchingPlugin.timeStampChanged(installPath) || !isFingerprintVerified(installPath, info, javaHome, javaExecutable)) {
+				info = fgFailedInstallPath.get(installPath);
+				if (info == null) {
+					String fingerprint = computeFingerprint(javaHome, javaExecutable);
+					String version = readReleaseVersion(javaHome);
+					if (JavaCore.compareJavaVersions(version, JavaCore.VERSION_1_8) > 0) {
+						// modular runtime image, the release file tells us all we need - no need to run the detector
+						info = new LibraryInfo(version, new String[0], new String[0], new String[0]);
+						info.setFingerprint(fingerprint);
 						LaunchingPlugin.setLibraryInfo(installPath, info);
+					} else {
+						info = generateLibraryInfo(javaHome, javaExecutable);
+						if (info == null) {
+							// Bug 536943: try again in case we have a timing problem with process execution and output retrieval
+							info = generateLibraryInfo(javaHome, javaExecutable);
+						}
+						if (info == null) {
+							info = getDefaultLibraryInfo(javaHome);
+							fgFailedInstallPath.put(installPath, info);
+						} else {
+							// only persist if we were able to generate information - see bug 70011
+							info.setFingerprint(fingerprint);
+							LaunchingPlugin.setLibraryInfo(installPath, info);
+						}
 					}
+					fgVerifiedInstallPath.add(installPath);
 				}
 			}
+			return info;
+		}
+	}
+
+	/**
+	 * Computes the library information for each of the given install locations. Detection
+	 * runs concurrently across the installs, so that the (potentially slow) process based
+	 * detection of older VMs is not done one VM after the other. The results are cached
+	 * as if {@link #getLibraryInfo(File, File)} had been called for each location.
+	 *
+	 * @param javaHomes the Java home folders to compute library information for
+	 */
+	public void initializeLibraryInfos(Collection<File> javaHomes) {
+		Map<File, File> executables = new LinkedHashMap<>();
+		for (File javaHome : javaHomes) {
+			File javaExecutable = findJavaExecutable(javaHome);
+			if (javaExecutable != null) {
+				executables.put(javaHome, javaExecutable);
+			}
+		}
+		if (executables.size() < 2) {
+			for (Entry<File, File> entry : executables.entrySet()) {
+				getLibraryInfo(entry.getKey(), entry.getValue());
+			}
+			return;
+		}
+		int threads = Math.min(executables.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "Library Detection"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<LibraryInfo>> results = new ArrayList<>(executables.size());
+			for (Entry<File, File> entry : executables.entrySet()) {
+				results.add(executor.submit(() -> getLibraryInfo(entry.getKey(), entry.getValue())));
+			}
+			for (Future<LibraryInfo> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					LaunchingPlugin.log(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Returns whether the given persisted library information still matches the content
+	 * of the install. The check is done once per install and session, since the install
+	 * time stamp alone does not change when files below the install folder are replaced.
+	 *
+	 * @param installPath the absolute install path
+	 * @param info the persisted library information
+	 * @param javaHome the Java home folder
+	 * @param javaExecutable the Java executable file
+	 * @return <code>true</code> if the library information can be used as is
+	 */
+	private boolean isFingerprintVerified(String installPath, LibraryInfo info, File javaHome, File javaExecutable) {
+		if (fgVerifiedInstallPath.contains(installPath)) {
+			return true;
+		}
+		if (computeFingerprint(javaHome, javaExecutable).equals(info.getFingerprint())) {
+			fgVerifiedInstallPath.add(installPath);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Computes a fingerprint of the content of the given install without starting a process.
+	 * The fingerprint covers the <code>release</code> file, the size and header of the
+	 * <code>lib/modules</code> runtime image (if any) and the size of the Java executable.
+	 *
+	 * @param javaHome the Java home folder
+	 * @param javaExecutable the Java executable file
+	 * @return the fingerprint as a hexadecimal string, never <code>null</code>
+	 */
+	static String computeFingerprint(File javaHome, File javaExecutable) {
+		CRC32 crc = new CRC32();
+		File release = new File(javaHome, RELEASE_FILE);
+		File modules = new File(new File(javaHome, LIB), MODULES_FILE);
+		try {
+			if (release.isFile()) {
+				crc.update(Files.readAllBytes(release.toPath()));
+			}
+			if (modules.isFile()) {
+				try (RandomAccessFile file = new RandomAccessFile(modules, "r")) { //$NON-NLS-1$
+					byte[] header = new byte[(int) Math.min(JIMAGE_HEADER_SIZE, file.length())];
+					file.readFully(header);
+					crc.update(header);
+					updateFingerprint(crc, file.length());
+				}
+			}
+		}
+		catch (IOException e) {
+			LaunchingPlugin.log(e);
+		}
+		if (javaExecutable != null) {
+			updateFingerprint(crc, javaExecutable.length());
+		}
+		return Long.toHexString(crc.getValue());
+	}
+
+	private static void updateFingerprint(CRC32 crc, long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			crc.update((int) (value >>> shift));
 		}
-		return info;
 	}
 
 	/**
@@ -816,6 +963,7 @@ public class StandardVMType extends AbstractVMInstallType {
             LaunchingPlugin.setLibraryInfo(path, null);
             fgFailedInstallPath.remove(path);
             fgDefaultLibLocs.remove(path);
+            fgVerifiedInstallPath.remove(path);
 		}
 		super.disposeVMInstall(id);
 	}
@@ -876,7 +1024,7 @@ public class StandardVMType extends AbstractVMInstallType {
 		return null;
 	}
 
-	public synchronized String readReleaseVersion(File javaHome) {
+	public String readReleaseVersion(File javaHome) {
 
 		String version = ""; //$NON-NLS-1$
 
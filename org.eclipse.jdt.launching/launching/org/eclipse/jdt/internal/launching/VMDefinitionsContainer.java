@@ -24,6 +24,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -491,10 +492,28 @@ public class VMDefinitionsContainer {
 		String id = vmTypeElement.getAttribute("id");         //$NON-NLS-1$
 		IVMInstallType vmType= JavaRuntime.getVMInstallType(id);
 		if (vmType != null) {
-			// For each VM child node, populate the container with a subordinate node
 			NodeList vmNodeList = vmTypeElement.getElementsByTagName("vm"); //$NON-NLS-1$
+			Set<String> changedInstalls = new HashSet<>();
+			//only consider a VM changed it is a standard VM
+			if (StandardVMType.ID_STANDARD_VM_TYPE.equals(vmType.getId()) && vmType instanceof StandardVMType) {
+				// detect the library information of all installs up front and concurrently, the time stamps
+				// have to be checked first as detection records the new time stamps
+				List<File> installLocations = new ArrayList<>(vmNodeList.getLength());
+				for (int i = 0; i < vmNodeList.getLength(); ++i) {
+					String installPath = ((Element) vmNodeList.item(i)).getAttribute("path"); //$NON-NLS-1$
+					if (installPath.length() > 0) {
+						File installLocation = new File(installPath);
+						if (LaunchingPlugin.timeStampChanged(installLocation.getAbsolutePath())) {
+							changedInstalls.add(installLocation.getAbsolutePath());
+						}
+						installLocations.add(installLocation);
+					}
+				}
+				((StandardVMType) vmType).initializeLibraryInfos(installLocations);
+			}
+			// For each VM child node, populate the container with a subordinate node
 			for (int i = 0; i < vmNodeList.getLength(); ++i) {
-				populateVMForType(vmType, (Element) vmNodeList.item(i), container);
+				populateVMForType(vmType, (Element) vmNodeList.item(i), container, changedInstalls);
 			}
 		} else {
 			// status information for removed VMs (missing VM type)
@@ -526,8 +545,9 @@ public class VMDefinitionsContainer {
 	 * @param vmType VM type
 	 * @param vmElement XML element
 	 * @param container container to add VM to
+	 * @param changedInstalls the absolute install paths that have changed since the last session
 	 */
-	private static void populateVMForType(IVMInstallType vmType, Element vmElement, VMDefinitionsContainer container) {
+	private static void populateVMForType(IVMInstallType vmType, Element vmElement, VMDefinitionsContainer container, Set<String> changedInstalls) {
 		String id= vmElement.getAttribute("id"); //$NON-NLS-1$
 		if (id != null) {
 
@@ -555,9 +575,7 @@ public class VMDefinitionsContainer {
 			File installLocation= new File(installPath);
 			vmStandin.setInstallLocation(installLocation);
 			String install = installLocation.getAbsolutePath();
-			//only consider a VM changed it is a standard VM
-			boolean changed = StandardVMType.ID_STANDARD_VM_TYPE.equals(vmType.getId()) &&
-										LaunchingPlugin.timeStampChanged(install);
+			boolean changed = changedInstalls.contains(install);
 			container.addVM(vmStandin);
 
 			// Look for subordinate nodes.  These may be 'libraryLocation',
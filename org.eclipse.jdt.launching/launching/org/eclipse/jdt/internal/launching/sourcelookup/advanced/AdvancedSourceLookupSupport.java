@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015-2016 Igor Fedorenko
+ * Copyright (c) 2015-2020 Igor Fedorenko and others
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.launching.sourcelookup.advanced;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -46,6 +48,16 @@ public class AdvancedSourceLookupSupport {
 	private static volatile WorkspaceProjectSourceContainers workspaceProjects;
 	private static final Lock workspaceProjectsLock = new ReentrantLock();
 
+	/**
+	 * Name of the file hash index in the state location of the launching plugin, see {@link FileHashing#saveIndex(File)}.
+	 */
+	private static final String FILE_HASH_INDEX = "fileHashes.index"; //$NON-NLS-1$
+
+	/**
+	 * Whether the file hash index has been loaded, guarded by {@link #workspaceProjectsLock}.
+	 */
+	private static boolean fileHashIndexLoaded;
+
 	private AdvancedSourceLookupSupport() {
 	}
 
@@ -63,12 +75,22 @@ public class AdvancedSourceLookupSupport {
 				workspaceProjects.close();
 				workspaceProjects = null;
 			}
+			if (fileHashIndexLoaded) {
+				FileHashing.saveIndex(getFileHashIndex());
+			}
+		}
+		catch (IOException e) {
+			LaunchingPlugin.log(e);
 		}
 		finally {
 			workspaceProjectsLock.unlock();
 		}
 	}
 
+	private static File getFileHashIndex() {
+		return LaunchingPlugin.getDefault().getStateLocation().append(FILE_HASH_INDEX).toFile();
+	}
+
 	public static void schedule(IRunnableWithProgress task) {
 		backgroundJob.schedule(task);
 	}
@@ -102,6 +124,15 @@ public class AdvancedSourceLookupSupport {
 		// note that double-check locking is okay on java 5+ with volatile fields
 		try {
 			if (workspaceProjects == null) {
+				if (!fileHashIndexLoaded) {
+					fileHashIndexLoaded = true;
+					try {
+						FileHashing.loadIndex(getFileHashIndex());
+					}
+					catch (IOException e) {
+						LaunchingPlugin.log(e);
+					}
+				}
 				WorkspaceProjectSourceContainers _workspaceProjects = new WorkspaceProjectSourceContainers();
 				_workspaceProjects.initialize(monitor);
 
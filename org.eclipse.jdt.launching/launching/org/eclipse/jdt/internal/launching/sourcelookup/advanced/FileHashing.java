@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011-2016 Igor Fedorenko
+ * Copyright (c) 2011-2020 Igor Fedorenko and others
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,20 +13,39 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.launching.sourcelookup.advanced;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Helpers to compute file content digests. Provides long-lived hasher instance with bounded cache of most recently requested files, which is useful
  * to handle source lookup requests. Also provides factory of hasher instances with unbounded caches, which is useful to perform bulk workspace
  * indexing.
+ *
+ * <p>
+ * The digests of the long-lived hasher can be saved to and loaded from an index file, so that workspace indexing after a restart does not read
+ * unchanged jars again. Digests are keyed by canonical path, length and last modification time of the files.
  */
 public class FileHashing {
 
@@ -36,7 +55,18 @@ public class FileHashing {
 
 	// default hasher with bounded cache.
 	// this is used when performing source lookup and number of unique files requested during the same debugging session is likely to be small.
-	private static final HasherImpl HASHER = new HasherImpl(5000);
+	// bulk hashing results are added to this cache too, so they can be saved in the index.
+	private static final HasherImpl HASHER = new HasherImpl(20000);
+
+	/**
+	 * Index file format version, increment when the format changes.
+	 */
+	private static final int INDEX_VERSION = 1;
+
+	/**
+	 * Number of threads hashing files concurrently, see {@link #hashAll(Hasher, Collection)}.
+	 */
+	private static final int HASHING_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
 	/**
 	 * Returns default long-lived Hasher instance with bounded hash cache.
@@ -52,6 +82,136 @@ public class FileHashing {
 		return new HasherImpl(HASHER);
 	}
 
+	/**
+	 * Returns new Hasher instance with a cache of the given number of most recently requested files.
+	 */
+	public static Hasher newHasher(int cacheSize) {
+		return new HasherImpl(cacheSize);
+	}
+
+	/**
+	 * Hashes the given files on multiple threads, so that subsequent {@link Hasher#hash(File)} calls for these files return cached digests.
+	 */
+	public static void hashAll(Hasher hasher, Collection<File> files) {
+		if (files.size() < 2) {
+			files.forEach(hasher::hash);
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(HASHING_THREADS, files.size()), r -> {
+			Thread thread = new Thread(r, "File hashing"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<>(files.size());
+			for (File file : files) {
+				futures.add(executor.submit(() -> hasher.hash(file)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+			// hash(File) does not throw for unreadable files, remaining files are hashed on demand
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Adds the digests saved in the given index file to the cache of the long-lived hasher. Digests of files which have changed since are never
+	 * used, as the file length and last modification time are part of the key.
+	 */
+	public static void loadIndex(File indexFile) throws IOException {
+		loadIndex(HASHER, indexFile);
+	}
+
+	/**
+	 * Adds the digests saved in the given index file to the cache of the given hasher, as less recently requested than the digests already
+	 * cached. Only the most recently requested digests are kept if the index holds more digests than the cache.
+	 */
+	public static void loadIndex(Hasher hasher, File indexFile) throws IOException {
+		if (!indexFile.isFile()) {
+			return;
+		}
+		HasherImpl impl = (HasherImpl) hasher;
+		// saved in least recently requested order, the eldest entries are evicted while reading
+		Map<CacheKey, HashCode> entries = HasherImpl.newCache(impl.cacheSize);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				File file = new File(in.readUTF());
+				long length = in.readLong();
+				long lastModified = in.readLong();
+				byte[] bytes = new byte[in.readUnsignedByte()];
+				in.readFully(bytes);
+				entries.put(new CacheKey(file, length, lastModified), new HashCode(bytes));
+			}
+		}
+		catch (EOFException e) {
+			// truncated index, keep the entries read so far
+		}
+		synchronized (impl.cache) {
+			Map<CacheKey, HashCode> recent = new LinkedHashMap<>(impl.cache);
+			impl.cache.clear();
+			impl.cache.putAll(entries);
+			impl.cache.putAll(recent);
+		}
+	}
+
+	/**
+	 * Saves the digests of the files which still exist unchanged to the given index file.
+	 */
+	public static void saveIndex(File indexFile) throws IOException {
+		saveIndex(HASHER, indexFile);
+	}
+
+	/**
+	 * Saves the digests cached by the given hasher of the files which still exist unchanged to the given index file, in least recently
+	 * requested order.
+	 */
+	public static void saveIndex(Hasher hasher, File indexFile) throws IOException {
+		Map<CacheKey, HashCode> cache = ((HasherImpl) hasher).cache;
+		List<Map.Entry<CacheKey, HashCode>> entries;
+		synchronized (cache) {
+			entries = new ArrayList<>(cache.size());
+			for (Map.Entry<CacheKey, HashCode> entry : cache.entrySet()) {
+				entries.add(new SimpleEntry<>(entry.getKey(), entry.getValue()));
+			}
+		}
+		for (Iterator<Map.Entry<CacheKey, HashCode>> iterator = entries.iterator(); iterator.hasNext();) {
+			CacheKey key = iterator.next().getKey();
+			if (key.file.length() != key.length || key.file.lastModified() != key.lastModified) {
+				iterator.remove();
+			}
+		}
+		File tmpFile = new File(indexFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<CacheKey, HashCode> entry : entries) {
+				out.writeUTF(entry.getKey().file.getPath());
+				out.writeLong(entry.getKey().length);
+				out.writeLong(entry.getKey().lastModified);
+				out.writeByte(entry.getValue().bytes.length);
+				out.write(entry.getValue().bytes);
+			}
+		}
+		if (!tmpFile.renameTo(indexFile)) {
+			indexFile.delete();
+			if (!tmpFile.renameTo(indexFile)) {
+				throw new IOException("Could not write " + indexFile); //$NON-NLS-1$
+			}
+		}
+	}
+
 	private static class CacheKey {
 		public final File file;
 
@@ -65,6 +225,12 @@ public class FileHashing {
 			this.lastModified = file.lastModified();
 		}
 
+		CacheKey(File file, long length, long lastModified) {
+			this.file = file;
+			this.length = length;
+			this.lastModified = lastModified;
+		}
+
 		@Override
 		public int hashCode() {
 			int hash = 17;
@@ -126,9 +292,32 @@ public class FileHashing {
 
 		private final Map<CacheKey, HashCode> cache;
 
-		@SuppressWarnings("serial")
+		private final int cacheSize;
+
+		/**
+		 * The long-lived hasher, which also receives the digests computed by this hasher, or {@code null}
+		 */
+		private final HasherImpl shared;
+
 		public HasherImpl(int cacheSize) {
-			this.cache = new LinkedHashMap<CacheKey, HashCode>() {
+			this.cache = newCache(cacheSize);
+			this.cacheSize = cacheSize;
+			this.shared = null;
+		}
+
+		public HasherImpl(HasherImpl initial) {
+			synchronized (initial.cache) {
+				this.cache = new LinkedHashMap<>(initial.cache);
+			}
+			this.cacheSize = Integer.MAX_VALUE;
+			this.shared = initial;
+		}
+
+		/**
+		 * Returns a cache in access order, which evicts the least recently requested entry when it exceeds the given size.
+		 */
+		static Map<CacheKey, HashCode> newCache(int cacheSize) {
+			return new LinkedHashMap<CacheKey, HashCode>(16, 0.75f, true) {
 				@Override
 				protected boolean removeEldestEntry(Map.Entry<CacheKey, HashCode> eldest) {
 					return size() > cacheSize;
@@ -136,10 +325,6 @@ public class FileHashing {
 			};
 		}
 
-		public HasherImpl(HasherImpl initial) {
-			this.cache = new LinkedHashMap<>(initial.cache);
-		}
-
 		@Override
 		public Object hash(File file) {
 			if (file == null || !file.isFile()) {
@@ -153,10 +338,11 @@ public class FileHashing {
 						return hashCode;
 					}
 				}
-				// don't hold cache lock while hashing file
+				// don't hold cache lock while hashing file, concurrent requests for the same file may hash it twice
 				HashCode hashCode = sha1(file);
-				synchronized (cache) {
-					cache.put(cacheKey, hashCode);
+				put(cacheKey, hashCode);
+				if (shared != null) {
+					shared.put(cacheKey, hashCode);
 				}
 				return hashCode;
 			}
@@ -165,6 +351,12 @@ public class FileHashing {
 			}
 		}
 
+		private void put(CacheKey cacheKey, HashCode hashCode) {
+			synchronized (cache) {
+				cache.put(cacheKey, hashCode);
+			}
+		}
+
 	}
 
 	private static HashCode sha1(File file) throws IOException {
@@ -175,7 +367,8 @@ public class FileHashing {
 		catch (NoSuchAlgorithmException e) {
 			throw new IllegalStateException("Unsupported JVM", e); //$NON-NLS-1$
 		}
-		byte[] buf = new byte[4096];
+		// files are read with a large buffer instead of memory mapped, mapped files stay locked on Windows until the mapping is garbage collected
+		byte[] buf = new byte[64 * 1024];
 		try (InputStream is = new FileInputStream(file)) {
 			int len;
 			while ((len = is.read(buf)) > 0) {
@@ -22,13 +22,17 @@ import static org.eclipse.jdt.core.IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGE
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -189,30 +193,26 @@ public class WorkspaceProjectSourceContainers {
 		}
 	}
 
-	/**
-	 * Guards concurrent access to {@link #locations}, {@link #hashes} and {@link #projects}. Necessary because source lookup queries and java model
-	 * changes are processed on different threads.
-	 *
-	 * @TODO consider using ConcurrentMaps instead of explicit locking.
+	/*
+	 * The maps are concurrent because source lookup queries and java model changes are processed on different threads. The maps are updated
+	 * independently, a lookup during an update may see a project in one map but not yet in another.
 	 */
-	private final Object lock = new Object() {
-	};
 
 	/**
 	 * Maps project classes location to project description.
 	 */
-	private final Map<File, JavaProjectDescription> locations = new HashMap<>();
+	private final Map<File, JavaProjectDescription> locations = new ConcurrentHashMap<>();
 
 	/**
 	 * Maps project dependency hash to project descriptions. Hash-based source lookup is useful when runtime uses copies of jars used by the
 	 * workspace.
 	 */
-	private final Map<Object, Collection<JavaProjectDescription>> hashes = new HashMap<>();
+	private final Map<Object, Collection<JavaProjectDescription>> hashes = new ConcurrentHashMap<>();
 
 	/**
 	 * Maps java project to project description.
 	 */
-	private final Map<IJavaProject, JavaProjectDescription> projects = new HashMap<>();
+	private final Map<IJavaProject, JavaProjectDescription> projects = new ConcurrentHashMap<>();
 
 	/**
 	 * Creates and returns new source containers for the workspace project identified by the given location. Returns {@code null} if there is no such
@@ -244,17 +244,13 @@ public class WorkspaceProjectSourceContainers {
 	}
 
 	private JavaProjectDescription getProjectByLocation(File projectLocation) {
-		synchronized (lock) {
-			return locations.get(projectLocation);
-		}
+		return locations.get(projectLocation);
 	}
 
 	private Collection<JavaProjectDescription> getProjectsByHash(File projectLocation, FileHashing.Hasher hasher) {
-		Collection<JavaProjectDescription> projects;
-		synchronized (lock) {
-			projects = hashes.get(hasher.hash(projectLocation));
-			return projects != null ? new HashSet<>(projects) : Collections.emptySet();
-		}
+		Object hash = hasher.hash(projectLocation);
+		Collection<JavaProjectDescription> projects = hash != null ? hashes.get(hash) : null;
+		return projects != null ? new HashSet<>(projects) : Collections.emptySet();
 	}
 
 	/**
@@ -311,27 +307,41 @@ public class WorkspaceProjectSourceContainers {
 
 		SubMonitor progress = SubMonitor.convert(monitor, javaProjects.length);
 
-		// TODO this can take significant time for large workspaces, consider running on multiple threads
 		// NB: can't persist state across restarts because java element change events are not delivered when this plugin isn't active
+		// the digests of project dependencies are persisted by FileHashing though, which makes this fast after a restart
 
 		Hasher hasher = FileHashing.newHasher(); // short-lived hasher for bulk workspace indexing
 
-		List<IWorkspaceProjectDescriber> describers = getJavaProjectDescribers();
-		for (IJavaProject project : javaProjects) {
-			addJavaProject(project, describers, hasher, progress.split(1));
-		}
+		addJavaProjects(Arrays.asList(javaProjects), hasher, progress);
 	}
 
 	public void close() {
 		JavaCore.removeElementChangedListener(changeListener);
-		synchronized (lock) {
-			this.locations.clear();
-			this.hashes.clear();
-			this.projects.clear();
+		this.locations.clear();
+		this.hashes.clear();
+		this.projects.clear();
+	}
+
+	/**
+	 * Describes the given projects, hashes their locations and dependencies on multiple threads and then adds them.
+	 */
+	private void addJavaProjects(Collection<IJavaProject> javaProjects, FileHashing.Hasher hasher, SubMonitor progress) throws CoreException {
+		List<IWorkspaceProjectDescriber> describers = getJavaProjectDescribers();
+		Map<IJavaProject, JavaProjectDescriptionBuilder> builders = new LinkedHashMap<>();
+		Set<File> files = new LinkedHashSet<>();
+		for (IJavaProject project : javaProjects) {
+			JavaProjectDescriptionBuilder builder = describeJavaProject(project, describers);
+			builders.put(project, builder);
+			files.addAll(builder.locations);
+			files.addAll(builder.dependencyLocations.keySet());
+		}
+		FileHashing.hashAll(hasher, files);
+		for (Map.Entry<IJavaProject, JavaProjectDescriptionBuilder> entry : builders.entrySet()) {
+			addJavaProject(entry.getKey(), entry.getValue(), hasher, progress.split(1));
 		}
 	}
 
-	private void addJavaProject(IJavaProject project, List<IWorkspaceProjectDescriber> describers, FileHashing.Hasher hasher, IProgressMonitor monitor) throws CoreException {
+	private JavaProjectDescriptionBuilder describeJavaProject(IJavaProject project, List<IWorkspaceProjectDescriber> describers) throws CoreException {
 		if (project == null) {
 			throw new IllegalArgumentException();
 		}
@@ -342,13 +352,17 @@ public class WorkspaceProjectSourceContainers {
 			describer.describeProject(project, builder);
 		}
 
+		// make binary project support little easier to implement
+		builder.locations.forEach(location -> builder.dependencyLocations.remove(location));
+
+		return builder;
+	}
+
+	private void addJavaProject(IJavaProject project, JavaProjectDescriptionBuilder builder, FileHashing.Hasher hasher, IProgressMonitor monitor) {
 		Set<File> locations = builder.locations;
 		List<Supplier<ISourceContainer>> factories = builder.factories;
 		Map<File, IPackageFragmentRoot> dependencies = builder.dependencyLocations;
 
-		// make binary project support little easier to implement
-		locations.forEach(location -> dependencies.remove(location));
-
 		Set<Object> hashes = new HashSet<>();
 		locations.forEach(location -> {
 			Object hash = hasher.hash(location);
@@ -362,20 +376,13 @@ public class WorkspaceProjectSourceContainers {
 
 		JavaProjectDescription info = new JavaProjectDescription(locations, hashes, factories, dependencies, dependencyHashes);
 
-		synchronized (this.lock) {
-			for (File location : locations) {
-				this.locations.put(location, info);
-			}
-			for (Object hash : hashes) {
-				Collection<JavaProjectDescription> hashProjects = this.hashes.get(hash);
-				if (hashProjects == null) {
-					hashProjects = new HashSet<>();
-					this.hashes.put(hash, hashProjects);
-				}
-				hashProjects.add(info);
-			}
-			this.projects.put(project, info);
+		for (File location : locations) {
+			this.locations.put(location, info);
 		}
+		for (Object hash : hashes) {
+			this.hashes.computeIfAbsent(hash, h -> ConcurrentHashMap.newKeySet()).add(info);
+		}
+		this.projects.put(project, info);
 
 		SubMonitor.done(monitor);
 	}
@@ -406,21 +413,16 @@ public class WorkspaceProjectSourceContainers {
 		if (project == null) {
 			throw new IllegalArgumentException();
 		}
-		synchronized (lock) {
-			JavaProjectDescription description = projects.remove(project);
-			if (description != null) {
-				for (File location : description.classesLocations) {
-					locations.remove(location);
-				}
-				for (Object hash : description.classesLocationsHashes) {
-					Collection<JavaProjectDescription> hashProjects = hashes.get(hash);
-					if (hashProjects != null) {
-						hashProjects.remove(description);
-						if (hashProjects.isEmpty()) {
-							hashes.remove(hash);
-						}
-					}
-				}
+		JavaProjectDescription description = projects.remove(project);
+		if (description != null) {
+			for (File location : description.classesLocations) {
+				locations.remove(location, description);
+			}
+			for (Object hash : description.classesLocationsHashes) {
+				hashes.computeIfPresent(hash, (h, hashProjects) -> {
+					hashProjects.remove(description);
+					return hashProjects.isEmpty() ? null : hashProjects;
+				});
 			}
 		}
 	}
@@ -432,11 +434,8 @@ public class WorkspaceProjectSourceContainers {
 		for (IJavaProject project : remove) {
 			removeJavaProject(project);
 		}
-		List<IWorkspaceProjectDescriber> describers = getJavaProjectDescribers();
 		Hasher hasher = FileHashing.newHasher();
-		for (IJavaProject project : add) {
-			addJavaProject(project, describers, hasher, progress.split(1));
-		}
+		addJavaProjects(add, hasher, progress);
 	}
 
 }
@@ -392,6 +392,15 @@ public interface IJavaLaunchConfigurationConstants {
 	 */
 	public static final String ATTR_USE_CLASSPATH_ONLY_JAR = LaunchingPlugin.getUniqueIdentifier() + ".ATTR_USE_CLASSPATH_ONLY_JAR"; //$NON-NLS-1$
 
+	/**
+	 * Launch configuration attribute key. The value is a boolean specifying whether a dynamic class data sharing (AppCDS) archive should be
+	 * created on the first launch and reused by subsequent launches to reduce the startup time of the VM. The archive is recreated when the JRE or
+	 * the runtime classpath changes. Only honored for VMs of Java 13 or higher. Default value is <code>false</code>.
+	 *
+	 * @since 3.18
+	 */
+	public static final String ATTR_USE_CDS_ARCHIVE = LaunchingPlugin.getUniqueIdentifier() + ".ATTR_USE_CDS_ARCHIVE"; //$NON-NLS-1$
+
 	/**
 	 * Status code indicating a launch configuration does not specify a project when a project is required.
 	 */
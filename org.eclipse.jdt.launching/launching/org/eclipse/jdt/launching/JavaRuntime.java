@@ -84,6 +84,7 @@ import org.eclipse.jdt.internal.launching.JREContainerInitializer;
 import org.eclipse.jdt.internal.launching.JavaSourceLookupUtil;
 import org.eclipse.jdt.internal.launching.LaunchingMessages;
 import org.eclipse.jdt.internal.launching.LaunchingPlugin;
+import org.eclipse.jdt.internal.launching.RuntimeClasspathCache;
 import org.eclipse.jdt.internal.launching.RuntimeClasspathEntry;
 import org.eclipse.jdt.internal.launching.RuntimeClasspathEntryResolver;
 import org.eclipse.jdt.internal.launching.RuntimeClasspathProvider;
@@ -1653,6 +1654,24 @@ public final class JavaRuntime {
 	 * @since 2.0
 	 */
 	public static IRuntimeClasspathEntry[] resolveRuntimeClasspath(IRuntimeClasspathEntry[] entries, ILaunchConfiguration configuration) throws CoreException {
+		if (getClasspathProvider(configuration) == fgDefaultClasspathProvider && !isModularConfiguration(configuration)) {
+			// the default provider only depends on the workspace state tracked by the cache, modular resolution
+			// also depends on the build output (module-info.class) and is not cached
+			return RuntimeClasspathCache.getDefault().resolve(entries, configuration, () -> doResolveRuntimeClasspath(entries, configuration));
+		}
+		return doResolveRuntimeClasspath(entries, configuration);
+	}
+
+	/**
+	 * Resolves the given classpath, returning the resolved classpath
+	 * in the context of the given launch configuration.
+	 *
+	 * @param entries unresolved classpath
+	 * @param configuration launch configuration
+	 * @return resolved runtime classpath entries
+	 * @exception CoreException if unable to compute the classpath
+	 */
+	private static IRuntimeClasspathEntry[] doResolveRuntimeClasspath(IRuntimeClasspathEntry[] entries, ILaunchConfiguration configuration) throws CoreException {
 		if (isModularConfiguration(configuration)) {
 			IRuntimeClasspathEntry[] entries1 = getClasspathProvider(configuration).resolveClasspath(entries, configuration);
 			ArrayList<IRuntimeClasspathEntry> entries2 = new ArrayList<>(entries1.length);